@@ -13,6 +13,8 @@
  */
 package com.google.dart.command.analyze;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
@@ -21,6 +23,8 @@ import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.ErrorSeverity;
 import com.google.dart.engine.error.ErrorType;
+import com.google.dart.engine.internal.cache.AnalysisResultStore;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
 import com.google.dart.engine.internal.context.AnalysisOptionsImpl;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
@@ -37,22 +41,84 @@ import com.google.dart.engine.utilities.source.LineInfo;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Scans, parses, and analyzes a library.
  */
 public class AnalyzerImpl {
+  /**
+   * The interface {@code LibraryErrorListener} defines the behavior of objects that are notified of
+   * the errors in each library as soon as they have been computed.
+   */
+  public interface LibraryErrorListener {
+    /**
+     * Handle the errors that were computed for the given library. Invocations are made on the
+     * thread that is analyzing the libraries, in the order in which the libraries are analyzed,
+     * whether or not their errors are computed in parallel.
+     * 
+     * @param librarySource the source of the defining compilation unit of the library whose errors
+     *          were computed
+     * @param errors the errors in the compilation units of the library that have not already been
+     *          reported as part of another library
+     * @param lineInfoMap line information for each of the sources that have errors
+     */
+    public void errorsComputed(Source librarySource, List<AnalysisError> errors,
+        Map<Source, LineInfo> lineInfoMap);
+  }
+
+  /**
+   * Instances of the class {@code RecordingLibraryErrorListener} record the errors computed for a
+   * library so that they can be reported later, in the order in which the libraries are analyzed.
+   */
+  private static class RecordingLibraryErrorListener implements LibraryErrorListener {
+    private Source librarySource;
+    private List<AnalysisError> errors;
+    private Map<Source, LineInfo> lineInfoMap;
+
+    @Override
+    public void errorsComputed(Source librarySource, List<AnalysisError> errors,
+        Map<Source, LineInfo> lineInfoMap) {
+      this.librarySource = librarySource;
+      this.errors = errors;
+      this.lineInfoMap = lineInfoMap;
+    }
+
+    /**
+     * Pass the recorded errors to the given listener.
+     * 
+     * @param listener the listener to be notified of the recorded errors
+     */
+    public void reportTo(LibraryErrorListener listener) {
+      listener.errorsComputed(librarySource, errors, lineInfoMap);
+    }
+  }
+
   /**
    * The maximum number of sources for which AST structures should be kept in the cache.
    */
   private static final int MAX_CACHE_SIZE = 256;
 
+  /**
+   * The maximum number of sources for which AST structures should be kept in the cache of a context
+   * shared by several entry points. It is large so that the resolved AST structures are still
+   * available when their errors are computed.
+   */
+  private static final int MAX_SHARED_CACHE_SIZE = 4096;
+
   private static final HashMap<File, DirectoryBasedDartSdk> sdkMap = new HashMap<File, DirectoryBasedDartSdk>();
 
   /**
@@ -71,6 +137,16 @@ public class AnalyzerImpl {
 
   private DirectoryBasedDartSdk sdk;
 
+  /**
+   * The number of milliseconds spent resolving libraries during the most recent analysis.
+   */
+  private long resolvePhaseTime;
+
+  /**
+   * The number of milliseconds spent computing errors during the most recent analysis.
+   */
+  private long errorsPhaseTime;
+
   public AnalyzerImpl(AnalyzerOptions options) {
     this.options = options;
     this.sdk = getSdk(options.getDartSdkPath(), options.getUseDart2jsPaths());
@@ -110,6 +186,84 @@ public class AnalyzerImpl {
     return performAnalysis(context, librarySource, sourceFile, lineInfoMap, errors);
   }
 
+  /**
+   * Treats each of the {@code sourceFiles} as a top level library and analyzes them, and the
+   * libraries they reference, in a single context. All of the libraries are resolved first, then
+   * the errors of each library are computed, for several libraries at a time, and passed to the
+   * listener as soon as they are available. Each source is reported as part of one library only.
+   * <p>
+   * The package directory and pub directory used to resolve {@code package:} URI's are those of the
+   * first file.
+   * <p>
+   * If a results cache was specified, the results of analyzing every library whose contents, and
+   * the contents of everything it depends on, are unchanged since they were stored in the cache
+   * are reused in place of being computed.
+   * 
+   * @param sourceFiles the files to analyze
+   * @param listener the listener to be notified of the errors in each library
+   * @return the severity of the most severe error or warning
+   */
+  public ErrorSeverity analyze(List<File> sourceFiles, LibraryErrorListener listener)
+      throws IOException, AnalysisException {
+    if (sourceFiles.isEmpty()) {
+      throw new IllegalArgumentException("sourceFiles cannot be empty");
+    }
+
+    // create options for context
+    AnalysisOptionsImpl contextOptions = new AnalysisOptionsImpl();
+    contextOptions.setCacheSize(MAX_SHARED_CACHE_SIZE);
+    contextOptions.setHint(!options.getDisableHints());
+
+    if (options.getResultsCachePath() != null) {
+      return analyzeWithResultStore(sourceFiles, contextOptions, listener);
+    }
+
+    // prepare AnalysisContext
+    AnalysisContext context = AnalysisEngine.getInstance().createAnalysisContext();
+    context.setSourceFactory(createSourceFactory(sourceFiles.get(0)));
+    context.setAnalysisOptions(contextOptions);
+
+    // resolve the libraries
+    long startTime = System.currentTimeMillis();
+    Set<LibraryElement> libraries = new LinkedHashSet<LibraryElement>();
+    for (File sourceFile : sourceFiles) {
+      Source librarySource = getLibrarySource(context, sourceFile);
+      if (librarySource != null) {
+        LibraryElement library = context.computeLibraryElement(librarySource);
+        addLibrary(
+            library,
+            libraries,
+            new HashSet<CompilationUnitElement>(),
+            new HashSet<Source>());
+      }
+    }
+    resolvePhaseTime = System.currentTimeMillis() - startTime;
+
+    // compute and report the errors
+    startTime = System.currentTimeMillis();
+    ErrorSeverity severity = computeErrors(context, libraries, listener);
+    errorsPhaseTime = System.currentTimeMillis() - startTime;
+    return severity;
+  }
+
+  /**
+   * Return the number of milliseconds spent computing errors during the most recent analysis.
+   * 
+   * @return the number of milliseconds spent computing errors
+   */
+  public long getErrorsPhaseTime() {
+    return errorsPhaseTime;
+  }
+
+  /**
+   * Return the number of milliseconds spent resolving libraries during the most recent analysis.
+   * 
+   * @return the number of milliseconds spent resolving libraries
+   */
+  public long getResolvePhaseTime() {
+    return resolvePhaseTime;
+  }
+
   protected ErrorSeverity getMaxErrorSeverity(List<AnalysisError> errors) {
     ErrorSeverity status = ErrorSeverity.NONE;
 
@@ -133,17 +287,27 @@ public class AnalyzerImpl {
     }
 
     // analyze Source
+    long startTime = System.currentTimeMillis();
     LibraryElement library = context.computeLibraryElement(librarySource);
     context.resolveCompilationUnit(librarySource, library);
+    resolvePhaseTime = System.currentTimeMillis() - startTime;
 
     // prepare errors
-    Set<Source> sources = getAllSources(library);
-    getAllErrors(context, sources, errors, lineInfoMap);
-    filterOutTodos(errors);
-    if (options.getDisableHints()) {
-      filterOutHints(errors);
-    }
-    return getMaxErrorSeverity(errors);
+    startTime = System.currentTimeMillis();
+    Set<LibraryElement> libraries = new LinkedHashSet<LibraryElement>();
+    addLibrary(library, libraries, new HashSet<CompilationUnitElement>(), new HashSet<Source>());
+    final List<AnalysisError> allErrors = errors;
+    final Map<Source, LineInfo> allLineInfo = lineInfoMap;
+    ErrorSeverity severity = computeErrors(context, libraries, new LibraryErrorListener() {
+      @Override
+      public void errorsComputed(Source librarySource, List<AnalysisError> errors,
+          Map<Source, LineInfo> lineInfoMap) {
+        allErrors.addAll(errors);
+        allLineInfo.putAll(lineInfoMap);
+      }
+    });
+    errorsPhaseTime = System.currentTimeMillis() - startTime;
+    return severity;
   }
 
   Set<Source> getAllSources(LibraryElement library) {
@@ -204,6 +368,287 @@ public class AnalyzerImpl {
     }
   }
 
+  /**
+   * Add the given library, and the libraries it imports and exports, to the given set of libraries
+   * whose errors are to be reported. Unlike {@link #addLibrary(LibraryElement, Set, Set, Set)} this
+   * only requires the libraries to be parsed, which can be avoided when their results are stored.
+   */
+  private void addLibrary(AnalysisContextImpl context, Source librarySource, Set<Source> libraries)
+      throws AnalysisException {
+    if (libraries.contains(librarySource) || !context.exists(librarySource)) {
+      return;
+    }
+
+    UriKind uriKind = librarySource.getUriKind();
+
+    // Optionally skip package: libraries.
+    if (!options.getShowPackageWarnings() && uriKind == UriKind.PACKAGE_URI) {
+      return;
+    }
+
+    // Optionally skip SDK libraries.
+    if (!options.getShowSdkWarnings() && uriKind == UriKind.DART_URI) {
+      return;
+    }
+
+    libraries.add(librarySource);
+
+    // add referenced libraries
+    for (Source child : context.computeImportedLibraries(librarySource)) {
+      addLibrary(context, child, libraries);
+    }
+
+    for (Source child : context.computeExportedLibraries(librarySource)) {
+      addLibrary(context, child, libraries);
+    }
+  }
+
+  /**
+   * Add the source of the given compilation unit to the given list, unless it has already been
+   * claimed by another library.
+   */
+  private void addSource(CompilationUnitElement unit, Set<Source> claimedSources,
+      List<Source> sources) {
+    if (unit != null && claimedSources.add(unit.getSource())) {
+      sources.add(unit.getSource());
+    }
+  }
+
+  /**
+   * Analyze the given files in a context whose results are kept in the results cache. Only the
+   * libraries whose results could not be taken from the cache are resolved. Because they are
+   * resolved as their errors are computed, the errors are computed one library at a time.
+   * 
+   * @param sourceFiles the files to analyze
+   * @param contextOptions the options used to analyze the files
+   * @param listener the listener to be notified of the errors in each library
+   * @return the severity of the most severe error or warning
+   */
+  private ErrorSeverity analyzeWithResultStore(List<File> sourceFiles,
+      AnalysisOptionsImpl contextOptions, LibraryErrorListener listener) throws IOException,
+      AnalysisException {
+    AnalysisResultStore store = new AnalysisResultStore(
+        options.getResultsCachePath(),
+        getResultStoreVersion(sourceFiles.get(0)));
+    try {
+      AnalysisContextImpl context = new AnalysisContextImpl();
+      context.setSourceFactory(createSourceFactory(sourceFiles.get(0)));
+      context.setAnalysisOptions(contextOptions);
+      context.setResultStore(store);
+
+      // find the libraries and their parts
+      long startTime = System.currentTimeMillis();
+      Set<Source> libraries = new LinkedHashSet<Source>();
+      for (File sourceFile : sourceFiles) {
+        Source librarySource = getLibrarySource(context, sourceFile);
+        if (librarySource != null) {
+          addLibrary(context, librarySource, libraries);
+        }
+      }
+      Set<Source> claimedSources = new HashSet<Source>();
+      List<Source> libraryList = new ArrayList<Source>();
+      List<List<Source>> sourceLists = new ArrayList<List<Source>>();
+      for (Source librarySource : libraries) {
+        List<Source> sources = new ArrayList<Source>();
+        if (claimedSources.add(librarySource)) {
+          sources.add(librarySource);
+        }
+        for (Source partSource : context.computeIncludedParts(librarySource)) {
+          if (claimedSources.add(partSource)) {
+            sources.add(partSource);
+          }
+        }
+        libraryList.add(librarySource);
+        sourceLists.add(sources);
+      }
+      resolvePhaseTime = System.currentTimeMillis() - startTime;
+
+      // compute and report the errors
+      startTime = System.currentTimeMillis();
+      ErrorSeverity severity = ErrorSeverity.NONE;
+      for (int i = 0; i < libraryList.size(); i++) {
+        severity = severity.max(computeErrors(
+            context,
+            libraryList.get(i),
+            sourceLists.get(i),
+            listener));
+      }
+      errorsPhaseTime = System.currentTimeMillis() - startTime;
+      return severity;
+    } finally {
+      store.close();
+    }
+  }
+
+  /**
+   * Compute the errors in the sources of the given libraries and pass them to the given listener,
+   * one library at a time. The errors of up to {@link AnalyzerOptions#getJobCount()} libraries are
+   * computed in parallel.
+   * 
+   * @param context the context in which the libraries have been resolved
+   * @param libraries the libraries whose errors are to be computed
+   * @param listener the listener to be notified of the errors in each library
+   * @return the severity of the most severe error or warning
+   */
+  private ErrorSeverity computeErrors(final AnalysisContext context, Set<LibraryElement> libraries,
+      final LibraryErrorListener listener) throws AnalysisException {
+    // Decide up front which library each source is reported with, so that a part included in
+    // several libraries is only reported once.
+    Set<Source> claimedSources = new HashSet<Source>();
+    List<Source> libraryList = new ArrayList<Source>();
+    List<List<Source>> sourceLists = new ArrayList<List<Source>>();
+    for (LibraryElement library : libraries) {
+      List<Source> sources = new ArrayList<Source>();
+      addSource(library.getDefiningCompilationUnit(), claimedSources, sources);
+      for (CompilationUnitElement part : library.getParts()) {
+        addSource(part, claimedSources, sources);
+      }
+      libraryList.add(library.getSource());
+      sourceLists.add(sources);
+    }
+    return computeErrors(context, libraryList, sourceLists, listener);
+  }
+
+  /**
+   * Compute the errors in the given lists of sources and pass them to the given listener, one
+   * library at a time. The errors of up to {@link AnalyzerOptions#getJobCount()} libraries are
+   * computed in parallel, but only if all of the sources are resolved and will stay in the cache
+   * while their errors are computed; otherwise the errors are computed serially.
+   * 
+   * @param context the context in which the libraries have been resolved
+   * @param libraryList the sources of the libraries whose errors are to be computed
+   * @param sourceLists the sources whose errors are to be reported with each of the libraries
+   * @param listener the listener to be notified of the errors in each library
+   * @return the severity of the most severe error or warning
+   */
+  private ErrorSeverity computeErrors(final AnalysisContext context, List<Source> libraryList,
+      List<List<Source>> sourceLists, LibraryErrorListener listener) throws AnalysisException {
+    ErrorSeverity severity = ErrorSeverity.NONE;
+    int jobCount = Math.min(options.getJobCount(), libraryList.size());
+    if (jobCount > 1 && !areResolvedUnitsCached(context, libraryList, sourceLists)) {
+      // Computing the errors of a unit whose resolved AST was flushed resolves its library again,
+      // and libraries cannot safely be resolved concurrently.
+      jobCount = 1;
+    }
+    if (jobCount <= 1) {
+      for (int i = 0; i < libraryList.size(); i++) {
+        severity = severity.max(computeErrors(
+            context,
+            libraryList.get(i),
+            sourceLists.get(i),
+            listener));
+      }
+      return severity;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(jobCount, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "Analyzer errors");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    try {
+      List<Future<ErrorSeverity>> futures = new ArrayList<Future<ErrorSeverity>>();
+      List<RecordingLibraryErrorListener> recorders =
+          new ArrayList<RecordingLibraryErrorListener>();
+      for (int i = 0; i < libraryList.size(); i++) {
+        final Source librarySource = libraryList.get(i);
+        final List<Source> sources = sourceLists.get(i);
+        final RecordingLibraryErrorListener recorder = new RecordingLibraryErrorListener();
+        recorders.add(recorder);
+        futures.add(executor.submit(new Callable<ErrorSeverity>() {
+          @Override
+          public ErrorSeverity call() throws AnalysisException {
+            return computeErrors(context, librarySource, sources, recorder);
+          }
+        }));
+      }
+      // Report the libraries in order, each as soon as it and the libraries before it are done.
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          severity = severity.max(futures.get(i).get());
+          recorders.get(i).reportTo(listener);
+        } catch (InterruptedException exception) {
+          throw new AnalysisException("Interrupted while computing errors", exception);
+        } catch (ExecutionException exception) {
+          Throwable cause = exception.getCause();
+          if (cause instanceof AnalysisException) {
+            throw (AnalysisException) cause;
+          } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          } else if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new AnalysisException("Could not compute errors", cause);
+        }
+      }
+      return severity;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Compute the errors in the given sources of the given library and pass them to the given
+   * listener.
+   * 
+   * @return the severity of the most severe error or warning
+   */
+  private ErrorSeverity computeErrors(AnalysisContext context, Source librarySource,
+      List<Source> sources, LibraryErrorListener listener) throws AnalysisException {
+    List<AnalysisError> errors = new ArrayList<AnalysisError>();
+    Map<Source, LineInfo> lineInfoMap = new HashMap<Source, LineInfo>();
+    for (Source source : sources) {
+      AnalysisError[] sourceErrors = context.computeErrors(source);
+      if (sourceErrors.length > 0) {
+        errors.addAll(Arrays.asList(sourceErrors));
+        LineInfo lineInfo = context.getLineInfo(source);
+        if (lineInfo == null) {
+          lineInfo = new LineInfo(new int[] {0});
+        }
+        lineInfoMap.put(source, lineInfo);
+      }
+    }
+    filterOutTodos(errors);
+    if (options.getDisableHints()) {
+      filterOutHints(errors);
+    }
+    listener.errorsComputed(librarySource, errors, lineInfoMap);
+    return getMaxErrorSeverity(errors);
+  }
+
+  /**
+   * Return {@code true} if the resolved AST structures of all of the given sources are in the cache
+   * of the given context, and the cache is large enough that computing their errors will not cause
+   * any of them to be flushed.
+   * 
+   * @param context the context in which the libraries have been resolved
+   * @param libraryList the sources of the libraries whose errors are to be computed
+   * @param sourceLists the sources whose errors are to be reported with each of the libraries
+   * @return {@code true} if the errors of the sources can be computed without resolving them again
+   */
+  private boolean areResolvedUnitsCached(AnalysisContext context, List<Source> libraryList,
+      List<List<Source>> sourceLists) {
+    int sourceCount = 0;
+    for (List<Source> sources : sourceLists) {
+      sourceCount += sources.size();
+    }
+    if (sourceCount > context.getAnalysisOptions().getCacheSize()) {
+      return false;
+    }
+    for (int i = 0; i < libraryList.size(); i++) {
+      Source librarySource = libraryList.get(i);
+      for (Source source : sourceLists.get(i)) {
+        if (context.getResolvedCompilationUnit(source, librarySource) == null) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
   /**
    * Create the source factory to be used in the analysis context.
    * 
@@ -251,19 +696,18 @@ public class AnalyzerImpl {
     }
   }
 
-  private void getAllErrors(AnalysisContext context, Set<Source> sources,
-      List<AnalysisError> errors, Map<Source, LineInfo> lineInfoMap) throws AnalysisException {
-    for (Source source : sources) {
-      AnalysisError[] sourceErrors = context.computeErrors(source);
-      if (sourceErrors.length > 0) {
-        errors.addAll(Arrays.asList(sourceErrors));
-        LineInfo lineInfo = context.getLineInfo(source);
-        if (lineInfo == null) {
-          lineInfo = new LineInfo(new int[] {0});
-        }
-        lineInfoMap.put(source, lineInfo);
-      }
+  /**
+   * Return the source of the library defined by the given file, or {@code null} if the file is a
+   * part and can not be analyzed.
+   */
+  private Source getLibrarySource(AnalysisContext context, File sourceFile) {
+    sourceFile = sourceFile.getAbsoluteFile();
+    Source librarySource = new FileBasedSource(sourceFile, getUriKind(sourceFile));
+    if (context.computeKindOf(librarySource) == SourceKind.PART) {
+      System.err.println(sourceFile + " is a part and can not be analyzed.");
+      return null;
     }
+    return librarySource;
   }
 
   /**
@@ -325,6 +769,41 @@ public class AnalyzerImpl {
     return new File(System.getProperty("user.dir"));
   }
 
+  /**
+   * Return a string identifying the configuration used to analyze the given file. The results in
+   * the results cache are only used if they were stored with the same configuration, because
+   * neither the SDK nor the way {@code package:} URI's are resolved is covered by the hashes of the
+   * contents from which the results were computed.
+   * 
+   * @param sourceFile the first file to be analyzed
+   * @return a string identifying the configuration used to analyze the file
+   */
+  private String getResultStoreVersion(File sourceFile) throws IOException {
+    StringBuilder builder = new StringBuilder();
+    builder.append(AnalyzerMain.getBuildVersion());
+    builder.append(' ').append(sdk.getDirectory().getAbsolutePath());
+    builder.append(' ').append(sdk.getSdkVersion());
+    builder.append(' ').append(options.getUseDart2jsPaths());
+    if (options.getUsePackageMap()) {
+      File lockFile = new File(getPubDir(sourceFile), "pubspec.lock");
+      if (lockFile.exists()) {
+        builder.append(' ').append(
+            AnalysisResultStore.computeContentHash(Files.toString(lockFile, Charsets.UTF_8)));
+      }
+    } else {
+      File packageDirectory = getPackageDirectory(sourceFile);
+      File[] packages = packageDirectory == null ? null : packageDirectory.listFiles();
+      if (packages != null) {
+        Arrays.sort(packages);
+        for (File packageFile : packages) {
+          builder.append(' ').append(packageFile.getName()).append('=');
+          builder.append(packageFile.getCanonicalPath());
+        }
+      }
+    }
+    return AnalysisResultStore.computeContentHash(builder);
+  }
+
   /**
    * Returns the {@link UriKind} for the given input file. Usually {@link UriKind#FILE_URI}, but if
    * the given file is located in the "lib" directory of the {@link #sdk}, then returns
@@ -13,6 +13,7 @@
  */
 package com.google.dart.command.analyze;
 
+import com.google.dart.command.analyze.AnalyzerImpl.LibraryErrorListener;
 import com.google.dart.command.analyze.BatchRunner.BatchRunnerInvocation;
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.context.AnalysisException;
@@ -20,6 +21,10 @@ import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.ErrorSeverity;
 import com.google.dart.engine.internal.context.PerformanceStatistics;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.general.TimeCounter;
+import com.google.dart.engine.utilities.instrumentation.AnalysisProfiler;
+import com.google.dart.engine.utilities.instrumentation.AnalysisProfiler.SourceProfile;
+import com.google.dart.engine.utilities.instrumentation.AnalysisProfiler.TaskRecord;
 import com.google.dart.engine.utilities.source.LineInfo;
 
 import java.io.File;
@@ -53,6 +58,11 @@ public class AnalyzerMain {
     new AnalyzerMain().run(args);
   }
 
+  /**
+   * The number of files and libraries listed by {@link #showSlowestSources()}.
+   */
+  private static final int SLOWEST_SOURCE_COUNT = 10;
+
   /**
    * Return the return code appropriate for the given severity.
    * 
@@ -169,23 +179,35 @@ public class AnalyzerMain {
    */
   protected ErrorSeverity runAnalyzer(AnalyzerOptions options) throws IOException,
       AnalysisException {
-    File sourceFile = new File(options.getSourceFile());
+    List<File> sourceFiles = new ArrayList<File>();
 
-    if (!sourceFile.exists()) {
-      System.out.println("File not found: " + sourceFile);
-      System.out.println();
-      showUsage(System.out);
-      return ErrorSeverity.ERROR;
+    for (String sourceFilePath : options.getSourceFiles()) {
+      File sourceFile = new File(sourceFilePath);
+
+      if (!sourceFile.exists()) {
+        System.out.println("File not found: " + sourceFile);
+        System.out.println();
+        showUsage(System.out);
+        return ErrorSeverity.ERROR;
+      }
+
+      // TODO: also support analyzing html files (via AnalysisEngine.isHtmlFileName())
+      if (!AnalysisEngine.isDartFileName(sourceFile.getName())) {
+        System.out.println(sourceFile + " is not a Dart file");
+        System.out.println();
+        showUsage(System.out);
+        return ErrorSeverity.ERROR;
+      }
+
+      sourceFiles.add(sourceFile);
     }
 
-    // TODO: also support analyzing html files (via AnalysisEngine.isHtmlFileName())
-    if (!AnalysisEngine.isDartFileName(sourceFile.getName())) {
-      System.out.println(sourceFile + " is not a Dart file");
-      System.out.println();
-      showUsage(System.out);
-      return ErrorSeverity.ERROR;
+    if (sourceFiles.size() > 1 || options.getResultsCachePath() != null) {
+      return runAnalyzer(options, sourceFiles);
     }
 
+    File sourceFile = sourceFiles.get(0);
+
     List<AnalysisError> errors = new ArrayList<AnalysisError>();
     Map<Source, LineInfo> lineInfoMap = new HashMap<Source, LineInfo>();
 
@@ -194,6 +216,12 @@ public class AnalyzerMain {
 
     formatter.startAnalysis();
 
+    AnalysisProfiler profiler = AnalysisProfiler.getInstance();
+    if (options.getPerf() || options.getWarmPerf()) {
+      profiler.clear();
+      profiler.setEnabled(true);
+    }
+
     if (options.getWarmPerf()) {
       long startTime = System.currentTimeMillis();
       AnalyzerImpl analyzer = newAnalyzer(options);
@@ -206,14 +234,19 @@ public class AnalyzerMain {
       }
 
       PerformanceStatistics.reset();
+      profiler.clear();
       startTime = System.currentTimeMillis();
       analyzer = newAnalyzer(options);
       ErrorSeverity status = analyzer.analyze(sourceFile, errors, lineInfoMap);
+      long formatStartTime = System.currentTimeMillis();
       formatter.formatErrors(errors);
+      long formatTime = System.currentTimeMillis() - formatStartTime;
       if (status.equals(ErrorSeverity.WARNING) && options.getWarningsAreFatal()) {
         status = ErrorSeverity.ERROR;
       }
       showPerformanceResults(startTime, "");
+      showPhaseResults(analyzer, formatTime);
+      showSlowestSources();
       return status;
     }
 
@@ -221,7 +254,61 @@ public class AnalyzerMain {
     AnalyzerImpl analyzer = newAnalyzer(options);
     ErrorSeverity status = analyzer.analyze(sourceFile, errors, lineInfoMap);
 
+    long formatStartTime = System.currentTimeMillis();
     formatter.formatErrors(errors);
+    long formatTime = System.currentTimeMillis() - formatStartTime;
+
+    if (status.equals(ErrorSeverity.WARNING) && options.getWarningsAreFatal()) {
+      status = ErrorSeverity.ERROR;
+    }
+
+    if (options.getPerf()) {
+      showPerformanceResults(startTime, "");
+      showPhaseResults(analyzer, formatTime);
+      showSlowestSources();
+    }
+
+    return status;
+  }
+
+  /**
+   * Invoke the analyzer to analyze several libraries in a single context, printing the errors of
+   * each library as soon as they have been computed.
+   * 
+   * @param options parsed command line arguments
+   * @param sourceFiles the defining compilation units of the libraries to be analyzed
+   * @return the severity of the most severe error or warning
+   */
+  protected ErrorSeverity runAnalyzer(AnalyzerOptions options, List<File> sourceFiles)
+      throws IOException, AnalysisException {
+    final Map<Source, LineInfo> lineInfoMap = new HashMap<Source, LineInfo>();
+
+    final ErrorFormatter formatter = new ErrorFormatter(options.getMachineFormat() ? System.err
+        : System.out, options, lineInfoMap);
+
+    formatter.startAnalysis();
+
+    AnalysisProfiler profiler = AnalysisProfiler.getInstance();
+    if (options.getPerf()) {
+      profiler.clear();
+      profiler.setEnabled(true);
+    }
+
+    long startTime = System.currentTimeMillis();
+    final long[] formatTime = {0L};
+    AnalyzerImpl analyzer = newAnalyzer(options);
+    ErrorSeverity status = analyzer.analyze(sourceFiles, new LibraryErrorListener() {
+      @Override
+      public void errorsComputed(Source librarySource, List<AnalysisError> errors,
+          Map<Source, LineInfo> libraryLineInfoMap) {
+        long formatStartTime = System.currentTimeMillis();
+        lineInfoMap.putAll(libraryLineInfoMap);
+        formatter.formatLibraryErrors(errors);
+        formatTime[0] += System.currentTimeMillis() - formatStartTime;
+      }
+    });
+
+    formatter.formatSummary();
 
     if (status.equals(ErrorSeverity.WARNING) && options.getWarningsAreFatal()) {
       status = ErrorSeverity.ERROR;
@@ -229,11 +316,27 @@ public class AnalyzerMain {
 
     if (options.getPerf()) {
       showPerformanceResults(startTime, "");
+      showPhaseResults(analyzer, formatTime[0]);
+      showSlowestSources();
     }
 
     return status;
   }
 
+  /**
+   * Print the wall-clock time of each phase of the most recent analysis performed by the given
+   * analyzer. Unlike the times printed by {@link #showPerformanceResults(long, String)}, which are
+   * summed over all of the threads that performed analysis tasks, these are elapsed times.
+   * 
+   * @param analyzer the analyzer that performed the analysis
+   * @param formatTime the number of milliseconds spent formatting the errors
+   */
+  protected void showPhaseResults(AnalyzerImpl analyzer, long formatTime) {
+    System.out.println("resolve-phase:" + analyzer.getResolvePhaseTime());
+    System.out.println("errors-phase:" + analyzer.getErrorsPhaseTime());
+    System.out.println("format-phase:" + formatTime);
+  }
+
   protected void showPerformanceResults(long startTime, String suffix) {
     long totalTime = System.currentTimeMillis() - startTime;
     long ioTime = PerformanceStatistics.io.getResult();
@@ -260,8 +363,46 @@ public class AnalyzerMain {
     System.out.println("tota" + suffix + "l:" + totalTime);
   }
 
+  /**
+   * Print the files and libraries that took the longest to analyze, as recorded by the
+   * {@link AnalysisProfiler}.
+   */
+  protected void showSlowestSources() {
+    TaskRecord[] records = AnalysisProfiler.getInstance().getRecords();
+    showSlowestSources(
+        "files",
+        AnalysisProfiler.getSlowestSources(records, SLOWEST_SOURCE_COUNT, false));
+    showSlowestSources(
+        "libraries",
+        AnalysisProfiler.getSlowestSources(records, SLOWEST_SOURCE_COUNT, true));
+  }
+
+  private void showSlowestSources(String kind, SourceProfile[] profiles) {
+    if (profiles.length == 0) {
+      return;
+    }
+    System.out.println("slowest " + kind + ":");
+    for (SourceProfile profile : profiles) {
+      StringBuilder builder = new StringBuilder();
+      builder.append("  ");
+      builder.append(profile.getDurationNanos() / TimeCounter.NANOS_PER_MILLI);
+      builder.append("ms");
+      long allocatedBytes = profile.getAllocatedBytes();
+      if (allocatedBytes >= 0) {
+        builder.append(", ");
+        builder.append(allocatedBytes / 1024);
+        builder.append("kb");
+      }
+      builder.append(", ");
+      builder.append(profile.getTaskCount());
+      builder.append(" tasks: ");
+      builder.append(profile.getSource().getFullName());
+      System.out.println(builder.toString());
+    }
+  }
+
   private void showUsage(PrintStream out) {
-    out.println("Usage: " + getProgramName() + " [<options>] <dart-script>");
+    out.println("Usage: " + getProgramName() + " [<options>] <dart-script> [<dart-script>...]");
     out.println();
     out.println("Options:");
     AnalyzerOptions.printUsage(out);
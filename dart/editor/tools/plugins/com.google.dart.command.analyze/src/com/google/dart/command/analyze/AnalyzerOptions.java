@@ -194,8 +194,19 @@ public class AnalyzerOptions {
   // usage = "Print both cold and warm performance statistics") // don't show in help
   private boolean warmPerf = false;
 
-  @Argument
-  private final String sourceFile = null;
+  @Option(name = "--jobs", //
+  aliases = {"-j"}, //
+  metaVar = "<count>", //
+  usage = "The number of libraries whose errors are computed in parallel")
+  private int jobCount = 1;
+
+  @Option(name = "--results-cache", //
+  metaVar = "<file>", //
+  usage = "A file in which analysis results are kept between runs")
+  private File resultsCachePath = null;
+
+  @Argument(multiValued = true)
+  private final List<String> sourceFiles = new ArrayList<String>();
 
   public AnalyzerOptions() {
     super();
@@ -220,6 +231,15 @@ public class AnalyzerOptions {
     return machineFormat || outputFormat == AnalyzerOutputFormat.MACHINE;
   }
 
+  /**
+   * Return the number of libraries whose errors are computed in parallel.
+   * 
+   * @return the number of libraries whose errors are computed in parallel
+   */
+  public int getJobCount() {
+    return jobCount;
+  }
+
   /**
    * @return the package-root path, if specified
    */
@@ -234,6 +254,16 @@ public class AnalyzerOptions {
     return perf;
   }
 
+  /**
+   * Return the file in which analysis results are kept between runs, or {@code null} if results
+   * should not be kept.
+   * 
+   * @return the file in which analysis results are kept between runs
+   */
+  public File getResultsCachePath() {
+    return resultsCachePath;
+  }
+
   /**
    * @return whether SDK warnings should be reported
    */
@@ -256,10 +286,17 @@ public class AnalyzerOptions {
   }
 
   /**
-   * Returns the file passed to the analyzer.
+   * Returns the first file passed to the analyzer, or {@code null} if no files were passed.
    */
   public String getSourceFile() {
-    return sourceFile;
+    return sourceFiles.isEmpty() ? null : sourceFiles.get(0);
+  }
+
+  /**
+   * Returns the files passed to the analyzer.
+   */
+  public List<String> getSourceFiles() {
+    return sourceFiles;
   }
 
   /**
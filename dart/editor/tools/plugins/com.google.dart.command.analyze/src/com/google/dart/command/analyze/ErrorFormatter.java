@@ -79,6 +79,12 @@ public class ErrorFormatter {
 
   private Map<Source, LineInfo> lineInfoMap;
 
+  private int errorCount = 0;
+
+  private int warnCount = 0;
+
+  private int hintCount = 0;
+
   public ErrorFormatter(PrintStream out, AnalyzerOptions options, Map<Source, LineInfo> lineInfoMap) {
     this.out = out;
     this.options = options;
@@ -118,14 +124,27 @@ public class ErrorFormatter {
     }
   }
 
+  /**
+   * Format the given errors, followed by a summary of the number of errors of each kind.
+   * 
+   * @param errors the errors to be formatted
+   */
   public void formatErrors(List<AnalysisError> errors) {
+    formatLibraryErrors(errors);
+    formatSummary();
+  }
+
+  /**
+   * Format the given errors, which are typically those of one library, sorted by severity, file
+   * path and file location. The errors are included in the counts printed by
+   * {@link #formatSummary()}.
+   * 
+   * @param errors the errors to be formatted
+   */
+  public void formatLibraryErrors(List<AnalysisError> errors) {
     // Sort by severity, file path, and file location.
     Collections.sort(errors, new AnalysisErrorComparator());
 
-    int errorCount = 0;
-    int warnCount = 0;
-    int hintCount = 0;
-
     for (AnalysisError error : errors) {
       ErrorSeverity severity = error.getErrorCode().getErrorSeverity();
       if (severity.equals(ErrorSeverity.ERROR)) {
@@ -146,7 +165,12 @@ public class ErrorFormatter {
 
       formatError(error);
     }
+  }
 
+  /**
+   * Print the number of errors of each kind that have been formatted.
+   */
+  public void formatSummary() {
     if (!options.getMachineFormat()) {
       StringBuffer buf = new StringBuffer();
 
@@ -184,7 +208,12 @@ public class ErrorFormatter {
 
   public void startAnalysis() {
     if (!options.getMachineFormat()) {
-      out.println("Analyzing " + options.getSourceFile() + "...");
+      List<String> sourceFiles = options.getSourceFiles();
+      if (sourceFiles.size() > 1) {
+        out.println("Analyzing " + sourceFiles.size() + " libraries...");
+      } else {
+        out.println("Analyzing " + options.getSourceFile() + "...");
+      }
     }
   }
 
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.command.analyze;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.dart.command.analyze.AnalyzerImpl.LibraryErrorListener;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.ErrorSeverity;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.io.FileUtilities2;
+import com.google.dart.engine.utilities.source.LineInfo;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class AnalyzerImplTest extends TestCase {
+  /**
+   * The directory containing the libraries being analyzed.
+   */
+  private File directory;
+
+  public void test_analyze_multipleFiles() throws Exception {
+    List<String> expected = analyzeMultipleFiles(1);
+    assertEquals(Arrays.asList(
+        "a.dart: a.dart:1, p.dart:1",
+        "c.dart: c.dart:1",
+        "b.dart: b.dart:1",
+        "d.dart: d.dart:2"), expected);
+  }
+
+  public void test_analyze_multipleFiles_jobs() throws Exception {
+    List<String> expected = analyzeMultipleFiles(1);
+    for (int i = 0; i < 5; i++) {
+      assertEquals(expected, analyzeMultipleFiles(4));
+    }
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    directory = FileUtilities2.createTempDir("analyzer").getCanonicalFile();
+    // The part is reported with the first library that includes it.
+    writeFile("a.dart", "library a;", "import 'c.dart';", "part 'p.dart';", "int a = c;");
+    writeFile("p.dart", "part of a;", "int p = 'p';");
+    writeFile("b.dart", "library b;", "import 'c.dart';", "int b = c;");
+    writeFile("c.dart", "library c;", "String c = 0;");
+    writeFile("d.dart", "library d;", "export 'c.dart';", "int d1 = 'd';", "int d2 = 'd';");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtilities2.deleteTempDir();
+    super.tearDown();
+  }
+
+  /**
+   * Analyze the libraries in {@link #directory} in a single invocation, with the given number of
+   * jobs, and return a description of the errors reported for each library, in the order in which
+   * they were reported. Assert that each library is reported only once, and that each error is
+   * reported with only one library.
+   */
+  private List<String> analyzeMultipleFiles(int jobCount) throws Exception {
+    AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {
+        "--dart-sdk", DirectoryBasedDartSdk.getDefaultSdkDirectory().getPath(), "--jobs",
+        Integer.toString(jobCount)});
+    AnalyzerImpl analyzer = new AnalyzerImpl(options);
+    List<File> files = new ArrayList<File>();
+    for (String name : new String[] {"a.dart", "b.dart", "c.dart", "d.dart"}) {
+      files.add(new File(directory, name));
+    }
+    final List<String> reports = new ArrayList<String>();
+    final Set<Source> reportedLibraries = new HashSet<Source>();
+    final Set<AnalysisError> reportedErrors = new HashSet<AnalysisError>();
+    ErrorSeverity severity = analyzer.analyze(files, new LibraryErrorListener() {
+      @Override
+      public void errorsComputed(Source librarySource, List<AnalysisError> errors,
+          Map<Source, LineInfo> lineInfoMap) {
+        assertTrue(reportedLibraries.add(librarySource));
+        StringBuilder builder = new StringBuilder();
+        builder.append(librarySource.getShortName());
+        builder.append(':');
+        String lastName = null;
+        int count = 0;
+        for (AnalysisError error : errors) {
+          assertTrue(reportedErrors.add(error));
+          assertNotNull(lineInfoMap.get(error.getSource()));
+          String name = error.getSource().getShortName();
+          if (!name.equals(lastName)) {
+            if (lastName != null) {
+              builder.append(' ').append(lastName).append(':').append(count).append(',');
+            }
+            lastName = name;
+            count = 0;
+          }
+          count++;
+        }
+        if (lastName != null) {
+          builder.append(' ').append(lastName).append(':').append(count);
+        }
+        reports.add(builder.toString());
+      }
+    });
+    assertSame(ErrorSeverity.WARNING, severity);
+    return reports;
+  }
+
+  /**
+   * Write a file with the given name and lines to {@link #directory}.
+   */
+  private void writeFile(String name, String... lines) throws IOException {
+    StringBuilder builder = new StringBuilder();
+    for (String line : lines) {
+      builder.append(line);
+      builder.append('\n');
+    }
+    Files.write(builder.toString(), new File(directory, name), Charsets.UTF_8);
+  }
+}
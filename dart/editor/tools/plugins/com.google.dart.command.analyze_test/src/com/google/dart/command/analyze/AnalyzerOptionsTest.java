@@ -17,6 +17,7 @@ import junit.framework.TestCase;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.Arrays;
 
 public class AnalyzerOptionsTest extends TestCase {
 
@@ -27,6 +28,16 @@ public class AnalyzerOptionsTest extends TestCase {
     assertFalse(options.getShowPackageWarnings());
   }
 
+  public void test_getJobCount() {
+    AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {"--jobs", "3"});
+    assertEquals(3, options.getJobCount());
+  }
+
+  public void test_getJobCount_default() {
+    AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {});
+    assertEquals(1, options.getJobCount());
+  }
+
   public void test_getMachineFormat() {
     AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {"--format=machine"});
     assertTrue(options.getMachineFormat());
@@ -52,6 +63,20 @@ public class AnalyzerOptionsTest extends TestCase {
     assertTrue(options.getShowSdkWarnings());
   }
 
+  public void test_getSourceFiles() {
+    AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {
+        "-j", "2", "a.dart", "b.dart"});
+    assertEquals(2, options.getJobCount());
+    assertEquals("a.dart", options.getSourceFile());
+    assertEquals(Arrays.asList("a.dart", "b.dart"), options.getSourceFiles());
+  }
+
+  public void test_getSourceFiles_none() {
+    AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {});
+    assertNull(options.getSourceFile());
+    assertTrue(options.getSourceFiles().isEmpty());
+  }
+
   public void test_processArgs_17234() {
     // 17234 verifies that a NPE isn't encountered when there is no value after "="
     AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {"--format="});
@@ -27,7 +27,9 @@ import junit.framework.TestCase;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class ErrorFormatterTest extends TestCase {
@@ -96,6 +98,28 @@ public class ErrorFormatterTest extends TestCase {
         actual);
   }
 
+  public void test_formatLibraryErrors_summary() throws UnsupportedEncodingException {
+    AnalyzerOptions options = new AnalyzerOptions();
+
+    Source source = new TestSource();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Map<Source, LineInfo> lineInfoMap = new HashMap<Source, LineInfo>();
+    lineInfoMap.put(source, new LineInfo(new int[] {0}));
+    ErrorFormatter formatter = new ErrorFormatter(new PrintStream(out), options, lineInfoMap);
+
+    List<AnalysisError> errors = new ArrayList<AnalysisError>();
+    errors.add(new AnalysisError(source, ResolverErrorCode.MISSING_LIBRARY_DIRECTIVE_WITH_PART));
+    formatter.formatLibraryErrors(errors);
+    errors = new ArrayList<AnalysisError>();
+    errors.add(new AnalysisError(source, ResolverErrorCode.MISSING_LIBRARY_DIRECTIVE_WITH_PART));
+    formatter.formatLibraryErrors(errors);
+    formatter.formatSummary();
+
+    String actual = out.toString("UTF-8").trim();
+
+    assertTrue(actual, actual.endsWith("2 errors found."));
+  }
+
   public void test_format_withError() throws UnsupportedEncodingException {
     AnalyzerOptions options = new AnalyzerOptions();
 
@@ -23,6 +23,7 @@ public class TestAll {
     TestSuite suite = new TestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(ErrorFormatterTest.class);
     suite.addTestSuite(AnalyzerOptionsTest.class);
+    suite.addTestSuite(AnalyzerImplTest.class);
     return suite;
   }
 
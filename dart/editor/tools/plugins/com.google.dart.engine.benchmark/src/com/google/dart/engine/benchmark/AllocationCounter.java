@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Instances of the class {@code AllocationCounter} report the number of bytes allocated by the
+ * current thread, the number of garbage collections and the size of the live heap, as far as the
+ * running VM supports it.
+ * <p>
+ * The per-thread allocation count is an extension of {@link ThreadMXBean} provided by HotSpot VMs.
+ * It is accessed reflectively so that the benchmarks still run, without allocation figures, on
+ * other VMs.
+ */
+public class AllocationCounter {
+  /**
+   * The value returned by {@link #getAllocatedBytes()} when the count is not available.
+   */
+  public static final long UNAVAILABLE = -1L;
+
+  /**
+   * The bean providing information about threads.
+   */
+  private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+  /**
+   * The bean providing information about memory.
+   */
+  private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+  /**
+   * The method used to get the number of bytes allocated by a thread, or {@code null} if the VM
+   * does not support it.
+   */
+  private Method allocatedBytesMethod;
+
+  /**
+   * Initialize a newly created counter, enabling allocation counting if the VM supports it.
+   */
+  public AllocationCounter() {
+    try {
+      Class<?> beanClass = Class.forName("com.sun.management.ThreadMXBean");
+      if (beanClass.isInstance(threadBean)) {
+        Method enableMethod = beanClass.getMethod(
+            "setThreadAllocatedMemoryEnabled",
+            boolean.class);
+        enableMethod.invoke(threadBean, true);
+        allocatedBytesMethod = beanClass.getMethod("getThreadAllocatedBytes", long.class);
+      }
+    } catch (Exception exception) {
+      allocatedBytesMethod = null;
+    }
+  }
+
+  /**
+   * Return the number of bytes allocated so far by the current thread, or {@link #UNAVAILABLE} if
+   * the VM does not support counting them.
+   * 
+   * @return the number of bytes allocated by the current thread
+   */
+  public long getAllocatedBytes() {
+    if (allocatedBytesMethod == null) {
+      return UNAVAILABLE;
+    }
+    try {
+      Long bytes = (Long) allocatedBytesMethod.invoke(threadBean, Thread.currentThread().getId());
+      return bytes.longValue();
+    } catch (Exception exception) {
+      return UNAVAILABLE;
+    }
+  }
+
+  /**
+   * Collect garbage and return the number of bytes of heap that are still in use. The VM is only
+   * asked to collect garbage, so the result can include some unreachable objects.
+   * 
+   * @return the number of bytes of heap in use after collecting garbage
+   */
+  public long getLiveBytes() {
+    System.gc();
+    return memoryBean.getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   * Return the total number of garbage collections performed so far by all collectors.
+   * 
+   * @return the number of garbage collections
+   */
+  public long getCollectionCount() {
+    long count = 0L;
+    for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0L, bean.getCollectionCount());
+    }
+    return count;
+  }
+}
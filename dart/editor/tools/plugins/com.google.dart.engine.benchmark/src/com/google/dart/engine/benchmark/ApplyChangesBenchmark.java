@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.SourceFactory;
+
+import java.io.File;
+
+/**
+ * Instances of the class {@code ApplyChangesBenchmark} measure the time taken to add 20,000 small
+ * libraries to a context in a single change set, such as the one produced when a large workspace
+ * is opened, and then to perform analysis tasks until there is no more work to be done.
+ * <p>
+ * The libraries are generated by the benchmark, so the results do not depend on the corpus.
+ */
+public class ApplyChangesBenchmark extends Benchmark {
+  /**
+   * The number of libraries added to the context.
+   */
+  private static final int SOURCE_COUNT = 20000;
+
+  /**
+   * The directory containing the SDK.
+   */
+  private final File sdkDirectory;
+
+  private DirectoryBasedDartSdk sdk;
+  private AnalysisContextImpl context;
+  private ChangeSet changeSet;
+
+  /**
+   * Initialize a newly created benchmark to analyze against the SDK in the given directory.
+   * 
+   * @param sdkDirectory the directory containing the SDK
+   */
+  public ApplyChangesBenchmark(File sdkDirectory) {
+    this.sdkDirectory = sdkDirectory;
+  }
+
+  @Override
+  public String getName() {
+    return "ApplyChanges";
+  }
+
+  @Override
+  public void prepare() throws Exception {
+    context = new AnalysisContextImpl();
+    context.setSourceFactory(new SourceFactory(new DartUriResolver(sdk), new FileUriResolver()));
+    changeSet = new ChangeSet();
+    File directory = new File(sdkDirectory, "applyChanges");
+    for (int i = 0; i < SOURCE_COUNT; i++) {
+      String name = "lib" + i;
+      FileBasedSource source = new FileBasedSource(new File(directory, name + ".dart"));
+      changeSet.addedSource(source);
+      changeSet.changedContent(source, "library " + name + ";");
+    }
+  }
+
+  @Override
+  public Object run() throws Exception {
+    context.applyChanges(changeSet);
+    int taskCount = 0;
+    while (context.performAnalysisTask().getChangeNotices() != null) {
+      taskCount++;
+    }
+    return taskCount;
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    sdk = new DirectoryBasedDartSdk(sdkDirectory);
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    sdk = null;
+    context = null;
+    changeSet = null;
+    super.tearDown();
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+/**
+ * The abstract class {@code Benchmark} defines the behavior of a single benchmark run by the
+ * {@link BenchmarkRunner}. One operation of a benchmark processes the whole of a {@link Corpus}.
+ * <p>
+ * The runner calls {@link #setUp(Corpus)} once, then repeatedly calls {@link #prepare()} followed
+ * by {@link #run()}, and finally calls {@link #tearDown()}. Only the time spent in {@link #run()},
+ * and the memory allocated and retained by it, is measured.
+ */
+public abstract class Benchmark {
+  /**
+   * The corpus being processed, or {@code null} if the benchmark has not been set up.
+   */
+  private Corpus corpus;
+
+  /**
+   * Return the corpus being processed.
+   * 
+   * @return the corpus being processed
+   */
+  public Corpus getCorpus() {
+    return corpus;
+  }
+
+  /**
+   * Return the name of this benchmark, used to select and report it.
+   * 
+   * @return the name of this benchmark
+   */
+  public abstract String getName();
+
+  /**
+   * Perform the work that must be done before each operation but that is not part of what is being
+   * measured. The default implementation does nothing.
+   * 
+   * @throws Exception if the operation could not be prepared
+   */
+  public void prepare() throws Exception {
+  }
+
+  /**
+   * Perform one operation. The returned value is ignored, but returning the result of the
+   * operation prevents the work from being optimized away. The returned value is still reachable
+   * when the memory retained by the operation is measured.
+   * 
+   * @return a value derived from the result of the operation
+   * @throws Exception if the operation failed
+   */
+  public abstract Object run() throws Exception;
+
+  /**
+   * Prepare to run this benchmark over the given corpus.
+   * 
+   * @param corpus the corpus to be processed
+   * @throws Exception if the benchmark could not be set up
+   */
+  public void setUp(Corpus corpus) throws Exception {
+    this.corpus = corpus;
+  }
+
+  /**
+   * Release any resources held by this benchmark.
+   * 
+   * @throws Exception if the resources could not be released
+   */
+  public void tearDown() throws Exception {
+    corpus = null;
+  }
+}
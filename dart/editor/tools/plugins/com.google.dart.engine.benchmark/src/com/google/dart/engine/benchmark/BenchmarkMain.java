@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.benchmark.BenchmarkOptions.CorpusKind;
+import com.google.dart.engine.utilities.logging.Logger;
+
+import org.kohsuke.args4j.CmdLineException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point for the analysis engine benchmarks. Each benchmark is run over each selected corpus
+ * and one line of results is printed per run.
+ */
+public class BenchmarkMain {
+  public static void main(String[] args) throws Exception {
+    BenchmarkOptions options;
+    try {
+      options = BenchmarkOptions.createFromArgs(args);
+    } catch (CmdLineException exception) {
+      System.err.println(exception.getMessage());
+      BenchmarkOptions.printUsage(System.err);
+      System.exit(1);
+      return;
+    }
+    if (options.showHelp()) {
+      BenchmarkOptions.printUsage(System.out);
+      return;
+    }
+    if (options.getDartSdkPath() == null || !options.getDartSdkPath().exists()) {
+      System.err.println("No Dart SDK found; use --dart-sdk to specify one.");
+      System.exit(1);
+    }
+    // The corpora are not free of errors, so don't log them.
+    AnalysisEngine.getInstance().setLogger(Logger.NULL);
+
+    List<Corpus> corpora = new ArrayList<Corpus>();
+    if (options.getCorpus() != CorpusKind.SDK) {
+      corpora.add(new SyntheticCorpus(
+          options.getDartSdkPath(),
+          options.getLibraryCount(),
+          options.getSeed()));
+    }
+    if (options.getCorpus() != CorpusKind.SYNTHETIC) {
+      corpora.add(new SdkCorpus(options.getDartSdkPath()));
+    }
+
+    BenchmarkRunner runner = new BenchmarkRunner(
+        System.out,
+        options.getWarmupIterations(),
+        options.getMeasuredIterations());
+    runner.printHeader();
+    for (Corpus corpus : corpora) {
+      try {
+        for (Benchmark benchmark : createBenchmarks(options.getDartSdkPath())) {
+          if (options.getFilter() == null || benchmark.getName().contains(options.getFilter())) {
+            runner.run(benchmark, corpus);
+          }
+        }
+      } finally {
+        corpus.dispose();
+      }
+    }
+  }
+
+  /**
+   * Return the benchmarks, in the order of the phases of analysis they measure.
+   * 
+   * @param sdkDirectory the directory containing the SDK
+   */
+  private static List<Benchmark> createBenchmarks(File sdkDirectory) {
+    List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+    benchmarks.add(new ScannerBenchmark());
+    benchmarks.add(new LineInfoBenchmark(false));
+    benchmarks.add(new LineInfoBenchmark(true));
+    benchmarks.add(new ParserBenchmark());
+    benchmarks.add(new NodeLocatorBenchmark(false));
+    benchmarks.add(new NodeLocatorBenchmark(true));
+    benchmarks.add(new PathTrieBenchmark(false));
+    benchmarks.add(new PathTrieBenchmark(true));
+    benchmarks.add(new WorkManagerBenchmark());
+    benchmarks.add(new ElementBuilderBenchmark());
+    benchmarks.add(new LibraryResolverBenchmark());
+    benchmarks.add(new ImportScopeBenchmark());
+    benchmarks.add(new SdkContentionBenchmark(sdkDirectory));
+    benchmarks.add(new PackageSharingBenchmark(sdkDirectory, false));
+    benchmarks.add(new PackageSharingBenchmark(sdkDirectory, true));
+    benchmarks.add(new ApplyChangesBenchmark(sdkDirectory));
+    benchmarks.add(new ErrorVerifierBenchmark());
+    benchmarks.add(new HintGeneratorBenchmark());
+    benchmarks.add(new IndexContributorBenchmark(0));
+    benchmarks.add(new IndexContributorBenchmark(1));
+    benchmarks.add(new IndexContributorBenchmark(4));
+    benchmarks.add(new SearchEngineBenchmark());
+    benchmarks.add(new CompletionBenchmark(sdkDirectory));
+    benchmarks.add(new ResponseStreamBenchmark());
+    return benchmarks;
+  }
+}
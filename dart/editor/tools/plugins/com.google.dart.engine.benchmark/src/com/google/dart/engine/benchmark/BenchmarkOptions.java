@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import java.io.File;
+import java.io.PrintStream;
+
+/**
+ * Command line options accepted by the {@link BenchmarkMain} entry point.
+ */
+public class BenchmarkOptions {
+  /**
+   * The corpora over which the benchmarks can be run.
+   */
+  enum CorpusKind {
+    ALL,
+    SDK,
+    SYNTHETIC
+  }
+
+  /**
+   * Create a new BenchmarkOptions object from the given list of command-line args.
+   * 
+   * @param args the command-line args
+   * @return the options that were parsed
+   * @throws CmdLineException if the args are not valid
+   */
+  public static BenchmarkOptions createFromArgs(String[] args) throws CmdLineException {
+    BenchmarkOptions options = new BenchmarkOptions();
+    new CmdLineParser(options).parseArgument(args);
+    if (options.dartSdkPath == null) {
+      options.dartSdkPath = DirectoryBasedDartSdk.getDefaultSdkDirectory();
+    }
+    return options;
+  }
+
+  /**
+   * Print the tool usage to the given stream.
+   * 
+   * @param out the stream to which the usage is printed
+   */
+  public static void printUsage(PrintStream out) {
+    CmdLineParser parser = new CmdLineParser(new BenchmarkOptions());
+    parser.setUsageWidth(120);
+    parser.printUsage(out);
+  }
+
+  @Option(name = "--help", //
+  aliases = {"-h"}, //
+  usage = "Prints this help message")
+  private boolean showHelp = false;
+
+  @Option(name = "--dart-sdk", //
+  metaVar = "<dir>", //
+  usage = "The path to the Dart SDK, also used as the SDK corpus")
+  private File dartSdkPath = null;
+
+  @Option(name = "--corpus", //
+  usage = "The corpus to run the benchmarks over")
+  private CorpusKind corpus = CorpusKind.ALL;
+
+  @Option(name = "--libraries", //
+  metaVar = "<count>", //
+  usage = "The number of libraries in the synthetic corpus")
+  private int libraryCount = 50;
+
+  @Option(name = "--seed", //
+  usage = "The seed used to generate the synthetic corpus")
+  private long seed = 1L;
+
+  @Option(name = "--warmup", //
+  metaVar = "<count>", //
+  usage = "The number of iterations run before measuring")
+  private int warmupIterations = 5;
+
+  @Option(name = "--iterations", //
+  metaVar = "<count>", //
+  usage = "The number of iterations measured")
+  private int measuredIterations = 10;
+
+  @Option(name = "--filter", //
+  metaVar = "<name>", //
+  usage = "Only run the benchmarks whose name contains the given text")
+  private String filter = null;
+
+  /**
+   * Return the kind of corpus over which the benchmarks are run.
+   */
+  public CorpusKind getCorpus() {
+    return corpus;
+  }
+
+  /**
+   * Return the path to the Dart SDK, or {@code null} if it could not be found.
+   */
+  public File getDartSdkPath() {
+    return dartSdkPath;
+  }
+
+  /**
+   * Return the text that the names of the benchmarks to be run must contain, or {@code null} if all
+   * benchmarks are to be run.
+   */
+  public String getFilter() {
+    return filter;
+  }
+
+  /**
+   * Return the number of libraries in the synthetic corpus.
+   */
+  public int getLibraryCount() {
+    return libraryCount;
+  }
+
+  /**
+   * Return the number of iterations measured.
+   */
+  public int getMeasuredIterations() {
+    return measuredIterations;
+  }
+
+  /**
+   * Return the seed used to generate the synthetic corpus.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Return the number of iterations run before measuring.
+   */
+  public int getWarmupIterations() {
+    return warmupIterations;
+  }
+
+  /**
+   * Return {@code true} if the help message should be printed.
+   */
+  public boolean showHelp() {
+    return showHelp;
+  }
+}
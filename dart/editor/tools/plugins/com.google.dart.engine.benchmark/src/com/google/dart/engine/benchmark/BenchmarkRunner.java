@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import java.io.PrintStream;
+
+/**
+ * Instances of the class {@code BenchmarkRunner} run benchmarks and report the time taken, the
+ * memory allocated and the memory retained by each operation.
+ * <p>
+ * Each benchmark is first run for a number of warm-up iterations, whose results are discarded, so
+ * that the measured iterations run compiled code. The allocation figures cover only the thread
+ * running the benchmark. The retained memory is the growth of the live heap over an operation,
+ * measured while the value returned by the operation is still reachable.
+ */
+public class BenchmarkRunner {
+  /**
+   * Instances of the class {@code Result} hold the measurements of one benchmark.
+   */
+  public static class Result {
+    private final String name;
+    private final long[] times;
+    private final long[] allocations;
+    private final long[] retentions;
+    private final long collectionCount;
+
+    Result(String name, long[] times, long[] allocations, long[] retentions,
+        long collectionCount) {
+      this.name = name;
+      this.times = times;
+      this.allocations = allocations;
+      this.retentions = retentions;
+      this.collectionCount = collectionCount;
+    }
+
+    /**
+     * Return the average number of bytes allocated per operation, or
+     * {@link AllocationCounter#UNAVAILABLE} if allocations could not be counted.
+     * 
+     * @return the average number of bytes allocated per operation
+     */
+    public long getAllocatedBytes() {
+      long total = 0L;
+      for (long allocation : allocations) {
+        if (allocation == AllocationCounter.UNAVAILABLE) {
+          return AllocationCounter.UNAVAILABLE;
+        }
+        total += allocation;
+      }
+      return total / allocations.length;
+    }
+
+    /**
+     * Return the number of garbage collections that happened during the measured iterations.
+     * 
+     * @return the number of garbage collections
+     */
+    public long getCollectionCount() {
+      return collectionCount;
+    }
+
+    /**
+     * Return the average time taken per operation, in nanoseconds.
+     * 
+     * @return the average time taken per operation
+     */
+    public long getMeanTime() {
+      long total = 0L;
+      for (long time : times) {
+        total += time;
+      }
+      return total / times.length;
+    }
+
+    /**
+     * Return the shortest time taken by an operation, in nanoseconds.
+     * 
+     * @return the shortest time taken by an operation
+     */
+    public long getMinTime() {
+      long min = Long.MAX_VALUE;
+      for (long time : times) {
+        min = Math.min(min, time);
+      }
+      return min;
+    }
+
+    /**
+     * Return the name of the benchmark and corpus that were measured.
+     * 
+     * @return the name of the benchmark and corpus
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Return the average number of bytes retained per operation.
+     * 
+     * @return the average number of bytes retained per operation
+     */
+    public long getRetainedBytes() {
+      long total = 0L;
+      for (long retention : retentions) {
+        total += retention;
+      }
+      return total / retentions.length;
+    }
+
+    /**
+     * Return the standard deviation of the time taken per operation, in nanoseconds.
+     * 
+     * @return the standard deviation of the time taken per operation
+     */
+    public long getTimeDeviation() {
+      long mean = getMeanTime();
+      double sum = 0.0;
+      for (long time : times) {
+        double delta = time - mean;
+        sum += delta * delta;
+      }
+      return (long) Math.sqrt(sum / times.length);
+    }
+  }
+
+  private static final double NANOS_PER_MILLI = 1000000.0;
+
+  private static final double BYTES_PER_KILOBYTE = 1024.0;
+
+  /**
+   * The stream to which results are written.
+   */
+  private final PrintStream out;
+
+  /**
+   * The number of iterations run before measuring.
+   */
+  private final int warmupIterations;
+
+  /**
+   * The number of iterations that are measured.
+   */
+  private final int measuredIterations;
+
+  /**
+   * The object used to count allocations.
+   */
+  private final AllocationCounter allocationCounter = new AllocationCounter();
+
+  /**
+   * A value derived from the results of the operations, which keeps the VM from optimizing away
+   * work whose result is otherwise unused.
+   */
+  private volatile int sink;
+
+  /**
+   * Initialize a newly created runner.
+   * 
+   * @param out the stream to which results are written
+   * @param warmupIterations the number of iterations run before measuring
+   * @param measuredIterations the number of iterations that are measured
+   */
+  public BenchmarkRunner(PrintStream out, int warmupIterations, int measuredIterations) {
+    this.out = out;
+    this.warmupIterations = warmupIterations;
+    this.measuredIterations = Math.max(1, measuredIterations);
+  }
+
+  /**
+   * Print the header of the table of results.
+   */
+  public void printHeader() {
+    out.println(String.format(
+        "%-40s %12s %12s %12s %14s %14s %6s",
+        "benchmark",
+        "mean ms/op",
+        "min ms/op",
+        "stddev ms",
+        "alloc KB/op",
+        "retained KB/op",
+        "gcs"));
+  }
+
+  /**
+   * Run the given benchmark over the given corpus, print and return the results.
+   * 
+   * @param benchmark the benchmark to be run
+   * @param corpus the corpus to be processed
+   * @return the results of running the benchmark
+   * @throws Exception if the benchmark failed
+   */
+  public Result run(Benchmark benchmark, Corpus corpus) throws Exception {
+    benchmark.setUp(corpus);
+    try {
+      for (int i = 0; i < warmupIterations; i++) {
+        benchmark.prepare();
+        consume(benchmark.run());
+      }
+      long[] times = new long[measuredIterations];
+      long[] allocations = new long[measuredIterations];
+      long[] retentions = new long[measuredIterations];
+      long collections = 0L;
+      for (int i = 0; i < measuredIterations; i++) {
+        benchmark.prepare();
+        long startLiveBytes = allocationCounter.getLiveBytes();
+        // The collections caused by measuring the live heap are not counted.
+        long startCollections = allocationCounter.getCollectionCount();
+        long startBytes = allocationCounter.getAllocatedBytes();
+        long startTime = System.nanoTime();
+        Object result = benchmark.run();
+        times[i] = System.nanoTime() - startTime;
+        long endBytes = allocationCounter.getAllocatedBytes();
+        collections += allocationCounter.getCollectionCount() - startCollections;
+        if (startBytes == AllocationCounter.UNAVAILABLE
+            || endBytes == AllocationCounter.UNAVAILABLE) {
+          allocations[i] = AllocationCounter.UNAVAILABLE;
+        } else {
+          allocations[i] = endBytes - startBytes;
+        }
+        retentions[i] = Math.max(0L, allocationCounter.getLiveBytes() - startLiveBytes);
+        consume(result);
+      }
+      Result result = new Result(
+          benchmark.getName() + "/" + corpus.getName(),
+          times,
+          allocations,
+          retentions,
+          collections);
+      print(result);
+      return result;
+    } finally {
+      benchmark.tearDown();
+    }
+  }
+
+  private void consume(Object result) {
+    if (result != null) {
+      sink += result.hashCode();
+    }
+  }
+
+  private void print(Result result) {
+    long allocatedBytes = result.getAllocatedBytes();
+    String allocated = allocatedBytes == AllocationCounter.UNAVAILABLE ? "n/a" : String.format(
+        "%.1f",
+        allocatedBytes / BYTES_PER_KILOBYTE);
+    out.println(String.format(
+        "%-40s %12.3f %12.3f %12.3f %14s %14.1f %6d",
+        result.getName(),
+        result.getMeanTime() / NANOS_PER_MILLI,
+        result.getMinTime() / NANOS_PER_MILLI,
+        result.getTimeDeviation() / NANOS_PER_MILLI,
+        allocated,
+        result.getRetainedBytes() / BYTES_PER_KILOBYTE,
+        result.getCollectionCount()));
+  }
+}
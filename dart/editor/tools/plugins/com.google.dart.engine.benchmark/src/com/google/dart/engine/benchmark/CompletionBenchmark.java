@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.index.Index;
+import com.google.dart.engine.index.IndexFactory;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.search.SearchEngine;
+import com.google.dart.engine.search.SearchEngineFactory;
+import com.google.dart.engine.services.assist.AssistContext;
+import com.google.dart.engine.services.completion.CompletionEngine;
+import com.google.dart.engine.services.completion.CompletionFactory;
+import com.google.dart.engine.services.completion.CompletionProposal;
+import com.google.dart.engine.services.completion.CompletionRequestor;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instances of the class {@code CompletionBenchmark} measure the time taken by a scripted code
+ * completion session in a library that imports {@code dart:html}: completion is requested after
+ * each character of a few identifiers is typed, the way an editor requests it while the user types.
+ * Each state of the session is resolved before the measurements start, so only completion itself
+ * is measured.
+ * <p>
+ * The library being completed in is generated by the benchmark, so the results do not depend on
+ * the corpus.
+ */
+public class CompletionBenchmark extends Benchmark {
+  /**
+   * Instances of the class {@code CountingRequestor} count the proposals they are given.
+   */
+  private static class CountingRequestor implements CompletionRequestor {
+    private int count = 0;
+
+    @Override
+    public void accept(CompletionProposal proposal) {
+      count++;
+    }
+
+    @Override
+    public void beginReporting() {
+    }
+
+    @Override
+    public void endReporting() {
+    }
+  }
+
+  /**
+   * The identifiers typed during the session. Completion is requested after each character of
+   * each identifier, other than the characters of a prefix ending in a period.
+   */
+  private static final String[] TYPED_IDENTIFIERS = {
+      "querySelector", "DivElement", "math.sqrt", "StreamController", "window"};
+
+  /**
+   * The directory containing the SDK.
+   */
+  private final File sdkDirectory;
+
+  private Index index;
+  private Thread indexThread;
+  private SearchEngine searchEngine;
+  private AnalysisContextImpl context;
+  private List<Source> sources;
+  private List<CompilationUnit> units;
+  private List<Integer> offsets;
+
+  /**
+   * Initialize a newly created benchmark to complete against the SDK in the given directory.
+   * 
+   * @param sdkDirectory the directory containing the SDK
+   */
+  public CompletionBenchmark(File sdkDirectory) {
+    this.sdkDirectory = sdkDirectory;
+  }
+
+  @Override
+  public String getName() {
+    return "Completion";
+  }
+
+  @Override
+  public Object run() throws Exception {
+    CompletionFactory factory = new CompletionFactory();
+    int proposalCount = 0;
+    for (int i = 0; i < sources.size(); i++) {
+      CountingRequestor requestor = new CountingRequestor();
+      CompletionEngine engine = new CompletionEngine(requestor, factory);
+      engine.complete(new AssistContext(
+          searchEngine,
+          context,
+          null,
+          sources.get(i),
+          units.get(i),
+          offsets.get(i),
+          0));
+      proposalCount += requestor.count;
+    }
+    return proposalCount;
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    DirectoryBasedDartSdk sdk = new DirectoryBasedDartSdk(sdkDirectory);
+    context = new AnalysisContextImpl();
+    context.setSourceFactory(new SourceFactory(new DartUriResolver(sdk), new FileUriResolver()));
+    sources = new ArrayList<Source>();
+    units = new ArrayList<CompilationUnit>();
+    offsets = new ArrayList<Integer>();
+    for (String identifier : TYPED_IDENTIFIERS) {
+      int start = identifier.indexOf('.') + 1;
+      for (int length = start; length <= identifier.length(); length++) {
+        addState(identifier.substring(0, length));
+      }
+    }
+    index = IndexFactory.newIndex(IndexFactory.newMemoryIndexStore());
+    indexThread = new Thread() {
+      @Override
+      public void run() {
+        index.run();
+      }
+    };
+    indexThread.setDaemon(true);
+    indexThread.start();
+    searchEngine = SearchEngineFactory.createSearchEngine(index);
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    index.stop();
+    indexThread.join();
+    index = null;
+    indexThread = null;
+    searchEngine = null;
+    context = null;
+    sources = null;
+    units = null;
+    offsets = null;
+    super.tearDown();
+  }
+
+  /**
+   * Add a state of the session in which the given text has been typed.
+   * 
+   * @param typed the text that has been typed
+   */
+  private void addState(String typed) throws Exception {
+    String prefix = "library completion;\n" //
+        + "import 'dart:async';\n" //
+        + "import 'dart:html';\n" //
+        + "import 'dart:math' as math;\n" //
+        + "void main() {\n" //
+        + "  ";
+    String contents = prefix + typed + "\n}\n";
+    Source source = new FileBasedSource(new File(sdkDirectory, "completion" + sources.size()
+        + ".dart"));
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.addedSource(source);
+    context.applyChanges(changeSet);
+    context.setContents(source, contents);
+    sources.add(source);
+    units.add(context.resolveCompilationUnit(source, context.computeLibraryElement(source)));
+    offsets.add(prefix.length() + typed.length());
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.internal.context.AnalysisOptionsImpl;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.parser.Parser;
+import com.google.dart.engine.scanner.CharSequenceReader;
+import com.google.dart.engine.scanner.Scanner;
+import com.google.dart.engine.source.Source;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The abstract class {@code Corpus} defines the behavior of a set of Dart libraries over which
+ * benchmarks are run.
+ * <p>
+ * Benchmarks that measure the later phases of analysis need the results of the earlier phases as
+ * their input. Those results are computed once, in a single shared context, the first time they are
+ * requested.
+ */
+public abstract class Corpus {
+  /**
+   * The number of sources for which ASTs are kept, which is large enough that the ASTs of a corpus
+   * are never flushed.
+   */
+  private static final int CACHE_SIZE = 4096;
+
+  /**
+   * The shared context in which the corpus has been resolved, or {@code null} if it has not yet
+   * been created.
+   */
+  private InternalAnalysisContext resolvedContext;
+
+  /**
+   * The elements of the libraries in the corpus, in the same order as the library sources.
+   */
+  private List<LibraryElement> libraries;
+
+  /**
+   * A table mapping the source of each compilation unit in the corpus to its contents.
+   */
+  private Map<Source, String> contents;
+
+  /**
+   * Create a new context that has not yet analyzed any of the sources in the corpus. Contexts
+   * returned by different invocations do not share analysis results for the sources in the corpus.
+   * 
+   * @return the context that was created
+   */
+  public abstract InternalAnalysisContext createContext();
+
+  /**
+   * Release any resources held by this corpus.
+   */
+  public void dispose() {
+    resolvedContext = null;
+    libraries = null;
+    contents = null;
+  }
+
+  /**
+   * Return the contents of the given compilation unit.
+   * 
+   * @param source the source of a compilation unit in the corpus
+   * @return the contents of the compilation unit
+   * @throws AnalysisException if the contents could not be read
+   */
+  public String getContents(Source source) throws AnalysisException {
+    if (contents == null) {
+      contents = new HashMap<Source, String>();
+    }
+    String result = contents.get(source);
+    if (result == null) {
+      try {
+        result = getResolvedContext().getContents(source).getData().toString();
+      } catch (Exception exception) {
+        throw new AnalysisException("Could not read " + source.getFullName(), exception);
+      }
+      contents.put(source, result);
+    }
+    return result;
+  }
+
+  /**
+   * Return the sources of the defining compilation units of the libraries in the corpus.
+   * 
+   * @return the sources of the libraries in the corpus
+   */
+  public abstract List<Source> getLibrarySources();
+
+  /**
+   * Return the name of this corpus, used to report results.
+   * 
+   * @return the name of this corpus
+   */
+  public abstract String getName();
+
+  /**
+   * Return the shared context in which the corpus is resolved.
+   * 
+   * @return the shared context in which the corpus is resolved
+   */
+  public InternalAnalysisContext getResolvedContext() {
+    if (resolvedContext == null) {
+      resolvedContext = createContext();
+    }
+    return resolvedContext;
+  }
+
+  /**
+   * Return the resolved compilation units of the given library, defining unit first.
+   * 
+   * @param library the element of a library in the corpus
+   * @return the resolved compilation units of the library
+   * @throws AnalysisException if the units could not be resolved
+   */
+  public List<CompilationUnit> getResolvedUnits(LibraryElement library) throws AnalysisException {
+    List<CompilationUnit> units = new ArrayList<CompilationUnit>();
+    for (Source source : getUnitSources(library)) {
+      units.add(getResolvedContext().resolveCompilationUnit(source, library));
+    }
+    return units;
+  }
+
+  /**
+   * Return the elements of the resolved libraries in the corpus.
+   * 
+   * @return the elements of the libraries in the corpus
+   * @throws AnalysisException if the libraries could not be resolved
+   */
+  public List<LibraryElement> getResolvedLibraries() throws AnalysisException {
+    if (libraries == null) {
+      InternalAnalysisContext context = getResolvedContext();
+      List<LibraryElement> elements = new ArrayList<LibraryElement>();
+      for (Source source : getLibrarySources()) {
+        elements.add(context.computeLibraryElement(source));
+      }
+      libraries = elements;
+    }
+    return libraries;
+  }
+
+  /**
+   * Return the sources of all of the compilation units in the corpus.
+   * 
+   * @return the sources of the compilation units in the corpus
+   * @throws AnalysisException if the libraries could not be resolved
+   */
+  public List<Source> getUnitSources() throws AnalysisException {
+    List<Source> sources = new ArrayList<Source>();
+    for (LibraryElement library : getResolvedLibraries()) {
+      sources.addAll(getUnitSources(library));
+    }
+    return sources;
+  }
+
+  /**
+   * Return a newly scanned and parsed, unresolved AST for the given compilation unit.
+   * 
+   * @param source the source of a compilation unit in the corpus
+   * @return the AST of the compilation unit
+   * @throws AnalysisException if the contents of the unit could not be read
+   */
+  public CompilationUnit parseUnit(Source source) throws AnalysisException {
+    Scanner scanner = new Scanner(
+        source,
+        new CharSequenceReader(getContents(source)),
+        AnalysisErrorListener.NULL_LISTENER);
+    Parser parser = new Parser(source, AnalysisErrorListener.NULL_LISTENER);
+    parser.setParseAsync(true);
+    parser.setParseDeferredLibraries(true);
+    parser.setParseEnum(true);
+    return parser.parseCompilationUnit(scanner.tokenize());
+  }
+
+  /**
+   * Return the options used by the contexts created by this corpus.
+   * 
+   * @return the analysis options
+   */
+  protected AnalysisOptionsImpl createOptions() {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl();
+    options.setCacheSize(CACHE_SIZE);
+    options.setHint(true);
+    return options;
+  }
+
+  /**
+   * Return the sources of the compilation units in the given library, defining unit first.
+   */
+  private List<Source> getUnitSources(LibraryElement library) {
+    List<Source> sources = new ArrayList<Source>();
+    sources.add(library.getDefiningCompilationUnit().getSource());
+    for (CompilationUnitElement part : library.getParts()) {
+      sources.add(part.getSource());
+    }
+    return sources;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.internal.builder.ElementBuilder;
+import com.google.dart.engine.internal.builder.ElementHolder;
+import com.google.dart.engine.source.Source;
+
+import java.util.List;
+
+/**
+ * Instances of the class {@code ElementBuilderBenchmark} measure the time taken to build the
+ * elements declared in every compilation unit in the corpus. The units are parsed again before
+ * each operation, because the builder records the elements in the AST.
+ */
+public class ElementBuilderBenchmark extends Benchmark {
+  private Source[] sources;
+  private CompilationUnit[] units;
+
+  @Override
+  public String getName() {
+    return "ElementBuilder";
+  }
+
+  @Override
+  public void prepare() throws Exception {
+    for (int i = 0; i < sources.length; i++) {
+      units[i] = getCorpus().parseUnit(sources[i]);
+    }
+  }
+
+  @Override
+  public Object run() throws Exception {
+    int count = 0;
+    for (CompilationUnit unit : units) {
+      ElementHolder holder = new ElementHolder();
+      unit.accept(new ElementBuilder(holder));
+      count += holder.getTypes().length + holder.getFunctions().length;
+    }
+    return count;
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    List<Source> unitSources = corpus.getUnitSources();
+    sources = unitSources.toArray(new Source[unitSources.size()]);
+    units = new CompilationUnit[sources.length];
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    sources = null;
+    units = null;
+    super.tearDown();
+  }
+}
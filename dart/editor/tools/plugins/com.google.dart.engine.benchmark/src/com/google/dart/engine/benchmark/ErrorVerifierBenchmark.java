@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.internal.error.ErrorReporter;
+import com.google.dart.engine.internal.resolver.InheritanceManager;
+import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.verifier.ErrorVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instances of the class {@code ErrorVerifierBenchmark} measure the time taken to verify every
+ * resolved compilation unit in the corpus.
+ */
+public class ErrorVerifierBenchmark extends Benchmark {
+  private List<LibraryElement> libraries;
+  private List<List<CompilationUnit>> units;
+  private TypeProvider typeProvider;
+
+  @Override
+  public String getName() {
+    return "ErrorVerifier";
+  }
+
+  @Override
+  public Object run() throws Exception {
+    final int[] count = {0};
+    AnalysisErrorListener listener = new AnalysisErrorListener() {
+      @Override
+      public void onError(AnalysisError error) {
+        count[0]++;
+      }
+    };
+    for (int i = 0; i < libraries.size(); i++) {
+      LibraryElement library = libraries.get(i);
+      InheritanceManager inheritanceManager = new InheritanceManager(library);
+      for (CompilationUnit unit : units.get(i)) {
+        ErrorReporter errorReporter = new ErrorReporter(listener, unit.getElement().getSource());
+        unit.accept(new ErrorVerifier(errorReporter, library, typeProvider, inheritanceManager));
+      }
+    }
+    return count[0];
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    libraries = corpus.getResolvedLibraries();
+    units = new ArrayList<List<CompilationUnit>>();
+    for (LibraryElement library : libraries) {
+      units.add(corpus.getResolvedUnits(library));
+    }
+    typeProvider = corpus.getResolvedContext().getTypeProvider();
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    libraries = null;
+    units = null;
+    typeProvider = null;
+    super.tearDown();
+  }
+}
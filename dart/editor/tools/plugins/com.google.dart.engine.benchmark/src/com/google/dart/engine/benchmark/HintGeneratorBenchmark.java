@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.internal.hint.HintGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instances of the class {@code HintGeneratorBenchmark} measure the time taken to generate the
+ * hints for every library in the corpus.
+ */
+public class HintGeneratorBenchmark extends Benchmark {
+  private List<CompilationUnit[]> units;
+
+  @Override
+  public String getName() {
+    return "HintGenerator";
+  }
+
+  @Override
+  public Object run() throws Exception {
+    final int[] count = {0};
+    AnalysisErrorListener listener = new AnalysisErrorListener() {
+      @Override
+      public void onError(AnalysisError error) {
+        count[0]++;
+      }
+    };
+    for (CompilationUnit[] libraryUnits : units) {
+      HintGenerator generator = new HintGenerator(
+          libraryUnits,
+          getCorpus().getResolvedContext(),
+          listener);
+      generator.generateForLibrary();
+    }
+    return count[0];
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    units = new ArrayList<CompilationUnit[]>();
+    for (LibraryElement library : corpus.getResolvedLibraries()) {
+      List<CompilationUnit> libraryUnits = corpus.getResolvedUnits(library);
+      units.add(libraryUnits.toArray(new CompilationUnit[libraryUnits.size()]));
+    }
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    units = null;
+    super.tearDown();
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.SimpleIdentifier;
+import com.google.dart.engine.ast.visitor.RecursiveAstVisitor;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.internal.scope.LibraryImportScope;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instances of the class {@code ImportScopeBenchmark} measure the time taken to create the import
+ * scope of every library in the corpus and to look up, in that scope, the name of every simple
+ * identifier in the library. This is the work done against the import scope each time the units
+ * of an already resolved library are resolved again, for example after their ASTs were flushed.
+ */
+public class ImportScopeBenchmark extends Benchmark {
+  private List<LibraryElement> libraries;
+  private List<List<SimpleIdentifier>> identifiers;
+
+  @Override
+  public String getName() {
+    return "LibraryImportScope";
+  }
+
+  @Override
+  public Object run() throws Exception {
+    int count = 0;
+    for (int i = 0; i < libraries.size(); i++) {
+      LibraryElement library = libraries.get(i);
+      LibraryImportScope scope = new LibraryImportScope(
+          library,
+          AnalysisErrorListener.NULL_LISTENER);
+      for (SimpleIdentifier identifier : identifiers.get(i)) {
+        if (scope.lookup(identifier, library) != null) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    libraries = corpus.getResolvedLibraries();
+    identifiers = new ArrayList<List<SimpleIdentifier>>();
+    for (LibraryElement library : libraries) {
+      final List<SimpleIdentifier> libraryIdentifiers = new ArrayList<SimpleIdentifier>();
+      for (CompilationUnit unit : corpus.getResolvedUnits(library)) {
+        unit.accept(new RecursiveAstVisitor<Void>() {
+          @Override
+          public Void visitSimpleIdentifier(SimpleIdentifier node) {
+            libraryIdentifiers.add(node);
+            return null;
+          }
+        });
+      }
+      identifiers.add(libraryIdentifiers);
+    }
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    libraries = null;
+    identifiers = null;
+    super.tearDown();
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.index.IndexFactory;
+import com.google.dart.engine.index.MemoryIndexStore;
+import com.google.dart.engine.internal.index.IndexContributor;
+import com.google.dart.engine.internal.index.RelationshipBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Instances of the class {@code IndexContributorBenchmark} measure the time taken to index every
+ * resolved compilation unit in the corpus into a new in-memory index store.
+ * <p>
+ * The relationships are either recorded directly in the store, or recorded in a
+ * {@link RelationshipBatch} per unit that is committed to the store while holding its lock, the way
+ * the index operations do. Batched units are visited by one or more threads, each of which takes
+ * the next unit that has not yet been visited.
+ */
+public class IndexContributorBenchmark extends Benchmark {
+  /**
+   * The number of threads visiting the units, or zero if the relationships are to be recorded
+   * directly in the store.
+   */
+  private final int threadCount;
+
+  private List<CompilationUnit> units;
+  private MemoryIndexStore store;
+
+  /**
+   * Initialize a newly created benchmark.
+   * 
+   * @param threadCount the number of threads visiting the units, or zero if the relationships are
+   *          to be recorded directly in the store rather than in a batch per unit
+   */
+  public IndexContributorBenchmark(int threadCount) {
+    this.threadCount = threadCount;
+  }
+
+  @Override
+  public String getName() {
+    return threadCount == 0 ? "IndexContributor" : "IndexContributorBatch-" + threadCount;
+  }
+
+  @Override
+  public void prepare() throws Exception {
+    store = IndexFactory.newMemoryIndexStore();
+  }
+
+  @Override
+  public Object run() throws Exception {
+    final AnalysisContext context = getCorpus().getResolvedContext();
+    if (threadCount == 0) {
+      for (CompilationUnit unit : units) {
+        if (store.aboutToIndexDart(context, unit.getElement())) {
+          unit.accept(new IndexContributor(store));
+          store.doneIndex();
+        }
+      }
+      return store;
+    }
+    final AtomicInteger nextIndex = new AtomicInteger();
+    final Exception[] exceptions = new Exception[threadCount];
+    Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      final int threadIndex = i;
+      threads[i] = new Thread("index-" + i) {
+        @Override
+        public void run() {
+          try {
+            RelationshipBatch batch = new RelationshipBatch();
+            int index = nextIndex.getAndIncrement();
+            while (index < units.size()) {
+              CompilationUnit unit = units.get(index);
+              unit.accept(new IndexContributor(batch));
+              synchronized (store) {
+                if (store.aboutToIndexDart(context, unit.getElement())) {
+                  batch.commit(store);
+                  store.doneIndex();
+                }
+              }
+              batch.clear();
+              index = nextIndex.getAndIncrement();
+            }
+          } catch (Exception exception) {
+            exceptions[threadIndex] = exception;
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (int i = 0; i < threadCount; i++) {
+      threads[i].join();
+      if (exceptions[i] != null) {
+        throw exceptions[i];
+      }
+    }
+    return store;
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    units = new ArrayList<CompilationUnit>();
+    for (LibraryElement library : corpus.getResolvedLibraries()) {
+      units.addAll(corpus.getResolvedUnits(library));
+    }
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    units = null;
+    store = null;
+    super.tearDown();
+  }
+}
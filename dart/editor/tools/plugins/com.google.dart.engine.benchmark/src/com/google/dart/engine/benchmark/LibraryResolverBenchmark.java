@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.source.Source;
+
+/**
+ * Instances of the class {@code LibraryResolverBenchmark} measure the time taken to resolve every
+ * library in the corpus. Before each operation the units are parsed in a new context, so that an
+ * operation consists of the work done by the {@code LibraryResolver}: building the element models,
+ * resolving references and types, and evaluating constants.
+ */
+public class LibraryResolverBenchmark extends Benchmark {
+  private InternalAnalysisContext context;
+
+  @Override
+  public String getName() {
+    return "LibraryResolver";
+  }
+
+  @Override
+  public void prepare() throws Exception {
+    context = getCorpus().createContext();
+    for (Source source : getCorpus().getUnitSources()) {
+      context.parseCompilationUnit(source);
+    }
+  }
+
+  @Override
+  public Object run() throws Exception {
+    int count = 0;
+    for (Source source : getCorpus().getLibrarySources()) {
+      LibraryElement library = context.computeLibraryElement(source);
+      count += library.getUnits().length;
+    }
+    return count;
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    context = null;
+    super.tearDown();
+  }
+}
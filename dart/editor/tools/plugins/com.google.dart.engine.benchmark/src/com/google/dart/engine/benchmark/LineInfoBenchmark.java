@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.scanner.CharSequenceReader;
+import com.google.dart.engine.scanner.Scanner;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.source.LineInfo;
+import com.google.dart.engine.utilities.source.LineInfo.Location;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Instances of the class {@code LineInfoBenchmark} measure the time taken to map the offsets of
+ * 100,000 errors to line and column numbers, the way error markers and command-line output do. The
+ * offsets are spread over the compilation units in the corpus in proportion to their length and
+ * are sorted within each unit.
+ */
+public class LineInfoBenchmark extends Benchmark {
+  /**
+   * The number of offsets that are mapped.
+   */
+  private static final int OFFSET_COUNT = 100000;
+
+  /**
+   * A flag indicating whether the offsets in each unit are mapped with a single call to
+   * {@link LineInfo#getLocations(int[])} rather than one call to {@link LineInfo#getLocation(int)}
+   * per offset.
+   */
+  private final boolean batch;
+
+  private LineInfo[] lineInfos;
+  private int[][] offsets;
+
+  /**
+   * Initialize a newly created benchmark.
+   * 
+   * @param batch {@code true} if the offsets in each unit are to be mapped with a single call
+   */
+  public LineInfoBenchmark(boolean batch) {
+    this.batch = batch;
+  }
+
+  @Override
+  public String getName() {
+    return batch ? "LineInfo.getLocations" : "LineInfo.getLocation";
+  }
+
+  @Override
+  public Object run() throws Exception {
+    int lineTotal = 0;
+    for (int i = 0; i < lineInfos.length; i++) {
+      LineInfo lineInfo = lineInfos[i];
+      if (batch) {
+        for (Location location : lineInfo.getLocations(offsets[i])) {
+          lineTotal += location.getLineNumber();
+        }
+      } else {
+        for (int offset : offsets[i]) {
+          lineTotal += lineInfo.getLocation(offset).getLineNumber();
+        }
+      }
+    }
+    return lineTotal;
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    List<Source> unitSources = corpus.getUnitSources();
+    int unitCount = unitSources.size();
+    lineInfos = new LineInfo[unitCount];
+    String[] contents = new String[unitCount];
+    long totalLength = 0;
+    for (int i = 0; i < unitCount; i++) {
+      Source source = unitSources.get(i);
+      contents[i] = corpus.getContents(source);
+      Scanner scanner = new Scanner(
+          source,
+          new CharSequenceReader(contents[i]),
+          AnalysisErrorListener.NULL_LISTENER);
+      scanner.tokenize();
+      lineInfos[i] = new LineInfo(scanner.getLineStarts());
+      totalLength += contents[i].length();
+    }
+    Random random = new Random(0);
+    offsets = new int[unitCount][];
+    int remaining = OFFSET_COUNT;
+    for (int i = 0; i < unitCount; i++) {
+      int length = contents[i].length();
+      int count = remaining;
+      if (i < unitCount - 1) {
+        count = (int) ((long) OFFSET_COUNT * length / totalLength);
+      }
+      remaining -= count;
+      int[] unitOffsets = new int[count];
+      for (int j = 0; j < count; j++) {
+        unitOffsets[j] = length == 0 ? 0 : random.nextInt(length);
+      }
+      Arrays.sort(unitOffsets);
+      offsets[i] = unitOffsets;
+    }
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    lineInfos = null;
+    offsets = null;
+    super.tearDown();
+  }
+}
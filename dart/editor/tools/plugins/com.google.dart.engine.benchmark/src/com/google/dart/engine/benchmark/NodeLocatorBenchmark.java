@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.ast.AstNode;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.visitor.NodeLocator;
+import com.google.dart.engine.ast.visitor.NodeOffsetIndex;
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.parser.Parser;
+import com.google.dart.engine.scanner.CharSequenceReader;
+import com.google.dart.engine.scanner.Scanner;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Instances of the class {@code NodeLocatorBenchmark} measure the time taken to locate the nodes
+ * at 500 offsets in a compilation unit of 10,000 lines, the way hover, navigation and occurrences
+ * requests do. The nodes are either located by a {@link NodeLocator} visiting the unit once per
+ * offset, or by using the {@link NodeOffsetIndex offset index} of the unit. The index is created by
+ * the first operation and reused by the others, the way it is when several requests are made
+ * against the same resolved unit.
+ * <p>
+ * The unit is generated by the benchmark, so the results do not depend on the corpus.
+ */
+public class NodeLocatorBenchmark extends Benchmark {
+  /**
+   * The number of lines in the generated compilation unit.
+   */
+  private static final int LINE_COUNT = 10000;
+
+  /**
+   * The number of offsets at which nodes are located.
+   */
+  private static final int OFFSET_COUNT = 500;
+
+  /**
+   * A flag indicating whether the nodes are located using an index rather than by visiting the
+   * unit.
+   */
+  private final boolean indexed;
+
+  private CompilationUnit unit;
+  private int[] offsets;
+
+  /**
+   * Initialize a newly created benchmark.
+   * 
+   * @param indexed {@code true} if the nodes are to be located using an index
+   */
+  public NodeLocatorBenchmark(boolean indexed) {
+    this.indexed = indexed;
+  }
+
+  @Override
+  public String getName() {
+    return indexed ? "NodeOffsetIndex" : "NodeLocator";
+  }
+
+  @Override
+  public Object run() throws Exception {
+    int lengthTotal = 0;
+    if (indexed) {
+      for (AstNode node : unit.getOffsetIndex().locateAll(offsets)) {
+        lengthTotal += node.getLength();
+      }
+    } else {
+      for (int offset : offsets) {
+        NodeLocator locator = new NodeLocator(offset);
+        try {
+          // Visit the unit directly, because searching within a unit uses the index of the unit.
+          unit.accept(locator);
+        } catch (RuntimeException exception) {
+          // The locator found a node.
+        }
+        lengthTotal += locator.getFoundNode().getLength();
+      }
+    }
+    return lengthTotal;
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    StringBuilder builder = new StringBuilder();
+    int lineCount = 0;
+    for (int classIndex = 0; lineCount < LINE_COUNT; classIndex++) {
+      builder.append("class C" + classIndex + " {\n");
+      builder.append("  int field = 0;\n");
+      lineCount += 2;
+      for (int methodIndex = 0; methodIndex < 10; methodIndex++) {
+        builder.append("  int m" + methodIndex + "(int p, List<String> names) {\n");
+        builder.append("    int sum = field + p * " + methodIndex + ";\n");
+        builder.append("    for (String name in names) {\n");
+        builder.append("      if (name.length > sum) {\n");
+        builder.append("        sum += name.codeUnitAt(0) - names.indexOf(name);\n");
+        builder.append("      }\n");
+        builder.append("    }\n");
+        builder.append("    return sum;\n");
+        builder.append("  }\n");
+        lineCount += 9;
+      }
+      builder.append("}\n");
+      lineCount++;
+    }
+    String contents = builder.toString();
+    Source source = new FileBasedSource(new File("locator.dart"));
+    Scanner scanner = new Scanner(
+        source,
+        new CharSequenceReader(contents),
+        AnalysisErrorListener.NULL_LISTENER);
+    Parser parser = new Parser(source, AnalysisErrorListener.NULL_LISTENER);
+    unit = parser.parseCompilationUnit(scanner.tokenize());
+    Random random = new Random(0);
+    offsets = new int[OFFSET_COUNT];
+    for (int i = 0; i < OFFSET_COUNT; i++) {
+      offsets[i] = random.nextInt(contents.length());
+    }
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    unit = null;
+    offsets = null;
+    super.tearDown();
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.internal.cache.PartitionManager;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.PackageUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+
+/**
+ * Instances of the class {@code PackageSharingBenchmark} measure the time taken by several
+ * contexts, like the contexts of the projects in a workspace, to each resolve an application that
+ * uses the same packages from the pub cache, and the memory retained by those contexts. The results
+ * for the packages are either shared by the contexts or computed separately by each of them.
+ * Nothing is shared between operations.
+ * <p>
+ * The packages and applications are generated by the benchmark, so the results do not depend on the
+ * corpus.
+ */
+public class PackageSharingBenchmark extends Benchmark {
+  /**
+   * The number of contexts, each of which resolves its own application.
+   */
+  private static final int CONTEXT_COUNT = 8;
+
+  /**
+   * The number of packages used by each application.
+   */
+  private static final int PACKAGE_COUNT = 8;
+
+  /**
+   * The number of classes declared in each package.
+   */
+  private static final int CLASS_COUNT = 40;
+
+  /**
+   * The directory containing the SDK.
+   */
+  private final File sdkDirectory;
+
+  /**
+   * A flag indicating whether the results for the packages are shared by the contexts.
+   */
+  private final boolean shared;
+
+  private DirectoryBasedDartSdk sdk;
+  private File rootDirectory;
+  private File pubCacheDirectory;
+  private File packagesDirectory;
+  private File defaultPubCacheDirectory;
+
+  /**
+   * Initialize a newly created benchmark to resolve against the SDK in the given directory.
+   * 
+   * @param sdkDirectory the directory containing the SDK
+   * @param shared {@code true} if the results for the packages are to be shared by the contexts
+   */
+  public PackageSharingBenchmark(File sdkDirectory, boolean shared) {
+    this.sdkDirectory = sdkDirectory;
+    this.shared = shared;
+  }
+
+  @Override
+  public String getName() {
+    return shared ? "PackageSharing" : "PackageSharingDisabled";
+  }
+
+  @Override
+  public void prepare() throws Exception {
+    // Setting the pub cache directory discards the partitions shared by the previous operation.
+    getPartitionManager().setPubCacheDirectory(shared ? pubCacheDirectory : null);
+  }
+
+  @Override
+  public Object run() throws Exception {
+    // The contexts are returned so that the memory they retain is measured.
+    ArrayList<AnalysisContextImpl> contexts = new ArrayList<AnalysisContextImpl>();
+    for (int i = 0; i < CONTEXT_COUNT; i++) {
+      AnalysisContextImpl context = new AnalysisContextImpl();
+      context.setSourceFactory(new SourceFactory(
+          new DartUriResolver(sdk),
+          new PackageUriResolver(packagesDirectory),
+          new FileUriResolver()));
+      Source source = new FileBasedSource(new File(rootDirectory, "app" + i + ".dart"));
+      ChangeSet changeSet = new ChangeSet();
+      changeSet.addedSource(source);
+      context.applyChanges(changeSet);
+      if (context.computeLibraryElement(source) != null) {
+        contexts.add(context);
+      }
+    }
+    return contexts;
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    sdk = new DirectoryBasedDartSdk(sdkDirectory);
+    sdk.getContext().computeLibraryElement(sdk.mapDartUri("dart:core"));
+    rootDirectory = Files.createTempDir().getCanonicalFile();
+    pubCacheDirectory = new File(rootDirectory, "pub-cache");
+    packagesDirectory = new File(pubCacheDirectory, "packages");
+    for (int packageIndex = 0; packageIndex < PACKAGE_COUNT; packageIndex++) {
+      StringBuilder builder = new StringBuilder();
+      builder.append("library pkg" + packageIndex + ";\n");
+      if (packageIndex > 0) {
+        int previous = packageIndex - 1;
+        builder.append("import 'package:pkg" + previous + "/pkg" + previous + ".dart';\n");
+      }
+      for (int classIndex = 0; classIndex < CLASS_COUNT; classIndex++) {
+        builder.append("class P" + packageIndex + "C" + classIndex + " {\n");
+        builder.append("  final List<String> names = <String>[];\n");
+        builder.append("  int m(int p) {\n");
+        builder.append("    int sum = p;\n");
+        builder.append("    for (String name in names) {\n");
+        builder.append("      sum += name.length;\n");
+        builder.append("    }\n");
+        builder.append("    return sum;\n");
+        builder.append("  }\n");
+        if (packageIndex > 0) {
+          String previousClass = "P" + (packageIndex - 1) + "C" + classIndex;
+          builder.append("  " + previousClass + " get previous => null;\n");
+        }
+        builder.append("}\n");
+      }
+      File packageDirectory = new File(packagesDirectory, "pkg" + packageIndex);
+      packageDirectory.mkdirs();
+      Files.write(
+          builder.toString(),
+          new File(packageDirectory, "pkg" + packageIndex + ".dart"),
+          Charsets.UTF_8);
+    }
+    for (int i = 0; i < CONTEXT_COUNT; i++) {
+      StringBuilder builder = new StringBuilder();
+      builder.append("library app" + i + ";\n");
+      for (int packageIndex = 0; packageIndex < PACKAGE_COUNT; packageIndex++) {
+        builder.append("import 'package:pkg" + packageIndex + "/pkg" + packageIndex + ".dart';\n");
+      }
+      builder.append("main() {\n");
+      for (int packageIndex = 0; packageIndex < PACKAGE_COUNT; packageIndex++) {
+        builder.append("  print(new P" + packageIndex + "C" + i + "().m(" + i + "));\n");
+      }
+      builder.append("}\n");
+      Files.write(builder.toString(), new File(rootDirectory, "app" + i + ".dart"), Charsets.UTF_8);
+    }
+    defaultPubCacheDirectory = getPartitionManager().getPubCacheDirectory();
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    getPartitionManager().setPubCacheDirectory(defaultPubCacheDirectory);
+    deleteDirectory(rootDirectory);
+    sdk = null;
+    rootDirectory = null;
+    pubCacheDirectory = null;
+    packagesDirectory = null;
+    defaultPubCacheDirectory = null;
+    super.tearDown();
+  }
+
+  /**
+   * Delete the given file or directory, including the contents of the directory.
+   * 
+   * @param file the file or directory to be deleted
+   */
+  private void deleteDirectory(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteDirectory(child);
+      }
+    }
+    file.delete();
+  }
+
+  /**
+   * Return the partition manager used to share cache partitions between contexts.
+   * 
+   * @return the partition manager used to share cache partitions between contexts
+   */
+  private PartitionManager getPartitionManager() {
+    return AnalysisEngine.getInstance().getPartitionManager();
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.utilities.collection.PathTrie;
+
+import java.util.Random;
+
+/**
+ * Instances of the class {@code PathTrieBenchmark} measure the time taken to decide, for each of
+ * the 10,000 files in a large resource delta (such as the one produced by checking out a different
+ * branch), whether the file is within one of 500 directories, the way the ignore list and the
+ * source containers of a workspace are consulted. Each file is either tested against every
+ * directory in turn or looked up in a {@link PathTrie}.
+ * <p>
+ * The paths are generated by the benchmark, so the results do not depend on the corpus.
+ */
+public class PathTrieBenchmark extends Benchmark {
+  /**
+   * The number of directories against which each file is tested.
+   */
+  private static final int DIRECTORY_COUNT = 500;
+
+  /**
+   * The number of files in the delta.
+   */
+  private static final int FILE_COUNT = 10000;
+
+  /**
+   * A flag indicating whether the files are looked up in a trie rather than tested against each
+   * directory.
+   */
+  private final boolean trie;
+
+  private String[] directories;
+  private PathTrie directoryTrie;
+  private String[] files;
+
+  /**
+   * Initialize a newly created benchmark.
+   * 
+   * @param trie {@code true} if the files are to be looked up in a trie
+   */
+  public PathTrieBenchmark(boolean trie) {
+    this.trie = trie;
+  }
+
+  @Override
+  public String getName() {
+    return trie ? "PathTrie" : "PathPrefixScan";
+  }
+
+  @Override
+  public Object run() throws Exception {
+    int containedCount = 0;
+    if (trie) {
+      for (String file : files) {
+        if (directoryTrie.containsPrefixOf(file)) {
+          containedCount++;
+        }
+      }
+    } else {
+      for (String file : files) {
+        for (String directory : directories) {
+          if (file.startsWith(directory)) {
+            containedCount++;
+            break;
+          }
+        }
+      }
+    }
+    return containedCount;
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    Random random = new Random(0);
+    directories = new String[DIRECTORY_COUNT];
+    directoryTrie = new PathTrie();
+    for (int i = 0; i < DIRECTORY_COUNT; i++) {
+      directories[i] = "/home/user/workspace/project" + (i % 20) + "/packages/package" + i + "/";
+      directoryTrie.add(directories[i]);
+    }
+    files = new String[FILE_COUNT];
+    for (int i = 0; i < FILE_COUNT; i++) {
+      int project = random.nextInt(20);
+      if (random.nextBoolean()) {
+        // A file in one of the directories, or in a directory of the same project next to them.
+        int packageIndex = project + 20 * random.nextInt(DIRECTORY_COUNT / 20 + 1);
+        files[i] = "/home/user/workspace/project" + project + "/packages/package" + packageIndex
+            + "/lib/src/file" + i + ".dart";
+      } else {
+        files[i] = "/home/user/workspace/project" + project + "/lib/src/file" + i + ".dart";
+      }
+    }
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    directories = null;
+    directoryTrie = null;
+    files = null;
+    super.tearDown();
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.common.base.Charsets;
+import com.google.dart.server.internal.remote.ByteResponseStream;
+import com.google.gson.JsonObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Instances of the class {@code ResponseStreamBenchmark} measure the time taken by a
+ * {@link ByteResponseStream} to read the traffic of a server analyzing a project: 2,000 repetitions
+ * of the messages sent while analyzing a small project, followed by ten "analysis.highlights"
+ * notifications for a large file. The bytes are delivered 64K at a time, the way a pipe connected
+ * to a running server delivers them.
+ * <p>
+ * The traffic is generated by the benchmark, so the results do not depend on the corpus.
+ */
+public class ResponseStreamBenchmark extends Benchmark {
+  /**
+   * An {@link InputStream} that returns at most a fixed number of bytes from each read.
+   */
+  private static class ChunkedInputStream extends InputStream {
+    private final InputStream stream;
+
+    public ChunkedInputStream(byte[] bytes) {
+      this.stream = new ByteArrayInputStream(bytes);
+    }
+
+    @Override
+    public int read() throws IOException {
+      return stream.read();
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      return stream.read(bytes, offset, Math.min(length, CHUNK_SIZE));
+    }
+  }
+
+  /**
+   * The messages sent by a server analyzing a small project, one message per line.
+   */
+  private static final String[] TRAFFIC = {
+      "{\"event\":\"server.status\",\"params\":{\"analysis\":{\"analyzing\":true}}}",
+      "{\"id\":\"1\",\"result\":{\"id\":\"0\"}}",
+      "{\"event\":\"analysis.errors\",\"params\":{\"file\":\"/project/lib/main.dart\",\"errors\":["
+          + "{\"severity\":\"WARNING\",\"type\":\"STATIC_WARNING\",\"location\":{"
+          + "\"file\":\"/project/lib/main.dart\",\"offset\":42,\"length\":3,\"startLine\":4,"
+          + "\"startColumn\":7},\"message\":\"Undefined name 'f\u00f6\u00f6'\","
+          + "\"correction\":\"Try \\\"f\u00fc\u00fc\\\" \u2713\"}]}}",
+      "{\"event\":\"completion.results\",\"params\":{\"id\":\"0\",\"replacementOffset\":40,"
+          + "\"replacementLength\":0,\"results\":[{\"kind\":\"INVOCATION\",\"relevance\":\"DEFAULT\","
+          + "\"completion\":\"length\",\"selectionOffset\":6,\"selectionLength\":0,"
+          + "\"isDeprecated\":false,\"isPotential\":false}],\"last\":true}}",
+      "{\"event\":\"server.status\",\"params\":{\"analysis\":{\"analyzing\":false}}}"};
+
+  /**
+   * The number of times that {@link #TRAFFIC} is repeated.
+   */
+  private static final int REPEAT_COUNT = 2000;
+
+  /**
+   * The number of "analysis.highlights" notifications following the repeated traffic.
+   */
+  private static final int HIGHLIGHTS_COUNT = 10;
+
+  /**
+   * The number of regions in each "analysis.highlights" notification.
+   */
+  private static final int HIGHLIGHT_REGION_COUNT = 20000;
+
+  /**
+   * The maximum number of bytes returned by each read from the underlying stream.
+   */
+  private static final int CHUNK_SIZE = 65536;
+
+  /**
+   * The UTF-8 encoded traffic read by each operation.
+   */
+  private byte[] bytes;
+
+  /**
+   * Initialize a newly created benchmark.
+   */
+  public ResponseStreamBenchmark() {
+    super();
+  }
+
+  @Override
+  public String getName() {
+    return "ByteResponseStream";
+  }
+
+  @Override
+  public Object run() throws Exception {
+    ByteResponseStream stream = new ByteResponseStream(new ChunkedInputStream(bytes), null);
+    int memberCount = 0;
+    while (true) {
+      JsonObject response = stream.take();
+      if (response == null) {
+        break;
+      }
+      memberCount += response.entrySet().size();
+    }
+    return memberCount;
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < REPEAT_COUNT; i++) {
+      for (String line : TRAFFIC) {
+        builder.append(line);
+        builder.append('\n');
+      }
+    }
+    for (int i = 0; i < HIGHLIGHTS_COUNT; i++) {
+      appendHighlightsNotification(builder, i);
+      builder.append('\n');
+    }
+    bytes = builder.toString().getBytes(Charsets.UTF_8);
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    bytes = null;
+    super.tearDown();
+  }
+
+  /**
+   * Append an "analysis.highlights" notification for a large file to the given builder.
+   * 
+   * @param builder the builder to which the notification is appended
+   * @param fileIndex the index used to name the file
+   */
+  private void appendHighlightsNotification(StringBuilder builder, int fileIndex) {
+    builder.append("{\"event\":\"analysis.highlights\",\"params\":{");
+    builder.append("\"file\":\"/project/lib/gen\u00e9r\u00e9");
+    builder.append(fileIndex);
+    builder.append(".dart\",\"regions\":[");
+    for (int i = 0; i < HIGHLIGHT_REGION_COUNT; i++) {
+      if (i != 0) {
+        builder.append(',');
+      }
+      builder.append("{\"type\":\"IDENTIFIER_DEFAULT\",\"offset\":");
+      builder.append(i * 10);
+      builder.append(",\"length\":5}");
+    }
+    builder.append("]}}");
+  }
+}
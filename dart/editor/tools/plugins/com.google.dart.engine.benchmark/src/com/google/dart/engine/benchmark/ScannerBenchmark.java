@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.scanner.CharSequenceReader;
+import com.google.dart.engine.scanner.Scanner;
+import com.google.dart.engine.scanner.Token;
+import com.google.dart.engine.source.Source;
+
+import java.util.List;
+
+/**
+ * Instances of the class {@code ScannerBenchmark} measure the time taken to scan every compilation
+ * unit in the corpus.
+ */
+public class ScannerBenchmark extends Benchmark {
+  private Source[] sources;
+  private String[] contents;
+
+  @Override
+  public String getName() {
+    return "Scanner";
+  }
+
+  @Override
+  public Object run() throws Exception {
+    int offset = 0;
+    for (int i = 0; i < sources.length; i++) {
+      Scanner scanner = new Scanner(
+          sources[i],
+          new CharSequenceReader(contents[i]),
+          AnalysisErrorListener.NULL_LISTENER);
+      Token token = scanner.tokenize();
+      offset += token.getOffset();
+    }
+    return offset;
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    List<Source> unitSources = corpus.getUnitSources();
+    sources = unitSources.toArray(new Source[unitSources.size()]);
+    contents = new String[sources.length];
+    for (int i = 0; i < sources.length; i++) {
+      contents[i] = corpus.getContents(sources[i]);
+    }
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    sources = null;
+    contents = null;
+    super.tearDown();
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import java.io.File;
+
+/**
+ * Instances of the class {@code SdkContentionBenchmark} measure the time taken by many contexts
+ * that share one SDK to each resolve, on its own thread, a library that uses {@code dart:html}.
+ * The SDK is resolved before the measurements start, so the benchmark measures how well the
+ * contexts can read the shared SDK partition concurrently.
+ * <p>
+ * The library being resolved is generated by the benchmark, so the results do not depend on the
+ * corpus.
+ */
+public class SdkContentionBenchmark extends Benchmark {
+  /**
+   * The number of contexts, each of which is used by a separate thread.
+   */
+  private static final int CONTEXT_COUNT = 32;
+
+  /**
+   * The contents of the library resolved by each context.
+   */
+  private static final String LIBRARY_CONTENTS = "library contention;\n" //
+      + "import 'dart:async';\n" //
+      + "import 'dart:html';\n" //
+      + "void main() {\n" //
+      + "  DivElement div = new DivElement();\n" //
+      + "  div.classes.add('item');\n" //
+      + "  document.body.append(div);\n" //
+      + "  querySelectorAll('.item').forEach((Element e) {\n" //
+      + "    e.style.color = 'red';\n" //
+      + "  });\n" //
+      + "  window.onResize.listen((Event e) {\n" //
+      + "    print(window.innerWidth);\n" //
+      + "  });\n" //
+      + "  new Timer(const Duration(seconds: 1), () => div.remove());\n" //
+      + "  CanvasElement canvas = new CanvasElement(width: 10, height: 10);\n" //
+      + "  canvas.context2D.fillRect(0, 0, 10, 10);\n" //
+      + "  HttpRequest.getString('data.json').then((String text) {\n" //
+      + "    div.text = text;\n" //
+      + "  });\n" //
+      + "}\n";
+
+  /**
+   * The directory containing the SDK.
+   */
+  private final File sdkDirectory;
+
+  private DirectoryBasedDartSdk sdk;
+  private AnalysisContextImpl[] contexts;
+  private Source[] sources;
+
+  /**
+   * Initialize a newly created benchmark to resolve against the SDK in the given directory.
+   * 
+   * @param sdkDirectory the directory containing the SDK
+   */
+  public SdkContentionBenchmark(File sdkDirectory) {
+    this.sdkDirectory = sdkDirectory;
+  }
+
+  @Override
+  public String getName() {
+    return "SdkContention";
+  }
+
+  @Override
+  public void prepare() throws Exception {
+    contexts = new AnalysisContextImpl[CONTEXT_COUNT];
+    sources = new Source[CONTEXT_COUNT];
+    for (int i = 0; i < CONTEXT_COUNT; i++) {
+      AnalysisContextImpl context = new AnalysisContextImpl();
+      context.setSourceFactory(new SourceFactory(new DartUriResolver(sdk), new FileUriResolver()));
+      Source source = new FileBasedSource(new File(sdkDirectory, "contention" + i + ".dart"));
+      ChangeSet changeSet = new ChangeSet();
+      changeSet.addedSource(source);
+      context.applyChanges(changeSet);
+      context.setContents(source, LIBRARY_CONTENTS);
+      contexts[i] = context;
+      sources[i] = source;
+    }
+  }
+
+  @Override
+  public Object run() throws Exception {
+    final int[] unitCounts = new int[CONTEXT_COUNT];
+    final Exception[] exceptions = new Exception[CONTEXT_COUNT];
+    Thread[] threads = new Thread[CONTEXT_COUNT];
+    for (int i = 0; i < CONTEXT_COUNT; i++) {
+      final int index = i;
+      threads[i] = new Thread("contention-" + i) {
+        @Override
+        public void run() {
+          try {
+            if (contexts[index].computeLibraryElement(sources[index]) != null) {
+              unitCounts[index] = 1;
+            }
+          } catch (Exception exception) {
+            exceptions[index] = exception;
+          }
+        }
+      };
+      threads[i].start();
+    }
+    int unitCount = 0;
+    for (int i = 0; i < CONTEXT_COUNT; i++) {
+      threads[i].join();
+      if (exceptions[i] != null) {
+        throw exceptions[i];
+      }
+      unitCount += unitCounts[i];
+    }
+    return unitCount;
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    sdk = new DirectoryBasedDartSdk(sdkDirectory);
+    sdk.getContext().computeLibraryElement(sdk.mapDartUri("dart:html"));
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    sdk = null;
+    contexts = null;
+    sources = null;
+    super.tearDown();
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.sdk.SdkLibrary;
+import com.google.dart.engine.source.Source;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instances of the class {@code SdkCorpus} represent the public libraries of a Dart SDK.
+ * <p>
+ * Every context created by this corpus belongs to a new instance of the SDK, so the libraries are
+ * analyzed from scratch rather than being taken from the shared SDK context.
+ */
+public class SdkCorpus extends Corpus {
+  /**
+   * The directory containing the SDK.
+   */
+  private final File sdkDirectory;
+
+  /**
+   * The sources of the public libraries in the SDK.
+   */
+  private final List<Source> librarySources = new ArrayList<Source>();
+
+  /**
+   * Initialize a newly created corpus to contain the public libraries in the given SDK.
+   * 
+   * @param sdkDirectory the directory containing the SDK
+   */
+  public SdkCorpus(File sdkDirectory) {
+    this.sdkDirectory = sdkDirectory;
+    DirectoryBasedDartSdk sdk = new DirectoryBasedDartSdk(sdkDirectory);
+    for (SdkLibrary library : sdk.getSdkLibraries()) {
+      if (!library.isInternal()) {
+        Source source = sdk.mapDartUri(library.getShortName());
+        if (source != null && source.exists()) {
+          librarySources.add(source);
+        }
+      }
+    }
+  }
+
+  @Override
+  public InternalAnalysisContext createContext() {
+    InternalAnalysisContext context = (InternalAnalysisContext) new DirectoryBasedDartSdk(
+        sdkDirectory).getContext();
+    context.setAnalysisOptions(createOptions());
+    return context;
+  }
+
+  @Override
+  public List<Source> getLibrarySources() {
+    return librarySources;
+  }
+
+  @Override
+  public String getName() {
+    return "sdk";
+  }
+}
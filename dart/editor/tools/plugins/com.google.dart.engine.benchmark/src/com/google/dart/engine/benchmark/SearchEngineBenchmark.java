@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.MethodElement;
+import com.google.dart.engine.index.Index;
+import com.google.dart.engine.index.IndexFactory;
+import com.google.dart.engine.index.MemoryIndexStore;
+import com.google.dart.engine.internal.index.IndexContributor;
+import com.google.dart.engine.search.SearchEngine;
+import com.google.dart.engine.search.SearchEngineFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instances of the class {@code SearchEngineBenchmark} measure the time taken to search an index of
+ * the corpus for the references to, and the subtypes of, the classes declared in the corpus, and
+ * for the references to their methods.
+ */
+public class SearchEngineBenchmark extends Benchmark {
+  /**
+   * The maximum number of classes that are searched for.
+   */
+  private static final int MAX_CLASS_COUNT = 200;
+
+  private Index index;
+  private Thread indexThread;
+  private SearchEngine searchEngine;
+  private List<ClassElement> classes;
+  private List<Element> members;
+
+  @Override
+  public String getName() {
+    return "SearchEngine";
+  }
+
+  @Override
+  public Object run() throws Exception {
+    int count = 0;
+    for (ClassElement type : classes) {
+      count += searchEngine.searchReferences(type, null, null).size();
+      count += searchEngine.searchSubtypes(type, null, null).size();
+    }
+    for (Element member : members) {
+      count += searchEngine.searchReferences(member, null, null).size();
+    }
+    return count;
+  }
+
+  @Override
+  public void setUp(Corpus corpus) throws Exception {
+    super.setUp(corpus);
+    AnalysisContext context = corpus.getResolvedContext();
+    MemoryIndexStore store = IndexFactory.newMemoryIndexStore();
+    classes = new ArrayList<ClassElement>();
+    members = new ArrayList<Element>();
+    for (LibraryElement library : corpus.getResolvedLibraries()) {
+      for (CompilationUnit unit : corpus.getResolvedUnits(library)) {
+        CompilationUnitElement unitElement = unit.getElement();
+        if (store.aboutToIndexDart(context, unitElement)) {
+          unit.accept(new IndexContributor(store));
+          store.doneIndex();
+        }
+        for (ClassElement type : unitElement.getTypes()) {
+          if (classes.size() < MAX_CLASS_COUNT) {
+            classes.add(type);
+            MethodElement[] methods = type.getMethods();
+            if (methods.length > 0) {
+              members.add(methods[0]);
+            }
+          }
+        }
+      }
+    }
+    index = IndexFactory.newIndex(store);
+    indexThread = new Thread() {
+      @Override
+      public void run() {
+        index.run();
+      }
+    };
+    indexThread.setDaemon(true);
+    indexThread.start();
+    searchEngine = SearchEngineFactory.createSearchEngine(index);
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    index.stop();
+    indexThread.join();
+    index = null;
+    indexThread = null;
+    searchEngine = null;
+    classes = null;
+    members = null;
+    super.tearDown();
+  }
+}
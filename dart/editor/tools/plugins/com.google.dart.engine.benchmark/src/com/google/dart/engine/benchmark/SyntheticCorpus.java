@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.benchmark;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Instances of the class {@code SyntheticCorpus} represent a set of generated Dart libraries. The
+ * libraries are a deterministic function of the seed and the number of libraries, so results from
+ * different runs and different versions of the engine can be compared.
+ * <p>
+ * Each library imports a few of the libraries generated before it, and every third library has a
+ * part. The libraries declare classes that extend and call the classes they import, top-level
+ * functions and variables, and a small number of constructs that produce hints.
+ */
+public class SyntheticCorpus extends Corpus {
+  /**
+   * The number of classes declared in each library.
+   */
+  private static final int CLASS_COUNT = 8;
+
+  /**
+   * The number of methods declared in each class.
+   */
+  private static final int METHOD_COUNT = 6;
+
+  /**
+   * The maximum number of generated libraries imported by each library.
+   */
+  private static final int MAX_IMPORT_COUNT = 3;
+
+  /**
+   * The SDK shared by the contexts created by this corpus. Because the SDK is not part of the
+   * corpus, it is only analyzed once.
+   */
+  private final DirectoryBasedDartSdk sdk;
+
+  /**
+   * The directory into which the libraries were generated.
+   */
+  private final File directory;
+
+  /**
+   * The sources of the generated libraries.
+   */
+  private final List<Source> librarySources = new ArrayList<Source>();
+
+  /**
+   * The number of libraries that were generated.
+   */
+  private final int libraryCount;
+
+  /**
+   * Initialize a newly created corpus by generating the given number of libraries into a temporary
+   * directory.
+   * 
+   * @param sdkDirectory the directory containing the SDK used to resolve the libraries
+   * @param libraryCount the number of libraries to be generated
+   * @param seed the seed that determines the contents of the libraries
+   * @throws IOException if the libraries could not be written
+   */
+  public SyntheticCorpus(File sdkDirectory, int libraryCount, long seed) throws IOException {
+    this.sdk = new DirectoryBasedDartSdk(sdkDirectory);
+    this.libraryCount = libraryCount;
+    this.directory = Files.createTempDir();
+    Random random = new Random(seed);
+    for (int i = 0; i < libraryCount; i++) {
+      File file = new File(directory, getLibraryName(i) + ".dart");
+      boolean hasPart = i % 3 == 2;
+      Files.write(generateLibrary(random, i, hasPart), file, Charsets.UTF_8);
+      if (hasPart) {
+        File partFile = new File(directory, getLibraryName(i) + "_part.dart");
+        Files.write(generatePart(random, i), partFile, Charsets.UTF_8);
+      }
+      librarySources.add(new FileBasedSource(file));
+    }
+  }
+
+  @Override
+  public InternalAnalysisContext createContext() {
+    AnalysisContextImpl context = new AnalysisContextImpl();
+    context.setSourceFactory(new SourceFactory(new DartUriResolver(sdk), new FileUriResolver()));
+    context.setAnalysisOptions(createOptions());
+    return context;
+  }
+
+  @Override
+  public void dispose() {
+    super.dispose();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Override
+  public List<Source> getLibrarySources() {
+    return librarySources;
+  }
+
+  @Override
+  public String getName() {
+    return "synthetic-" + libraryCount;
+  }
+
+  private void generateClass(StringBuilder builder, Random random, int library, int index,
+      List<String> importedClasses) {
+    String name = getClassName(library, index);
+    String superclass = null;
+    if (index > 0 && random.nextInt(3) == 0) {
+      superclass = getClassName(library, random.nextInt(index));
+    } else if (!importedClasses.isEmpty() && random.nextBoolean()) {
+      superclass = importedClasses.get(random.nextInt(importedClasses.size()));
+    }
+    builder.append("/**\n * Class number ").append(index).append(" of library ").append(library);
+    builder.append(".\n */\n");
+    builder.append("class ").append(name);
+    if (superclass != null) {
+      builder.append(" extends ").append(superclass);
+    }
+    builder.append(" implements Comparable<").append(name).append("> {\n");
+    builder.append("  static const int LIMIT_").append(index).append(" = ");
+    builder.append(random.nextInt(1000)).append(";\n");
+    builder.append("  int count").append(index).append(" = 0;\n");
+    builder.append("  String label").append(index).append(";\n");
+    builder.append("  final List<int> values").append(index).append(" = <int>[];\n");
+    builder.append("  Map<String, ").append(name).append("> children").append(index);
+    builder.append(" = new Map<String, ").append(name).append(">();\n\n");
+    builder.append("  ").append(name).append("();\n\n");
+    builder.append("  ").append(name).append(".named(this.label").append(index);
+    builder.append(") {\n    count").append(index).append(" = label").append(index);
+    builder.append(".length;\n  }\n\n");
+    builder.append("  int get size").append(index).append(" => values").append(index);
+    builder.append(".length + count").append(index).append(";\n\n");
+    builder.append("  set size").append(index).append("(int value) {\n    count").append(index);
+    builder.append(" = value < 0 ? 0 : value;\n  }\n\n");
+    builder.append("  int compareTo(").append(name).append(" other) => size").append(index);
+    builder.append(" - other.size").append(index).append(";\n");
+    for (int i = 0; i < METHOD_COUNT; i++) {
+      builder.append("\n");
+      generateMethod(builder, random, library, index, i, importedClasses);
+    }
+    builder.append("}\n\n");
+  }
+
+  private String generateLibrary(Random random, int library, boolean hasPart) {
+    StringBuilder builder = new StringBuilder();
+    builder.append("// Generated library ").append(library).append(".\n");
+    builder.append("library ").append(getLibraryName(library)).append(";\n\n");
+    builder.append("import 'dart:async';\n");
+    builder.append("import 'dart:collection';\n");
+    List<String> importedClasses = new ArrayList<String>();
+    int importCount = Math.min(library, random.nextInt(MAX_IMPORT_COUNT + 1));
+    for (int i = 0; i < importCount; i++) {
+      int imported = library - 1 - random.nextInt(Math.min(library, 10));
+      if (importedClasses.contains(getClassName(imported, 0))) {
+        continue;
+      }
+      builder.append("import '").append(getLibraryName(imported)).append(".dart';\n");
+      for (int j = 0; j < CLASS_COUNT; j++) {
+        importedClasses.add(getClassName(imported, j));
+      }
+    }
+    builder.append("\n");
+    if (hasPart) {
+      builder.append("part '").append(getLibraryName(library)).append("_part.dart';\n\n");
+    }
+    builder.append("typedef int Visitor").append(library).append("(Object value);\n\n");
+    builder.append("final List<Object> registry").append(library).append(" = [];\n\n");
+    builder.append("int counter").append(library).append(" = ").append(random.nextInt(100));
+    builder.append(";\n\n");
+    for (int i = 0; i < CLASS_COUNT; i++) {
+      generateClass(builder, random, library, i, importedClasses);
+    }
+    builder.append("Future<int> computeAsync").append(library).append("(int value) {\n");
+    builder.append("  Completer<int> completer = new Completer<int>();\n");
+    builder.append("  new Timer(new Duration(milliseconds: value), () {\n");
+    builder.append("    completer.complete(value * counter").append(library).append(");\n");
+    builder.append("  });\n  return completer.future;\n}\n\n");
+    builder.append("void main() {\n");
+    builder.append("  Queue<Object> queue = new Queue<Object>();\n");
+    for (int i = 0; i < CLASS_COUNT; i++) {
+      builder.append("  queue.add(new ").append(getClassName(library, i)).append(".named('");
+      builder.append(i).append("'));\n");
+    }
+    builder.append("  Visitor").append(library).append(" visitor = (Object value) => ");
+    builder.append("value.hashCode;\n");
+    builder.append("  for (Object value in queue) {\n");
+    builder.append("    registry").append(library).append(".add(visitor(value));\n  }\n");
+    builder.append("  computeAsync").append(library).append("(queue.length).then((int result) {\n");
+    builder.append("    print('result: $result');\n  });\n}\n");
+    return builder.toString();
+  }
+
+  private void generateMethod(StringBuilder builder, Random random, int library, int index,
+      int method, List<String> importedClasses) {
+    String receiverClass = getClassName(library, index);
+    if (!importedClasses.isEmpty() && random.nextBoolean()) {
+      receiverClass = importedClasses.get(random.nextInt(importedClasses.size()));
+    }
+    String suffix = receiverClass.substring(receiverClass.indexOf('_') + 1);
+    builder.append("  int method").append(method).append("(int first, String second) {\n");
+    builder.append("    int total = first;\n");
+    builder.append("    ").append(receiverClass).append(" other = new ").append(receiverClass);
+    builder.append(".named(second);\n");
+    builder.append("    for (int i = 0; i < LIMIT_").append(index).append("; i++) {\n");
+    builder.append("      if (i % ").append(random.nextInt(7) + 2).append(" == 0) {\n");
+    builder.append("        total += other.size").append(suffix).append(";\n");
+    builder.append("      } else if (values").append(index).append(".contains(i)) {\n");
+    builder.append("        total -= i;\n      } else {\n");
+    builder.append("        values").append(index).append(".add(i * first);\n      }\n    }\n");
+    switch (random.nextInt(4)) {
+      case 0:
+        builder.append("    String message = 'total $total in ${second.toUpperCase()}';\n");
+        builder.append("    label").append(index).append(" = message;\n");
+        break;
+      case 1:
+        builder.append("    children").append(index).append(".forEach((String key, value) {\n");
+        builder.append("      total += key.length + value.count").append(index).append(";\n");
+        builder.append("    });\n");
+        break;
+      case 2:
+        // An unused local variable, which produces a hint.
+        builder.append("    var unused = total.toString();\n");
+        break;
+      default:
+        builder.append("    while (total > LIMIT_").append(index).append(") {\n");
+        builder.append("      total = total ~/ 2;\n    }\n");
+        break;
+    }
+    if (method > 0) {
+      builder.append("    return total + method").append(random.nextInt(method));
+      builder.append("(first - 1, second);\n");
+    } else {
+      builder.append("    return total;\n");
+    }
+    builder.append("  }\n");
+  }
+
+  private String generatePart(Random random, int library) {
+    StringBuilder builder = new StringBuilder();
+    builder.append("// Generated part of library ").append(library).append(".\n");
+    builder.append("part of ").append(getLibraryName(library)).append(";\n\n");
+    for (int i = 0; i < CLASS_COUNT; i++) {
+      String name = getClassName(library, i);
+      builder.append("int sum").append(name).append("(List<").append(name).append("> list) {\n");
+      builder.append("  int sum = 0;\n");
+      builder.append("  for (").append(name).append(" item in list) {\n");
+      builder.append("    sum += item.method").append(random.nextInt(METHOD_COUNT));
+      builder.append("(sum, item.label").append(i).append(");\n  }\n");
+      builder.append("  return sum;\n}\n\n");
+    }
+    return builder.toString();
+  }
+
+  private String getClassName(int library, int index) {
+    return "C" + library + "_" + index;
+  }
+
+  private String getLibraryName(int library) {
+    return "lib" + library;
+  }
+}
@@ -15,6 +15,7 @@ package com.google.dart.engine.services.completion;
 
 import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Sets;
 import com.google.dart.engine.ast.Annotation;
 import com.google.dart.engine.ast.ArgumentList;
@@ -128,9 +129,11 @@ import com.google.dart.engine.search.SearchMatch;
 import com.google.dart.engine.search.SearchScope;
 import com.google.dart.engine.search.SearchScopeFactory;
 import com.google.dart.engine.services.assist.AssistContext;
+import com.google.dart.engine.services.internal.completion.LibraryNameTable;
 import com.google.dart.engine.services.internal.correction.CorrectionUtils;
 import com.google.dart.engine.source.FileBasedSource;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.type.FunctionType;
 import com.google.dart.engine.type.InterfaceType;
 import com.google.dart.engine.type.Type;
@@ -352,8 +355,8 @@ public class CompletionEngine {
 
     void addTopLevelNames(ImportElement[] imports, TopLevelNamesKind topKind) {
       for (ImportElement imp : imports) {
-        Collection<Element> elementsCollection = CorrectionUtils.getImportNamespace(imp).values();
-        List<Element> elements = Lists.newArrayList(elementsCollection);
+        List<Element> elements = Lists.newArrayList();
+        addImportedElements(elements, imp);
         addTopLevelNames(elements);
       }
     }
@@ -1621,6 +1624,40 @@ public class CompletionEngine {
 
   }
 
+  /**
+   * Instances of the class {@code PackageUriTable} map library sources to their "package:" URIs,
+   * or to an empty string if the library is not in a package, for the packages that were linked
+   * when the table was created.
+   */
+  private static class PackageUriTable {
+    /**
+     * The table of package directories returned by the source factory when this table was
+     * created. The source factory returns a new table whenever a package is linked or unlinked.
+     */
+    private final Map<String, File> packageDirectories;
+
+    /**
+     * A table mapping library sources to their "package:" URIs.
+     */
+    private final Map<Source, String> packageUris = new MapMaker().makeMap();
+
+    public PackageUriTable(Map<String, File> packageDirectories) {
+      this.packageDirectories = packageDirectories;
+    }
+  }
+
+  /**
+   * The maximum number of library sources whose "package:" URIs are cached for a single source
+   * factory.
+   */
+  private static final int MAX_PACKAGE_URI_COUNT = 10000;
+
+  /**
+   * A table mapping source factories to the "package:" URIs of the libraries they have restored.
+   */
+  private static final Map<SourceFactory, PackageUriTable> PACKAGE_URIS = new MapMaker()
+      .weakKeys().makeMap();
+
   private static final String C_DYNAMIC = "dynamic";
   private static final String C_FALSE = "false";
   private static final String C_NULL = "null";
@@ -1629,6 +1666,46 @@ public class CompletionEngine {
   private static final String C_VAR = "var";
   private static final String C_VOID = "void";
 
+  /**
+   * @return the "package:" URI of the given library {@link Source}, or {@code null} if the library
+   *         is not in a package.
+   */
+  private static String getPackageUri(SourceFactory sourceFactory, Map<Source, String> packageUris,
+      Source source) {
+    String packageUri = packageUris.get(source);
+    if (packageUri == null) {
+      packageUri = "";
+      URI uri = sourceFactory.restoreUri(source);
+      if (uri != null) {
+        String uriString = uri.toString();
+        if (uriString.startsWith("package:")) {
+          packageUri = uriString;
+        }
+      }
+      packageUris.put(source, packageUri);
+    }
+    return packageUri.isEmpty() ? null : packageUri;
+  }
+
+  /**
+   * @return the table caching the "package:" URIs of the libraries restored by the given
+   *         {@link SourceFactory}. Restoring a URI may access the file system, and completing an
+   *         import URI needs the URI of every library in the context, so the URIs are cached. The
+   *         cache is discarded when a package is linked or unlinked, and when it becomes too large.
+   */
+  private static Map<Source, String> getPackageUris(SourceFactory sourceFactory) {
+    Map<String, File> packageDirectories = sourceFactory.getPackageDirectories();
+    synchronized (PACKAGE_URIS) {
+      PackageUriTable table = PACKAGE_URIS.get(sourceFactory);
+      if (table == null || table.packageDirectories != packageDirectories
+          || table.packageUris.size() >= MAX_PACKAGE_URI_COUNT) {
+        table = new PackageUriTable(packageDirectories);
+        PACKAGE_URIS.put(sourceFactory, table);
+      }
+      return table.packageUris;
+    }
+  }
+
   private static boolean isPrivate(Element element) {
     String name = element.getDisplayName();
     return Identifier.isPrivateName(name);
@@ -2169,6 +2246,8 @@ public class CompletionEngine {
     List<LibraryElement> librariesInLib = new ArrayList<LibraryElement>();
     String currentLibraryName = getCurrentLibrary().getSource().getFullName();
     AnalysisContext ac = getAnalysisContext();
+    SourceFactory sourceFactory = ac.getSourceFactory();
+    Map<Source, String> packageUriTable = getPackageUris(sourceFactory);
     Source[] sources = ac.getLibrarySources();
     for (Source s : sources) {
       String sName = s.getFullName();
@@ -2178,12 +2257,9 @@ public class CompletionEngine {
       }
       // ".pub-cache/..../unittest-0.8.8/lib/unittest.dart" -> "package:unittest/unittest.dart"
       {
-        URI uri = ac.getSourceFactory().restoreUri(s);
-        if (uri != null) {
-          String uriString = uri.toString();
-          if (uriString.startsWith("package:")) {
-            packageUris.add(uriString);
-          }
+        String packageUri = getPackageUri(sourceFactory, packageUriTable, s);
+        if (packageUri != null) {
+          packageUris.add(packageUri);
         }
       }
       LibraryElement lib = ac.getLibraryElement(s);
@@ -2264,6 +2340,22 @@ public class CompletionEngine {
     proposeNames(names, identifier);
   }
 
+  /**
+   * Add to the given list the elements in the import namespace of the given import whose names
+   * might be accepted by the current filter. The export namespace of the imported library is read
+   * from a cached {@link LibraryNameTable}, so it is not rebuilt for every completion request.
+   */
+  private void addImportedElements(List<Element> elements, ImportElement imp) {
+    LibraryElement importedLibrary = imp.getImportedLibrary();
+    if (importedLibrary == null) {
+      return;
+    }
+    LibraryNameTable.getExportTable(importedLibrary).addElements(
+        elements,
+        getCandidatePrefix(),
+        imp.getCombinators());
+  }
+
   @DartBlockBody({"// TODO(scheglov) translate it", "return [];"})
   private InterfaceType[] allSubtypes(final ClassElement classElement) {
     SearchEngine engine = context.getSearchEngine();
@@ -2487,12 +2579,12 @@ public class CompletionEngine {
     if (topKind == TopLevelNamesKind.DECLARED_AND_IMPORTS) {
       elements.addAll(CorrectionUtils.getTopLevelElements(library));
       for (ImportElement imp : library.getImports()) {
-        elements.addAll(CorrectionUtils.getImportNamespace(imp).values());
+        addImportedElements(elements, imp);
       }
       removeNotMatchingFilter(elements);
     }
     if (topKind == TopLevelNamesKind.DECLARED_AND_EXPORTS) {
-      elements.addAll(CorrectionUtils.getExportNamespace(library).values());
+      LibraryNameTable.getExportTable(library).addElements(elements, getCandidatePrefix());
       removeNotMatchingFilter(elements);
     }
     return elements;
@@ -2502,6 +2594,17 @@ public class CompletionEngine {
     return context.getCompilationUnitElement().getContext();
   }
 
+  /**
+   * @return the lower case prefix shared by all names accepted by the current filter, or an empty
+   *         string if there is no filter.
+   */
+  private String getCandidatePrefix() {
+    if (filter == null) {
+      return "";
+    }
+    return filter.getCandidatePrefix();
+  }
+
   private LibraryElement getCurrentLibrary() {
     return context.getCompilationUnitElement().getEnclosingElement();
   }
@@ -2906,7 +3009,8 @@ public class CompletionEngine {
     if (libraryElement != null) {
       // prepare Elements with unique names
       NameCollector nameCollector = createNameCollector();
-      Collection<Element> elements = CorrectionUtils.getExportNamespace(libraryElement).values();
+      List<Element> elements = Lists.newArrayList();
+      LibraryNameTable.getExportTable(libraryElement).addElements(elements, getCandidatePrefix());
       for (Element element : elements) {
         if (filterDisallows(element)) {
           continue;
@@ -32,6 +32,18 @@ class Filter {
     prefix = prefix.toLowerCase();
   }
 
+  /**
+   * @return the lower case prefix shared by every name accepted by this filter. Both the prefix
+   *         and the camel case pattern require the first character to match, so this is the first
+   *         character of the filter prefix.
+   */
+  String getCandidatePrefix() {
+    if (prefix.isEmpty()) {
+      return prefix;
+    }
+    return prefix.substring(0, 1);
+  }
+
   /**
    * @return {@code true} if the given name starts with the same prefix as used for filter.
    */
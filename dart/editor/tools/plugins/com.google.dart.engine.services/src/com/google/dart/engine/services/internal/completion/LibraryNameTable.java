@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.services.internal.completion;
+
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.HideElementCombinator;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.NamespaceCombinator;
+import com.google.dart.engine.element.ShowElementCombinator;
+import com.google.dart.engine.services.internal.correction.CorrectionUtils;
+import com.google.dart.engine.source.Source;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code LibraryNameTable} hold the export namespace of a library in the
+ * form used by code completion: the names are sorted by their lower case display name, so that the
+ * candidates for a completion prefix can be found by a binary search rather than by building the
+ * namespace of every import on every completion request.
+ * <p>
+ * Tables are cached by library source. A cached table is only used if it was built from the
+ * library element that is being completed against. The element of a library is replaced whenever
+ * the library, or any library it depends on, is resolved again, so a table never outlives the
+ * namespace it was built from. The cache only holds soft references to the tables, so that the
+ * elements of a library, or of a context, that is no longer used can be reclaimed.
+ * 
+ * @coverage com.google.dart.engine.services.completion
+ */
+public class LibraryNameTable {
+  /**
+   * Instances of the class {@code Entry} represent a single name in a table.
+   */
+  private static class Entry {
+    /**
+     * The name under which the element is defined in the namespace.
+     */
+    private final String name;
+
+    /**
+     * The display name of the element, in lower case.
+     */
+    private final String lowerCaseName;
+
+    /**
+     * The element defined by the name.
+     */
+    private final Element element;
+
+    /**
+     * Initialize a newly created entry.
+     * 
+     * @param name the name under which the element is defined in the namespace
+     * @param element the element defined by the name
+     */
+    public Entry(String name, Element element) {
+      this.name = name;
+      this.lowerCaseName = element.getDisplayName().toLowerCase();
+      this.element = element;
+    }
+  }
+
+  /**
+   * Instances of the class {@code TableCache} map library sources to tables, discarding the least
+   * recently used table when the cache is full.
+   */
+  @SuppressWarnings("serial")
+  private static class TableCache extends LinkedHashMap<Source, SoftReference<LibraryNameTable>> {
+    /**
+     * The maximum number of tables that are cached.
+     */
+    private static final int MAX_SIZE = 32;
+
+    /**
+     * Initialize a newly created, empty cache.
+     */
+    public TableCache() {
+      super(MAX_SIZE, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Source, SoftReference<LibraryNameTable>> eldest) {
+      return size() > MAX_SIZE;
+    }
+  }
+
+  /**
+   * A table mapping library sources to soft references to the most recently used tables for those
+   * libraries.
+   */
+  private static final TableCache CACHE = new TableCache();
+
+  /**
+   * An array containing no combinators.
+   */
+  private static final NamespaceCombinator[] NO_COMBINATORS = new NamespaceCombinator[0];
+
+  /**
+   * Remove all of the cached tables.
+   */
+  public static void clearCache() {
+    synchronized (CACHE) {
+      CACHE.clear();
+    }
+  }
+
+  /**
+   * Return the table for the export namespace of the given library.
+   * 
+   * @param library the library whose export namespace is to be returned
+   * @return the table for the export namespace of the given library
+   */
+  public static LibraryNameTable getExportTable(LibraryElement library) {
+    Source source = library.getSource();
+    synchronized (CACHE) {
+      SoftReference<LibraryNameTable> reference = CACHE.get(source);
+      LibraryNameTable table = reference == null ? null : reference.get();
+      if (table != null && table.library == library) {
+        return table;
+      }
+    }
+    LibraryNameTable table = new LibraryNameTable(library);
+    synchronized (CACHE) {
+      CACHE.put(source, new SoftReference<LibraryNameTable>(table));
+    }
+    return table;
+  }
+
+  /**
+   * Return {@code true} if the given name is visible through the given combinators.
+   * 
+   * @param name the name under which an element is defined in a namespace
+   * @param combinators the combinators to be applied to the name
+   * @return {@code true} if the given name is visible through the given combinators
+   */
+  private static boolean isVisible(String name, NamespaceCombinator[] combinators) {
+    for (NamespaceCombinator combinator : combinators) {
+      if (combinator instanceof HideElementCombinator) {
+        if (matchesAny(name, ((HideElementCombinator) combinator).getHiddenNames())) {
+          return false;
+        }
+      } else if (combinator instanceof ShowElementCombinator) {
+        if (!matchesAny(name, ((ShowElementCombinator) combinator).getShownNames())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return {@code true} if the given name is one of the given combinator names, or the name of the
+   * setter for one of them.
+   * 
+   * @param name the name being tested
+   * @param combinatorNames the names listed by a combinator
+   * @return {@code true} if the given name is matched by one of the combinator names
+   */
+  private static boolean matchesAny(String name, String[] combinatorNames) {
+    for (String combinatorName : combinatorNames) {
+      if (name.equals(combinatorName) || name.equals(combinatorName + "=")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The library whose export namespace is represented by this table.
+   */
+  private final LibraryElement library;
+
+  /**
+   * The entries in this table, sorted by their lower case display names.
+   */
+  private final Entry[] entries;
+
+  /**
+   * Initialize a newly created table to represent the export namespace of the given library.
+   * 
+   * @param library the library whose export namespace is to be represented
+   */
+  LibraryNameTable(LibraryElement library) {
+    this.library = library;
+    Map<String, Element> namespace = CorrectionUtils.getExportNamespace(library);
+    entries = new Entry[namespace.size()];
+    int index = 0;
+    for (Map.Entry<String, Element> entry : namespace.entrySet()) {
+      entries[index++] = new Entry(entry.getKey(), entry.getValue());
+    }
+    Arrays.sort(entries, new Comparator<Entry>() {
+      @Override
+      public int compare(Entry first, Entry second) {
+        return first.lowerCaseName.compareTo(second.lowerCaseName);
+      }
+    });
+  }
+
+  /**
+   * Add to the given list the elements in this table whose lower case display name starts with
+   * the given prefix.
+   * 
+   * @param elements the list to which the elements are to be added
+   * @param lowerCasePrefix the prefix of the names of the elements to be added, in lower case
+   */
+  public void addElements(List<Element> elements, String lowerCasePrefix) {
+    addElements(elements, lowerCasePrefix, NO_COMBINATORS);
+  }
+
+  /**
+   * Add to the given list the elements in this table whose lower case display name starts with
+   * the given prefix and whose name is visible through the given combinators.
+   * 
+   * @param elements the list to which the elements are to be added
+   * @param lowerCasePrefix the prefix of the names of the elements to be added, in lower case
+   * @param combinators the combinators of the directive through which the names are visible
+   */
+  public void addElements(List<Element> elements, String lowerCasePrefix,
+      NamespaceCombinator[] combinators) {
+    for (int i = findFirst(lowerCasePrefix); i < entries.length; i++) {
+      Entry entry = entries[i];
+      if (!entry.lowerCaseName.startsWith(lowerCasePrefix)) {
+        break;
+      }
+      if (isVisible(entry.name, combinators)) {
+        elements.add(entry.element);
+      }
+    }
+  }
+
+  /**
+   * Return the library whose export namespace is represented by this table.
+   * 
+   * @return the library whose export namespace is represented by this table
+   */
+  public LibraryElement getLibrary() {
+    return library;
+  }
+
+  /**
+   * Return the number of names in this table.
+   * 
+   * @return the number of names in this table
+   */
+  public int size() {
+    return entries.length;
+  }
+
+  /**
+   * Return the index of the first entry whose lower case display name is not less than the given
+   * prefix.
+   * 
+   * @param lowerCasePrefix the prefix being searched for, in lower case
+   * @return the index of the first entry that might start with the given prefix
+   */
+  private int findFirst(String lowerCasePrefix) {
+    int low = 0;
+    int high = entries.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (entries[middle].lowerCaseName.compareTo(lowerCasePrefix) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.services.internal.completion;
+
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ImportElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.resolver.ResolverTestCase;
+import com.google.dart.engine.source.Source;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LibraryNameTableTest extends ResolverTestCase {
+  private static final String LIBRARY_A = createSource(//
+      "library a;",
+      "class Alpha {}",
+      "final int alphabet = 0;",
+      "void beta() {}",
+      "int get gamma => 0;",
+      "set gamma(int value) {}",
+      "class _Hidden {}");
+
+  public void test_addElements_combinators() throws Exception {
+    addNamedSource("/a.dart", LIBRARY_A);
+    Source source = addNamedSource("/test.dart", createSource(//
+        "import 'a.dart' show Alpha, gamma;",
+        "import 'a.dart' as p hide gamma;"));
+    ImportElement[] imports = resolve(source).getImports();
+    ImportElement importShow = findImport(imports, null);
+    ImportElement importHide = findImport(imports, "p");
+    LibraryNameTable table = LibraryNameTable.getExportTable(importShow.getImportedLibrary());
+    List<Element> elements = new ArrayList<Element>();
+    table.addElements(elements, "", importShow.getCombinators());
+    assertNames(elements, "Alpha", "gamma", "gamma");
+    elements.clear();
+    table.addElements(elements, "", importHide.getCombinators());
+    assertNames(elements, "Alpha", "alphabet", "beta");
+  }
+
+  public void test_addElements_prefix() throws Exception {
+    Source source = addNamedSource("/a.dart", LIBRARY_A);
+    LibraryNameTable table = LibraryNameTable.getExportTable(resolve(source));
+    assertEquals(5, table.size());
+    List<Element> elements = new ArrayList<Element>();
+    table.addElements(elements, "a");
+    assertNames(elements, "Alpha", "alphabet");
+    elements.clear();
+    table.addElements(elements, "alphab");
+    assertNames(elements, "alphabet");
+    elements.clear();
+    table.addElements(elements, "z");
+    assertNames(elements);
+    elements.clear();
+    table.addElements(elements, "");
+    assertNames(elements, "Alpha", "alphabet", "beta", "gamma", "gamma");
+  }
+
+  public void test_getExportTable_exported() throws Exception {
+    addNamedSource("/a.dart", LIBRARY_A);
+    Source source = addNamedSource("/b.dart", createSource(//
+        "library b;",
+        "export 'a.dart' show beta;",
+        "class Bravo {}"));
+    LibraryNameTable table = LibraryNameTable.getExportTable(resolve(source));
+    List<Element> elements = new ArrayList<Element>();
+    table.addElements(elements, "b");
+    assertNames(elements, "beta", "Bravo");
+  }
+
+  public void test_getExportTable_invalidated() throws Exception {
+    Source source = addNamedSource("/a.dart", LIBRARY_A);
+    LibraryElement library = resolve(source);
+    LibraryNameTable table = LibraryNameTable.getExportTable(library);
+    assertSame(table, LibraryNameTable.getExportTable(library));
+    // re-resolving the library replaces its element
+    getAnalysisContext().setContents(source, "library a; class Delta {}");
+    LibraryElement newLibrary = resolve(source);
+    assertNotSame(library, newLibrary);
+    LibraryNameTable newTable = LibraryNameTable.getExportTable(newLibrary);
+    assertNotSame(table, newTable);
+    assertSame(newLibrary, newTable.getLibrary());
+    assertEquals(1, newTable.size());
+  }
+
+  @Override
+  public void setUp() {
+    super.setUp();
+    LibraryNameTable.clearCache();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    LibraryNameTable.clearCache();
+    super.tearDown();
+  }
+
+  private void assertNames(List<Element> elements, String... expectedNames) {
+    String[] names = new String[elements.size()];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = elements.get(i).getDisplayName();
+    }
+    assertEqualsIgnoreOrder(expectedNames, names);
+  }
+
+  private ImportElement findImport(ImportElement[] imports, String prefix) {
+    for (ImportElement imp : imports) {
+      if (!"a".equals(imp.getImportedLibrary().getName())) {
+        continue;
+      }
+      if (imp.getPrefix() == null ? prefix == null : imp.getPrefix().getName().equals(prefix)) {
+        return imp;
+      }
+    }
+    fail("No import with prefix " + prefix);
+    return null;
+  }
+}
@@ -19,7 +19,7 @@ import com.google.dart.engine.utilities.io.PrintStringWriter;
 
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * The abstract class {@code AstNode} defines the behavior common to all nodes in the AST structure
@@ -39,10 +39,14 @@ public abstract class AstNode {
   private AstNode parent;
 
   /**
-   * A table mapping the names of properties to their values, or {@code null} if this node does not
-   * have any properties associated with it.
+   * A table mapping the nodes that have properties associated with them to tables mapping the names
+   * of those properties to their values. Very few nodes have properties, so rather than every node
+   * having a field to hold its properties, which would make many of the node classes larger, the
+   * properties of all nodes are held here. The nodes are weakly referenced so that the table does
+   * not prevent AST structures from being garbage collected, as long as the values of their
+   * properties do not refer back to them. Access to this table must be synchronized on the table.
    */
-  private Map<String, Object> propertyMap;
+  private static final WeakHashMap<AstNode, HashMap<String, Object>> PROPERTY_MAPS = new WeakHashMap<AstNode, HashMap<String, Object>>();
 
   /**
    * A comparator that can be used to sort AST nodes in lexical order. In other words,
@@ -155,10 +159,13 @@ public abstract class AstNode {
    * @return the value of the property with the given name
    */
   public Object getProperty(String propertyName) {
-    if (propertyMap == null) {
-      return null;
+    synchronized (PROPERTY_MAPS) {
+      HashMap<String, Object> propertyMap = PROPERTY_MAPS.get(this);
+      if (propertyMap == null) {
+        return null;
+      }
+      return propertyMap.get(propertyName);
     }
-    return propertyMap.get(propertyName);
   }
 
   /**
@@ -196,18 +203,22 @@ public abstract class AstNode {
    * @param propertyValue the new value of the property
    */
   public void setProperty(String propertyName, Object propertyValue) {
-    if (propertyValue == null) {
-      if (propertyMap != null) {
-        propertyMap.remove(propertyName);
-        if (propertyMap.isEmpty()) {
-          propertyMap = null;
+    synchronized (PROPERTY_MAPS) {
+      HashMap<String, Object> propertyMap = PROPERTY_MAPS.get(this);
+      if (propertyValue == null) {
+        if (propertyMap != null) {
+          propertyMap.remove(propertyName);
+          if (propertyMap.isEmpty()) {
+            PROPERTY_MAPS.remove(this);
+          }
         }
+      } else {
+        if (propertyMap == null) {
+          propertyMap = new HashMap<String, Object>();
+          PROPERTY_MAPS.put(this, propertyMap);
+        }
+        propertyMap.put(propertyName, propertyValue);
       }
-    } else {
-      if (propertyMap == null) {
-        propertyMap = new HashMap<String, Object>();
-      }
-      propertyMap.put(propertyName, propertyValue);
     }
   }
 
@@ -13,6 +13,7 @@
  */
 package com.google.dart.engine.ast;
 
+import com.google.dart.engine.ast.visitor.NodeOffsetIndex;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.scanner.Token;
 import com.google.dart.engine.scanner.TokenType;
@@ -87,6 +88,12 @@ public class CompilationUnit extends AstNode {
    */
   private LineInfo lineInfo;
 
+  /**
+   * The index used to locate the nodes in this compilation unit by offset, or {@code null} if the
+   * index has not yet been created.
+   */
+  private NodeOffsetIndex offsetIndex;
+
   /**
    * Initialize a newly created compilation unit to have the given directives and declarations.
    * 
@@ -171,6 +178,22 @@ public class CompilationUnit extends AstNode {
     return 0;
   }
 
+  /**
+   * Return an index that can be used to locate the nodes in this compilation unit by offset. The
+   * index is created the first time it is requested and is then reused for as long as the source
+   * range of this compilation unit does not change.
+   * 
+   * @return an index that can be used to locate the nodes in this compilation unit
+   */
+  public NodeOffsetIndex getOffsetIndex() {
+    NodeOffsetIndex index = offsetIndex;
+    if (index == null || !index.isIndexOf(this)) {
+      index = new NodeOffsetIndex(this);
+      offsetIndex = index;
+    }
+    return index;
+  }
+
   /**
    * Return the script tag at the beginning of the compilation unit, or {@code null} if there is no
    * script tag in this compilation unit.
@@ -15,12 +15,18 @@ package com.google.dart.engine.ast.visitor;
 
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.ast.AstNode;
+import com.google.dart.engine.ast.CompilationUnit;
 
 /**
  * Instances of the class {@code NodeLocator} locate the {@link AstNode AST node} associated with a
  * source range, given the AST structure built from the source. More specifically, they will return
  * the {@link AstNode AST node} with the shortest length whose source range completely encompasses
  * the specified range.
+ * <p>
+ * Searches within a {@link CompilationUnit compilation unit} use the
+ * {@link CompilationUnit#getOffsetIndex() offset index} of the unit rather than visiting the
+ * structure, so that locating a node in a unit that has already been searched does not require
+ * visiting every node in the unit.
  * 
  * @coverage dart.engine.ast
  */
@@ -95,7 +101,11 @@ public class NodeLocator extends UnifyingAstVisitor<Void> {
       return null;
     }
     try {
-      node.accept(this);
+      if (node instanceof CompilationUnit) {
+        foundNode = ((CompilationUnit) node).getOffsetIndex().locate(startOffset, endOffset);
+      } else {
+        node.accept(this);
+      }
     } catch (NodeFoundException exception) {
       // A node with the right source position was found.
     } catch (Exception exception) {
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.ast.visitor;
+
+import com.google.dart.engine.ast.AstNode;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+/**
+ * Instances of the class {@code NodeOffsetIndex} answer the same queries as a {@link NodeLocator}
+ * without visiting the AST structure: they return the {@link AstNode AST node} with the shortest
+ * length whose source range completely encompasses a given range.
+ * <p>
+ * The nodes of the structure are recorded in breadth-first order, so that the children of each node
+ * are adjacent to each other and, because they appear in lexical order, can be searched using a
+ * binary search. Locating a node therefore takes time proportional to the depth of the node times
+ * the logarithm of the number of children of its ancestors, rather than to the size of the
+ * structure.
+ * <p>
+ * An index reflects the structure at the time the index was created. Structures that are modified
+ * after an index was created for them need a new index.
+ * 
+ * @coverage dart.engine.ast
+ */
+public class NodeOffsetIndex {
+  /**
+   * Instances of the class {@code ChildCollector} collect the children of a node without visiting
+   * the children of those children.
+   */
+  private static class ChildCollector extends UnifyingAstVisitor<Void> {
+    private final ArrayList<AstNode> nodes;
+
+    public ChildCollector(ArrayList<AstNode> nodes) {
+      this.nodes = nodes;
+    }
+
+    @Override
+    public Void visitNode(AstNode node) {
+      nodes.add(node);
+      return null;
+    }
+  }
+
+  /**
+   * The nodes in the structure, in breadth-first order.
+   */
+  private final AstNode[] nodes;
+
+  /**
+   * The offsets of the nodes, indexed the same way as the nodes.
+   */
+  private final int[] offsets;
+
+  /**
+   * The end offsets of the nodes, indexed the same way as the nodes.
+   */
+  private final int[] ends;
+
+  /**
+   * The index of the first child of each node, indexed the same way as the nodes and followed by
+   * the number of nodes. The children of the node at index {@code i} are the nodes from index
+   * {@code firstChild[i]} up to, but not including, index {@code firstChild[i + 1]}.
+   */
+  private final int[] firstChild;
+
+  /**
+   * The indexes of the nodes whose children are either not in lexical order or overlap each other,
+   * and therefore cannot be searched using a binary search.
+   */
+  private final BitSet unorderedParents = new BitSet();
+
+  /**
+   * Initialize a newly created index to index the AST structure rooted at the given node.
+   * 
+   * @param root the root of the structure being indexed
+   */
+  public NodeOffsetIndex(AstNode root) {
+    ArrayList<AstNode> nodeList = new ArrayList<AstNode>();
+    ChildCollector collector = new ChildCollector(nodeList);
+    nodeList.add(root);
+    int[] firstChildren = new int[16];
+    for (int i = 0; i < nodeList.size(); i++) {
+      if (i == firstChildren.length) {
+        int[] newFirstChildren = new int[i * 2];
+        System.arraycopy(firstChildren, 0, newFirstChildren, 0, i);
+        firstChildren = newFirstChildren;
+      }
+      firstChildren[i] = nodeList.size();
+      nodeList.get(i).visitChildren(collector);
+    }
+    int count = nodeList.size();
+    nodes = nodeList.toArray(new AstNode[count]);
+    offsets = new int[count];
+    ends = new int[count];
+    firstChild = new int[count + 1];
+    System.arraycopy(firstChildren, 0, firstChild, 0, count);
+    firstChild[count] = count;
+    for (int i = 0; i < count; i++) {
+      offsets[i] = nodes[i].getOffset();
+      ends[i] = offsets[i] + nodes[i].getLength();
+    }
+    for (int i = 0; i < count; i++) {
+      for (int child = firstChild[i] + 1; child < firstChild[i + 1]; child++) {
+        if (ends[child - 1] > offsets[child] || offsets[child - 1] > offsets[child]) {
+          unorderedParents.set(i);
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Return {@code true} if this index was created for the structure rooted at the given node and
+   * the source range of that node has not changed since then. An edit to the source that produced
+   * the structure changes the range of the root, so this is a cheap way of detecting an index that
+   * is out of date.
+   * 
+   * @param root the root of the structure whose index is being tested
+   * @return {@code true} if this index can be used to locate nodes in the given structure
+   */
+  public boolean isIndexOf(AstNode root) {
+    return nodes.length > 0 && nodes[0] == root && offsets[0] == root.getOffset()
+        && ends[0] == offsets[0] + root.getLength();
+  }
+
+  /**
+   * Return the node with the shortest length whose source range completely encompasses the given
+   * offset, or {@code null} if there is no such node.
+   * 
+   * @param offset the offset used to identify the node
+   * @return the node that encompasses the given offset
+   */
+  public AstNode locate(int offset) {
+    return locate(offset, offset);
+  }
+
+  /**
+   * Return the node with the shortest length whose source range completely encompasses the given
+   * range, or {@code null} if there is no such node.
+   * 
+   * @param start the start offset of the range used to identify the node
+   * @param end the end offset of the range used to identify the node
+   * @return the node that encompasses the given range
+   */
+  public AstNode locate(int start, int end) {
+    if (nodes.length == 0 || !encloses(0, start, end)) {
+      return null;
+    }
+    int node = 0;
+    while (true) {
+      int child = findEnclosingChild(node, start, end);
+      if (child < 0) {
+        return nodes[node];
+      }
+      node = child;
+    }
+  }
+
+  /**
+   * Return an array containing, for each of the given offsets, the node with the shortest length
+   * whose source range completely encompasses that offset, or {@code null} if there is no such
+   * node. This allows all of the offsets of interest, such as the offsets of every region in a
+   * notification, to be mapped at once.
+   * 
+   * @param offsets the offsets used to identify the nodes
+   * @return the nodes that encompass the given offsets, in the same order as the offsets
+   */
+  public AstNode[] locateAll(int[] offsets) {
+    int count = offsets.length;
+    AstNode[] result = new AstNode[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = locate(offsets[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Return the number of nodes in the indexed structure.
+   * 
+   * @return the number of nodes in the indexed structure
+   */
+  public int size() {
+    return nodes.length;
+  }
+
+  /**
+   * Return {@code true} if the source range of the node at the given index completely encompasses
+   * the given range.
+   * 
+   * @param node the index of the node being tested
+   * @param start the start offset of the range
+   * @param end the end offset of the range
+   * @return {@code true} if the node encompasses the given range
+   */
+  private boolean encloses(int node, int start, int end) {
+    return offsets[node] <= start && end <= ends[node];
+  }
+
+  /**
+   * Return the index of the first child of the node at the given index whose source range
+   * completely encompasses the given range, or {@code -1} if there is no such child.
+   * 
+   * @param node the index of the node whose children are to be searched
+   * @param start the start offset of the range
+   * @param end the end offset of the range
+   * @return the index of the first child that encompasses the given range
+   */
+  private int findEnclosingChild(int node, int start, int end) {
+    int low = firstChild[node];
+    int high = firstChild[node + 1] - 1;
+    if (unorderedParents.get(node)) {
+      for (int child = low; child <= high; child++) {
+        if (encloses(child, start, end)) {
+          return child;
+        }
+      }
+      return -1;
+    }
+    //
+    // Find the last child that starts at or before the start of the range.
+    //
+    int last = low - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (offsets[middle] <= start) {
+        last = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    //
+    // The children that end exactly where the range starts precede that child, and the first of
+    // them that encompasses the range is the one a visitor would have found first.
+    //
+    int found = -1;
+    for (int child = last; child >= firstChild[node] && ends[child] >= start; child--) {
+      if (ends[child] >= end) {
+        found = child;
+      }
+    }
+    return found;
+  }
+}
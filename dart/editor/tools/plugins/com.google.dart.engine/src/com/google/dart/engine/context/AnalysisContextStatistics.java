@@ -16,6 +16,8 @@ package com.google.dart.engine.context;
 
 import com.google.dart.engine.internal.cache.CacheState;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.instrumentation.AnalysisProfiler;
+import com.google.dart.engine.utilities.instrumentation.AnalysisProfiler.TaskRecord;
 
 /**
  * The interface {@code AnalysisContextStatistics} defines access to statistics about a single
@@ -92,4 +94,11 @@ public interface AnalysisContextStatistics {
    * Return an array containing all of the sources in the cache.
    */
   public Source[] getSources();
+
+  /**
+   * Return the records of the analysis tasks that were performed in the context, ordered from the
+   * oldest to the most recent. Tasks are only recorded while the {@link AnalysisProfiler} is
+   * enabled, and only the most recent records are retained.
+   */
+  public TaskRecord[] getTaskRecords();
 }
@@ -15,7 +15,9 @@ package com.google.dart.engine.error;
 
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.general.ObjectUtilities;
+import com.google.dart.engine.utilities.general.StringUtilities;
 
+import java.util.Arrays;
 import java.util.Comparator;
 
 /**
@@ -63,19 +65,34 @@ public class AnalysisError {
     }
   };
 
+  /**
+   * The arguments retained by errors whose messages do not have any arguments.
+   */
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
   /**
    * The error code associated with the error.
    */
   private ErrorCode errorCode;
 
   /**
-   * The localized error message.
+   * The arguments used to build the message and correction, or {@code null} if the message and
+   * correction were given explicitly. Arguments that are not numbers are converted to interned
+   * strings when the error is created, so that errors do not retain the objects they describe and
+   * errors about the same names share the same strings.
+   */
+  private Object[] arguments;
+
+  /**
+   * The localized error message, or {@code null} if the message is built from the arguments when
+   * it is asked for.
    */
   private String message;
 
   /**
    * The correction to be displayed for this error, or {@code null} if there is no correction
-   * information for this error.
+   * information for this error or if the correction is built from the arguments when it is asked
+   * for.
    */
   private String correction;
 
@@ -101,6 +118,30 @@ public class AnalysisError {
    */
   private boolean isStaticOnly = false;
 
+  /**
+   * Return an analysis error whose message and correction have already been computed, such as an
+   * error that was read from a persistent store of analysis results.
+   * 
+   * @param source the source for which the error is being reported
+   * @param offset the offset of the location of the error
+   * @param length the length of the location of the error
+   * @param errorCode the error code to be associated with this error
+   * @param message the message to be displayed for this error
+   * @param correction the correction to be displayed for this error, or {@code null}
+   * @return the analysis error that was created
+   */
+  public static AnalysisError createWithMessage(Source source, int offset, int length,
+      ErrorCode errorCode, String message, String correction) {
+    AnalysisError error = new AnalysisError();
+    error.source = source;
+    error.offset = offset;
+    error.length = length;
+    error.errorCode = errorCode;
+    error.message = message;
+    error.correction = correction;
+    return error;
+  }
+
   /**
    * Initialize a newly created analysis error for the specified source. The error has no location
    * information.
@@ -112,7 +153,7 @@ public class AnalysisError {
   public AnalysisError(Source source, ErrorCode errorCode, Object... arguments) {
     this.source = source;
     this.errorCode = errorCode;
-    this.message = String.format(errorCode.getMessage(), arguments);
+    this.arguments = internArguments(arguments);
   }
 
   /**
@@ -130,11 +171,13 @@ public class AnalysisError {
     this.offset = offset;
     this.length = length;
     this.errorCode = errorCode;
-    this.message = String.format(errorCode.getMessage(), arguments);
-    String correctionTemplate = errorCode.getCorrection();
-    if (correctionTemplate != null) {
-      this.correction = String.format(correctionTemplate, arguments);
-    }
+    this.arguments = internArguments(arguments);
+  }
+
+  /**
+   * Initialize a newly created analysis error whose fields are set by the creator.
+   */
+  private AnalysisError() {
   }
 
   @Override
@@ -157,8 +200,9 @@ public class AnalysisError {
     if (isStaticOnly != other.isStaticOnly) {
       return false;
     }
-    // Deep checks.
-    if (!ObjectUtilities.equals(message, other.message)) {
+    // Deep checks. Equal arguments produce equal messages without the need to build them.
+    if (!(arguments != null && Arrays.equals(arguments, other.arguments))
+        && !ObjectUtilities.equals(getMessage(), other.getMessage())) {
       return false;
     }
     if (!ObjectUtilities.equals(source, other.source)) {
@@ -175,6 +219,12 @@ public class AnalysisError {
    * @return the template used to create the correction to be displayed for this error
    */
   public String getCorrection() {
+    if (arguments != null) {
+      String correctionTemplate = errorCode.getCorrection();
+      if (correctionTemplate != null) {
+        return String.format(correctionTemplate, arguments);
+      }
+    }
     return correction;
   }
 
@@ -204,6 +254,9 @@ public class AnalysisError {
    * @return the message to be displayed for this error
    */
   public String getMessage() {
+    if (arguments != null) {
+      return String.format(errorCode.getMessage(), arguments);
+    }
     return message;
   }
 
@@ -240,7 +293,7 @@ public class AnalysisError {
   @Override
   public int hashCode() {
     int hashCode = offset;
-    hashCode ^= (message != null) ? message.hashCode() : 0;
+    hashCode ^= (errorCode != null) ? errorCode.hashCode() : 0;
     hashCode ^= (source != null) ? source.hashCode() : 0;
     return hashCode;
   }
@@ -284,7 +337,31 @@ public class AnalysisError {
     builder.append(offset + length - 1);
     builder.append("): ");
     //builder.append("(" + lineNumber + ":" + columnNumber + "): ");
-    builder.append(message);
+    builder.append(getMessage());
     return builder.toString();
   }
+
+  /**
+   * Return a copy of the given arguments in which every argument other than a number, a boolean or
+   * a character has been replaced by the interned string it would be formatted as.
+   * 
+   * @param arguments the arguments used to build the error message
+   * @return the arguments to be retained by the error
+   */
+  private static Object[] internArguments(Object[] arguments) {
+    if (arguments == null || arguments.length == 0) {
+      return NO_ARGUMENTS;
+    }
+    Object[] result = new Object[arguments.length];
+    for (int i = 0; i < arguments.length; i++) {
+      Object argument = arguments[i];
+      if (argument == null || argument instanceof Number || argument instanceof Boolean
+          || argument instanceof Character) {
+        result[i] = argument;
+      } else {
+        result[i] = StringUtilities.intern(argument.toString());
+      }
+    }
+    return result;
+  }
 }
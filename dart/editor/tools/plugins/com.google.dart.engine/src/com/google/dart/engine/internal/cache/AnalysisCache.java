@@ -20,7 +20,10 @@ import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.collection.MapIterator;
 import com.google.dart.engine.utilities.collection.MultipleMapIterator;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Instances of the class {@code AnalysisCache} implement an LRU cache of information related to
@@ -30,7 +33,7 @@ public class AnalysisCache {
   /**
    * An array containing the partitions of which this cache is comprised.
    */
-  private CachePartition[] partitions;
+  private final CachePartition[] partitions;
 
   /**
    * A flag used to control whether trace information should be produced when the content of the
@@ -89,6 +92,23 @@ public class AnalysisCache {
   public int getAstSize() {
     return partitions[partitions.length - 1].getAstSize();
   }
+  /**
+   * Return the entry associated with the given source if the source belongs to a partition whose
+   * entries can be read without holding the lock that otherwise guards this cache, or {@code null}
+   * if either the partition must be read while holding the lock or there is no such entry.
+   * 
+   * @param source the source whose entry is to be returned
+   * @return the entry associated with the given source
+   */
+  public SourceEntry getIfConcurrentlyReadable(Source source) {
+    int count = partitions.length;
+    for (int i = 0; i < count; i++) {
+      if (partitions[i].contains(source)) {
+        return partitions[i].isConcurrentlyReadable() ? partitions[i].get(source) : null;
+      }
+    }
+    return null;
+  }
 
   /**
    * Return information about each of the partitions in this cache.
@@ -107,6 +127,33 @@ public class AnalysisCache {
     return data;
   }
 
+  /**
+   * Return the locks that the context must hold while resolving the libraries whose defining
+   * compilation units are the given sources, in the order in which they must be acquired. There is
+   * one lock for each partition that is shared with other contexts and contains one of the
+   * libraries. The locks are acquired from the last partition to the first, so that the lock of the
+   * SDK partition is always acquired last: the SDK libraries do not depend on libraries outside the
+   * SDK, so a context resolving them never needs to wait for another lock.
+   * 
+   * @param librarySources the sources of the libraries being resolved
+   * @return the locks guarding the resolution of the libraries
+   */
+  public Lock[] getResolutionLocks(Collection<Source> librarySources) {
+    ArrayList<Lock> locks = new ArrayList<Lock>();
+    for (int i = partitions.length - 1; i >= 0; i--) {
+      Lock lock = partitions[i].getResolutionLock();
+      if (lock != null) {
+        for (Source librarySource : librarySources) {
+          if (partitions[i].contains(librarySource)) {
+            locks.add(lock);
+            break;
+          }
+        }
+      }
+    }
+    return locks.toArray(new Lock[locks.size()]);
+  }
+
   /**
    * Return an iterator returning all of the map entries mapping sources to cache entries.
    * 
@@ -0,0 +1,1270 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.context.AnalysisOptions;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.AngularCode;
+import com.google.dart.engine.error.CompileTimeErrorCode;
+import com.google.dart.engine.error.ErrorCode;
+import com.google.dart.engine.error.HintCode;
+import com.google.dart.engine.error.HtmlWarningCode;
+import com.google.dart.engine.error.PolymerCode;
+import com.google.dart.engine.error.PubSuggestionCode;
+import com.google.dart.engine.error.StaticTypeWarningCode;
+import com.google.dart.engine.error.StaticWarningCode;
+import com.google.dart.engine.error.TodoCode;
+import com.google.dart.engine.parser.ParserErrorCode;
+import com.google.dart.engine.resolver.ResolverErrorCode;
+import com.google.dart.engine.scanner.ScannerErrorCode;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Instances of the class {@code AnalysisResultStore} persist the results of analyzing Dart sources
+ * so that they can be reused by later sessions without analyzing the sources again.
+ * <p>
+ * Two kinds of results are stored. The results for a compilation unit (its scan and parse errors,
+ * line information and directives) depend only on the contents of the unit, and are keyed by a hash
+ * of those contents. The results for a library (the resolution errors, verification errors and
+ * hints of each of its compilation units) also depend on the libraries it imports and exports, and
+ * are keyed by a fingerprint of the contents of every source the library depends on. Only the most
+ * recent results for each source are kept.
+ * <p>
+ * The store is an append-only log of records, each guarded by a checksum, together with an index
+ * from sources to records that is built when the log is opened. The log is memory-mapped, so
+ * records are only read and decoded when they are looked up. New records are buffered until the
+ * store is flushed. A log that was written by a different version of the store or of the client, or
+ * that was truncated by a crash, is discarded from the first record that cannot be read.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public class AnalysisResultStore {
+  /**
+   * Instances of the class {@code LibraryResults} represent the results of resolving a library.
+   */
+  public static class LibraryResults {
+    /**
+     * The state of the flag indicating whether the library is client code.
+     */
+    private final CacheState clientState;
+
+    /**
+     * {@code true} if the library is client code.
+     */
+    private final boolean isClient;
+
+    /**
+     * The state of the flag indicating whether the library is launchable.
+     */
+    private final CacheState launchableState;
+
+    /**
+     * {@code true} if the library is launchable.
+     */
+    private final boolean isLaunchable;
+
+    /**
+     * The errors in each of the compilation units in the library, starting with the defining
+     * compilation unit.
+     */
+    private final UnitErrors[] unitErrors;
+
+    /**
+     * Initialize a newly created set of results.
+     * 
+     * @param clientState the state of the flag indicating whether the library is client code
+     * @param isClient {@code true} if the library is client code
+     * @param launchableState the state of the flag indicating whether the library is launchable
+     * @param isLaunchable {@code true} if the library is launchable
+     * @param unitErrors the errors in each of the compilation units in the library
+     */
+    public LibraryResults(CacheState clientState, boolean isClient, CacheState launchableState,
+        boolean isLaunchable, UnitErrors[] unitErrors) {
+      this.clientState = clientState;
+      this.isClient = isClient;
+      this.launchableState = launchableState;
+      this.isLaunchable = isLaunchable;
+      this.unitErrors = unitErrors;
+    }
+
+    /**
+     * Return the state of the flag indicating whether the library is client code, either
+     * {@link CacheState#VALID} or {@link CacheState#INVALID}.
+     * 
+     * @return the state of the flag indicating whether the library is client code
+     */
+    public CacheState getClientState() {
+      return clientState;
+    }
+
+    /**
+     * Return the state of the flag indicating whether the library is launchable, either
+     * {@link CacheState#VALID} or {@link CacheState#INVALID}.
+     * 
+     * @return the state of the flag indicating whether the library is launchable
+     */
+    public CacheState getLaunchableState() {
+      return launchableState;
+    }
+
+    /**
+     * Return the errors in each of the compilation units in the library, starting with the
+     * defining compilation unit.
+     * 
+     * @return the errors in each of the compilation units in the library
+     */
+    public UnitErrors[] getUnitErrors() {
+      return unitErrors;
+    }
+
+    /**
+     * Return {@code true} if the library is client code.
+     * 
+     * @return {@code true} if the library is client code
+     */
+    public boolean isClient() {
+      return isClient;
+    }
+
+    /**
+     * Return {@code true} if the library is launchable.
+     * 
+     * @return {@code true} if the library is launchable
+     */
+    public boolean isLaunchable() {
+      return isLaunchable;
+    }
+  }
+
+  /**
+   * Instances of the class {@code UnitErrors} represent the errors in one compilation unit that
+   * were produced when the library containing it was resolved. Each kind of error is {@code null}
+   * if those errors had not been computed.
+   */
+  public static class UnitErrors {
+    private final Source source;
+
+    private final AnalysisError[] buildElementErrors;
+
+    private final AnalysisError[] resolutionErrors;
+
+    private final AnalysisError[] verificationErrors;
+
+    private final AnalysisError[] hints;
+
+    /**
+     * Initialize a newly created set of errors.
+     * 
+     * @param source the source of the compilation unit
+     * @param buildElementErrors the errors produced while building the element model
+     * @param resolutionErrors the errors produced while resolving the unit
+     * @param verificationErrors the errors produced while verifying the unit
+     * @param hints the hints produced for the unit
+     */
+    public UnitErrors(Source source, AnalysisError[] buildElementErrors,
+        AnalysisError[] resolutionErrors, AnalysisError[] verificationErrors,
+        AnalysisError[] hints) {
+      this.source = source;
+      this.buildElementErrors = buildElementErrors;
+      this.resolutionErrors = resolutionErrors;
+      this.verificationErrors = verificationErrors;
+      this.hints = hints;
+    }
+
+    public AnalysisError[] getBuildElementErrors() {
+      return buildElementErrors;
+    }
+
+    public AnalysisError[] getHints() {
+      return hints;
+    }
+
+    public AnalysisError[] getResolutionErrors() {
+      return resolutionErrors;
+    }
+
+    public Source getSource() {
+      return source;
+    }
+
+    public AnalysisError[] getVerificationErrors() {
+      return verificationErrors;
+    }
+  }
+
+  /**
+   * Instances of the class {@code UnitResults} represent the results of scanning and parsing a
+   * compilation unit.
+   */
+  public static class UnitResults {
+    private final boolean hasNonPartOfDirective;
+
+    private final boolean hasPartOfDirective;
+
+    private final int[] lineStarts;
+
+    private final AnalysisError[] scanErrors;
+
+    private final AnalysisError[] parseErrors;
+
+    private final Source[] importedLibraries;
+
+    private final Source[] exportedLibraries;
+
+    private final Source[] includedParts;
+
+    /**
+     * Initialize a newly created set of results.
+     * 
+     * @param hasNonPartOfDirective {@code true} if the unit contains a directive other than a
+     *          part-of directive
+     * @param hasPartOfDirective {@code true} if the unit contains a part-of directive
+     * @param lineStarts the offsets of the first character of each line in the unit
+     * @param scanErrors the errors produced while scanning the unit
+     * @param parseErrors the errors produced while parsing the unit
+     * @param importedLibraries the sources of the libraries imported by the unit
+     * @param exportedLibraries the sources of the libraries exported by the unit
+     * @param includedParts the sources of the parts included by the unit
+     */
+    public UnitResults(boolean hasNonPartOfDirective, boolean hasPartOfDirective,
+        int[] lineStarts, AnalysisError[] scanErrors, AnalysisError[] parseErrors,
+        Source[] importedLibraries, Source[] exportedLibraries, Source[] includedParts) {
+      this.hasNonPartOfDirective = hasNonPartOfDirective;
+      this.hasPartOfDirective = hasPartOfDirective;
+      this.lineStarts = lineStarts;
+      this.scanErrors = scanErrors;
+      this.parseErrors = parseErrors;
+      this.importedLibraries = importedLibraries;
+      this.exportedLibraries = exportedLibraries;
+      this.includedParts = includedParts;
+    }
+
+    public Source[] getExportedLibraries() {
+      return exportedLibraries;
+    }
+
+    public Source[] getImportedLibraries() {
+      return importedLibraries;
+    }
+
+    public Source[] getIncludedParts() {
+      return includedParts;
+    }
+
+    public int[] getLineStarts() {
+      return lineStarts;
+    }
+
+    public AnalysisError[] getParseErrors() {
+      return parseErrors;
+    }
+
+    public AnalysisError[] getScanErrors() {
+      return scanErrors;
+    }
+
+    public boolean hasNonPartOfDirective() {
+      return hasNonPartOfDirective;
+    }
+
+    public boolean hasPartOfDirective() {
+      return hasPartOfDirective;
+    }
+  }
+
+  /**
+   * Instances of the class {@code UnitHeader} hold the part of a unit record that is needed to
+   * compute the fingerprints of libraries.
+   */
+  private static class UnitHeader {
+    private final String contentHash;
+
+    private final long modificationStamp;
+
+    private final String[] dependencies;
+
+    public UnitHeader(String contentHash, long modificationStamp, String[] dependencies) {
+      this.contentHash = contentHash;
+      this.modificationStamp = modificationStamp;
+      this.dependencies = dependencies;
+    }
+  }
+
+  /**
+   * The number used to recognize a file written by this class.
+   */
+  private static final int MAGIC = 0x44415253;
+
+  /**
+   * The version of the format of the file. This must be changed whenever the format of the records
+   * changes.
+   */
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * The kind of the records holding the results for a compilation unit.
+   */
+  private static final byte UNIT_RECORD = 'u';
+
+  /**
+   * The kind of the records holding the results for a library.
+   */
+  private static final byte LIBRARY_RECORD = 'l';
+
+  /**
+   * The number of bytes preceding the payload of each record: the length of the payload and its
+   * checksum.
+   */
+  private static final int RECORD_HEADER_SIZE = 8;
+
+  /**
+   * The number of bytes of buffered records above which the records are written to the file.
+   */
+  private static final int MAX_PENDING_SIZE = 1 << 20;
+
+  /**
+   * The size of a file below which it is never compacted.
+   */
+  private static final long MIN_COMPACTION_SIZE = 1 << 20;
+
+  /**
+   * A table mapping the unique names of error codes to the error codes.
+   */
+  private static final HashMap<String, ErrorCode> ERROR_CODES = new HashMap<String, ErrorCode>();
+
+  static {
+    addErrorCodes(AngularCode.values());
+    addErrorCodes(CompileTimeErrorCode.values());
+    addErrorCodes(HintCode.values());
+    addErrorCodes(HtmlWarningCode.values());
+    addErrorCodes(ParserErrorCode.values());
+    addErrorCodes(PolymerCode.values());
+    addErrorCodes(PubSuggestionCode.values());
+    addErrorCodes(ResolverErrorCode.values());
+    addErrorCodes(ScannerErrorCode.values());
+    addErrorCodes(StaticTypeWarningCode.values());
+    addErrorCodes(StaticWarningCode.values());
+    addErrorCodes(TodoCode.values());
+  }
+
+  /**
+   * Return a hash of the given contents of a source, suitable for use as the key of the results
+   * for the source.
+   * 
+   * @param contents the contents to be hashed
+   * @return a hash of the contents
+   */
+  public static String computeContentHash(CharSequence contents) {
+    MessageDigest digest = createDigest();
+    digest.update(getBytes(contents.toString()));
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Return a fingerprint of a library, given the content hash of each of the sources it depends on,
+   * keyed by the encodings of the sources, and the options used to analyze it.
+   * 
+   * @param contentHashes the content hashes of the sources the library depends on
+   * @param optionsKey a string encoding the options used to analyze the library
+   * @return the fingerprint of the library
+   */
+  public static String computeFingerprint(Map<String, String> contentHashes, String optionsKey) {
+    String[] encodings = contentHashes.keySet().toArray(new String[contentHashes.size()]);
+    Arrays.sort(encodings);
+    MessageDigest digest = createDigest();
+    digest.update(getBytes(optionsKey));
+    for (String encoding : encodings) {
+      digest.update((byte) '\n');
+      digest.update(getBytes(encoding));
+      digest.update((byte) ' ');
+      digest.update(getBytes(contentHashes.get(encoding)));
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Return a string encoding those of the given options that affect the results of analyzing a
+   * library.
+   * 
+   * @param options the options used to analyze the library
+   * @return a string encoding the options
+   */
+  public static String getOptionsKey(AnalysisOptions options) {
+    StringBuilder builder = new StringBuilder();
+    appendFlag(builder, options.getAnalyzeAngular());
+    appendFlag(builder, options.getAnalyzeFunctionBodies());
+    appendFlag(builder, options.getAnalyzePolymer());
+    appendFlag(builder, options.getDart2jsHint());
+    appendFlag(builder, options.getEnableAsync());
+    appendFlag(builder, options.getEnableDeferredLoading());
+    appendFlag(builder, options.getEnableEnum());
+    appendFlag(builder, options.getGenerateSdkErrors());
+    appendFlag(builder, options.getHint());
+    return builder.toString();
+  }
+
+  private static void addErrorCodes(ErrorCode[] errorCodes) {
+    for (ErrorCode errorCode : errorCodes) {
+      ERROR_CODES.put(errorCode.getUniqueName(), errorCode);
+    }
+  }
+
+  private static void appendFlag(StringBuilder builder, boolean flag) {
+    builder.append(flag ? '1' : '0');
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IllegalStateException("MD5 is not supported", exception);
+    }
+  }
+
+  private static byte[] getBytes(String string) {
+    try {
+      return string.getBytes("UTF-8");
+    } catch (UnsupportedEncodingException exception) {
+      throw new IllegalStateException("UTF-8 is not supported", exception);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder builder = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+      builder.append(Character.forDigit(b & 0xF, 16));
+    }
+    return builder.toString();
+  }
+
+  /**
+   * The file containing the log.
+   */
+  private final File file;
+
+  /**
+   * The string identifying the version of the client that is using the store. Results written by
+   * a different version of the client are discarded.
+   */
+  private final String version;
+
+  /**
+   * The file containing the log, or {@code null} if the store has been closed or could not be
+   * opened.
+   */
+  private RandomAccessFile randomAccessFile;
+
+  /**
+   * A buffer mapping the part of the log that had been written when it was last mapped.
+   */
+  private MappedByteBuffer buffer;
+
+  /**
+   * The number of bytes of the log that have been written and validated.
+   */
+  private long length;
+
+  /**
+   * A table mapping the keys of records to the offsets of the records in the log.
+   */
+  private final HashMap<String, Long> index = new HashMap<String, Long>();
+
+  /**
+   * A table mapping the keys of records that have not yet been written to the payloads of the
+   * records.
+   */
+  private final LinkedHashMap<String, byte[]> pendingRecords = new LinkedHashMap<String, byte[]>();
+
+  /**
+   * The total size of the payloads of the records that have not yet been written.
+   */
+  private int pendingSize = 0;
+
+  /**
+   * A table mapping the encodings of sources to the headers of their unit records.
+   */
+  private final HashMap<String, UnitHeader> unitHeaders = new HashMap<String, UnitHeader>();
+
+  /**
+   * Initialize a newly created store to use the given file, reading the results in the file if it
+   * exists and was written by the same version of the client. If the file cannot be read or
+   * written, the error is logged and the store behaves as an empty store that keeps no results.
+   * 
+   * @param file the file containing the log
+   * @param version a string identifying the version of the client that is using the store, which
+   *          should change whenever the analysis engine or the SDK changes
+   */
+  public AnalysisResultStore(File file, String version) {
+    this.file = file;
+    this.version = version;
+    try {
+      open();
+    } catch (IOException exception) {
+      disable("Could not open the analysis results in " + file, exception);
+    }
+  }
+
+  /**
+   * Write any buffered records and close the log. Results can no longer be looked up or stored
+   * after the store has been closed.
+   */
+  public synchronized void close() {
+    flush();
+    if (randomAccessFile != null) {
+      try {
+        randomAccessFile.close();
+      } catch (IOException exception) {
+        // Ignored
+      }
+      randomAccessFile = null;
+    }
+    buffer = null;
+    index.clear();
+    unitHeaders.clear();
+  }
+
+  /**
+   * Write any buffered records to the log.
+   */
+  public synchronized void flush() {
+    if (randomAccessFile == null || pendingRecords.isEmpty()) {
+      return;
+    }
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(pendingSize + pendingRecords.size()
+          * RECORD_HEADER_SIZE);
+      DataOutputStream output = new DataOutputStream(bytes);
+      HashMap<String, Long> offsets = new HashMap<String, Long>();
+      for (Map.Entry<String, byte[]> entry : pendingRecords.entrySet()) {
+        byte[] payload = entry.getValue();
+        offsets.put(entry.getKey(), length + output.size());
+        writeRecord(output, payload);
+      }
+      output.flush();
+      randomAccessFile.seek(length);
+      randomAccessFile.write(bytes.toByteArray());
+      length += bytes.size();
+      index.putAll(offsets);
+      pendingRecords.clear();
+      pendingSize = 0;
+    } catch (IOException exception) {
+      disable("Could not write the analysis results to " + file, exception);
+    }
+  }
+
+  /**
+   * Return the content hash that was recorded for the source with the given encoding, or
+   * {@code null} if no results are stored for the source or if the results were computed for a
+   * different modification stamp.
+   * 
+   * @param encoding the encoding of the source
+   * @param modificationStamp the current modification stamp of the source
+   * @return the content hash that was recorded for the source
+   */
+  public synchronized String getContentHash(String encoding, long modificationStamp) {
+    UnitHeader header = getUnitHeader(encoding);
+    if (header == null || header.modificationStamp != modificationStamp) {
+      return null;
+    }
+    return header.contentHash;
+  }
+
+  /**
+   * Return the encodings of the sources that are imported, exported or included by the source
+   * with the given encoding, or {@code null} if no results are stored for that source with the
+   * given content hash.
+   * 
+   * @param encoding the encoding of the source
+   * @param contentHash the hash of the current contents of the source
+   * @return the encodings of the sources the source depends on
+   */
+  public synchronized String[] getDependencies(String encoding, String contentHash) {
+    UnitHeader header = getUnitHeader(encoding);
+    if (header == null || !header.contentHash.equals(contentHash)) {
+      return null;
+    }
+    return header.dependencies;
+  }
+
+  /**
+   * Return the results that were stored for the given library with the given fingerprint, or
+   * {@code null} if there are no such results.
+   * 
+   * @param factory the source factory used to decode the sources referenced by the results
+   * @param librarySource the source of the library's defining compilation unit
+   * @param fingerprint the fingerprint of the library
+   * @return the results that were stored for the library
+   */
+  public synchronized LibraryResults getLibraryResults(SourceFactory factory,
+      Source librarySource, String fingerprint) {
+    DataInputStream input = readRecord(LIBRARY_RECORD, librarySource.getEncoding());
+    if (input == null) {
+      return null;
+    }
+    try {
+      if (!input.readUTF().equals(fingerprint)) {
+        return null;
+      }
+      byte flags = input.readByte();
+      int unitCount = input.readInt();
+      UnitErrors[] unitErrors = new UnitErrors[unitCount];
+      for (int i = 0; i < unitCount; i++) {
+        Source source = factory.fromEncoding(input.readUTF());
+        if (source == null) {
+          return null;
+        }
+        unitErrors[i] = new UnitErrors(
+            source,
+            readOptionalErrors(input, source),
+            readOptionalErrors(input, source),
+            readOptionalErrors(input, source),
+            readOptionalErrors(input, source));
+      }
+      return new LibraryResults(
+          (flags & 1) != 0 ? CacheState.VALID : CacheState.INVALID,
+          (flags & 2) != 0,
+          (flags & 4) != 0 ? CacheState.VALID : CacheState.INVALID,
+          (flags & 8) != 0,
+          unitErrors);
+    } catch (IOException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Return the results that were stored for the given compilation unit with the given content
+   * hash, or {@code null} if there are no such results.
+   * 
+   * @param factory the source factory used to decode the sources referenced by the results
+   * @param source the source of the compilation unit
+   * @param contentHash the hash of the current contents of the compilation unit
+   * @return the results that were stored for the compilation unit
+   */
+  public synchronized UnitResults getUnitResults(SourceFactory factory, Source source,
+      String contentHash) {
+    DataInputStream input = readRecord(UNIT_RECORD, source.getEncoding());
+    if (input == null) {
+      return null;
+    }
+    try {
+      if (!input.readUTF().equals(contentHash)) {
+        return null;
+      }
+      input.readLong();
+      Source[] importedLibraries = readSources(input, factory);
+      Source[] exportedLibraries = readSources(input, factory);
+      Source[] includedParts = readSources(input, factory);
+      if (importedLibraries == null || exportedLibraries == null || includedParts == null) {
+        return null;
+      }
+      byte flags = input.readByte();
+      int lineCount = input.readInt();
+      int[] lineStarts = new int[lineCount];
+      for (int i = 0; i < lineCount; i++) {
+        lineStarts[i] = input.readInt();
+      }
+      AnalysisError[] scanErrors = readErrors(input, source);
+      AnalysisError[] parseErrors = readErrors(input, source);
+      if (scanErrors == null || parseErrors == null) {
+        return null;
+      }
+      return new UnitResults(
+          (flags & 1) != 0,
+          (flags & 2) != 0,
+          lineStarts,
+          scanErrors,
+          parseErrors,
+          importedLibraries,
+          exportedLibraries,
+          includedParts);
+    } catch (IOException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Return {@code true} if results are stored for the given library with the given fingerprint.
+   * 
+   * @param librarySource the source of the library's defining compilation unit
+   * @param fingerprint the fingerprint of the library
+   * @return {@code true} if results are stored for the library
+   */
+  public synchronized boolean hasLibraryResults(Source librarySource, String fingerprint) {
+    DataInputStream input = readRecord(LIBRARY_RECORD, librarySource.getEncoding());
+    try {
+      return input != null && input.readUTF().equals(fingerprint);
+    } catch (IOException exception) {
+      return false;
+    }
+  }
+
+  /**
+   * Store the results of resolving the given library, replacing any results that were previously
+   * stored for the library.
+   * 
+   * @param librarySource the source of the library's defining compilation unit
+   * @param fingerprint the fingerprint of the library
+   * @param results the results to be stored
+   */
+  public synchronized void putLibraryResults(Source librarySource, String fingerprint,
+      LibraryResults results) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream output = new DataOutputStream(bytes);
+      output.writeByte(LIBRARY_RECORD);
+      output.writeUTF(librarySource.getEncoding());
+      output.writeUTF(fingerprint);
+      int flags = 0;
+      if (results.getClientState() == CacheState.VALID) {
+        flags |= 1;
+      }
+      if (results.isClient()) {
+        flags |= 2;
+      }
+      if (results.getLaunchableState() == CacheState.VALID) {
+        flags |= 4;
+      }
+      if (results.isLaunchable()) {
+        flags |= 8;
+      }
+      output.writeByte(flags);
+      UnitErrors[] unitErrors = results.getUnitErrors();
+      output.writeInt(unitErrors.length);
+      for (UnitErrors errors : unitErrors) {
+        output.writeUTF(errors.getSource().getEncoding());
+        writeOptionalErrors(output, errors.getBuildElementErrors());
+        writeOptionalErrors(output, errors.getResolutionErrors());
+        writeOptionalErrors(output, errors.getVerificationErrors());
+        writeOptionalErrors(output, errors.getHints());
+      }
+      output.flush();
+      addRecord(LIBRARY_RECORD, librarySource.getEncoding(), bytes.toByteArray());
+    } catch (IOException exception) {
+      // Cannot happen when writing to an array; only messages too long to be encoded are rejected.
+    }
+  }
+
+  /**
+   * Store the results of scanning and parsing the given compilation unit, replacing any results
+   * that were previously stored for the unit.
+   * 
+   * @param source the source of the compilation unit
+   * @param contentHash the hash of the contents from which the results were computed
+   * @param modificationStamp the modification stamp of the contents from which the results were
+   *          computed
+   * @param results the results to be stored
+   */
+  public synchronized void putUnitResults(Source source, String contentHash,
+      long modificationStamp, UnitResults results) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream output = new DataOutputStream(bytes);
+      output.writeByte(UNIT_RECORD);
+      output.writeUTF(source.getEncoding());
+      output.writeUTF(contentHash);
+      output.writeLong(modificationStamp);
+      writeSources(output, results.getImportedLibraries());
+      writeSources(output, results.getExportedLibraries());
+      writeSources(output, results.getIncludedParts());
+      int flags = 0;
+      if (results.hasNonPartOfDirective()) {
+        flags |= 1;
+      }
+      if (results.hasPartOfDirective()) {
+        flags |= 2;
+      }
+      output.writeByte(flags);
+      int[] lineStarts = results.getLineStarts();
+      output.writeInt(lineStarts.length);
+      for (int lineStart : lineStarts) {
+        output.writeInt(lineStart);
+      }
+      writeErrors(output, results.getScanErrors());
+      writeErrors(output, results.getParseErrors());
+      output.flush();
+      addRecord(UNIT_RECORD, source.getEncoding(), bytes.toByteArray());
+    } catch (IOException exception) {
+      // Cannot happen when writing to an array; only messages too long to be encoded are rejected.
+    }
+  }
+
+  /**
+   * Record that the results stored for the given compilation unit with the given content hash are
+   * also valid for the given modification stamp. This allows the contents of the unit to be
+   * identified by its modification stamp without being read.
+   * 
+   * @param source the source of the compilation unit
+   * @param contentHash the hash of the current contents of the compilation unit
+   * @param modificationStamp the current modification stamp of the compilation unit
+   */
+  public synchronized void updateModificationStamp(Source source, String contentHash,
+      long modificationStamp) {
+    String encoding = source.getEncoding();
+    UnitHeader header = getUnitHeader(encoding);
+    if (header == null || !header.contentHash.equals(contentHash)
+        || header.modificationStamp == modificationStamp) {
+      return;
+    }
+    byte[] payload = readPayload(UNIT_RECORD, encoding);
+    if (payload == null) {
+      return;
+    }
+    // The modification stamp follows the kind, the encoding and the content hash.
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+    try {
+      input.readByte();
+      input.readUTF();
+      input.readUTF();
+      ByteBuffer.wrap(payload).putLong(payload.length - input.available(), modificationStamp);
+    } catch (IOException exception) {
+      return;
+    }
+    addRecord(UNIT_RECORD, encoding, payload);
+  }
+
+  /**
+   * Buffer a record with the given payload, replacing any record with the same key.
+   */
+  private void addRecord(byte kind, String encoding, byte[] payload) {
+    if (randomAccessFile == null) {
+      return;
+    }
+    String key = getKey(kind, encoding);
+    byte[] previous = pendingRecords.remove(key);
+    if (previous != null) {
+      pendingSize -= previous.length;
+    }
+    pendingRecords.put(key, payload);
+    pendingSize += payload.length;
+    if (kind == UNIT_RECORD) {
+      unitHeaders.remove(encoding);
+    }
+    if (pendingSize > MAX_PENDING_SIZE) {
+      flush();
+    }
+  }
+
+  /**
+   * If more than half of the bytes in the log are records that have been replaced by later
+   * records, rewrite the log to contain only the most recent records.
+   */
+  private void compactIfNeeded() throws IOException {
+    long liveSize = 0L;
+    for (Long offset : index.values()) {
+      liveSize += RECORD_HEADER_SIZE + buffer.getInt(offset.intValue());
+    }
+    if (length < MIN_COMPACTION_SIZE || liveSize * 2 > length) {
+      return;
+    }
+    File compactedFile = new File(file.getPath() + ".tmp");
+    RandomAccessFile compacted = new RandomAccessFile(compactedFile, "rw");
+    HashMap<String, Long> compactedIndex = new HashMap<String, Long>();
+    try {
+      compacted.setLength(0L);
+      writeHeader(compacted);
+      for (Map.Entry<String, Long> entry : index.entrySet()) {
+        int offset = entry.getValue().intValue();
+        int recordSize = RECORD_HEADER_SIZE + buffer.getInt(offset);
+        byte[] record = new byte[recordSize];
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(record);
+        compactedIndex.put(entry.getKey(), compacted.getFilePointer());
+        compacted.write(record);
+      }
+    } finally {
+      compacted.close();
+    }
+    randomAccessFile.close();
+    randomAccessFile = null;
+    buffer = null;
+    if (!compactedFile.renameTo(file)) {
+      // The log cannot be replaced while it is mapped on some platforms. Keep the uncompacted log.
+      compactedFile.delete();
+      randomAccessFile = new RandomAccessFile(file, "rw");
+      mapFile();
+      return;
+    }
+    randomAccessFile = new RandomAccessFile(file, "rw");
+    length = randomAccessFile.length();
+    index.clear();
+    index.putAll(compactedIndex);
+    mapFile();
+  }
+
+  /**
+   * Stop using the log after an error has occurred.
+   */
+  private void disable(String message, IOException exception) {
+    AnalysisEngine.getInstance().getLogger().logError(message, exception);
+    if (randomAccessFile != null) {
+      try {
+        randomAccessFile.close();
+      } catch (IOException closeException) {
+        // Ignored
+      }
+      randomAccessFile = null;
+    }
+    buffer = null;
+    index.clear();
+    pendingRecords.clear();
+    pendingSize = 0;
+    unitHeaders.clear();
+  }
+
+  private String getKey(byte kind, String encoding) {
+    return (char) kind + encoding;
+  }
+
+  /**
+   * Return the header of the unit record for the source with the given encoding, or {@code null}
+   * if there is no such record.
+   */
+  private UnitHeader getUnitHeader(String encoding) {
+    UnitHeader header = unitHeaders.get(encoding);
+    if (header != null) {
+      return header;
+    }
+    DataInputStream input = readRecord(UNIT_RECORD, encoding);
+    if (input == null) {
+      return null;
+    }
+    try {
+      String contentHash = input.readUTF();
+      long modificationStamp = input.readLong();
+      ArrayList<String> dependencies = new ArrayList<String>();
+      for (int i = 0; i < 3; i++) {
+        int count = input.readInt();
+        for (int j = 0; j < count; j++) {
+          dependencies.add(input.readUTF());
+        }
+      }
+      header = new UnitHeader(
+          contentHash,
+          modificationStamp,
+          dependencies.toArray(new String[dependencies.size()]));
+      unitHeaders.put(encoding, header);
+      return header;
+    } catch (IOException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Map the part of the log that has been written into memory.
+   */
+  private void mapFile() throws IOException {
+    buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0L, length);
+  }
+
+  /**
+   * Open the log, building the index of the records in it. The log is truncated after the last
+   * record that can be read. The log is read through its channel and only mapped once it has been
+   * truncated, because a file cannot be truncated while it is mapped on some platforms.
+   */
+  private void open() throws IOException {
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.exists()) {
+      parent.mkdirs();
+    }
+    randomAccessFile = new RandomAccessFile(file, "rw");
+    FileChannel channel = randomAccessFile.getChannel();
+    length = randomAccessFile.length();
+    if (length > Integer.MAX_VALUE) {
+      length = 0L;
+    }
+    long headerLength = 0L;
+    if (length > 0L) {
+      headerLength = readHeader(channel);
+    }
+    if (headerLength == 0L) {
+      randomAccessFile.setLength(0L);
+      writeHeader(randomAccessFile);
+      length = randomAccessFile.length();
+      mapFile();
+      return;
+    }
+    CRC32 checksum = new CRC32();
+    ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+    int offset = (int) headerLength;
+    while (offset + RECORD_HEADER_SIZE <= length) {
+      recordHeader.clear();
+      if (!readFully(channel, recordHeader, offset)) {
+        break;
+      }
+      int payloadLength = recordHeader.getInt(0);
+      if (payloadLength <= 0 || offset + RECORD_HEADER_SIZE + (long) payloadLength > length) {
+        break;
+      }
+      ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+      if (!readFully(channel, payload, offset + RECORD_HEADER_SIZE)) {
+        break;
+      }
+      checksum.reset();
+      checksum.update(payload.array());
+      if ((int) checksum.getValue() != recordHeader.getInt(4)) {
+        break;
+      }
+      try {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload.array()));
+        byte kind = input.readByte();
+        index.put(getKey(kind, input.readUTF()), Long.valueOf(offset));
+      } catch (IOException exception) {
+        break;
+      }
+      offset += RECORD_HEADER_SIZE + payloadLength;
+    }
+    if (offset < length) {
+      // Discard the part of the log that could not be read, such as a record that was being written
+      // when the process was terminated.
+      randomAccessFile.setLength(offset);
+      length = offset;
+    }
+    mapFile();
+    compactIfNeeded();
+  }
+
+  /**
+   * Read bytes from the given channel, starting at the given position, until the given buffer is
+   * full, returning {@code false} if the end of the channel was reached first.
+   */
+  private boolean readFully(FileChannel channel, ByteBuffer target, long position)
+      throws IOException {
+    while (target.hasRemaining()) {
+      int count = channel.read(target, position);
+      if (count < 0) {
+        return false;
+      }
+      position += count;
+    }
+    return true;
+  }
+
+  /**
+   * Read and validate the header of the log, returning the length of the header, or zero if the
+   * log was written by a different version of this class or of the client.
+   */
+  private long readHeader(FileChannel channel) throws IOException {
+    ByteBuffer source = ByteBuffer.allocate((int) Math.min(length, 10L + 0xFFFF));
+    if (!readFully(channel, source, 0L)) {
+      return 0L;
+    }
+    source.flip();
+    if (source.remaining() < 10 || source.getInt() != MAGIC || source.getInt() != FORMAT_VERSION) {
+      return 0L;
+    }
+    int versionLength = source.getShort() & 0xFFFF;
+    if (source.remaining() < versionLength) {
+      return 0L;
+    }
+    byte[] versionBytes = new byte[versionLength];
+    source.get(versionBytes);
+    if (!new String(versionBytes, "UTF-8").equals(version)) {
+      return 0L;
+    }
+    return source.position();
+  }
+
+  private AnalysisError readError(DataInputStream input, Source source) throws IOException {
+    ErrorCode errorCode = ERROR_CODES.get(input.readUTF());
+    int offset = input.readInt();
+    int length = input.readInt();
+    String message = input.readUTF();
+    String correction = input.readBoolean() ? input.readUTF() : null;
+    boolean isStaticOnly = input.readBoolean();
+    if (errorCode == null) {
+      return null;
+    }
+    AnalysisError error = AnalysisError.createWithMessage(
+        source,
+        offset,
+        length,
+        errorCode,
+        message,
+        correction);
+    error.setIsStaticOnly(isStaticOnly);
+    return error;
+  }
+
+  /**
+   * Read an array of errors, returning {@code null} if any of the errors has an error code that is
+   * no longer defined.
+   */
+  private AnalysisError[] readErrors(DataInputStream input, Source source) throws IOException {
+    int count = input.readInt();
+    if (count == 0) {
+      return AnalysisError.NO_ERRORS;
+    }
+    AnalysisError[] errors = new AnalysisError[count];
+    for (int i = 0; i < count; i++) {
+      errors[i] = readError(input, source);
+      if (errors[i] == null) {
+        return null;
+      }
+    }
+    return errors;
+  }
+
+  private AnalysisError[] readOptionalErrors(DataInputStream input, Source source)
+      throws IOException {
+    if (!input.readBoolean()) {
+      return null;
+    }
+    AnalysisError[] errors = readErrors(input, source);
+    if (errors == null) {
+      throw new IOException("Unknown error code");
+    }
+    return errors;
+  }
+
+  /**
+   * Return the payload of the record with the given kind for the source with the given encoding,
+   * or {@code null} if there is no such record.
+   */
+  private byte[] readPayload(byte kind, String encoding) {
+    String key = getKey(kind, encoding);
+    byte[] payload = pendingRecords.get(key);
+    if (payload != null) {
+      return payload;
+    }
+    Long offset = index.get(key);
+    if (offset == null || randomAccessFile == null) {
+      return null;
+    }
+    try {
+      if (offset.longValue() + RECORD_HEADER_SIZE > buffer.capacity()) {
+        mapFile();
+      }
+      int position = offset.intValue();
+      payload = new byte[buffer.getInt(position)];
+      ByteBuffer source = buffer.duplicate();
+      source.position(position + RECORD_HEADER_SIZE);
+      source.get(payload);
+      return payload;
+    } catch (IOException exception) {
+      disable("Could not read the analysis results from " + file, exception);
+      return null;
+    }
+  }
+
+  /**
+   * Return a stream positioned after the key of the record with the given kind for the source with
+   * the given encoding, or {@code null} if there is no such record.
+   */
+  private DataInputStream readRecord(byte kind, String encoding) {
+    byte[] payload = readPayload(kind, encoding);
+    if (payload == null) {
+      return null;
+    }
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+    try {
+      input.readByte();
+      input.readUTF();
+    } catch (IOException exception) {
+      return null;
+    }
+    return input;
+  }
+
+  private Source[] readSources(DataInputStream input, SourceFactory factory) throws IOException {
+    int count = input.readInt();
+    if (count == 0) {
+      return Source.EMPTY_ARRAY;
+    }
+    List<Source> sources = new ArrayList<Source>(count);
+    boolean allDecoded = true;
+    for (int i = 0; i < count; i++) {
+      Source source = factory.fromEncoding(input.readUTF());
+      if (source == null) {
+        allDecoded = false;
+      } else {
+        sources.add(source);
+      }
+    }
+    return allDecoded ? sources.toArray(new Source[count]) : null;
+  }
+
+  private void writeError(DataOutputStream output, AnalysisError error) throws IOException {
+    output.writeUTF(error.getErrorCode().getUniqueName());
+    output.writeInt(error.getOffset());
+    output.writeInt(error.getLength());
+    output.writeUTF(error.getMessage());
+    String correction = error.getCorrection();
+    output.writeBoolean(correction != null);
+    if (correction != null) {
+      output.writeUTF(correction);
+    }
+    output.writeBoolean(error.isStaticOnly());
+  }
+
+  private void writeErrors(DataOutputStream output, AnalysisError[] errors) throws IOException {
+    output.writeInt(errors.length);
+    for (AnalysisError error : errors) {
+      writeError(output, error);
+    }
+  }
+
+  private void writeHeader(RandomAccessFile output) throws IOException {
+    output.writeInt(MAGIC);
+    output.writeInt(FORMAT_VERSION);
+    output.writeUTF(version);
+  }
+
+  private void writeOptionalErrors(DataOutputStream output, AnalysisError[] errors)
+      throws IOException {
+    output.writeBoolean(errors != null);
+    if (errors != null) {
+      writeErrors(output, errors);
+    }
+  }
+
+  private void writeRecord(DataOutputStream output, byte[] payload) throws IOException {
+    CRC32 checksum = new CRC32();
+    checksum.update(payload);
+    output.writeInt(payload.length);
+    output.writeInt((int) checksum.getValue());
+    output.write(payload);
+  }
+
+  private void writeSources(DataOutputStream output, Source[] sources) throws IOException {
+    output.writeInt(sources.length);
+    for (Source source : sources) {
+      output.writeUTF(source.getEncoding());
+    }
+  }
+}
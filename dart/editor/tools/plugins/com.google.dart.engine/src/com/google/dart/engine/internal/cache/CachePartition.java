@@ -20,6 +20,8 @@ import com.google.dart.engine.utilities.collection.SingleMapIterator;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Instances of the class {@code CachePartition} implement a single partition in an LRU cache of
@@ -29,7 +31,7 @@ public abstract class CachePartition {
   /**
    * A table mapping the sources known to the context to the information known about the source.
    */
-  private final HashMap<Source, SourceEntry> sourceMap = new HashMap<Source, SourceEntry>();
+  private final Map<Source, SourceEntry> sourceMap;
 
   /**
    * The maximum number of sources for which AST structures should be kept in the cache.
@@ -58,8 +60,24 @@ public abstract class CachePartition {
    *          cache
    */
   public CachePartition(int maxCacheSize, CacheRetentionPolicy retentionPolicy) {
+    this(maxCacheSize, retentionPolicy, new HashMap<Source, SourceEntry>());
+  }
+
+  /**
+   * Initialize a newly created cache to maintain at most the given number of AST structures in the
+   * cache, keeping the entries in the given table.
+   * 
+   * @param maxCacheSize the maximum number of sources for which AST structures should be kept in
+   *          the cache
+   * @param retentionPolicy the policy used to determine which pieces of data to remove from the
+   *          cache
+   * @param sourceMap the initially empty table in which the entries are to be kept
+   */
+  protected CachePartition(int maxCacheSize, CacheRetentionPolicy retentionPolicy,
+      Map<Source, SourceEntry> sourceMap) {
     this.maxCacheSize = maxCacheSize;
     this.retentionPolicy = retentionPolicy;
+    this.sourceMap = sourceMap;
     recentlyUsed = new ArrayList<Source>(maxCacheSize);
   }
 
@@ -137,6 +155,28 @@ public abstract class CachePartition {
     return sourceMap;
   }
 
+  /**
+   * Return the lock that contexts must hold while resolving a library whose defining compilation
+   * unit is in this partition, or {@code null} if the partition is not shared by several contexts
+   * and its libraries can therefore only be resolved by the context that owns it.
+   * 
+   * @return the lock guarding the resolution of the libraries in this partition
+   */
+  public Lock getResolutionLock() {
+    return null;
+  }
+
+  /**
+   * Return {@code true} if the entries in this partition can be read without holding the lock of
+   * the context that is reading them. This is only the case for partitions that are shared by
+   * several contexts, each of which would otherwise guard the partition with a different lock.
+   * 
+   * @return {@code true} if the entries in this partition can be read without holding a lock
+   */
+  public boolean isConcurrentlyReadable() {
+    return false;
+  }
+
   /**
    * Return an iterator returning all of the map entries mapping sources to cache entries.
    * 
@@ -230,11 +270,11 @@ public abstract class CachePartition {
     if (sourceEntry instanceof HtmlEntry) {
       HtmlEntryImpl htmlCopy = ((HtmlEntry) sourceEntry).getWritableCopy();
       htmlCopy.flushAstStructures();
-      sourceMap.put(removedSource, htmlCopy);
+      replaceEntry(removedSource, sourceEntry, htmlCopy);
     } else if (sourceEntry instanceof DartEntry) {
       DartEntryImpl dartCopy = ((DartEntry) sourceEntry).getWritableCopy();
       dartCopy.flushAstStructures();
-      sourceMap.put(removedSource, dartCopy);
+      replaceEntry(removedSource, sourceEntry, dartCopy);
     }
     return true;
   }
@@ -265,4 +305,21 @@ public abstract class CachePartition {
     }
     return recentlyUsed.remove(sourceToRemove);
   }
+
+  /**
+   * Replace the given entry for the given source with the given new entry. If the table can be
+   * modified concurrently, the entry is only replaced if it has not been replaced since it was
+   * read, so that a flushed copy of an old entry does not overwrite a newer entry.
+   * 
+   * @param source the source whose entry is to be replaced
+   * @param oldEntry the entry that was read from the table
+   * @param newEntry the entry that is to replace the old entry
+   */
+  private void replaceEntry(Source source, SourceEntry oldEntry, SourceEntry newEntry) {
+    if (sourceMap instanceof ConcurrentMap) {
+      ((ConcurrentMap<Source, SourceEntry>) sourceMap).replace(source, oldEntry, newEntry);
+    } else {
+      sourceMap.put(source, newEntry);
+    }
+  }
 }
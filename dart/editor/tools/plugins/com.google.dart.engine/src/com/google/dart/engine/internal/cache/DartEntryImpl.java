@@ -22,7 +22,6 @@ import com.google.dart.engine.scanner.Token;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceKind;
 import com.google.dart.engine.utilities.ast.AstCloner;
-import com.google.dart.engine.utilities.collection.ListUtilities;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -600,22 +599,26 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
 
   @Override
   public AnalysisError[] getAllErrors() {
-    ArrayList<AnalysisError> errors = new ArrayList<AnalysisError>();
-    ListUtilities.addAll(errors, scanErrors);
-    ListUtilities.addAll(errors, parseErrors);
+    int stateCount = 0;
     ResolutionState state = resolutionState;
     while (state != null) {
-      ListUtilities.addAll(errors, state.buildElementErrors);
-      ListUtilities.addAll(errors, state.resolutionErrors);
-      ListUtilities.addAll(errors, state.verificationErrors);
-      ListUtilities.addAll(errors, state.hints);
+      stateCount++;
       state = state.nextState;
     }
-    ListUtilities.addAll(errors, angularErrors);
-    if (errors.size() == 0) {
-      return AnalysisError.NO_ERRORS;
+    AnalysisError[][] errorArrays = new AnalysisError[3 + 4 * stateCount][];
+    int index = 0;
+    errorArrays[index++] = scanErrors;
+    errorArrays[index++] = parseErrors;
+    state = resolutionState;
+    while (state != null) {
+      errorArrays[index++] = state.buildElementErrors;
+      errorArrays[index++] = state.resolutionErrors;
+      errorArrays[index++] = state.verificationErrors;
+      errorArrays[index++] = state.hints;
+      state = state.nextState;
     }
-    return errors.toArray(new AnalysisError[errors.size()]);
+    errorArrays[index++] = angularErrors;
+    return mergeErrors(errorArrays);
   }
 
   @Override
@@ -22,8 +22,6 @@ import com.google.dart.engine.internal.element.angular.AngularApplication;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceKind;
 
-import java.util.ArrayList;
-
 /**
  * Instances of the class {@code HtmlEntryImpl} implement an {@link HtmlEntry}.
  * 
@@ -196,41 +194,9 @@ public class HtmlEntryImpl extends SourceEntryImpl implements HtmlEntry {
 
   @Override
   public AnalysisError[] getAllErrors() {
-    ArrayList<AnalysisError> errors = new ArrayList<AnalysisError>();
-    if (parseErrors != null) {
-      for (AnalysisError error : parseErrors) {
-        errors.add(error);
-      }
-    }
-    if (resolutionErrors != null) {
-      for (AnalysisError error : resolutionErrors) {
-        errors.add(error);
-      }
-    }
-    if (angularErrors != null) {
-      for (AnalysisError error : angularErrors) {
-        errors.add(error);
-      }
-    }
-    if (hints != null) {
-      for (AnalysisError error : hints) {
-        errors.add(error);
-      }
-    }
-    if (polymerBuildErrors != null) {
-      for (AnalysisError error : polymerBuildErrors) {
-        errors.add(error);
-      }
-    }
-    if (polymerResolutionErrors != null) {
-      for (AnalysisError error : polymerResolutionErrors) {
-        errors.add(error);
-      }
-    }
-    if (errors.size() == 0) {
-      return AnalysisError.NO_ERRORS;
-    }
-    return errors.toArray(new AnalysisError[errors.size()]);
+    return mergeErrors(new AnalysisError[][] {
+        parseErrors, resolutionErrors, angularErrors, hints, polymerBuildErrors,
+        polymerResolutionErrors});
   }
 
   @Override
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+import com.google.dart.engine.source.Source;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Instances of the class {@code PackageCachePartition} implement a cache partition that contains
+ * all of the sources in a set of package directories in the pub cache.
+ * <p>
+ * The partition is shared by every context that uses the same SDK and that maps the same package
+ * names onto the same package directories. Packages in the pub cache are never modified, and they
+ * can only depend on the SDK and on other packages, so the results computed for their sources are
+ * the same in all of those contexts.
+ */
+public class PackageCachePartition extends SharedCachePartition {
+  /**
+   * The paths of the package directories whose sources are contained in this partition, each
+   * ending with a separator, sorted so that they can be searched using a binary search. No path is
+   * a prefix of another.
+   */
+  private final String[] directoryPaths;
+
+  /**
+   * Initialize a newly created partition to contain the sources in the given package directories.
+   * 
+   * @param maxCacheSize the maximum number of sources for which AST structures should be kept in
+   *          the cache
+   * @param packageDirectories the directories whose sources are contained in the partition
+   */
+  public PackageCachePartition(int maxCacheSize, Collection<File> packageDirectories) {
+    super(maxCacheSize);
+    String[] paths = new String[packageDirectories.size()];
+    int index = 0;
+    for (File directory : packageDirectories) {
+      paths[index++] = directory.getAbsolutePath() + File.separator;
+    }
+    Arrays.sort(paths);
+    ArrayList<String> outermostPaths = new ArrayList<String>();
+    String lastPath = null;
+    for (String path : paths) {
+      // The directories within a directory sort directly after it, and are covered by it.
+      if (lastPath == null || !path.startsWith(lastPath)) {
+        outermostPaths.add(path);
+        lastPath = path;
+      }
+    }
+    directoryPaths = outermostPaths.toArray(new String[outermostPaths.size()]);
+  }
+
+  @Override
+  public boolean contains(Source source) {
+    if (source.isInSystemLibrary()) {
+      return false;
+    }
+    String path = source.getFullName();
+    int index = Arrays.binarySearch(directoryPaths, path);
+    if (index >= 0) {
+      return false;
+    }
+    // The only directory that can contain the source is the last one that sorts before it.
+    int candidate = -index - 2;
+    return candidate >= 0 && path.startsWith(directoryPaths[candidate]);
+  }
+}
@@ -13,30 +13,169 @@
  */
 package com.google.dart.engine.internal.cache;
 
+import com.google.dart.engine.context.AnalysisOptions;
 import com.google.dart.engine.sdk.DartSdk;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Instances of the class {@code PartitionManager} manage the partitions that can be shared between
  * analysis contexts.
  */
 public class PartitionManager {
+  /**
+   * Instances of the class {@code PackagePartitionTable} map package fingerprints to partitions,
+   * discarding the least recently used partition when the table is full. A discarded partition
+   * remains in use by the contexts that already use it, but is not given to any other context.
+   */
+  @SuppressWarnings("serial")
+  private static class PackagePartitionTable extends LinkedHashMap<String, PackageCachePartition> {
+    /**
+     * The maximum number of partitions in the table.
+     */
+    private static final int MAX_SIZE = 16;
+
+    /**
+     * Initialize a newly created, empty table.
+     */
+    public PackagePartitionTable() {
+      super(MAX_SIZE, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, PackageCachePartition> eldest) {
+      return size() > MAX_SIZE;
+    }
+  }
+
   /**
    * A table mapping SDK's to the partitions used for those SDK's.
    */
   private HashMap<DartSdk, SdkCachePartition> sdkPartitions = new HashMap<DartSdk, SdkCachePartition>();
 
+  /**
+   * A table mapping SDK's to tables mapping package fingerprints to the partitions used for the
+   * packages with those fingerprints.
+   */
+  private HashMap<DartSdk, PackagePartitionTable> packagePartitions = new HashMap<DartSdk, PackagePartitionTable>();
+
+  /**
+   * The directory in which pub caches packages, or {@code null} if package partitions are not to be
+   * created.
+   */
+  private File pubCacheDirectory;
+
+  /**
+   * The canonical path of the pub cache followed by a separator, or {@code null} if package
+   * partitions are not to be created.
+   */
+  private String pubCachePath;
+
   /**
    * The default cache size for a Dart SDK partition.
    */
   private static final int DEFAULT_SDK_CACHE_SIZE = 256;
 
+  /**
+   * The default cache size for a package partition.
+   */
+  private static final int DEFAULT_PACKAGE_CACHE_SIZE = 256;
+
+  /**
+   * Append to the given builder a description of the analysis options that affect the results
+   * computed for a package.
+   * 
+   * @param builder the builder to which the description is to be appended
+   * @param options the analysis options to be described
+   */
+  private static void appendOptions(StringBuilder builder, AnalysisOptions options) {
+    builder.append(options.getAnalyzeAngular() ? 'A' : 'a');
+    builder.append(options.getAnalyzeFunctionBodies() ? 'B' : 'b');
+    builder.append(options.getDart2jsHint() ? 'D' : 'd');
+    builder.append(options.getEnableAsync() ? 'S' : 's');
+    builder.append(options.getEnableDeferredLoading() ? 'L' : 'l');
+    builder.append(options.getEnableEnum() ? 'E' : 'e');
+    builder.append(options.getHint() ? 'H' : 'h');
+    builder.append(options.getAnalyzePolymer() ? 'P' : 'p');
+    builder.append(options.getPreserveComments() ? 'C' : 'c');
+    builder.append('\n');
+  }
+
+  /**
+   * Return the directory used by pub to cache packages unless the user has specified otherwise.
+   * 
+   * @return the default location of the pub cache
+   */
+  private static File getDefaultPubCacheDirectory() {
+    String pubCache = System.getenv("PUB_CACHE");
+    if (pubCache != null) {
+      return new File(pubCache);
+    }
+    String appData = System.getenv("APPDATA");
+    if (File.separatorChar == '\\' && appData != null) {
+      return new File(new File(appData, "Pub"), "Cache");
+    }
+    return new File(System.getProperty("user.home"), ".pub-cache");
+  }
+
   /**
    * Initialize a newly created partition manager.
    */
   public PartitionManager() {
     super();
+    setPubCacheDirectory(getDefaultPubCacheDirectory());
+  }
+
+  /**
+   * Return the partition to be shared by the contexts that use the given SDK, the given package
+   * directories and the given analysis options, creating the partition if necessary, or
+   * {@code null} if the analysis of the packages cannot be shared. Analysis is only shared if every
+   * package directory is in the pub cache, because the packages in other directories can be
+   * modified and can depend on sources that are not in a package. Contexts whose options would
+   * produce different results for the packages are given different partitions.
+   * 
+   * @param sdk the SDK used by the contexts that would share the partition
+   * @param packageDirectories a table mapping package names to the canonical directories containing
+   *          the packages, or {@code null} if the contexts do not resolve {@code package} URI's
+   * @param options the analysis options used by the contexts that would share the partition
+   * @return the partition being used for the given packages
+   */
+  public synchronized PackageCachePartition forPackages(DartSdk sdk,
+      Map<String, File> packageDirectories, AnalysisOptions options) {
+    if (pubCachePath == null || packageDirectories == null || packageDirectories.isEmpty()) {
+      return null;
+    }
+    StringBuilder builder = new StringBuilder();
+    appendOptions(builder, options);
+    for (Map.Entry<String, File> entry : new TreeMap<String, File>(packageDirectories).entrySet()) {
+      String path = entry.getValue().getAbsolutePath();
+      if (!path.startsWith(pubCachePath)) {
+        return null;
+      }
+      builder.append(entry.getKey());
+      builder.append('=');
+      builder.append(path);
+      builder.append('\n');
+    }
+    String fingerprint = builder.toString();
+    PackagePartitionTable partitions = packagePartitions.get(sdk);
+    if (partitions == null) {
+      partitions = new PackagePartitionTable();
+      packagePartitions.put(sdk, partitions);
+    }
+    PackageCachePartition partition = partitions.get(fingerprint);
+    if (partition == null) {
+      partition = new PackageCachePartition(
+          DEFAULT_PACKAGE_CACHE_SIZE,
+          packageDirectories.values());
+      partitions.put(fingerprint, partition);
+    }
+    return partition;
   }
 
   /**
@@ -53,4 +192,35 @@ public class PartitionManager {
     }
     return partition;
   }
+
+  /**
+   * Return the directory in which pub caches packages, or {@code null} if package partitions are
+   * not being created.
+   * 
+   * @return the directory in which pub caches packages
+   */
+  public synchronized File getPubCacheDirectory() {
+    return pubCacheDirectory;
+  }
+
+  /**
+   * Set the directory in which pub caches packages to the given directory, and discard the package
+   * partitions that were created for packages in the previous directory.
+   * 
+   * @param directory the directory in which pub caches packages, or {@code null} if package
+   *          partitions are not to be created
+   */
+  public synchronized void setPubCacheDirectory(File directory) {
+    packagePartitions.clear();
+    pubCacheDirectory = directory;
+    if (directory == null) {
+      pubCachePath = null;
+      return;
+    }
+    try {
+      pubCachePath = directory.getCanonicalPath() + File.separator;
+    } catch (IOException exception) {
+      pubCachePath = directory.getAbsolutePath() + File.separator;
+    }
+  }
 }
@@ -18,8 +18,10 @@ import com.google.dart.engine.source.Source;
 /**
  * Instances of the class {@code SdkCachePartition} implement a cache partition that contains all of
  * the sources in the SDK.
+ * <p>
+ * The partition is shared by every context that uses the same SDK.
  */
-public class SdkCachePartition extends CachePartition {
+public class SdkCachePartition extends SharedCachePartition {
   /**
    * Initialize a newly created partition.
    * 
@@ -27,7 +29,7 @@ public class SdkCachePartition extends CachePartition {
    *          the cache
    */
   public SdkCachePartition(int maxCacheSize) {
-    super(maxCacheSize, DefaultRetentionPolicy.POLICY);
+    super(maxCacheSize);
   }
 
   @Override
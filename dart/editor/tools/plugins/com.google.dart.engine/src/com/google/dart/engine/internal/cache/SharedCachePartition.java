@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+import com.google.dart.engine.source.Source;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Instances of the class {@code SharedCachePartition} implement a cache partition that is shared by
+ * multiple contexts and that contains sources whose contents never change.
+ * <p>
+ * Each of the contexts sharing the partition guards its cache with its own lock, so the partition
+ * cannot rely on the callers for mutual exclusion. The entries are therefore kept in a concurrent
+ * table. Because entries are never modified once they have been put into the cache (changes are
+ * made to a writable copy that then replaces the original), an entry read from the table is a
+ * consistent snapshot, which allows contexts to read shared entries without taking their lock. The
+ * bookkeeping used to decide which AST structures to flush is guarded by the partition itself.
+ * <p>
+ * The element model of a library in the partition must be built by only one of the contexts, or
+ * the libraries of different contexts would be resolved against different elements for the same
+ * library. Contexts therefore resolve the libraries in the partition while holding the partition's
+ * resolution lock, and only if no other context resolved them while they were waiting for it. A
+ * library cycle can span several partitions, in which case the locks of all of them are held.
+ */
+public abstract class SharedCachePartition extends CachePartition {
+  /**
+   * The lock held by contexts while resolving the libraries in this partition. It is not the
+   * partition's monitor so that resolving a library does not block the AST bookkeeping.
+   */
+  private final Lock resolutionLock = new ReentrantLock();
+
+  /**
+   * Initialize a newly created partition.
+   * 
+   * @param maxCacheSize the maximum number of sources for which AST structures should be kept in
+   *          the cache
+   */
+  public SharedCachePartition(int maxCacheSize) {
+    super(
+        maxCacheSize,
+        DefaultRetentionPolicy.POLICY,
+        new ConcurrentHashMap<Source, SourceEntry>());
+  }
+
+  @Override
+  public synchronized void accessedAst(Source source) {
+    super.accessedAst(source);
+  }
+
+  @Override
+  public synchronized int getAstSize() {
+    return super.getAstSize();
+  }
+
+  @Override
+  public Lock getResolutionLock() {
+    return resolutionLock;
+  }
+
+  @Override
+  public boolean isConcurrentlyReadable() {
+    return true;
+  }
+
+  @Override
+  public synchronized void remove(Source source) {
+    super.remove(source);
+  }
+
+  @Override
+  public synchronized void removedAst(Source source) {
+    super.removedAst(source);
+  }
+
+  @Override
+  public synchronized void setMaxCacheSize(int size) {
+    super.setMaxCacheSize(size);
+  }
+
+  @Override
+  public synchronized void storedAst(Source source) {
+    super.storedAst(source);
+  }
+}
@@ -14,6 +14,7 @@
 package com.google.dart.engine.internal.cache;
 
 import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.utilities.collection.BooleanArray;
 import com.google.dart.engine.utilities.instrumentation.Instrumentation;
 import com.google.dart.engine.utilities.instrumentation.InstrumentationBuilder;
@@ -26,6 +27,53 @@ import com.google.dart.engine.utilities.source.LineInfo;
  * @coverage dart.engine
  */
 public abstract class SourceEntryImpl implements SourceEntry {
+  /**
+   * Instances of the class {@code MergedErrors} record the result of merging a number of arrays of
+   * errors. Because the arrays held by an entry are never modified, only replaced, the merged errors
+   * are still valid as long as the entry holds the identical arrays.
+   */
+  private static final class MergedErrors {
+    /**
+     * The arrays of errors that were merged, in the order in which they were merged.
+     */
+    private final AnalysisError[][] errorArrays;
+
+    /**
+     * The result of merging the arrays.
+     */
+    private final AnalysisError[] errors;
+
+    /**
+     * Initialize a newly created record of the result of merging the given arrays of errors.
+     * 
+     * @param errorArrays the arrays of errors that were merged
+     * @param errors the result of merging the arrays
+     */
+    public MergedErrors(AnalysisError[][] errorArrays, AnalysisError[] errors) {
+      this.errorArrays = errorArrays;
+      this.errors = errors;
+    }
+
+    /**
+     * Return {@code true} if merging the given arrays of errors would produce the errors recorded
+     * by this object.
+     * 
+     * @param otherArrays the arrays of errors that are to be merged
+     * @return {@code true} if the recorded errors are the result of merging the given arrays
+     */
+    public boolean isMergeOf(AnalysisError[][] otherArrays) {
+      if (otherArrays.length != errorArrays.length) {
+        return false;
+      }
+      for (int i = 0; i < otherArrays.length; i++) {
+        if (otherArrays[i] != errorArrays[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
   /**
    * The most recent time at which the state of the source matched the state represented by this
    * entry.
@@ -63,6 +111,12 @@ public abstract class SourceEntryImpl implements SourceEntry {
    */
   private LineInfo lineInfo;
 
+  /**
+   * The result of the most recent merge of the errors associated with this entry, or {@code null}
+   * if the errors have not been merged.
+   */
+  private MergedErrors mergedErrors;
+
   /**
    * The index of the flag indicating whether the source was explicitly added to the context or
    * whether the source was implicitly added because it was referenced by another source.
@@ -281,6 +335,7 @@ public abstract class SourceEntryImpl implements SourceEntry {
     content = entry.content;
     lineInfoState = entry.lineInfoState;
     lineInfo = entry.lineInfo;
+    mergedErrors = entry.mergedErrors;
   }
 
   /**
@@ -302,6 +357,45 @@ public abstract class SourceEntryImpl implements SourceEntry {
     return contentState == CacheState.ERROR || lineInfoState == CacheState.ERROR;
   }
 
+  /**
+   * Return the result of concatenating the given arrays of errors. If none of the arrays have been
+   * replaced since the last time the errors associated with this entry were merged then the
+   * previous result is returned, and if at most one of the arrays contains errors then that array
+   * is returned rather than a copy of it. Because of this, the returned array must not be modified.
+   * 
+   * @param errorArrays the arrays of errors to be merged, some of which can be {@code null}
+   * @return the errors in the given arrays
+   */
+  protected AnalysisError[] mergeErrors(AnalysisError[][] errorArrays) {
+    MergedErrors merged = mergedErrors;
+    if (merged != null && merged.isMergeOf(errorArrays)) {
+      return merged.errors;
+    }
+    int errorCount = 0;
+    int nonEmptyCount = 0;
+    AnalysisError[] nonEmptyArray = AnalysisError.NO_ERRORS;
+    for (AnalysisError[] errors : errorArrays) {
+      if (errors != null && errors.length > 0) {
+        errorCount += errors.length;
+        nonEmptyCount++;
+        nonEmptyArray = errors;
+      }
+    }
+    AnalysisError[] result = nonEmptyArray;
+    if (nonEmptyCount > 1) {
+      result = new AnalysisError[errorCount];
+      int index = 0;
+      for (AnalysisError[] errors : errorArrays) {
+        if (errors != null) {
+          System.arraycopy(errors, 0, result, index, errors.length);
+          index += errors.length;
+        }
+      }
+    }
+    mergedErrors = new MergedErrors(errorArrays, result);
+    return result;
+  }
+
   /**
    * Set the exception that caused one or more values to have a state of {@link CacheState#ERROR} to
    * the given exception.
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.constant;
+
+import com.google.dart.engine.element.ConstructorElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.internal.object.DartObjectImpl;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.type.InterfaceType;
+import com.google.dart.engine.type.Type;
+import com.google.dart.engine.utilities.general.ObjectUtilities;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code ConstantInvocation} represent the type being created and the values
+ * of the arguments passed to an invocation of a constant constructor. They are used as keys when
+ * memoizing the result of evaluating such an invocation, and can only be created for arguments
+ * whose values are known exactly, because only then is the result of the invocation fully
+ * determined by the key.
+ * <p>
+ * The elements of the SDK are shared by every context that uses the same SDK, so an invocation of
+ * a constructor declared in the SDK can only be created if neither the type being created nor the
+ * arguments refer to anything declared outside the SDK. Otherwise the memoized results would keep
+ * the elements of one context alive for as long as the SDK is used.
+ */
+public final class ConstantInvocation {
+  /**
+   * Return an invocation of the given constructor representing the given arguments, or
+   * {@code null} if the value of at least one of the arguments is not known exactly, or if the
+   * constructor is declared in the SDK and the invocation might refer to something declared
+   * outside the SDK.
+   * 
+   * @param constructor the constructor being invoked
+   * @param type the type of the object being created
+   * @param argumentValues the values of the positional arguments
+   * @param namedArgumentValues the values of the named arguments
+   * @return an invocation representing the given arguments
+   */
+  public static ConstantInvocation forArguments(ConstructorElement constructor,
+      InterfaceType type, DartObjectImpl[] argumentValues,
+      HashMap<String, DartObjectImpl> namedArgumentValues) {
+    boolean inSdk = isInSdk(constructor);
+    if (inSdk && !isSdkType(type)) {
+      return null;
+    }
+    for (DartObjectImpl value : argumentValues) {
+      if (!canBeMemoized(value, inSdk)) {
+        return null;
+      }
+    }
+    for (DartObjectImpl value : namedArgumentValues.values()) {
+      if (!canBeMemoized(value, inSdk)) {
+        return null;
+      }
+    }
+    return new ConstantInvocation(type, argumentValues, namedArgumentValues);
+  }
+
+  /**
+   * Return {@code true} if the given argument value can be part of a memoized invocation. Lists and
+   * maps can have type arguments declared outside the SDK, so only booleans, numbers, strings and
+   * {@code null} can be passed to a constructor declared in the SDK.
+   * 
+   * @param value the value of the argument
+   * @param inSdk {@code true} if the constructor being invoked is declared in the SDK
+   * @return {@code true} if the value can be part of a memoized invocation
+   */
+  private static boolean canBeMemoized(DartObjectImpl value, boolean inSdk) {
+    if (value == null || !value.hasExactValue()) {
+      return false;
+    }
+    return !inSdk || value.isBoolNumStringOrNull();
+  }
+
+  /**
+   * Return {@code true} if the given element is declared in the SDK.
+   * 
+   * @param element the element being tested
+   * @return {@code true} if the element is declared in the SDK
+   */
+  private static boolean isInSdk(Element element) {
+    Source source = element.getSource();
+    return source != null && source.isInSystemLibrary();
+  }
+
+  /**
+   * Return {@code true} if the given type, including its type arguments, is declared in the SDK.
+   * 
+   * @param type the type being tested
+   * @return {@code true} if the type is declared in the SDK
+   */
+  private static boolean isSdkType(Type type) {
+    if (type.isDynamic()) {
+      return true;
+    }
+    if (!(type instanceof InterfaceType) || !isInSdk(type.getElement())) {
+      return false;
+    }
+    for (Type typeArgument : ((InterfaceType) type).getTypeArguments()) {
+      if (!isSdkType(typeArgument)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The type of the object being created.
+   */
+  private final InterfaceType type;
+
+  /**
+   * The values of the positional arguments.
+   */
+  private final DartObjectImpl[] argumentValues;
+
+  /**
+   * The values of the named arguments.
+   */
+  private final Map<String, DartObjectImpl> namedArgumentValues;
+
+  /**
+   * The hash code of this invocation.
+   */
+  private final int hashCode;
+
+  /**
+   * Initialize a newly created invocation to represent the given arguments.
+   * 
+   * @param type the type of the object being created
+   * @param argumentValues the values of the positional arguments
+   * @param namedArgumentValues the values of the named arguments
+   */
+  private ConstantInvocation(InterfaceType type, DartObjectImpl[] argumentValues,
+      Map<String, DartObjectImpl> namedArgumentValues) {
+    this.type = type;
+    this.argumentValues = argumentValues;
+    this.namedArgumentValues = namedArgumentValues;
+    this.hashCode = ObjectUtilities.combineHashCodes(
+        ObjectUtilities.combineHashCodes(type.hashCode(), Arrays.hashCode(argumentValues)),
+        namedArgumentValues.hashCode());
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (!(object instanceof ConstantInvocation)) {
+      return false;
+    }
+    ConstantInvocation other = (ConstantInvocation) object;
+    return hashCode == other.hashCode && type.equals(other.type)
+        && Arrays.equals(argumentValues, other.argumentValues)
+        && namedArgumentValues.equals(other.namedArgumentValues);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+}
@@ -179,6 +179,13 @@ public class ConstantValueComputer {
    */
   private final DeclaredVariables declaredVariables;
 
+  /**
+   * A table mapping constant lists and maps whose values are known exactly to the single instance
+   * that is used to represent each such value, so that equal literals share one object.
+   */
+  protected final HashMap<DartObjectImpl, DartObjectImpl> canonicalObjects =
+      new HashMap<DartObjectImpl, DartObjectImpl>();
+
   /**
    * Initialize a newly created constant value computer.
    * 
@@ -320,7 +327,7 @@ public class ConstantValueComputer {
    * introduce additional error checking.
    */
   protected ConstantVisitor createConstantVisitor() {
-    return new ConstantVisitor(typeProvider);
+    return new ConstantVisitor(typeProvider, null, canonicalObjects);
   }
 
   protected ConstructorDeclaration findConstructorDeclaration(ConstructorElement constructor) {
@@ -551,6 +558,21 @@ public class ConstantValueComputer {
       // been reported, so consider it an unknown value to suppress further errors.
       return constantVisitor.validWithUnknownValue(definingClass);
     }
+    //
+    // If every argument is known exactly then the result is fully determined by the arguments, so
+    // reuse the result of any earlier evaluation of the same invocation.
+    //
+    ConstantInvocation invocation = ConstantInvocation.forArguments(
+        constructorBase,
+        definingClass,
+        argumentValues,
+        namedArgumentValues);
+    if (invocation != null) {
+      DartObjectImpl value = constructorBase.getConstantValue(invocation);
+      if (value != null) {
+        return new ValidResult(value);
+      }
+    }
     HashMap<String, DartObjectImpl> fieldMap = new HashMap<String, DartObjectImpl>();
     HashMap<String, DartObjectImpl> parameterMap = new HashMap<String, DartObjectImpl>();
     ParameterElement[] parameters = constructorBase.getParameters();
@@ -591,7 +613,10 @@ public class ConstantValueComputer {
         }
       }
     }
-    ConstantVisitor initializerVisitor = new ConstantVisitor(typeProvider, parameterMap);
+    ConstantVisitor initializerVisitor = new ConstantVisitor(
+        typeProvider,
+        parameterMap,
+        canonicalObjects);
     String superName = null;
     NodeList<Expression> superArguments = null;
     for (ConstructorInitializer initializer : initializers) {
@@ -631,7 +656,11 @@ public class ConstantValueComputer {
             initializerVisitor);
       }
     }
-    return constantVisitor.valid(definingClass, new GenericState(fieldMap));
+    ValidResult result = constantVisitor.valid(definingClass, new GenericState(fieldMap));
+    if (invocation != null) {
+      constructorBase.setConstantValue(invocation, result.getValue());
+    }
+    return result;
   }
 
   private void evaluateSuperConstructorCall(AstNode node, HashMap<String, DartObjectImpl> fieldMap,
@@ -133,6 +133,12 @@ public class ConstantVisitor extends UnifyingAstVisitor<EvaluationResultImpl> {
 
   private final HashMap<String, DartObjectImpl> lexicalEnvironment;
 
+  /**
+   * A table mapping constant lists and maps whose values are known exactly to the canonical
+   * instance representing each such value, or {@code null} if values are not to be canonicalized.
+   */
+  private final HashMap<DartObjectImpl, DartObjectImpl> canonicalObjects;
+
   /**
    * Initialize a newly created constant visitor.
    * 
@@ -141,8 +147,7 @@ public class ConstantVisitor extends UnifyingAstVisitor<EvaluationResultImpl> {
    *          overriding is necessary.
    */
   public ConstantVisitor(TypeProvider typeProvider) {
-    this.typeProvider = typeProvider;
-    this.lexicalEnvironment = null;
+    this(typeProvider, null, null);
   }
 
   /**
@@ -154,8 +159,24 @@ public class ConstantVisitor extends UnifyingAstVisitor<EvaluationResultImpl> {
    */
   public ConstantVisitor(TypeProvider typeProvider,
       HashMap<String, DartObjectImpl> lexicalEnvironment) {
+    this(typeProvider, lexicalEnvironment, null);
+  }
+
+  /**
+   * Initialize a newly created constant visitor.
+   * 
+   * @param typeProvider the type provider used to access known types
+   * @param lexicalEnvironment values which should override simpleIdentifiers, or null if no
+   *          overriding is necessary.
+   * @param canonicalObjects the table used to share a single instance between equal constant
+   *          lists and maps, or null if no sharing is necessary.
+   */
+  public ConstantVisitor(TypeProvider typeProvider,
+      HashMap<String, DartObjectImpl> lexicalEnvironment,
+      HashMap<DartObjectImpl, DartObjectImpl> canonicalObjects) {
     this.typeProvider = typeProvider;
     this.lexicalEnvironment = lexicalEnvironment;
+    this.canonicalObjects = canonicalObjects;
   }
 
   @Override
@@ -320,9 +341,9 @@ public class ConstantVisitor extends UnifyingAstVisitor<EvaluationResultImpl> {
     if (result != null) {
       return result;
     }
-    return valid(
+    return canonicalize(valid(
         typeProvider.getListType(),
-        new ListState(elements.toArray(new DartObjectImpl[elements.size()])));
+        new ListState(elements.toArray(new DartObjectImpl[elements.size()]))));
   }
 
   @Override
@@ -344,7 +365,7 @@ public class ConstantVisitor extends UnifyingAstVisitor<EvaluationResultImpl> {
     if (result != null) {
       return result;
     }
-    return valid(typeProvider.getMapType(), new MapState(map));
+    return canonicalize(valid(typeProvider.getMapType(), new MapState(map)));
   }
 
   @Override
@@ -524,6 +545,27 @@ public class ConstantVisitor extends UnifyingAstVisitor<EvaluationResultImpl> {
     return getNull();
   }
 
+  /**
+   * Return a result whose value is the canonical instance of the value of the given result. If the
+   * value is not known exactly, or if values are not being canonicalized, the given result is
+   * returned.
+   * 
+   * @param result the result whose value is to be canonicalized
+   * @return a result whose value is the canonical instance of the given result's value
+   */
+  private ValidResult canonicalize(ValidResult result) {
+    DartObjectImpl value = result.getValue();
+    if (canonicalObjects == null || !value.hasExactValue()) {
+      return result;
+    }
+    DartObjectImpl canonicalValue = canonicalObjects.get(value);
+    if (canonicalValue == null) {
+      canonicalObjects.put(value, value);
+      return result;
+    }
+    return new ValidResult(canonicalValue);
+  }
+
   /**
    * Return a result object representing an error associated with the given node.
    * 
@@ -45,6 +45,10 @@ import com.google.dart.engine.element.angular.AngularHasTemplateElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.internal.cache.AnalysisCache;
+import com.google.dart.engine.internal.cache.AnalysisResultStore;
+import com.google.dart.engine.internal.cache.AnalysisResultStore.LibraryResults;
+import com.google.dart.engine.internal.cache.AnalysisResultStore.UnitErrors;
+import com.google.dart.engine.internal.cache.AnalysisResultStore.UnitResults;
 import com.google.dart.engine.internal.cache.CachePartition;
 import com.google.dart.engine.internal.cache.CacheRetentionPolicy;
 import com.google.dart.engine.internal.cache.CacheState;
@@ -53,6 +57,8 @@ import com.google.dart.engine.internal.cache.DartEntryImpl;
 import com.google.dart.engine.internal.cache.DataDescriptor;
 import com.google.dart.engine.internal.cache.HtmlEntry;
 import com.google.dart.engine.internal.cache.HtmlEntryImpl;
+import com.google.dart.engine.internal.cache.PackageCachePartition;
+import com.google.dart.engine.internal.cache.PartitionManager;
 import com.google.dart.engine.internal.cache.RetentionPriority;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.internal.cache.SourceEntryImpl;
@@ -66,6 +72,8 @@ import com.google.dart.engine.internal.resolver.LibraryResolver2;
 import com.google.dart.engine.internal.resolver.ResolvableLibrary;
 import com.google.dart.engine.internal.resolver.TypeProvider;
 import com.google.dart.engine.internal.resolver.TypeProviderImpl;
+import com.google.dart.engine.internal.scope.ImportedNameTable;
+import com.google.dart.engine.internal.scope.ImportedNameTableCache;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.internal.scope.NamespaceBuilder;
 import com.google.dart.engine.internal.task.AnalysisTask;
@@ -95,21 +103,25 @@ import com.google.dart.engine.source.Source.ContentReceiver;
 import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.source.SourceKind;
+import com.google.dart.engine.source.UriKind;
 import com.google.dart.engine.utilities.collection.DirectedGraph;
 import com.google.dart.engine.utilities.collection.ListUtilities;
 import com.google.dart.engine.utilities.collection.MapIterator;
+import com.google.dart.engine.utilities.instrumentation.AnalysisProfiler;
 import com.google.dart.engine.utilities.io.PrintStringWriter;
 import com.google.dart.engine.utilities.source.LineInfo;
 import com.google.dart.engine.utilities.translation.DartOmit;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Instances of the class {@code AnalysisContextImpl} implement an {@link AnalysisContext analysis
@@ -864,6 +876,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    */
   private static final boolean TRACE_PERFORM_TASK = false;
 
+  /**
+   * An empty array of locks, returned when a task can be performed without holding any lock.
+   */
+  private static final Lock[] NO_LOCKS = new Lock[0];
+
   /**
    * The set of analysis options controlling the behavior of this context.
    */
@@ -905,10 +922,18 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    */
   private CachePartition privatePartition;
 
+  /**
+   * The partition, shared with other contexts, that contains the analysis results for the packages
+   * in the pub cache, or {@code null} if the results for those packages are not shared.
+   */
+  private PackageCachePartition packagePartition;
+
   /**
    * A table mapping the sources known to the context to the information known about the source.
+   * The field is volatile because entries in a shared SDK partition are read without holding
+   * {@link #cacheLock}.
    */
-  private AnalysisCache cache;
+  private volatile AnalysisCache cache;
 
   /**
    * An array containing sources for which data should not be flushed.
@@ -966,6 +991,23 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    */
   private final Set<AngularApplication> angularApplications = Sets.newHashSet();
 
+  /**
+   * The tables containing the names imported into the libraries in this context.
+   */
+  private final ImportedNameTableCache importedNameTables = new ImportedNameTableCache();
+
+  /**
+   * The store in which analysis results are persisted between sessions, or {@code null} if results
+   * are not persisted.
+   */
+  private AnalysisResultStore resultStore;
+
+  /**
+   * A table mapping the encodings of the sources whose contents have been read since they were last
+   * changed to the hash of those contents. Only maintained when there is a result store.
+   */
+  private HashMap<String, TimestampedData<String>> contentHashes = new HashMap<String, TimestampedData<String>>();
+
   /**
    * Initialize a newly created analysis context.
    */
@@ -1007,7 +1049,16 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     synchronized (cacheLock) {
       recentTasks.clear();
       //
-      // First, compute the list of sources that have been removed.
+      // Adding or removing sources can be the result of pub changing the packages being used, in
+      // which case the results for the new packages are not the ones in the current package
+      // partition.
+      //
+      if (!changeSet.getAddedSources().isEmpty() || !changeSet.getRemovedSources().isEmpty()
+          || !changeSet.getRemovedContainers().isEmpty()) {
+        updatePackagePartition();
+      }
+      //
+      // Then compute the list of sources that have been removed.
       //
       ArrayList<Source> removedSources = new ArrayList<Source>(changeSet.getRemovedSources());
       for (SourceContainer container : changeSet.getRemovedContainers()) {
@@ -1059,7 +1110,9 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         while (iterator.moveNext()) {
           Source source = iterator.getKey();
           SourceEntry sourceEntry = iterator.getValue();
+          // Neither the SDK nor the packages in the pub cache can reference the added sources.
           if (!source.isInSystemLibrary()
+              && (packagePartition == null || !packagePartition.contains(source))
               && (sourceEntry instanceof DartEntry || sourceEntry instanceof HtmlEntry)) {
             sourcesToInvalidate.add(source);
           }
@@ -1214,6 +1267,19 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return getDartParseData(source, DartEntry.IMPORTED_LIBRARIES, Source.EMPTY_ARRAY);
   }
 
+  /**
+   * Return an array containing the sources of the parts included by the library whose defining
+   * compilation unit is the given source, computing them if necessary. Return an empty array if the
+   * source is not a Dart file or if the parts could not be computed.
+   * 
+   * @param source the source of the library's defining compilation unit
+   * @return the sources of the parts included by the library
+   * @throws AnalysisException if the parts could not be computed
+   */
+  public Source[] computeIncludedParts(Source source) throws AnalysisException {
+    return getDartParseData(source, DartEntry.INCLUDED_PARTS, Source.EMPTY_ARRAY);
+  }
+
   @Override
   public SourceKind computeKindOf(Source source) {
     SourceEntry sourceEntry = getReadableSourceEntry(source);
@@ -1277,6 +1343,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   @Override
   public void dispose() {
     disposed = true;
+    importedNameTables.clear();
   }
 
   @Override
@@ -1501,6 +1568,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return getSources(SourceKind.HTML);
   }
 
+  @Override
+  public ImportedNameTable getImportedNameTable(LibraryElement library) {
+    return importedNameTables.getTable(library);
+  }
+
   @Override
   public SourceKind getKindOf(Source source) {
     SourceEntry sourceEntry = getReadableSourceEntryOrNull(source);
@@ -1715,6 +1787,16 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return null;
   }
 
+  /**
+   * Return the store in which analysis results are persisted between sessions, or {@code null} if
+   * results are not persisted.
+   * 
+   * @return the store in which analysis results are persisted
+   */
+  public AnalysisResultStore getResultStore() {
+    return resultStore;
+  }
+
   @Override
   public SourceFactory getSourceFactory() {
     return sourceFactory;
@@ -1810,6 +1892,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       }
     }
     statistics.setPartitionData(cache.getPartitionData());
+    statistics.setTaskRecords(AnalysisProfiler.getInstance().getRecords(this));
     return statistics;
   }
 
@@ -1914,7 +1997,19 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
     long performStart = System.currentTimeMillis();
     try {
-      task.perform(resultRecorder);
+      Lock[] resolutionLocks = getResolutionLocks(task);
+      if (resolutionLocks.length == 0) {
+        task.perform(resultRecorder);
+      } else {
+        lockAll(resolutionLocks);
+        try {
+          if (!isResolvedInLibrary(task)) {
+            task.perform(resultRecorder);
+          }
+        } finally {
+          unlockAll(resolutionLocks);
+        }
+      }
     } catch (ObsoleteSourceAnalysisException exception) {
       AnalysisEngine.getInstance().getLogger().logInformation(
           "Could not perform analysis task: " + taskDescriptor,
@@ -2036,7 +2131,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
 
       generateSdkErrors = options.getGenerateSdkErrors();
 
-      if (needsRecompute) {
+      //
+      // The results for shared packages are kept in a partition that is specific to the options
+      // that affect them, so moving to a different partition also invalidates the local results.
+      //
+      if (!updatePackagePartition() && needsRecompute) {
         invalidateAllLocalResolutionInformation(false);
       }
     }
@@ -2129,6 +2228,21 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Set the store in which analysis results are persisted between sessions. Results are taken from
+   * the store in place of being computed whenever the contents of a source, and for libraries the
+   * contents of everything the library depends on, are the same as when the results were stored.
+   * 
+   * @param store the store in which results are persisted, or {@code null} if results should not
+   *          be persisted
+   */
+  public void setResultStore(AnalysisResultStore store) {
+    synchronized (cacheLock) {
+      resultStore = store;
+      contentHashes.clear();
+    }
+  }
+
   @Override
   public void setSourceFactory(SourceFactory factory) {
     synchronized (cacheLock) {
@@ -2145,6 +2259,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       coreLibrarySource = sourceFactory.forUri(DartSdk.DART_CORE);
 
       cache = createCacheFromSourceFactory(factory);
+      importedNameTables.clear();
 
       invalidateAllLocalResolutionInformation(true);
     }
@@ -2157,6 +2272,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @return the cache that was created
    */
   protected AnalysisCache createCacheFromSourceFactory(SourceFactory factory) {
+    packagePartition = null;
     if (factory == null) {
       return new AnalysisCache(new CachePartition[] {privatePartition});
     }
@@ -2164,8 +2280,13 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     if (sdk == null) {
       return new AnalysisCache(new CachePartition[] {privatePartition});
     }
+    PartitionManager manager = AnalysisEngine.getInstance().getPartitionManager();
+    packagePartition = manager.forPackages(sdk, factory.getPackageDirectories(), options);
+    if (packagePartition == null) {
+      return new AnalysisCache(new CachePartition[] {manager.forSdk(sdk), privatePartition});
+    }
     return new AnalysisCache(new CachePartition[] {
-        AnalysisEngine.getInstance().getPartitionManager().forSdk(sdk), privatePartition});
+        manager.forSdk(sdk), packagePartition, privatePartition});
   }
 
   /**
@@ -2674,23 +2795,29 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    */
   private DartEntry cacheDartResolutionData(Source unitSource, Source librarySource,
       DartEntry dartEntry, DataDescriptor<?> descriptor) throws AnalysisException {
-    //
-    // Check to see whether we already have the information being requested.
-    //
     CacheState state = (descriptor == DartEntry.ELEMENT) ? dartEntry.getState(descriptor)
         : dartEntry.getStateInLibrary(descriptor, librarySource);
-    while (state != CacheState.ERROR && state != CacheState.VALID) {
+    if (state == CacheState.VALID || state == CacheState.ERROR) {
+      return dartEntry;
+    }
+    Lock[] resolutionLocks = getResolutionLocks(librarySource);
+    if (resolutionLocks.length == 0) {
+      return computeDartResolutionData(unitSource, librarySource, dartEntry, descriptor);
+    }
+    lockAll(resolutionLocks);
+    try {
       //
-      // If not, compute the information. Unless the modification date of the source continues to
-      // change, this loop will eventually terminate.
+      // Another context sharing the library's partitions might have resolved the library while this
+      // context was waiting for the locks, in which case the library must not be resolved again.
       //
-      // TODO(brianwilkerson) As an optimization, if we already have the element model for the
-      // library we can use ResolveDartUnitTask to produce the resolved AST structure much faster.
-      dartEntry = (DartEntry) new ResolveDartLibraryTask(this, unitSource, librarySource).perform(resultRecorder);
-      state = (descriptor == DartEntry.ELEMENT) ? dartEntry.getState(descriptor)
-          : dartEntry.getStateInLibrary(descriptor, librarySource);
+      DartEntry currentEntry = getReadableDartEntry(unitSource);
+      if (currentEntry != null) {
+        dartEntry = currentEntry;
+      }
+      return computeDartResolutionData(unitSource, librarySource, dartEntry, descriptor);
+    } finally {
+      unlockAll(resolutionLocks);
     }
-    return dartEntry;
   }
 
   /**
@@ -2721,6 +2848,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       try {
         if (dartEntry.getState(SourceEntry.CONTENT) != CacheState.VALID) {
           dartEntry = (DartEntry) new GetContentTask(this, source).perform(resultRecorder);
+          if (dartEntry.getState(SourceEntry.CONTENT) != CacheState.VALID) {
+            // The results were restored from the result store.
+            state = dartEntry.getState(descriptor);
+            continue;
+          }
         }
         dartEntry = (DartEntry) new ScanDartTask(
             this,
@@ -2883,6 +3015,147 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Given a source for a Dart file and the library that contains it, return a cache entry in which
+   * the state of the data represented by the given descriptor is either {@link CacheState#VALID} or
+   * {@link CacheState#ERROR}, resolving the library if necessary. If the library is in a partition
+   * that is shared with other contexts, the caller must hold the partition's resolution lock.
+   * 
+   * @param unitSource the source representing the Dart file
+   * @param librarySource the source representing the library containing the Dart file
+   * @param dartEntry the cache entry associated with the Dart file
+   * @param descriptor the descriptor representing the data to be returned
+   * @return a cache entry containing the required data
+   * @throws AnalysisException if data could not be returned because the source could not be parsed
+   */
+  private DartEntry computeDartResolutionData(Source unitSource, Source librarySource,
+      DartEntry dartEntry, DataDescriptor<?> descriptor) throws AnalysisException {
+    //
+    // Check to see whether we already have the information being requested.
+    //
+    CacheState state = (descriptor == DartEntry.ELEMENT) ? dartEntry.getState(descriptor)
+        : dartEntry.getStateInLibrary(descriptor, librarySource);
+    while (state != CacheState.ERROR && state != CacheState.VALID) {
+      //
+      // If not, compute the information. Unless the modification date of the source continues to
+      // change, this loop will eventually terminate.
+      //
+      LibraryElement libraryElement = (descriptor == DartEntry.RESOLVED_UNIT)
+          ? getRehydrationElement(unitSource, dartEntry, librarySource) : null;
+      if (libraryElement != null) {
+        dartEntry = (DartEntry) new ResolveDartUnitTask(this, unitSource, libraryElement).perform(
+            resultRecorder);
+      } else {
+        dartEntry = (DartEntry) new ResolveDartLibraryTask(this, unitSource, librarySource).perform(resultRecorder);
+      }
+      state = (descriptor == DartEntry.ELEMENT) ? dartEntry.getState(descriptor)
+          : dartEntry.getStateInLibrary(descriptor, librarySource);
+    }
+    return dartEntry;
+  }
+
+  /**
+   * Return the libraries that are in the same import/export cycle as the library whose defining
+   * compilation unit is the given source, including the library itself. These are the libraries
+   * whose element models are built together with the element model of the given library.
+   * 
+   * @param librarySource the source of the library whose cycle is to be returned
+   * @return the libraries in the cycle containing the given library
+   */
+  private List<Source> computeLibrariesInCycle(Source librarySource) {
+    DirectedGraph<Source> dependencyGraph = new DirectedGraph<Source>();
+    dependencyGraph.addNode(librarySource);
+    if (librarySource.isInSystemLibrary()) {
+      //
+      // The SDK libraries only depend on other SDK libraries, so the cycle cannot contain libraries
+      // in any other partition.
+      //
+      return dependencyGraph.findCycleContaining(librarySource);
+    }
+    HashSet<Source> visitedLibraries = new HashSet<Source>();
+    ArrayList<Source> pendingLibraries = new ArrayList<Source>();
+    visitedLibraries.add(librarySource);
+    pendingLibraries.add(librarySource);
+    while (!pendingLibraries.isEmpty()) {
+      Source library = pendingLibraries.remove(pendingLibraries.size() - 1);
+      Source[][] dependencies;
+      try {
+        dependencies = new Source[][] {
+            computeImportedLibraries(library), computeExportedLibraries(library)};
+      } catch (AnalysisException exception) {
+        // The library will be reported as unresolvable when it is resolved.
+        continue;
+      }
+      for (Source[] dependencyArray : dependencies) {
+        for (Source dependency : dependencyArray) {
+          //
+          // Libraries in the SDK cannot be part of a cycle containing a library outside the SDK.
+          //
+          if (!dependency.isInSystemLibrary() && exists(dependency)) {
+            dependencyGraph.addEdge(library, dependency);
+            if (visitedLibraries.add(dependency)) {
+              pendingLibraries.add(dependency);
+            }
+          }
+        }
+      }
+    }
+    return dependencyGraph.findCycleContaining(librarySource);
+  }
+
+  /**
+   * Return the fingerprint of the library whose defining compilation unit is the given source, or
+   * {@code null} if it cannot be computed because the result store does not know the dependencies
+   * of one of the sources the library depends on. The fingerprint covers the contents of every
+   * source outside the SDK that the library transitively imports, exports or includes; the SDK
+   * itself is covered by the version of the result store.
+   * <p>
+   * If a list of unread sources is given, then the sources whose content hashes are not yet known
+   * are added to it rather than ending the computation, so that the caller can read them and try
+   * again.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param librarySource the source of the library's defining compilation unit
+   * @param unreadSources the list to which sources whose content hashes are unknown are added, or
+   *          {@code null} if the fingerprint should not be computed when any hash is unknown
+   * @return the fingerprint of the library
+   */
+  private String computeLibraryFingerprint(Source librarySource, ArrayList<Source> unreadSources) {
+    HashMap<String, String> hashes = new HashMap<String, String>();
+    ArrayList<String> pendingEncodings = new ArrayList<String>();
+    pendingEncodings.add(librarySource.getEncoding());
+    while (!pendingEncodings.isEmpty()) {
+      String encoding = pendingEncodings.remove(pendingEncodings.size() - 1);
+      if (hashes.containsKey(encoding) || encoding.charAt(0) == UriKind.DART_URI.getEncoding()) {
+        continue;
+      }
+      String contentHash = getContentHash(encoding);
+      if (contentHash == null) {
+        if (unreadSources == null) {
+          return null;
+        }
+        hashes.put(encoding, null);
+        unreadSources.add(sourceFactory.fromEncoding(encoding));
+        continue;
+      }
+      String[] dependencies = resultStore.getDependencies(encoding, contentHash);
+      if (dependencies == null) {
+        return null;
+      }
+      hashes.put(encoding, contentHash);
+      for (String dependency : dependencies) {
+        pendingEncodings.add(dependency);
+      }
+    }
+    if (unreadSources != null && !unreadSources.isEmpty()) {
+      return null;
+    }
+    return AnalysisResultStore.computeFingerprint(
+        hashes,
+        AnalysisResultStore.getOptionsKey(options));
+  }
+
   /**
    * Given the encoded form of a source, use the source factory to reconstitute the original source.
    * 
@@ -2975,6 +3248,10 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       Source librarySource, DartEntry libraryEntry) {
     if (unitEntry.getStateInLibrary(DartEntry.RESOLVED_UNIT, librarySource) != CacheState.VALID
         || libraryEntry.getState(DartEntry.ELEMENT) != CacheState.VALID) {
+      TaskData taskData = createResolveDartUnitTask(unitSource, unitEntry, librarySource);
+      if (taskData != null) {
+        return taskData;
+      }
       return createResolveDartLibraryTask(librarySource, libraryEntry);
     }
     CompilationUnit unit = unitEntry.getValueInLibrary(DartEntry.RESOLVED_UNIT, librarySource);
@@ -3022,16 +3299,12 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     TimestampedData<CompilationUnit>[] units = new TimestampedData[parts.length + 1];
     units[0] = getResolvedUnit(definingUnit, librarySource);
     if (units[0] == null) {
-      // TODO(brianwilkerson) We should return a ResolveDartUnitTask (unless there are multiple ASTs
-      // that need to be resolved.
-      return createResolveDartLibraryTask(librarySource, libraryEntry);
+      return createResolveDartUnitOrLibraryTask(definingUnit, librarySource, libraryEntry);
     }
     for (int i = 0; i < parts.length; i++) {
       units[i + 1] = getResolvedUnit(parts[i], librarySource);
       if (units[i + 1] == null) {
-        // TODO(brianwilkerson) We should return a ResolveDartUnitTask (unless there are multiple
-        // ASTs that need to be resolved.
-        return createResolveDartLibraryTask(librarySource, libraryEntry);
+        return createResolveDartUnitOrLibraryTask(parts[i], librarySource, libraryEntry);
       }
     }
 
@@ -3228,6 +3501,55 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return new TaskData(null, false);
   }
 
+  /**
+   * Create a task that will produce the resolved AST structure for the given compilation unit in
+   * the given library: a {@link ResolveDartUnitTask} if the structure was flushed and can be
+   * rebuilt against the existing element model, or a task to resolve the library otherwise.
+   * 
+   * @param element the element representing the compilation unit
+   * @param librarySource the source for the library containing the compilation unit
+   * @param libraryEntry the entry for the library
+   * @return task data representing the created task
+   */
+  private TaskData createResolveDartUnitOrLibraryTask(CompilationUnitElement element,
+      Source librarySource, DartEntry libraryEntry) {
+    Source unitSource = element.getSource();
+    SourceEntry unitEntry = cache.get(unitSource);
+    if (unitEntry instanceof DartEntry) {
+      TaskData taskData = createResolveDartUnitTask(
+          unitSource,
+          (DartEntry) unitEntry,
+          librarySource);
+      if (taskData != null) {
+        return taskData;
+      }
+    }
+    return createResolveDartLibraryTask(librarySource, libraryEntry);
+  }
+
+  /**
+   * Create a {@link ResolveDartUnitTask} that will rebuild the flushed resolved AST structure for
+   * the given compilation unit against the existing element model of the given library, marking the
+   * resolved unit as being in-process, or return {@code null} if the structure needs to be built by
+   * resolving the library.
+   * 
+   * @param unitSource the source for the compilation unit to be resolved
+   * @param unitEntry the entry for the compilation unit
+   * @param librarySource the source for the library containing the compilation unit
+   * @return task data representing the created task
+   */
+  private TaskData createResolveDartUnitTask(Source unitSource, DartEntry unitEntry,
+      Source librarySource) {
+    LibraryElement libraryElement = getRehydrationElement(unitSource, unitEntry, librarySource);
+    if (libraryElement == null) {
+      return null;
+    }
+    DartEntryImpl dartCopy = unitEntry.getWritableCopy();
+    dartCopy.setStateInLibrary(DartEntry.RESOLVED_UNIT, librarySource, CacheState.IN_PROCESS);
+    cache.put(unitSource, dartCopy);
+    return new TaskData(new ResolveDartUnitTask(this, unitSource, libraryElement), false);
+  }
+
   /**
    * Create a {@link ResolveHtmlTask} for the given source, marking the resolved unit as being
    * in-process.
@@ -3331,6 +3653,28 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Return the hash of the current contents of the source with the given encoding, or {@code null}
+   * if the hash is not known. The hash of a source whose contents have not been read is taken from
+   * the result store if the source has not been modified since its results were stored.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param encoding the encoding of the source
+   * @return the hash of the current contents of the source
+   */
+  private String getContentHash(String encoding) {
+    TimestampedData<String> contentHash = contentHashes.get(encoding);
+    if (contentHash != null) {
+      return contentHash.getData();
+    }
+    Source source = sourceFactory.fromEncoding(encoding);
+    if (source == null) {
+      return null;
+    }
+    return resultStore.getContentHash(encoding, getModificationStamp(source));
+  }
+
   /**
    * Given a source for a Dart file and the library that contains it, return the data represented by
    * the given descriptor that is associated with that source. This method assumes that the data can
@@ -3681,9 +4025,13 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         }
       }
       //
-      // Look for a non-priority source that needs to be analyzed.
+      // Look for a non-priority source that needs to be analyzed. Sources that have no more work
+      // are removed and sources that are blocked are parked until the work they are waiting for has
+      // been recorded, so that later calls do not look at them again.
       //
       ArrayList<Source> sourcesToRemove = new ArrayList<Source>();
+      ArrayList<Source> sourcesToBlock = new ArrayList<Source>();
+      AnalysisTask task = null;
       WorkManager.WorkIterator sources = workManager.iterator();
       while (sources.hasNext()) {
         Source source = sources.next();
@@ -3692,15 +4040,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
             cache.get(source),
             false,
             hintsEnabled);
-        AnalysisTask task = taskData.getTask();
+        task = taskData.getTask();
         if (task != null) {
-          int count = sourcesToRemove.size();
-          for (int i = 0; i < count; i++) {
-            workManager.remove(sourcesToRemove.get(i));
-          }
-          return task;
+          break;
         } else if (taskData.isBlocked()) {
-          hasBlockedTask = true;
+          sourcesToBlock.add(source);
         } else {
           sourcesToRemove.add(source);
         }
@@ -3709,6 +4053,35 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       for (int i = 0; i < count; i++) {
         workManager.remove(sourcesToRemove.get(i));
       }
+      count = sourcesToBlock.size();
+      for (int i = 0; i < count; i++) {
+        workManager.block(sourcesToBlock.get(i));
+      }
+      if (task != null) {
+        return task;
+      }
+      //
+      // Look again at the blocked sources in case one of them was not unblocked when the work it
+      // was waiting for was recorded.
+      //
+      if (workManager.hasBlockedSources()) {
+        for (Source source : workManager.getBlockedSources()) {
+          TaskData taskData = getNextAnalysisTaskForSource(
+              source,
+              cache.get(source),
+              false,
+              hintsEnabled);
+          task = taskData.getTask();
+          if (task != null) {
+            workManager.unblock(source);
+            return task;
+          } else if (taskData.isBlocked()) {
+            hasBlockedTask = true;
+          } else {
+            workManager.remove(source);
+          }
+        }
+      }
 //      //
 //      // Look for a non-priority source that needs to be analyzed and was missed by the loop above.
 //      //
@@ -3785,6 +4158,14 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         return createParseDartTask(source, dartEntry);
       } else if (kind == SourceKind.LIBRARY) {
         CacheState elementState = dartEntry.getState(DartEntry.ELEMENT);
+        if (elementState == CacheState.INVALID && resultStore != null) {
+          TaskData taskData = restoreLibraryResultsOrGetContent(source);
+          if (taskData != null) {
+            return taskData;
+          }
+          dartEntry = (DartEntry) cache.get(source);
+          elementState = dartEntry.getState(DartEntry.ELEMENT);
+        }
         if (elementState == CacheState.INVALID) {
           return createResolveDartLibraryTask(source, dartEntry);
         }
@@ -3809,15 +4190,10 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
               librarySource);
           if (resolvedUnitState == CacheState.INVALID
               || (isPriority && resolvedUnitState == CacheState.FLUSHED)) {
-            //
-            // The commented out lines below are an optimization that doesn't quite work yet. The
-            // problem is that if the source was not resolved because it wasn't part of any library,
-            // then there won't be any elements in the element model that we can use to resolve it.
-            //
-            //LibraryElement libraryElement = libraryEntry.getValue(DartEntry.ELEMENT);
-            //if (libraryElement != null) {
-            //  return new ResolveDartUnitTask(this, source, libraryElement);
-            //}
+            TaskData taskData = createResolveDartUnitTask(source, dartEntry, librarySource);
+            if (taskData != null) {
+              return taskData;
+            }
             // Possibly replace with: return createResolveDartLibraryTask(librarySource, (DartEntry) libraryEntry);
             DartEntryImpl dartCopy = dartEntry.getWritableCopy();
             dartCopy.setStateInLibrary(
@@ -3926,6 +4302,10 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @return the source cache entry associated with the given source
    */
   private DartEntry getReadableDartEntry(Source source) {
+    SourceEntry sharedEntry = cache.getIfConcurrentlyReadable(source);
+    if (sharedEntry != null) {
+      return sharedEntry instanceof DartEntry ? (DartEntry) sharedEntry : null;
+    }
     synchronized (cacheLock) {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
@@ -3946,6 +4326,10 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @return the source cache entry associated with the given source
    */
   private HtmlEntry getReadableHtmlEntry(Source source) {
+    SourceEntry sharedEntry = cache.getIfConcurrentlyReadable(source);
+    if (sharedEntry != null) {
+      return sharedEntry instanceof HtmlEntry ? (HtmlEntry) sharedEntry : null;
+    }
     synchronized (cacheLock) {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
@@ -3965,6 +4349,10 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @return the source cache entry associated with the given source
    */
   private SourceEntry getReadableSourceEntry(Source source) {
+    SourceEntry sharedEntry = cache.getIfConcurrentlyReadable(source);
+    if (sharedEntry != null) {
+      return sharedEntry;
+    }
     synchronized (cacheLock) {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
@@ -3982,11 +4370,106 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @return the source cache entry associated with the given source
    */
   private SourceEntry getReadableSourceEntryOrNull(Source source) {
+    SourceEntry sharedEntry = cache.getIfConcurrentlyReadable(source);
+    if (sharedEntry != null) {
+      return sharedEntry;
+    }
     synchronized (cacheLock) {
       return cache.get(source);
     }
   }
 
+  /**
+   * Return the element model against which the resolved AST structure for the given compilation
+   * unit in the given library can be rebuilt without resolving the library again, or {@code null}
+   * if the structure needs to be built by resolving the library.
+   * <p>
+   * The structure can only be rebuilt if it was flushed from the cache and the element model for
+   * the library is still valid and contains an element for the compilation unit. Rebuilding the
+   * structure then only requires the compilation unit to be parsed and bound to the existing
+   * elements, and leaves the element model (and everything that references it) unchanged.
+   * 
+   * @param unitSource the source for the compilation unit whose structure is to be rebuilt
+   * @param unitEntry the entry for the compilation unit
+   * @param librarySource the source for the library containing the compilation unit
+   * @return the element model against which the structure can be rebuilt
+   */
+  private LibraryElement getRehydrationElement(Source unitSource, DartEntry unitEntry,
+      Source librarySource) {
+    if (unitEntry.getStateInLibrary(DartEntry.RESOLVED_UNIT, librarySource) != CacheState.FLUSHED) {
+      return null;
+    }
+    SourceEntry libraryEntry = getReadableSourceEntryOrNull(librarySource);
+    if (!(libraryEntry instanceof DartEntry)
+        || libraryEntry.getState(DartEntry.ELEMENT) != CacheState.VALID) {
+      return null;
+    }
+    LibraryElement libraryElement = ((DartEntry) libraryEntry).getValue(DartEntry.ELEMENT);
+    if (libraryElement == null) {
+      return null;
+    }
+    if (unitSource.equals(libraryElement.getDefiningCompilationUnit().getSource())) {
+      return libraryElement;
+    }
+    for (CompilationUnitElement part : libraryElement.getParts()) {
+      if (unitSource.equals(part.getSource())) {
+        return libraryElement;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Return the locks that this context must hold while performing the given task, in the order in
+   * which they must be acquired. The tasks that build the element model of a library cycle, or that
+   * resolve a unit against the element model of a library, must be performed while holding the
+   * resolution lock of every shared partition containing one of the libraries, so that the contexts
+   * sharing the partitions use the same elements for the libraries.
+   * 
+   * @param task the task to be performed
+   * @return the locks to be held while performing the task
+   */
+  private Lock[] getResolutionLocks(AnalysisTask task) {
+    if (task instanceof ResolveDartLibraryTask) {
+      return getResolutionLocks(((ResolveDartLibraryTask) task).getLibrarySource());
+    } else if (task instanceof ResolveDartLibraryCycleTask) {
+      return getResolutionLocks(((ResolveDartLibraryCycleTask) task).getLibrariesInCycle());
+    } else if (task instanceof BuildDartElementModelTask) {
+      return getResolutionLocks(((BuildDartElementModelTask) task).getLibrariesInCycle());
+    } else if (task instanceof ResolveDartUnitTask) {
+      Source librarySource = ((ResolveDartUnitTask) task).getLibrarySource();
+      return cache.getResolutionLocks(Collections.singletonList(librarySource));
+    }
+    return NO_LOCKS;
+  }
+
+  /**
+   * Return the locks that this context must hold while building the element models of the given
+   * libraries, in the order in which they must be acquired.
+   * 
+   * @param librariesInCycle the libraries whose element models are being built
+   * @return the locks to be held while building the element models
+   */
+  private Lock[] getResolutionLocks(List<ResolvableLibrary> librariesInCycle) {
+    ArrayList<Source> librarySources = new ArrayList<Source>(librariesInCycle.size());
+    for (ResolvableLibrary library : librariesInCycle) {
+      librarySources.add(library.getLibrarySource());
+    }
+    return cache.getResolutionLocks(librarySources);
+  }
+
+  /**
+   * Return the locks that this context must hold while resolving the library whose defining
+   * compilation unit is the given source, in the order in which they must be acquired. The library
+   * is resolved together with the other libraries in its cycle, which can be in other partitions.
+   * 
+   * @param librarySource the source of the library being resolved
+   * @return the locks to be held while resolving the library
+   */
+  private Lock[] getResolutionLocks(Source librarySource) {
+    return cache.getResolutionLocks(computeLibrariesInCycle(librarySource));
+  }
+
   /**
    * Return a resolved compilation unit corresponding to the given element in the given library, or
    * {@code null} if the information is not cached.
@@ -4163,6 +4646,23 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Return the errors associated with the given descriptor in the given library, or {@code null} if
+   * the errors are not valid.
+   * 
+   * @param dartEntry the entry containing the errors
+   * @param librarySource the source of the library in which the errors were computed
+   * @param descriptor the descriptor of the errors
+   * @return the errors associated with the descriptor
+   */
+  private AnalysisError[] getValidErrors(DartEntry dartEntry, Source librarySource,
+      DataDescriptor<AnalysisError[]> descriptor) {
+    if (dartEntry.getStateInLibrary(descriptor, librarySource) != CacheState.VALID) {
+      return null;
+    }
+    return dartEntry.getValueInLibrary(descriptor, librarySource);
+  }
+
   /**
    * Invalidate all of the resolution results computed by this context.
    * <p>
@@ -4317,6 +4817,54 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return false;
   }
 
+  /**
+   * Return {@code true} if the data computed by the given task, which builds the element model of a
+   * library in a partition that is shared with other contexts, is already valid. This is the case
+   * if another context sharing the partition performed an equivalent task after the given task was
+   * created, in which case performing the given task would replace the elements it built.
+   * 
+   * @param task the task whose data is being tested
+   * @return {@code true} if the data computed by the task is already valid
+   */
+  private boolean isResolvedInLibrary(AnalysisTask task) {
+    Source unitSource;
+    Source librarySource;
+    DataDescriptor<?> descriptor;
+    if (task instanceof ResolveDartLibraryTask) {
+      unitSource = ((ResolveDartLibraryTask) task).getUnitSource();
+      librarySource = ((ResolveDartLibraryTask) task).getLibrarySource();
+      descriptor = DartEntry.RESOLVED_UNIT;
+    } else if (task instanceof ResolveDartLibraryCycleTask) {
+      unitSource = ((ResolveDartLibraryCycleTask) task).getUnitSource();
+      librarySource = ((ResolveDartLibraryCycleTask) task).getLibrarySource();
+      descriptor = DartEntry.RESOLVED_UNIT;
+    } else if (task instanceof BuildDartElementModelTask) {
+      unitSource = ((BuildDartElementModelTask) task).getTargetLibrary();
+      librarySource = unitSource;
+      descriptor = DartEntry.BUILT_UNIT;
+    } else if (task instanceof ResolveDartUnitTask) {
+      unitSource = ((ResolveDartUnitTask) task).getSource();
+      librarySource = ((ResolveDartUnitTask) task).getLibrarySource();
+      descriptor = DartEntry.RESOLVED_UNIT;
+    } else {
+      return false;
+    }
+    DartEntry dartEntry = getReadableDartEntry(unitSource);
+    return dartEntry != null
+        && dartEntry.getStateInLibrary(descriptor, librarySource) == CacheState.VALID;
+  }
+
+  /**
+   * Acquire the given locks, in order.
+   * 
+   * @param locks the locks to be acquired
+   */
+  private void lockAll(Lock[] locks) {
+    for (Lock lock : locks) {
+      lock.lock();
+    }
+  }
+
   /**
    * Log the given debugging information.
    * 
@@ -4504,6 +5052,57 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @param librarySource the source for the library used to record information
    * @param htmlSource the source for the HTML library
    */
+  /**
+   * Record the kind of the given source, based on the directives it contains, and record that it is
+   * the library containing each of the given parts.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source whose directives were found
+   * @param dartEntry the entry for the source before it was copied
+   * @param dartCopy the copy of the entry in which the kind is to be recorded
+   * @param hasNonPartOfDirective {@code true} if the source contains a directive other than a
+   *          part-of directive
+   * @param hasPartOfDirective {@code true} if the source contains a part-of directive
+   * @param parts the sources of the parts included by the source
+   */
+  private void recordDirectiveData(Source source, DartEntry dartEntry, DartEntryImpl dartCopy,
+      boolean hasNonPartOfDirective, boolean hasPartOfDirective, Source[] parts) {
+    if (hasNonPartOfDirective) {
+      dartCopy.setValue(DartEntry.SOURCE_KIND, SourceKind.LIBRARY);
+      dartCopy.setContainingLibrary(source);
+      workManager.add(source, SourcePriority.LIBRARY);
+    } else if (hasPartOfDirective) {
+      dartCopy.setValue(DartEntry.SOURCE_KIND, SourceKind.PART);
+      dartCopy.removeContainingLibrary(source);
+      workManager.add(source, SourcePriority.NORMAL_PART);
+    } else {
+      // The file contains no directives.
+      List<Source> containingLibraries = dartCopy.getContainingLibraries();
+      if (containingLibraries.size() > 1
+          || (containingLibraries.size() == 1 && !containingLibraries.get(0).equals(source))) {
+        dartCopy.setValue(DartEntry.SOURCE_KIND, SourceKind.PART);
+        dartCopy.removeContainingLibrary(source);
+        workManager.add(source, SourcePriority.NORMAL_PART);
+      } else {
+        dartCopy.setValue(DartEntry.SOURCE_KIND, SourceKind.LIBRARY);
+        dartCopy.setContainingLibrary(source);
+        workManager.add(source, SourcePriority.LIBRARY);
+      }
+    }
+    for (int i = 0; i < parts.length; i++) {
+      Source partSource = parts[i];
+      DartEntry partEntry = getReadableDartEntry(partSource);
+      if (partEntry != null && partEntry != dartEntry) {
+        DartEntryImpl partCopy = partEntry.getWritableCopy();
+        // TODO(brianwilkerson) Change the kind of the "part" if it was marked as a library
+        // and it has no directives.
+        partCopy.addContainingLibrary(source);
+        cache.put(partSource, partCopy);
+      }
+    }
+  }
+
   private void recordElementData(DartEntryImpl dartCopy, LibraryElement library,
       Source librarySource, Source htmlSource) {
     dartCopy.setValue(DartEntry.ELEMENT, library);
@@ -4561,6 +5160,9 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         }
         cache.put(source, dartCopy);
         dartEntry = dartCopy;
+        if (thrownException == null) {
+          storeLibraryResults(librarySource);
+        }
       } else {
         logInformation("Generated errors discarded for " + debuggingString(source)
             + "; sourceTime = " + sourceTime + ", resultTime = " + resultTime + ", cacheTime = "
@@ -4706,6 +5308,9 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     if (thrownException != null) {
       throw thrownException;
     }
+    synchronized (cacheLock) {
+      storeLibraryResults(librarySource);
+    }
     return libraryEntry;
   }
 
@@ -4732,12 +5337,20 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       if (thrownException == null) {
         sourceCopy.setModificationTime(task.getModificationTime());
         sourceCopy.setValue(SourceEntry.CONTENT, task.getContent());
+        workManager.unblock(source);
       } else {
         sourceCopy.recordContentError(thrownException);
         workManager.remove(source);
       }
       cache.put(source, sourceCopy);
       sourceEntry = sourceCopy;
+      if (thrownException == null && resultStore != null) {
+        sourceEntry = restoreStoredResults(
+            source,
+            sourceEntry,
+            task.getContent(),
+            task.getModificationTime());
+      }
     }
     if (thrownException != null) {
       throw thrownException;
@@ -4804,46 +5417,21 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         removeFromParts(source, dartEntry);
         DartEntryImpl dartCopy = dartEntry.getWritableCopy();
         if (thrownException == null) {
-          if (task.hasNonPartOfDirective()) {
-            dartCopy.setValue(DartEntry.SOURCE_KIND, SourceKind.LIBRARY);
-            dartCopy.setContainingLibrary(source);
-            workManager.add(source, SourcePriority.LIBRARY);
-          } else if (task.hasPartOfDirective()) {
-            dartCopy.setValue(DartEntry.SOURCE_KIND, SourceKind.PART);
-            dartCopy.removeContainingLibrary(source);
-            workManager.add(source, SourcePriority.NORMAL_PART);
-          } else {
-            // The file contains no directives.
-            List<Source> containingLibraries = dartCopy.getContainingLibraries();
-            if (containingLibraries.size() > 1
-                || (containingLibraries.size() == 1 && !containingLibraries.get(0).equals(source))) {
-              dartCopy.setValue(DartEntry.SOURCE_KIND, SourceKind.PART);
-              dartCopy.removeContainingLibrary(source);
-              workManager.add(source, SourcePriority.NORMAL_PART);
-            } else {
-              dartCopy.setValue(DartEntry.SOURCE_KIND, SourceKind.LIBRARY);
-              dartCopy.setContainingLibrary(source);
-              workManager.add(source, SourcePriority.LIBRARY);
-            }
-          }
           Source[] newParts = task.getIncludedSources();
-          for (int i = 0; i < newParts.length; i++) {
-            Source partSource = newParts[i];
-            DartEntry partEntry = getReadableDartEntry(partSource);
-            if (partEntry != null && partEntry != dartEntry) {
-              DartEntryImpl partCopy = partEntry.getWritableCopy();
-              // TODO(brianwilkerson) Change the kind of the "part" if it was marked as a library
-              // and it has no directives.
-              partCopy.addContainingLibrary(source);
-              cache.put(partSource, partCopy);
-            }
-          }
+          recordDirectiveData(
+              source,
+              dartEntry,
+              dartCopy,
+              task.hasNonPartOfDirective(),
+              task.hasPartOfDirective(),
+              newParts);
           dartCopy.setValue(DartEntry.PARSED_UNIT, task.getCompilationUnit());
           dartCopy.setValue(DartEntry.PARSE_ERRORS, task.getErrors());
           dartCopy.setValue(DartEntry.EXPORTED_LIBRARIES, task.getExportedSources());
           dartCopy.setValue(DartEntry.IMPORTED_LIBRARIES, task.getImportedSources());
           dartCopy.setValue(DartEntry.INCLUDED_PARTS, newParts);
           cache.storedAst(source);
+          storeUnitResults(source, dartCopy, task);
 
           ChangeNoticeImpl notice = getNotice(source);
           notice.setErrors(dartCopy.getAllErrors(), task.getLineInfo());
@@ -5654,6 +6242,175 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Restore the results of analyzing the library whose defining compilation unit is the given
+   * source from the result store, if the store contains results for the current contents of the
+   * library and of everything it depends on. The restored errors are marked as being valid and the
+   * element model and resolved compilation units as having been flushed, so that they are only
+   * recomputed if they are asked for.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param librarySource the source of the library's defining compilation unit
+   */
+  private void restoreLibraryResults(Source librarySource) {
+    String fingerprint = computeLibraryFingerprint(librarySource, null);
+    if (fingerprint == null) {
+      return;
+    }
+    LibraryResults results = resultStore.getLibraryResults(
+        sourceFactory,
+        librarySource,
+        fingerprint);
+    if (results == null) {
+      return;
+    }
+    UnitErrors[] unitErrors = results.getUnitErrors();
+    for (UnitErrors errors : unitErrors) {
+      if (getReadableDartEntry(errors.getSource()) == null) {
+        return;
+      }
+    }
+    for (UnitErrors errors : unitErrors) {
+      Source unitSource = errors.getSource();
+      // The parts were associated with the library when the library's directives were restored.
+      DartEntryImpl dartCopy = getReadableDartEntry(unitSource).getWritableCopy();
+      restoreErrors(
+          dartCopy,
+          librarySource,
+          DartEntry.BUILD_ELEMENT_ERRORS,
+          errors.getBuildElementErrors());
+      restoreErrors(
+          dartCopy,
+          librarySource,
+          DartEntry.RESOLUTION_ERRORS,
+          errors.getResolutionErrors());
+      restoreErrors(
+          dartCopy,
+          librarySource,
+          DartEntry.VERIFICATION_ERRORS,
+          errors.getVerificationErrors());
+      restoreErrors(dartCopy, librarySource, DartEntry.HINTS, errors.getHints());
+      dartCopy.setStateInLibrary(DartEntry.RESOLVED_UNIT, librarySource, CacheState.FLUSHED);
+      cache.put(unitSource, dartCopy);
+      ChangeNoticeImpl notice = getNotice(unitSource);
+      notice.setErrors(dartCopy.getAllErrors(), dartCopy.getValue(SourceEntry.LINE_INFO));
+    }
+    DartEntryImpl libraryCopy = getReadableDartEntry(librarySource).getWritableCopy();
+    libraryCopy.setState(DartEntry.ELEMENT, CacheState.FLUSHED);
+    if (results.getClientState() == CacheState.VALID) {
+      libraryCopy.setValue(DartEntry.IS_CLIENT, results.isClient());
+    }
+    if (results.getLaunchableState() == CacheState.VALID) {
+      libraryCopy.setValue(DartEntry.IS_LAUNCHABLE, results.isLaunchable());
+    }
+    cache.put(librarySource, libraryCopy);
+  }
+
+  /**
+   * If the given errors were stored, record them in the given entry as the value of the given
+   * descriptor in the given library.
+   * 
+   * @param dartCopy the entry in which the errors are to be recorded
+   * @param librarySource the source of the library in which the errors were computed
+   * @param descriptor the descriptor of the errors
+   * @param errors the errors that were stored, or {@code null} if they were not stored
+   */
+  private void restoreErrors(DartEntryImpl dartCopy, Source librarySource,
+      DataDescriptor<AnalysisError[]> descriptor, AnalysisError[] errors) {
+    if (errors != null) {
+      dartCopy.setValueInLibrary(descriptor, librarySource, errors);
+    }
+  }
+
+  /**
+   * Restore the results of analyzing the library whose defining compilation unit is the given
+   * source from the result store if possible. If the contents of a source the library depends on
+   * need to be read before it can be known whether the stored results are still valid, return a
+   * task that will read them.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param librarySource the source of the library's defining compilation unit
+   * @return a task that reads the contents of a dependency, or {@code null} if there is no such
+   *         dependency
+   */
+  private TaskData restoreLibraryResultsOrGetContent(Source librarySource) {
+    ArrayList<Source> unreadSources = new ArrayList<Source>();
+    if (computeLibraryFingerprint(librarySource, unreadSources) != null) {
+      restoreLibraryResults(librarySource);
+      return null;
+    }
+    for (Source unreadSource : unreadSources) {
+      SourceEntry sourceEntry = getReadableSourceEntry(unreadSource);
+      if (sourceEntry.getState(SourceEntry.CONTENT) == CacheState.INVALID) {
+        return createGetContentTask(unreadSource, sourceEntry);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Restore the results of scanning and parsing the given source from the result store if the store
+   * contains results for the given contents, and if the source is a library, the results of
+   * resolving it. The contents of a source whose results were restored are flushed, since they are
+   * not needed unless the results are flushed.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source whose contents were read
+   * @param sourceEntry the entry for the source
+   * @param contents the contents of the source
+   * @param modificationTime the modification time of the contents
+   * @return the entry for the source after the results were restored
+   */
+  private SourceEntry restoreStoredResults(Source source, SourceEntry sourceEntry,
+      CharSequence contents, long modificationTime) {
+    if (!(sourceEntry instanceof DartEntry) || source.isInSystemLibrary()) {
+      return sourceEntry;
+    }
+    String contentHash = AnalysisResultStore.computeContentHash(contents);
+    contentHashes.put(source.getEncoding(), new TimestampedData<String>(
+        modificationTime,
+        contentHash));
+    DartEntry dartEntry = (DartEntry) sourceEntry;
+    if (dartEntry.getState(DartEntry.SCAN_ERRORS) != CacheState.INVALID
+        || dartEntry.getState(DartEntry.PARSE_ERRORS) != CacheState.INVALID) {
+      return sourceEntry;
+    }
+    UnitResults results = resultStore.getUnitResults(sourceFactory, source, contentHash);
+    if (results == null) {
+      return sourceEntry;
+    }
+    resultStore.updateModificationStamp(source, contentHash, modificationTime);
+    removeFromParts(source, dartEntry);
+    DartEntryImpl dartCopy = dartEntry.getWritableCopy();
+    dartCopy.setState(SourceEntry.CONTENT, CacheState.FLUSHED);
+    dartCopy.setValue(SourceEntry.LINE_INFO, new LineInfo(results.getLineStarts()));
+    dartCopy.setValue(DartEntry.SCAN_ERRORS, results.getScanErrors());
+    dartCopy.setState(DartEntry.TOKEN_STREAM, CacheState.FLUSHED);
+    recordDirectiveData(
+        source,
+        dartEntry,
+        dartCopy,
+        results.hasNonPartOfDirective(),
+        results.hasPartOfDirective(),
+        results.getIncludedParts());
+    dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.FLUSHED);
+    dartCopy.setValue(DartEntry.PARSE_ERRORS, results.getParseErrors());
+    dartCopy.setValue(DartEntry.EXPORTED_LIBRARIES, results.getExportedLibraries());
+    dartCopy.setValue(DartEntry.IMPORTED_LIBRARIES, results.getImportedLibraries());
+    dartCopy.setValue(DartEntry.INCLUDED_PARTS, results.getIncludedParts());
+    cache.put(source, dartCopy);
+    ChangeNoticeImpl notice = getNotice(source);
+    notice.setErrors(dartCopy.getAllErrors(), dartCopy.getValue(SourceEntry.LINE_INFO));
+    if (dartCopy.getValue(DartEntry.SOURCE_KIND) == SourceKind.LIBRARY
+        && dartCopy.getState(DartEntry.ELEMENT) == CacheState.INVALID) {
+      restoreLibraryResults(source);
+    }
+    return cache.get(source);
+  }
+
   /**
    * Create an entry for the newly added source. Return {@code true} if the new source is a Dart
    * file.
@@ -5685,6 +6442,9 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @param source the source that has been changed
    */
   private void sourceChanged(Source source) {
+    if (resultStore != null) {
+      contentHashes.remove(source.getEncoding());
+    }
     SourceEntry sourceEntry = cache.get(source);
     if (sourceEntry == null || sourceEntry.getModificationTime() == getModificationStamp(source)) {
       // Either we have removed this source, in which case we don't care that it is changed, or we
@@ -5726,6 +6486,9 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @param source the source that has been deleted
    */
   private void sourceDeleted(Source source) {
+    if (resultStore != null) {
+      contentHashes.remove(source.getEncoding());
+    }
     SourceEntry sourceEntry = cache.get(source);
     if (sourceEntry instanceof HtmlEntry) {
       HtmlEntryImpl htmlCopy = ((HtmlEntry) sourceEntry).getWritableCopy();
@@ -5757,6 +6520,9 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @param source the source that has been removed
    */
   private void sourceRemoved(Source source) {
+    if (resultStore != null) {
+      contentHashes.remove(source.getEncoding());
+    }
     SourceEntry sourceEntry = cache.get(source);
     if (sourceEntry instanceof HtmlEntry) {
       HtmlEntryImpl htmlCopy = ((HtmlEntry) sourceEntry).getWritableCopy();
@@ -5778,6 +6544,141 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     removeFromPriorityOrder(source);
   }
 
+  /**
+   * Store the errors computed for the library whose defining compilation unit is the given source
+   * in the result store, provided that all of the errors in all of the compilation units in the
+   * library have been computed and that they have not already been stored.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param librarySource the source of the library's defining compilation unit
+   */
+  private void storeLibraryResults(Source librarySource) {
+    if (resultStore == null || librarySource.isInSystemLibrary()) {
+      return;
+    }
+    SourceEntry sourceEntry = cache.get(librarySource);
+    if (!(sourceEntry instanceof DartEntry)) {
+      return;
+    }
+    DartEntry libraryEntry = (DartEntry) sourceEntry;
+    if (libraryEntry.getState(DartEntry.INCLUDED_PARTS) != CacheState.VALID) {
+      return;
+    }
+    boolean hintsEnabled = options.getHint();
+    Source[] parts = libraryEntry.getValue(DartEntry.INCLUDED_PARTS);
+    UnitErrors[] unitErrors = new UnitErrors[parts.length + 1];
+    for (int i = 0; i <= parts.length; i++) {
+      Source unitSource = i == 0 ? librarySource : parts[i - 1];
+      SourceEntry unitEntry = cache.get(unitSource);
+      if (!(unitEntry instanceof DartEntry)) {
+        return;
+      }
+      DartEntry dartEntry = (DartEntry) unitEntry;
+      if (getValidErrors(dartEntry, librarySource, DartEntry.RESOLUTION_ERRORS) == null
+          || getValidErrors(dartEntry, librarySource, DartEntry.VERIFICATION_ERRORS) == null
+          || (hintsEnabled && getValidErrors(dartEntry, librarySource, DartEntry.HINTS) == null)) {
+        return;
+      }
+      unitErrors[i] = new UnitErrors(
+          unitSource,
+          getValidErrors(dartEntry, librarySource, DartEntry.BUILD_ELEMENT_ERRORS),
+          getValidErrors(dartEntry, librarySource, DartEntry.RESOLUTION_ERRORS),
+          getValidErrors(dartEntry, librarySource, DartEntry.VERIFICATION_ERRORS),
+          getValidErrors(dartEntry, librarySource, DartEntry.HINTS));
+    }
+    String fingerprint = computeLibraryFingerprint(librarySource, null);
+    if (fingerprint == null || resultStore.hasLibraryResults(librarySource, fingerprint)) {
+      return;
+    }
+    resultStore.putLibraryResults(librarySource, fingerprint, new LibraryResults(
+        libraryEntry.getState(DartEntry.IS_CLIENT),
+        libraryEntry.getValue(DartEntry.IS_CLIENT),
+        libraryEntry.getState(DartEntry.IS_LAUNCHABLE),
+        libraryEntry.getValue(DartEntry.IS_LAUNCHABLE),
+        unitErrors));
+  }
+
+  /**
+   * Store the results of scanning and parsing the given source in the result store, provided that
+   * the results were computed from the contents whose hash is known and that they have not already
+   * been stored.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source that was parsed
+   * @param dartCopy the entry in which the results of parsing the source were recorded
+   * @param task the task that parsed the source
+   */
+  private void storeUnitResults(Source source, DartEntryImpl dartCopy, ParseDartTask task) {
+    if (resultStore == null || source.isInSystemLibrary()) {
+      return;
+    }
+    String encoding = source.getEncoding();
+    TimestampedData<String> contentHash = contentHashes.get(encoding);
+    if (contentHash == null || contentHash.getModificationTime() != task.getModificationTime()
+        || dartCopy.getState(DartEntry.SCAN_ERRORS) != CacheState.VALID
+        || contentHash.getData().equals(
+            resultStore.getContentHash(encoding, task.getModificationTime()))) {
+      return;
+    }
+    resultStore.putUnitResults(
+        source,
+        contentHash.getData(),
+        task.getModificationTime(),
+        new UnitResults(
+            task.hasNonPartOfDirective(),
+            task.hasPartOfDirective(),
+            task.getLineInfo().getLineStarts(),
+            dartCopy.getValue(DartEntry.SCAN_ERRORS),
+            task.getErrors(),
+            task.getImportedSources(),
+            task.getExportedSources(),
+            task.getIncludedSources()));
+  }
+
+  /**
+   * Release the given locks, in the reverse of the order in which they were acquired.
+   * 
+   * @param locks the locks to be released
+   */
+  private void unlockAll(Lock[] locks) {
+    for (int i = locks.length - 1; i >= 0; i--) {
+      locks[i].unlock();
+    }
+  }
+
+  /**
+   * If the packages or analysis options used by this context are no longer the ones with which the
+   * results in the current package partition were computed, replace the cache with one that uses
+   * the partition for the packages and options that are now being used, and invalidate the results
+   * that could have depended on the previous partition.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @return {@code true} if the cache was replaced
+   */
+  private boolean updatePackagePartition() {
+    if (sourceFactory == null) {
+      return false;
+    }
+    DartSdk sdk = sourceFactory.getDartSdk();
+    if (sdk == null) {
+      return false;
+    }
+    PartitionManager manager = AnalysisEngine.getInstance().getPartitionManager();
+    PackageCachePartition partition = manager.forPackages(
+        sdk,
+        sourceFactory.getPackageDirectories(),
+        options);
+    if (partition == packagePartition) {
+      return false;
+    }
+    cache = createCacheFromSourceFactory(sourceFactory);
+    invalidateAllLocalResolutionInformation(true);
+    return true;
+  }
+
   /**
    * Check the cache for any invalid entries (entries whose modification time does not match the
    * modification time of the source associated with the entry). Invalid entries will be marked as
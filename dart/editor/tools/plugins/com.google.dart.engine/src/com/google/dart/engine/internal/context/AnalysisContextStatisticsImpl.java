@@ -21,6 +21,7 @@ import com.google.dart.engine.internal.cache.DartEntry;
 import com.google.dart.engine.internal.cache.DataDescriptor;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.instrumentation.AnalysisProfiler.TaskRecord;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -131,6 +132,8 @@ public class AnalysisContextStatisticsImpl implements AnalysisContextStatistics
 
   private PartitionData[] partitionData;
 
+  private TaskRecord[] taskRecords = new TaskRecord[0];
+
   public void addSource(Source source) {
     sources.add(source);
   }
@@ -156,6 +159,11 @@ public class AnalysisContextStatisticsImpl implements AnalysisContextStatistics
     return sources.toArray(new Source[sources.size()]);
   }
 
+  @Override
+  public TaskRecord[] getTaskRecords() {
+    return taskRecords;
+  }
+
   public void putCacheItem(SourceEntry dartEntry, DataDescriptor<?> descriptor) {
     internalPutCacheItem(dartEntry, descriptor, dartEntry.getState(descriptor));
   }
@@ -175,6 +183,13 @@ public class AnalysisContextStatisticsImpl implements AnalysisContextStatistics
     partitionData = data;
   }
 
+  /**
+   * Set the task records returned by this object to the given records.
+   */
+  public void setTaskRecords(TaskRecord[] records) {
+    taskRecords = records;
+  }
+
   private void internalPutCacheItem(SourceEntry dartEntry, DataDescriptor<?> rowDesc,
       CacheState state) {
     String rowName = rowDesc.toString();
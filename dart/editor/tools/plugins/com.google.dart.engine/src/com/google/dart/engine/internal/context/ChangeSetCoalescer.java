@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2012, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code ChangeSetCoalescer} accumulate the changes produced by many small
+ * resource deltas, such as the ones produced by switching branches or by running pub, so that each
+ * context is given a single {@link ChangeSet} rather than one change set per delta.
+ * <p>
+ * Only the last change to each source is kept: a source that is added and then changed is reported
+ * as added, a source that is changed and then removed is reported as removed, and a source that is
+ * removed and then added again is reported as added, which causes the context to treat it as
+ * changed. Changes to the sources in a removed container are dropped. Because a context applies
+ * the removal of containers after the addition of sources, a source that is added after one of the
+ * containers that contains it was removed starts a second change set for the context.
+ * <p>
+ * The changes are ready to be applied once no change has been recorded for the quiet period, or
+ * once the maximum delay has passed since the first change was recorded, whichever comes first.
+ * 
+ * @coverage dart.engine
+ */
+public class ChangeSetCoalescer {
+  /**
+   * The enumeration {@code SourceChange} defines the kinds of changes that are kept for a source.
+   */
+  private static enum SourceChange {
+    ADDED,
+    CHANGED,
+    REMOVED;
+  }
+
+  /**
+   * Instances of the class {@code PendingChanges} hold the changes that have been recorded for a
+   * single context but not yet applied to it.
+   */
+  private static class PendingChanges {
+    /**
+     * The change sets that are complete and are to be applied before the changes that are still
+     * being accumulated.
+     */
+    private final ArrayList<ChangeSet> completedChanges = new ArrayList<ChangeSet>();
+
+    /**
+     * A table mapping the sources that have been changed to the last change recorded for them, in
+     * the order in which the sources were first changed.
+     */
+    private final LinkedHashMap<Source, SourceChange> sourceChanges = new LinkedHashMap<Source, SourceChange>();
+
+    /**
+     * The source containers that have been removed.
+     */
+    private final ArrayList<SourceContainer> removedContainers = new ArrayList<SourceContainer>();
+
+    /**
+     * The number of changes that have been recorded since the last change set was completed.
+     */
+    private int recordedCount = 0;
+
+    /**
+     * Return {@code true} if one of the removed containers contains the given source.
+     * 
+     * @param source the source being tested
+     * @return {@code true} if the given source is in a removed container
+     */
+    public boolean isInRemovedContainer(Source source) {
+      for (SourceContainer container : removedContainers) {
+        if (container.contains(source)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * The default number of milliseconds during which no change can be recorded before the changes
+   * are ready to be applied.
+   */
+  public static final long DEFAULT_QUIET_PERIOD = 100L;
+
+  /**
+   * The default maximum number of milliseconds between the first change being recorded and the
+   * changes being ready to be applied.
+   */
+  public static final long DEFAULT_MAX_DELAY = 1000L;
+
+  /**
+   * The number of milliseconds during which no change can be recorded before the changes are ready
+   * to be applied.
+   */
+  private final long quietPeriod;
+
+  /**
+   * The maximum number of milliseconds between the first change being recorded and the changes
+   * being ready to be applied.
+   */
+  private final long maxDelay;
+
+  /**
+   * A table mapping the contexts for which changes have been recorded to those changes, in the
+   * order in which the contexts were first changed.
+   */
+  private LinkedHashMap<AnalysisContext, PendingChanges> pendingChanges = new LinkedHashMap<AnalysisContext, PendingChanges>();
+
+  /**
+   * The time at which the first of the pending changes was recorded.
+   */
+  private long firstChangeTime = 0L;
+
+  /**
+   * The time at which the last of the pending changes was recorded.
+   */
+  private long lastChangeTime = 0L;
+
+  /**
+   * The total number of changes that have been recorded.
+   */
+  private int recordedCount = 0;
+
+  /**
+   * The total number of recorded changes that were made redundant by later changes and therefore
+   * not applied.
+   */
+  private int collapsedCount = 0;
+
+  /**
+   * Initialize a newly created coalescer to use the default quiet period and maximum delay.
+   */
+  public ChangeSetCoalescer() {
+    this(DEFAULT_QUIET_PERIOD, DEFAULT_MAX_DELAY);
+  }
+
+  /**
+   * Initialize a newly created coalescer.
+   * 
+   * @param quietPeriod the number of milliseconds during which no change can be recorded before the
+   *          changes are ready to be applied
+   * @param maxDelay the maximum number of milliseconds between the first change being recorded and
+   *          the changes being ready to be applied
+   */
+  public ChangeSetCoalescer(long quietPeriod, long maxDelay) {
+    this.quietPeriod = quietPeriod;
+    this.maxDelay = maxDelay;
+  }
+
+  /**
+   * Record the changes in the given change set as changes to the given context.
+   * 
+   * @param context the context to which the changes are to be applied
+   * @param changeSet the changes to be recorded
+   */
+  public synchronized void addChanges(AnalysisContext context, ChangeSet changeSet) {
+    if (changeSet.isEmpty()) {
+      return;
+    }
+    long now = currentTime();
+    if (pendingChanges.isEmpty()) {
+      firstChangeTime = now;
+    }
+    lastChangeTime = now;
+    PendingChanges changes = pendingChanges.get(context);
+    if (changes == null) {
+      changes = new PendingChanges();
+      pendingChanges.put(context, changes);
+    }
+    if (!changeSet.getChangedContents().isEmpty() || !changeSet.getChangedRanges().isEmpty()
+        || !changeSet.getDeletedSources().isEmpty()) {
+      //
+      // Changes to the contents of sources are not produced by resource deltas, so rather than
+      // merging them they are applied exactly as given, after the changes recorded before them.
+      //
+      completeChanges(changes);
+      changes.completedChanges.add(changeSet);
+      recordedCount += countChanges(changeSet);
+      return;
+    }
+    for (Source source : changeSet.getAddedSources()) {
+      recordChange(changes, source, SourceChange.ADDED);
+    }
+    for (Source source : changeSet.getChangedSources()) {
+      recordChange(changes, source, SourceChange.CHANGED);
+    }
+    for (Source source : changeSet.getRemovedSources()) {
+      recordChange(changes, source, SourceChange.REMOVED);
+    }
+    for (SourceContainer container : changeSet.getRemovedContainers()) {
+      recordedCount++;
+      changes.recordedCount++;
+      changes.sourceChanges.keySet().removeAll(getSourcesIn(changes, container));
+      changes.removedContainers.add(container);
+    }
+  }
+
+  /**
+   * Apply the pending changes to the contexts to which they belong, whether or not they are ready
+   * to be applied.
+   * 
+   * @return the contexts to which changes were applied, in the order in which they were first
+   *         changed
+   */
+  public List<AnalysisContext> applyChanges() {
+    Map<AnalysisContext, List<ChangeSet>> changes = takeChanges();
+    for (Map.Entry<AnalysisContext, List<ChangeSet>> entry : changes.entrySet()) {
+      AnalysisContext context = entry.getKey();
+      for (ChangeSet changeSet : entry.getValue()) {
+        context.applyChanges(changeSet);
+      }
+    }
+    return new ArrayList<AnalysisContext>(changes.keySet());
+  }
+
+  /**
+   * Return the number of recorded changes that were made redundant by later changes and therefore
+   * not applied.
+   * 
+   * @return the number of changes that were collapsed into other changes
+   */
+  public synchronized int getCollapsedCount() {
+    return collapsedCount;
+  }
+
+  /**
+   * Return the number of milliseconds until the pending changes are ready to be applied, which is
+   * zero if they are ready now, or {@code -1} if there are no pending changes.
+   * 
+   * @return the number of milliseconds until the pending changes are ready to be applied
+   */
+  public synchronized long getDelay() {
+    if (pendingChanges.isEmpty()) {
+      return -1L;
+    }
+    long readyTime = Math.min(lastChangeTime + quietPeriod, firstChangeTime + maxDelay);
+    return Math.max(0L, readyTime - currentTime());
+  }
+
+  /**
+   * Return the total number of changes that have been recorded.
+   * 
+   * @return the number of changes that have been recorded
+   */
+  public synchronized int getRecordedCount() {
+    return recordedCount;
+  }
+
+  /**
+   * Return {@code true} if there are no pending changes.
+   * 
+   * @return {@code true} if there are no pending changes
+   */
+  public synchronized boolean isEmpty() {
+    return pendingChanges.isEmpty();
+  }
+
+  /**
+   * Remove the pending changes and return them, whether or not they are ready to be applied. Most
+   * contexts have a single change set.
+   * 
+   * @return a table mapping the changed contexts to the change sets to be applied to them, in order
+   */
+  public synchronized Map<AnalysisContext, List<ChangeSet>> takeChanges() {
+    LinkedHashMap<AnalysisContext, List<ChangeSet>> result = new LinkedHashMap<AnalysisContext, List<ChangeSet>>();
+    for (Map.Entry<AnalysisContext, PendingChanges> entry : pendingChanges.entrySet()) {
+      PendingChanges changes = entry.getValue();
+      completeChanges(changes);
+      result.put(entry.getKey(), changes.completedChanges);
+    }
+    pendingChanges = new LinkedHashMap<AnalysisContext, PendingChanges>();
+    return result;
+  }
+
+  /**
+   * Return the current time in milliseconds. Overridden when testing this class.
+   * 
+   * @return the current time in milliseconds
+   */
+  protected long currentTime() {
+    return System.currentTimeMillis();
+  }
+
+  /**
+   * Move the changes that are being accumulated for a context into a new change set at the end of
+   * the list of completed change sets.
+   * 
+   * @param changes the changes being accumulated for a context
+   */
+  private void completeChanges(PendingChanges changes) {
+    if (changes.recordedCount == 0) {
+      return;
+    }
+    ChangeSet changeSet = new ChangeSet();
+    for (Map.Entry<Source, SourceChange> entry : changes.sourceChanges.entrySet()) {
+      switch (entry.getValue()) {
+        case ADDED:
+          changeSet.addedSource(entry.getKey());
+          break;
+        case CHANGED:
+          changeSet.changedSource(entry.getKey());
+          break;
+        case REMOVED:
+          changeSet.removedSource(entry.getKey());
+          break;
+      }
+    }
+    for (SourceContainer container : changes.removedContainers) {
+      changeSet.removedContainer(container);
+    }
+    collapsedCount += changes.recordedCount - countChanges(changeSet);
+    changes.completedChanges.add(changeSet);
+    changes.sourceChanges.clear();
+    changes.removedContainers.clear();
+    changes.recordedCount = 0;
+  }
+
+  /**
+   * Return the number of individual changes in the given change set.
+   * 
+   * @param changeSet the change set whose changes are to be counted
+   * @return the number of changes in the change set
+   */
+  private int countChanges(ChangeSet changeSet) {
+    return changeSet.getAddedSources().size() + changeSet.getChangedSources().size()
+        + changeSet.getChangedContents().size() + changeSet.getChangedRanges().size()
+        + changeSet.getDeletedSources().size() + changeSet.getRemovedSources().size()
+        + changeSet.getRemovedContainers().size();
+  }
+
+  /**
+   * Return a list containing the sources with recorded changes that are in the given container.
+   * 
+   * @param changes the changes being accumulated for a context
+   * @param container the container containing the sources to be returned
+   * @return the sources with recorded changes that are in the given container
+   */
+  private List<Source> getSourcesIn(PendingChanges changes, SourceContainer container) {
+    ArrayList<Source> sources = new ArrayList<Source>();
+    for (Source source : changes.sourceChanges.keySet()) {
+      if (container.contains(source)) {
+        sources.add(source);
+      }
+    }
+    return sources;
+  }
+
+  /**
+   * Record the given change to the given source, merging it with the change already recorded for
+   * the source.
+   * 
+   * @param changes the changes being accumulated for the context containing the source
+   * @param source the source that was changed
+   * @param change the kind of change that was made to the source
+   */
+  private void recordChange(PendingChanges changes, Source source, SourceChange change) {
+    if (changes.isInRemovedContainer(source)) {
+      if (change == SourceChange.REMOVED) {
+        // The source is already being removed along with its container.
+        recordedCount++;
+        changes.recordedCount++;
+        return;
+      }
+      // The removal of the container would undo the addition of the source.
+      completeChanges(changes);
+    }
+    recordedCount++;
+    changes.recordedCount++;
+    SourceChange previousChange = changes.sourceChanges.get(source);
+    if (previousChange == SourceChange.ADDED && change == SourceChange.CHANGED) {
+      return;
+    } else if (previousChange == SourceChange.REMOVED && change == SourceChange.CHANGED) {
+      // The source exists again, so it has to be added again.
+      change = SourceChange.ADDED;
+    }
+    changes.sourceChanges.put(source, change);
+  }
+}
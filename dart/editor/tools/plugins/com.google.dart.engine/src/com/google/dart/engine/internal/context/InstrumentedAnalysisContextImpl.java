@@ -21,6 +21,7 @@ import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.internal.element.angular.AngularApplication;
 import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.scope.ImportedNameTable;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.Source.ContentReceiver;
@@ -423,6 +424,11 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
     }
   }
 
+  @Override
+  public ImportedNameTable getImportedNameTable(LibraryElement library) {
+    return basis.getImportedNameTable(library);
+  }
+
   @Override
   public SourceKind getKindOf(Source source) {
     InstrumentationBuilder instrumentation = Instrumentation.builder("Analysis-getKindOf");
@@ -19,6 +19,7 @@ import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.scope.ImportedNameTable;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
@@ -86,6 +87,15 @@ public interface InternalAnalysisContext extends AnalysisContext {
   public InternalAnalysisContext extractContextInto(SourceContainer container,
       InternalAnalysisContext newContext);
 
+  /**
+   * Return a table containing the names imported into the given library. The table is shared by
+   * the resolutions of the library for as long as the imports of the library are unchanged.
+   * 
+   * @param library the library whose imported names are to be returned
+   * @return a table containing the names imported into the given library
+   */
+  public ImportedNameTable getImportedNameTable(LibraryElement library);
+
   /**
    * Return an array containing all of the sources that have been marked as priority sources.
    * Clients must not modify the returned array.
@@ -61,6 +61,21 @@ public class PerformanceStatistics {
    */
   public static TimeCounter hints = new TimeCounter();
 
+  /**
+   * The {@link TimeCounter} for time spent in tasks that resolve whole libraries, excluding the
+   * time recorded by the other counters. The count is the number of times a library (or a cycle of
+   * libraries) was resolved, including the times it was resolved again only to rebuild a resolved
+   * AST structure that had been flushed from the cache.
+   */
+  public static TimeCounter resolveLibrary = new TimeCounter();
+
+  /**
+   * The {@link TimeCounter} for time spent rebuilding resolved AST structures that had been flushed
+   * from the cache against the existing element model, excluding the time recorded by the other
+   * counters. The count is the number of structures rebuilt without resolving their library.
+   */
+  public static TimeCounter rehydrate = new TimeCounter();
+
   /**
    * Reset all of the time counters to zero.
    */
@@ -73,5 +88,7 @@ public class PerformanceStatistics {
     polymer = new TimeCounter();
     errors = new TimeCounter();
     hints = new TimeCounter();
+    resolveLibrary = new TimeCounter();
+    rehydrate = new TimeCounter();
   }
 }
@@ -16,11 +16,17 @@ package com.google.dart.engine.internal.context;
 import com.google.dart.engine.source.Source;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.NoSuchElementException;
 
 /**
  * Instances of the class {@code WorkManager} manage a list of sources that need to have analysis
  * work performed on them.
+ * <p>
+ * Each source is in at most one of the queues, and membership is tracked in a map so that adding,
+ * moving and removing a source take constant time. A source that cannot be analyzed until some
+ * asynchronous work has completed can be {@link #block(Source) blocked}, which removes it from the
+ * iteration without forgetting its priority, until it is {@link #unblock(Source) unblocked}.
  */
 public class WorkManager {
   /**
@@ -31,18 +37,19 @@ public class WorkManager {
     /**
      * The index of the work queue through which we are currently iterating.
      */
-    private int queueIndex = 0;
+    private int queueIndex = -1;
 
     /**
-     * The index of the next element of the work queue to be returned.
+     * The element of the work queue to be returned next, or {@code null} if there are no more
+     * sources to be returned.
      */
-    private int index = -1;
+    private WorkElement element = null;
 
     /**
      * Initialize a newly created iterator to be ready to return the first element in the iteration.
      */
     public WorkIterator() {
-      advance();
+      advanceQueue();
     }
 
     /**
@@ -51,7 +58,7 @@ public class WorkManager {
      * @return {@code true} if there is another {@link Source} available for processing
      */
     public boolean hasNext() {
-      return queueIndex < workQueues.length;
+      return element != null;
     }
 
     /**
@@ -61,97 +68,197 @@ public class WorkManager {
      * @return the next {@link Source} available for processing
      */
     public Source next() {
-      if (!hasNext()) {
+      if (element == null) {
         throw new NoSuchElementException();
       }
-      Source source = workQueues[queueIndex].get(index);
-      advance();
+      Source source = element.source;
+      element = element.next;
+      if (element == null) {
+        advanceQueue();
+      }
       return source;
     }
 
     /**
-     * Increment the {@link #index} and {@link #queueIndex} so that they are either indicating the
-     * next source to be returned or are indicating that there are no more sources to be returned.
+     * Increment the {@link #queueIndex} until it indicates a non-empty queue, and set the
+     * {@link #element} to the first element of that queue, or to {@code null} if there are no more
+     * non-empty queues.
      */
-    private void advance() {
-      index++;
-      if (index >= workQueues[queueIndex].size()) {
-        index = 0;
+    private void advanceQueue() {
+      queueIndex++;
+      while (queueIndex < queueCount && queueHeads[queueIndex] == null) {
         queueIndex++;
-        while (queueIndex < workQueues.length && workQueues[queueIndex].isEmpty()) {
-          queueIndex++;
-        }
       }
+      element = queueIndex < queueCount ? queueHeads[queueIndex] : null;
+    }
+  }
+
+  /**
+   * Instances of the class {@code WorkElement} represent the position of a source in one of the
+   * queues.
+   */
+  private static class WorkElement {
+    /**
+     * The source that needs to be analyzed.
+     */
+    private final Source source;
+
+    /**
+     * The index of the queue corresponding to the priority of the source.
+     */
+    private int priorityIndex;
+
+    /**
+     * The index of the queue containing this element, which is either the {@link #priorityIndex}
+     * or the index of the queue of blocked sources.
+     */
+    private int queueIndex;
+
+    /**
+     * The previous element in the same queue, or {@code null} if this is the first element.
+     */
+    private WorkElement previous;
+
+    /**
+     * The next element in the same queue, or {@code null} if this is the last element.
+     */
+    private WorkElement next;
+
+    /**
+     * Initialize a newly created element to represent the given source.
+     * 
+     * @param source the source that needs to be analyzed
+     */
+    public WorkElement(Source source) {
+      this.source = source;
     }
   }
 
   /**
-   * An array containing the various queues is priority order.
+   * The number of queues of sources that are ready to be analyzed, one for each priority.
    */
-  private ArrayList<Source>[] workQueues;
+  private final int queueCount;
+
+  /**
+   * The index of the queue of blocked sources, which follows the queues of sources that are ready
+   * to be analyzed.
+   */
+  private final int blockedIndex;
+
+  /**
+   * An array containing the first element of each of the queues, in priority order, followed by
+   * the first element of the queue of blocked sources.
+   */
+  private final WorkElement[] queueHeads;
+
+  /**
+   * An array containing the last element of each of the queues, in the same order as
+   * {@link #queueHeads}.
+   */
+  private final WorkElement[] queueTails;
+
+  /**
+   * A table mapping the sources in this manager to the elements representing them.
+   */
+  private final HashMap<Source, WorkElement> elementMap = new HashMap<Source, WorkElement>();
 
   /**
    * Initialize a newly created manager to have no work queued up.
    */
-  @SuppressWarnings("unchecked")
   public WorkManager() {
-    int queueCount = SourcePriority.values().length;
-    workQueues = new ArrayList[queueCount];
-    for (int i = 0; i < queueCount; i++) {
-      workQueues[i] = new ArrayList<Source>();
-    }
+    queueCount = SourcePriority.values().length;
+    blockedIndex = queueCount;
+    queueHeads = new WorkElement[queueCount + 1];
+    queueTails = new WorkElement[queueCount + 1];
   }
 
   /**
    * Record that the given source needs to be analyzed. The priority level is used to control when
    * the source will be analyzed with respect to other sources. If the source was previously added
    * then it's priority is updated. If it was previously added with the same priority then it's
-   * position in the queue is unchanged.
+   * position in the queue is unchanged. If the source was blocked then it is no longer blocked.
    * 
    * @param source the source that needs to be analyzed
    * @param priority the priority level of the source
    */
   public void add(Source source, SourcePriority priority) {
-    int queueCount = workQueues.length;
     int ordinal = priority.ordinal();
-    for (int i = 0; i < queueCount; i++) {
-      ArrayList<Source> queue = workQueues[i];
-      if (i == ordinal) {
-        if (!queue.contains(source)) {
-          queue.add(source);
-        }
-      } else {
-        queue.remove(source);
-      }
+    WorkElement element = elementMap.get(source);
+    if (element == null) {
+      element = new WorkElement(source);
+      elementMap.put(source, element);
+    } else if (element.queueIndex == ordinal) {
+      return;
+    } else {
+      unlink(element);
     }
+    element.priorityIndex = ordinal;
+    linkLast(element, ordinal);
   }
 
   /**
    * Record that the given source needs to be analyzed. The priority level is used to control when
    * the source will be analyzed with respect to other sources. If the source was previously added
    * then it's priority is updated. In either case, it will be analyzed before other sources of the
-   * same priority.
+   * same priority. If the source was blocked then it is no longer blocked.
    * 
    * @param source the source that needs to be analyzed
    * @param priority the priority level of the source
    */
   public void addFirst(Source source, SourcePriority priority) {
-    int queueCount = workQueues.length;
     int ordinal = priority.ordinal();
-    for (int i = 0; i < queueCount; i++) {
-      ArrayList<Source> queue = workQueues[i];
-      if (i == ordinal) {
-        queue.remove(source);
-        queue.add(0, source);
-      } else {
-        queue.remove(source);
-      }
+    WorkElement element = elementMap.get(source);
+    if (element == null) {
+      element = new WorkElement(source);
+      elementMap.put(source, element);
+    } else {
+      unlink(element);
     }
+    element.priorityIndex = ordinal;
+    linkFirst(element, ordinal);
+  }
+
+  /**
+   * Record that the given source cannot be analyzed until some asynchronous work has completed.
+   * The source will not be returned by an {@link #iterator() iterator} until it has been
+   * {@link #unblock(Source) unblocked} or added again. Blocking a source that is not in this manager
+   * has no effect.
+   * 
+   * @param source the source that is blocked
+   */
+  public void block(Source source) {
+    WorkElement element = elementMap.get(source);
+    if (element != null && element.queueIndex != blockedIndex) {
+      unlink(element);
+      linkLast(element, blockedIndex);
+    }
+  }
+
+  /**
+   * Return an array containing the sources that are currently blocked.
+   * 
+   * @return the sources that are currently blocked
+   */
+  public Source[] getBlockedSources() {
+    ArrayList<Source> sources = new ArrayList<Source>();
+    for (WorkElement element = queueHeads[blockedIndex]; element != null; element = element.next) {
+      sources.add(element.source);
+    }
+    return sources.toArray(new Source[sources.size()]);
+  }
+
+  /**
+   * Return {@code true} if at least one of the sources in this manager is blocked.
+   * 
+   * @return {@code true} if at least one of the sources in this manager is blocked
+   */
+  public boolean hasBlockedSources() {
+    return queueHeads[blockedIndex] != null;
   }
 
   /**
    * Return an iterator that can be used to access the sources to be analyzed in the order in which
-   * they should be analyzed.
+   * they should be analyzed. Blocked sources are not returned.
    * <p>
    * <b>Note:</b> As with other iterators, no sources can be added or removed from this work manager
    * while the iterator is being used. Unlike some implementations, however, the iterator will not
@@ -170,9 +277,9 @@ public class WorkManager {
    * @param source the source that is fully analyzed
    */
   public void remove(Source source) {
-    int queueCount = workQueues.length;
-    for (int i = 0; i < queueCount; i++) {
-      workQueues[i].remove(source);
+    WorkElement element = elementMap.remove(source);
+    if (element != null) {
+      unlink(element);
     }
   }
 
@@ -181,25 +288,100 @@ public class WorkManager {
     StringBuilder builder = new StringBuilder();
     SourcePriority[] priorities = SourcePriority.values();
     boolean needsSeparator = false;
-    int queueCount = workQueues.length;
-    for (int i = 0; i < queueCount; i++) {
-      ArrayList<Source> queue = workQueues[i];
-      if (!queue.isEmpty()) {
+    for (int i = 0; i <= queueCount; i++) {
+      WorkElement element = queueHeads[i];
+      if (element != null) {
         if (needsSeparator) {
           builder.append("; ");
         }
-        builder.append(priorities[i]);
+        builder.append(i == blockedIndex ? "BLOCKED" : priorities[i].toString());
         builder.append(": ");
-        int queueSize = queue.size();
-        for (int j = 0; j < queueSize; j++) {
-          if (j > 0) {
+        boolean first = true;
+        for (; element != null; element = element.next) {
+          if (!first) {
             builder.append(", ");
           }
-          builder.append(queue.get(j).getFullName());
+          builder.append(element.source.getFullName());
+          first = false;
         }
         needsSeparator = true;
       }
     }
     return builder.toString();
   }
+
+  /**
+   * Record that the asynchronous work the given source was waiting for has completed, so that the
+   * source can be analyzed again. The source is analyzed before other sources of the same priority,
+   * because it was blocked before they were looked at. Unblocking a source that is not blocked has
+   * no effect.
+   * 
+   * @param source the source that is no longer blocked
+   */
+  public void unblock(Source source) {
+    WorkElement element = elementMap.get(source);
+    if (element != null && element.queueIndex == blockedIndex) {
+      unlink(element);
+      linkFirst(element, element.priorityIndex);
+    }
+  }
+
+  /**
+   * Add the given element to the beginning of the queue with the given index.
+   * 
+   * @param element the element to be added
+   * @param queueIndex the index of the queue to which the element is to be added
+   */
+  private void linkFirst(WorkElement element, int queueIndex) {
+    WorkElement head = queueHeads[queueIndex];
+    element.queueIndex = queueIndex;
+    element.previous = null;
+    element.next = head;
+    if (head == null) {
+      queueTails[queueIndex] = element;
+    } else {
+      head.previous = element;
+    }
+    queueHeads[queueIndex] = element;
+  }
+
+  /**
+   * Add the given element to the end of the queue with the given index.
+   * 
+   * @param element the element to be added
+   * @param queueIndex the index of the queue to which the element is to be added
+   */
+  private void linkLast(WorkElement element, int queueIndex) {
+    WorkElement tail = queueTails[queueIndex];
+    element.queueIndex = queueIndex;
+    element.previous = tail;
+    element.next = null;
+    if (tail == null) {
+      queueHeads[queueIndex] = element;
+    } else {
+      tail.next = element;
+    }
+    queueTails[queueIndex] = element;
+  }
+
+  /**
+   * Remove the given element from the queue that contains it.
+   * 
+   * @param element the element to be removed
+   */
+  private void unlink(WorkElement element) {
+    int queueIndex = element.queueIndex;
+    if (element.previous == null) {
+      queueHeads[queueIndex] = element.next;
+    } else {
+      element.previous.next = element.next;
+    }
+    if (element.next == null) {
+      queueTails[queueIndex] = element.previous;
+    } else {
+      element.next.previous = element.previous;
+    }
+    element.previous = null;
+    element.next = null;
+  }
 }
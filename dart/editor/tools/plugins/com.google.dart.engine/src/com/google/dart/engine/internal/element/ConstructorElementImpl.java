@@ -22,9 +22,12 @@ import com.google.dart.engine.element.ConstructorElement;
 import com.google.dart.engine.element.ElementKind;
 import com.google.dart.engine.element.ElementVisitor;
 import com.google.dart.engine.element.ParameterElement;
+import com.google.dart.engine.internal.constant.ConstantInvocation;
+import com.google.dart.engine.internal.object.DartObjectImpl;
 import com.google.dart.engine.utilities.dart.ParameterKind;
 import com.google.dart.engine.utilities.translation.DartName;
 
+import java.util.HashMap;
 import java.util.List;
 
 /**
@@ -49,6 +52,14 @@ public class ConstructorElementImpl extends ExecutableElementImpl implements Con
    */
   private List<ConstructorInitializer> constantInitializers;
 
+  /**
+   * A table mapping invocations of this constructor whose arguments are known exactly to the
+   * objects created by those invocations, or {@code null} if no invocation has been evaluated. The
+   * table lives as long as this element does, so that libraries using this constructor do not need
+   * to evaluate the same invocation again when they are re-resolved.
+   */
+  private HashMap<ConstantInvocation, DartObjectImpl> constantValues;
+
   /**
    * Initialize a newly created constructor element to have the given name.
    * 
@@ -79,6 +90,20 @@ public class ConstructorElementImpl extends ExecutableElementImpl implements Con
     return constantInitializers;
   }
 
+  /**
+   * Return the object created by the given invocation of this constructor, or {@code null} if the
+   * invocation has not been evaluated.
+   * 
+   * @param invocation the invocation whose result is to be returned
+   * @return the object created by the given invocation of this constructor
+   */
+  public synchronized DartObjectImpl getConstantValue(ConstantInvocation invocation) {
+    if (constantValues == null) {
+      return null;
+    }
+    return constantValues.get(invocation);
+  }
+
   @Override
   public ClassElement getEnclosingElement() {
     return (ClassElement) super.getEnclosingElement();
@@ -146,8 +171,22 @@ public class ConstructorElementImpl extends ExecutableElementImpl implements Con
    * 
    * @param cloneNodeList
    */
-  public void setConstantInitializers(List<ConstructorInitializer> constantInitializers) {
+  public synchronized void setConstantInitializers(List<ConstructorInitializer> constantInitializers) {
     this.constantInitializers = constantInitializers;
+    constantValues = null;
+  }
+
+  /**
+   * Record the object created by the given invocation of this constructor.
+   * 
+   * @param invocation the invocation that was evaluated
+   * @param value the object created by the invocation
+   */
+  public synchronized void setConstantValue(ConstantInvocation invocation, DartObjectImpl value) {
+    if (constantValues == null) {
+      constantValues = new HashMap<ConstantInvocation, DartObjectImpl>();
+    }
+    constantValues.put(invocation, value);
   }
 
   /**
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.HtmlElement;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Instances of the class {@code RelationshipBatch} collect the relationships recorded while a
+ * single unit is being indexed so that they can be added to an {@link IndexStore} in one step.
+ * <p>
+ * Contributors record relationships into a batch without holding any lock, so the units of several
+ * libraries can be visited in parallel, each into its own batch. Only {@link #commit(IndexStore)}
+ * needs exclusive access to the store. The relationships are kept in parallel arrays rather than
+ * in one object per relationship.
+ * <p>
+ * A batch is not thread-safe. Removing information from a batch drops the relationships whose
+ * element or location is in the given context, source or container.
+ * 
+ * @coverage dart.engine.index
+ */
+public class RelationshipBatch implements IndexStore {
+  /**
+   * The initial number of relationships for which space is allocated.
+   */
+  private static final int INITIAL_CAPACITY = 256;
+
+  /**
+   * The elements of the recorded relationships.
+   */
+  private Element[] elements = new Element[INITIAL_CAPACITY];
+
+  /**
+   * The kinds of the recorded relationships, parallel to {@link #elements}.
+   */
+  private Relationship[] relationships = new Relationship[INITIAL_CAPACITY];
+
+  /**
+   * The locations of the recorded relationships, parallel to {@link #elements}.
+   */
+  private Location[] locations = new Location[INITIAL_CAPACITY];
+
+  /**
+   * The number of relationships in this batch.
+   */
+  private int size = 0;
+
+  /**
+   * Initialize a newly created batch to be empty.
+   */
+  public RelationshipBatch() {
+    super();
+  }
+
+  @Override
+  public boolean aboutToIndexDart(AnalysisContext context, CompilationUnitElement unitElement) {
+    return true;
+  }
+
+  @Override
+  public boolean aboutToIndexHtml(AnalysisContext context, HtmlElement htmlElement) {
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(elements, 0, size, null);
+    Arrays.fill(relationships, 0, size, null);
+    Arrays.fill(locations, 0, size, null);
+    size = 0;
+  }
+
+  /**
+   * Record all of the relationships in this batch in the given store, in the order in which they
+   * were recorded. The caller is responsible for holding whatever lock guards the store, and for
+   * bracketing the invocation with the store's "aboutToIndex*" and {@link #doneIndex()} methods.
+   * 
+   * @param store the store in which the relationships are to be recorded
+   */
+  public void commit(IndexStore store) {
+    for (int i = 0; i < size; i++) {
+      store.recordRelationship(elements[i], relationships[i], locations[i]);
+    }
+  }
+
+  @Override
+  public void doneIndex() {
+  }
+
+  @Override
+  public Location[] getRelationships(Element element, Relationship relationship) {
+    List<Location> result = new ArrayList<Location>();
+    for (int i = 0; i < size; i++) {
+      if (relationships[i] == relationship && elements[i].equals(element)) {
+        result.add(locations[i]);
+      }
+    }
+    return result.toArray(new Location[result.size()]);
+  }
+
+  @Override
+  public String getStatistics() {
+    return size + " relationships";
+  }
+
+  @Override
+  public void recordRelationship(Element element, Relationship relationship, Location location) {
+    if (element == null || location == null) {
+      return;
+    }
+    if (size == elements.length) {
+      int capacity = size * 2;
+      elements = Arrays.copyOf(elements, capacity);
+      relationships = Arrays.copyOf(relationships, capacity);
+      locations = Arrays.copyOf(locations, capacity);
+    }
+    elements[size] = element;
+    relationships[size] = relationship;
+    locations[size] = location;
+    size++;
+  }
+
+  @Override
+  public void removeContext(AnalysisContext context) {
+    removeRelationships(context, null, null);
+  }
+
+  @Override
+  public void removeSource(AnalysisContext context, Source source) {
+    removeRelationships(context, source, null);
+  }
+
+  @Override
+  public void removeSources(AnalysisContext context, SourceContainer container) {
+    removeRelationships(context, null, container);
+  }
+
+  /**
+   * Return the number of relationships in this batch.
+   * 
+   * @return the number of relationships in this batch
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Return {@code true} if the given element is in the given context and, if a source or container
+   * is given, in that source or container.
+   * 
+   * @param element the element being tested
+   * @param context the context the element must be in
+   * @param source the source the element must be in, or {@code null} if any source is allowed
+   * @param container the container the element must be in, or {@code null} if any source is allowed
+   * @return {@code true} if the given element matches
+   */
+  private boolean matches(Element element, AnalysisContext context, Source source,
+      SourceContainer container) {
+    if (MemoryIndexStoreImpl.unwrapContext(element.getContext()) != context) {
+      return false;
+    }
+    Source elementSource = element.getSource();
+    if (source != null) {
+      return source.equals(elementSource);
+    }
+    if (container != null) {
+      return elementSource != null && container.contains(elementSource);
+    }
+    return true;
+  }
+
+  /**
+   * Remove the relationships whose element or location is in the given context and, if a source or
+   * container is given, in that source or container. The remaining relationships keep their order.
+   * 
+   * @param context the context of the relationships to be removed
+   * @param source the source of the relationships to be removed, or {@code null}
+   * @param container the container of the relationships to be removed, or {@code null}
+   */
+  private void removeRelationships(AnalysisContext context, Source source,
+      SourceContainer container) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    if (context == null) {
+      return;
+    }
+    int newSize = 0;
+    for (int i = 0; i < size; i++) {
+      if (!matches(elements[i], context, source, container)
+          && !matches(locations[i].getElement(), context, source, container)) {
+        elements[newSize] = elements[i];
+        relationships[newSize] = relationships[i];
+        locations[newSize] = locations[i];
+        newSize++;
+      }
+    }
+    Arrays.fill(elements, newSize, size, null);
+    Arrays.fill(relationships, newSize, size, null);
+    Arrays.fill(locations, newSize, size, null);
+    size = newSize;
+  }
+}
@@ -21,6 +21,7 @@ import com.google.dart.engine.element.HtmlElement;
 import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.internal.html.angular.AngularHtmlIndexContributor;
+import com.google.dart.engine.internal.index.RelationshipBatch;
 import com.google.dart.engine.source.Source;
 
 /**
@@ -92,20 +93,21 @@ public class IndexHtmlUnitOperation implements IndexOperation {
 
   @Override
   public void performOperation() {
-    synchronized (indexStore) {
-      try {
+    try {
+      RelationshipBatch batch = new RelationshipBatch();
+      unit.accept(new AngularHtmlIndexContributor(batch));
+      synchronized (indexStore) {
         boolean mayIndex = indexStore.aboutToIndexHtml(context, htmlElement);
         if (!mayIndex) {
           return;
         }
-        AngularHtmlIndexContributor contributor = new AngularHtmlIndexContributor(indexStore);
-        unit.accept(contributor);
+        batch.commit(indexStore);
         indexStore.doneIndex();
-      } catch (Throwable exception) {
-        AnalysisEngine.getInstance().getLogger().logError(
-            "Could not index " + unit.getElement().getLocation(),
-            exception);
       }
+    } catch (Throwable exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not index " + unit.getElement().getLocation(),
+          exception);
     }
   }
 
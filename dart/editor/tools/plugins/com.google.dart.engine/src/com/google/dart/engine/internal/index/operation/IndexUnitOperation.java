@@ -22,6 +22,7 @@ import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.internal.html.angular.AngularDartIndexContributor;
 import com.google.dart.engine.internal.index.IndexContributor;
+import com.google.dart.engine.internal.index.RelationshipBatch;
 import com.google.dart.engine.source.Source;
 
 /**
@@ -93,20 +94,23 @@ public class IndexUnitOperation implements IndexOperation {
 
   @Override
   public void performOperation() {
-    synchronized (indexStore) {
-      try {
+    try {
+      // Visit the unit without holding the lock, so that other units can be indexed in parallel.
+      RelationshipBatch batch = new RelationshipBatch();
+      unit.accept(new IndexContributor(batch));
+      unit.accept(new AngularDartIndexContributor(batch));
+      synchronized (indexStore) {
         boolean mayIndex = indexStore.aboutToIndexDart(context, unitElement);
         if (!mayIndex) {
           return;
         }
-        unit.accept(new IndexContributor(indexStore));
-        unit.accept(new AngularDartIndexContributor(indexStore));
+        batch.commit(indexStore);
         indexStore.doneIndex();
-      } catch (Throwable exception) {
-        AnalysisEngine.getInstance().getLogger().logError(
-            "Could not index " + unit.getElement().getLocation(),
-            exception);
       }
+    } catch (Throwable exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not index " + unit.getElement().getLocation(),
+          exception);
     }
   }
 
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.scope;
+
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.HideElementCombinator;
+import com.google.dart.engine.element.ImportElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.NamespaceCombinator;
+import com.google.dart.engine.element.PrefixElement;
+import com.google.dart.engine.element.ShowElementCombinator;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.internal.element.MultiplyDefinedElementImpl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code ImportedNameTable} merge the import namespaces of a library into a
+ * single table, so that looking up a name requires one probe rather than one probe per import.
+ * Names that are defined by more than one import are mapped to a
+ * {@link MultiplyDefinedElementImpl} holding the conflicting elements.
+ * <p>
+ * Tables are cached by the {@link ImportedNameTableCache} of the context of the importing library,
+ * and a cached table is reused as long as the imports of the library are unchanged: the same
+ * libraries, identified by their elements, imported with the same prefixes and combinators. A
+ * library is given a new element whenever it, or any library it exports, is resolved again, so a
+ * reused table never refers to stale elements.
+ * This allows the table to be shared by all of the scopes created for a library, and across
+ * resolutions of a library whose imports were not affected by a change.
+ * 
+ * @coverage dart.engine.resolver
+ */
+public class ImportedNameTable {
+  /**
+   * Return a table containing the names imported into the given library. The table is cached by the
+   * context of the library, if the library has one.
+   * 
+   * @param library the library whose imported names are to be returned
+   * @return a table containing the names imported into the given library
+   */
+  public static ImportedNameTable forLibrary(LibraryElement library) {
+    AnalysisContext context = library.getContext();
+    if (context instanceof InternalAnalysisContext) {
+      return ((InternalAnalysisContext) context).getImportedNameTable(library);
+    }
+    return new ImportedNameTable(library.getImports());
+  }
+
+  /**
+   * Return a description of the way the names of the imported library are made visible by the
+   * given import.
+   * 
+   * @param element the import being described
+   * @return a description of the prefix and the combinators of the given import
+   */
+  private static String getDescriptor(ImportElement element) {
+    StringBuilder builder = new StringBuilder();
+    PrefixElement prefix = element.getPrefix();
+    if (prefix != null) {
+      builder.append(prefix.getName());
+    }
+    for (NamespaceCombinator combinator : element.getCombinators()) {
+      String[] names;
+      if (combinator instanceof HideElementCombinator) {
+        builder.append(" hide");
+        names = ((HideElementCombinator) combinator).getHiddenNames();
+      } else if (combinator instanceof ShowElementCombinator) {
+        builder.append(" show");
+        names = ((ShowElementCombinator) combinator).getShownNames();
+      } else {
+        builder.append(' ');
+        builder.append(combinator.getClass().getName());
+        continue;
+      }
+      for (String name : names) {
+        builder.append(' ');
+        builder.append(name);
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * The libraries imported by the imports from which this table was built, in the order of the
+   * imports.
+   */
+  private final LibraryElement[] importedLibraries;
+
+  /**
+   * The descriptions of the prefixes and combinators of the imports from which this table was
+   * built, in the order of the imports.
+   */
+  private final String[] importDescriptors;
+
+  /**
+   * A table mapping the imported names to either the element that is imported with that name, or
+   * a multiply defined element whose context is not set if more than one element is imported with
+   * that name.
+   */
+  private final HashMap<String, Element> importedNames;
+
+  /**
+   * Initialize a newly created table to contain the names imported by the given imports.
+   * 
+   * @param imports the imports whose names are to be contained in the table
+   */
+  ImportedNameTable(ImportElement[] imports) {
+    int count = imports.length;
+    importedLibraries = new LibraryElement[count];
+    importDescriptors = new String[count];
+    importedNames = new HashMap<String, Element>();
+    NamespaceBuilder builder = new NamespaceBuilder();
+    for (int i = 0; i < count; i++) {
+      ImportElement importElement = imports[i];
+      importedLibraries[i] = importElement.getImportedLibrary();
+      importDescriptors[i] = getDescriptor(importElement);
+      Namespace namespace = builder.createImportNamespaceForDirective(importElement);
+      for (Map.Entry<String, Element> entry : namespace.getDefinedNames().entrySet()) {
+        String name = entry.getKey();
+        Element element = entry.getValue();
+        Element foundElement = importedNames.get(name);
+        if (foundElement == null) {
+          importedNames.put(name, element);
+        } else if (foundElement != element) {
+          importedNames.put(
+              name,
+              MultiplyDefinedElementImpl.fromElements(null, foundElement, element));
+        }
+      }
+    }
+  }
+
+  /**
+   * Return the element imported with the given name, or {@code null} if there is no such element.
+   * If more than one element is imported with the given name, a newly created multiply defined
+   * element is returned, which the caller is free to modify.
+   * 
+   * @param name the name being looked up
+   * @param context the context in which a multiply defined element is to be created
+   * @return the element imported with the given name
+   */
+  public Element lookup(String name, AnalysisContext context) {
+    Element element = importedNames.get(name);
+    if (element instanceof MultiplyDefinedElementImpl) {
+      return new MultiplyDefinedElementImpl(
+          context,
+          ((MultiplyDefinedElementImpl) element).getConflictingElements().clone());
+    }
+    return element;
+  }
+
+  /**
+   * Return {@code true} if this table was built from imports that are equivalent to the given
+   * imports.
+   * 
+   * @param imports the imports being compared with the imports this table was built from
+   * @return {@code true} if this table contains the names imported by the given imports
+   */
+  boolean hasImports(ImportElement[] imports) {
+    int count = imports.length;
+    if (count != importedLibraries.length) {
+      return false;
+    }
+    for (int i = 0; i < count; i++) {
+      ImportElement element = imports[i];
+      if (element.getImportedLibrary() != importedLibraries[i]
+          || !getDescriptor(element).equals(importDescriptors[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
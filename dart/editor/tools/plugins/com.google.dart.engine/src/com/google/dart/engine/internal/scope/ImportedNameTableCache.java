@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.scope;
+
+import com.google.dart.engine.element.ImportElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.source.Source;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code ImportedNameTableCache} map the sources of the libraries in a single
+ * analysis context to the most recently built {@link ImportedNameTable tables} for those libraries,
+ * discarding the least recently used table when the cache is full.
+ * <p>
+ * Each context owns its own cache, so the library elements referenced by the cached tables are
+ * released together with the context.
+ * 
+ * @coverage dart.engine.resolver
+ */
+public class ImportedNameTableCache {
+  /**
+   * Instances of the class {@code TableMap} map library sources to tables, discarding the least
+   * recently used table when the map is full.
+   */
+  @SuppressWarnings("serial")
+  private static class TableMap extends LinkedHashMap<Source, ImportedNameTable> {
+    /**
+     * The maximum number of tables that are cached.
+     */
+    private static final int MAX_SIZE = 64;
+
+    /**
+     * Initialize a newly created, empty map.
+     */
+    public TableMap() {
+      super(MAX_SIZE, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Source, ImportedNameTable> eldest) {
+      return size() > MAX_SIZE;
+    }
+  }
+
+  /**
+   * A table mapping library sources to the most recently used tables for those libraries.
+   */
+  private final TableMap tables = new TableMap();
+
+  /**
+   * Initialize a newly created, empty cache.
+   */
+  public ImportedNameTableCache() {
+    super();
+  }
+
+  /**
+   * Remove all of the cached tables.
+   */
+  public void clear() {
+    synchronized (tables) {
+      tables.clear();
+    }
+  }
+
+  /**
+   * Return a table containing the names imported into the given library, reusing the cached table
+   * for the library if it was built from equivalent imports.
+   * 
+   * @param library the library whose imported names are to be returned
+   * @return a table containing the names imported into the given library
+   */
+  public ImportedNameTable getTable(LibraryElement library) {
+    ImportElement[] imports = library.getImports();
+    Source source = library.getSource();
+    if (source == null) {
+      return new ImportedNameTable(imports);
+    }
+    synchronized (tables) {
+      ImportedNameTable table = tables.get(source);
+      if (table != null && table.hasImports(imports)) {
+        return table;
+      }
+    }
+    ImportedNameTable table = new ImportedNameTable(imports);
+    synchronized (tables) {
+      tables.put(source, table);
+    }
+    return table;
+  }
+
+  /**
+   * Return the number of tables in this cache.
+   * 
+   * @return the number of tables in this cache
+   */
+  public int size() {
+    synchronized (tables) {
+      return tables.size();
+    }
+  }
+}
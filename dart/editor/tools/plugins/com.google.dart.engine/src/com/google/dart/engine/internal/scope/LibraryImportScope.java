@@ -45,10 +45,9 @@ public class LibraryImportScope extends Scope {
   private AnalysisErrorListener errorListener;
 
   /**
-   * A list of the namespaces representing the names that are available in this scope from imported
-   * libraries.
+   * The table containing the names that are available in this scope from imported libraries.
    */
-  private Namespace[] importedNamespaces;
+  private ImportedNameTable importedNames;
 
   /**
    * Initialize a newly created scope representing the names imported into the given library.
@@ -60,7 +59,7 @@ public class LibraryImportScope extends Scope {
   public LibraryImportScope(LibraryElement definingLibrary, AnalysisErrorListener errorListener) {
     this.definingLibrary = definingLibrary;
     this.errorListener = errorListener;
-    createImportedNamespaces();
+    importedNames = ImportedNameTable.forLibrary(definingLibrary);
   }
 
   @Override
@@ -82,20 +81,7 @@ public class LibraryImportScope extends Scope {
     if (foundElement != null) {
       return foundElement;
     }
-    for (int i = 0; i < importedNamespaces.length; i++) {
-      Namespace nameSpace = importedNamespaces[i];
-      Element element = nameSpace.get(name);
-      if (element != null) {
-        if (foundElement == null) {
-          foundElement = element;
-        } else if (foundElement != element) {
-          foundElement = MultiplyDefinedElementImpl.fromElements(
-              definingLibrary.getContext(),
-              foundElement,
-              element);
-        }
-      }
-    }
+    foundElement = importedNames.lookup(name, definingLibrary.getContext());
     if (foundElement instanceof MultiplyDefinedElementImpl) {
       foundElement = removeSdkElements(identifier, name, (MultiplyDefinedElementImpl) foundElement);
     }
@@ -123,23 +109,6 @@ public class LibraryImportScope extends Scope {
     return foundElement;
   }
 
-  /**
-   * Create all of the namespaces associated with the libraries imported into this library. The
-   * names are not added to this scope, but are stored for later reference.
-   * 
-   * @param definingLibrary the element representing the library that imports the libraries for
-   *          which namespaces will be created
-   */
-  private final void createImportedNamespaces() {
-    NamespaceBuilder builder = new NamespaceBuilder();
-    ImportElement[] imports = definingLibrary.getImports();
-    int count = imports.length;
-    importedNamespaces = new Namespace[count];
-    for (int i = 0; i < count; i++) {
-      importedNamespaces[i] = builder.createImportNamespaceForDirective(imports[i]);
-    }
-  }
-
   /**
    * Returns the name of the library that defines given element.
    * 
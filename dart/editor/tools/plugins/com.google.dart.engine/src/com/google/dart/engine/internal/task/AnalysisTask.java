@@ -16,6 +16,9 @@ package com.google.dart.engine.internal.task;
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.instrumentation.AnalysisProfiler;
+import com.google.dart.engine.utilities.instrumentation.AnalysisProfiler.TaskTimer;
 
 /**
  * The abstract class {@code AnalysisTask} defines the behavior of objects used to perform an
@@ -69,6 +72,8 @@ public abstract class AnalysisTask {
    * @throws AnalysisException if the visitor throws the exception
    */
   public <E> E perform(AnalysisTaskVisitor<E> visitor) throws AnalysisException {
+    AnalysisProfiler profiler = AnalysisProfiler.getInstance();
+    TaskTimer timer = profiler.isEnabled() ? profiler.start() : null;
     try {
       safelyPerform();
     } catch (AnalysisException exception) {
@@ -76,6 +81,11 @@ public abstract class AnalysisTask {
       AnalysisEngine.getInstance().getLogger().logInformation(
           "Task failed: " + getTaskDescription(),
           exception);
+    } finally {
+      if (timer != null) {
+        Source[] sources = TaskSourceFinder.getSources(this);
+        timer.stop(getClass().getSimpleName(), context, sources[0], sources[1]);
+      }
     }
     return accept(visitor);
   }
@@ -15,9 +15,11 @@ package com.google.dart.engine.internal.task;
 
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.internal.context.PerformanceStatistics;
 import com.google.dart.engine.internal.resolver.LibraryResolver2;
 import com.google.dart.engine.internal.resolver.ResolvableLibrary;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.general.TimeCounter.TimeCounterHandle;
 
 import java.util.List;
 
@@ -68,6 +70,15 @@ public class ResolveDartLibraryCycleTask extends AnalysisTask {
     return visitor.visitResolveDartLibraryCycleTask(this);
   }
 
+  /**
+   * Return the libraries that are part of the cycle containing the library to be resolved.
+   * 
+   * @return the libraries that are part of the cycle containing the library to be resolved
+   */
+  public List<ResolvableLibrary> getLibrariesInCycle() {
+    return librariesInCycle;
+  }
+
   /**
    * Return the library resolver holding information about the libraries that were resolved.
    * 
@@ -105,7 +116,12 @@ public class ResolveDartLibraryCycleTask extends AnalysisTask {
 
   @Override
   protected void internalPerform() throws AnalysisException {
-    resolver = new LibraryResolver2(getContext());
-    resolver.resolveLibrary(librarySource, librariesInCycle);
+    TimeCounterHandle timeCounter = PerformanceStatistics.resolveLibrary.start();
+    try {
+      resolver = new LibraryResolver2(getContext());
+      resolver.resolveLibrary(librarySource, librariesInCycle);
+    } finally {
+      timeCounter.stop();
+    }
   }
 }
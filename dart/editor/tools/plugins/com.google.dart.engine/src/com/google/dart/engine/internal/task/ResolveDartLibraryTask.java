@@ -15,8 +15,10 @@ package com.google.dart.engine.internal.task;
 
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.internal.context.PerformanceStatistics;
 import com.google.dart.engine.internal.resolver.LibraryResolver;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.general.TimeCounter.TimeCounterHandle;
 
 /**
  * Instances of the class {@code ResolveDartLibraryTask} resolve a specific Dart library.
@@ -93,7 +95,12 @@ public class ResolveDartLibraryTask extends AnalysisTask {
 
   @Override
   protected void internalPerform() throws AnalysisException {
-    resolver = new LibraryResolver(getContext());
-    resolver.resolveLibrary(librarySource, true);
+    TimeCounterHandle timeCounter = PerformanceStatistics.resolveLibrary.start();
+    try {
+      resolver = new LibraryResolver(getContext());
+      resolver.resolveLibrary(librarySource, true);
+    } finally {
+      timeCounter.stop();
+    }
   }
 }
@@ -17,6 +17,7 @@ import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.internal.constant.ConstantValueComputer;
 import com.google.dart.engine.internal.context.InternalAnalysisContext;
 import com.google.dart.engine.internal.context.PerformanceStatistics;
 import com.google.dart.engine.internal.context.RecordingErrorListener;
@@ -124,64 +125,80 @@ public class ResolveDartUnitTask extends AnalysisTask {
 
   @Override
   protected void internalPerform() throws AnalysisException {
-    TypeProvider typeProvider = ((InternalAnalysisContext) libraryElement.getContext()).getTypeProvider();
-    ResolvableCompilationUnit resolvableUnit = getContext().computeResolvableCompilationUnit(source);
-    modificationTime = resolvableUnit.getModificationTime();
-    CompilationUnit unit = resolvableUnit.getCompilationUnit();
-    if (unit == null) {
-      throw new AnalysisException(
-          "Internal error: computeResolvableCompilationUnit returned a value without a parsed Dart unit");
-    }
-    //
-    // Resolve names in declarations.
-    //
-    new DeclarationResolver().resolve(unit, find(libraryElement, source));
-    //
-    // Resolve the type names.
-    //
-    RecordingErrorListener errorListener = new RecordingErrorListener();
-    TypeResolverVisitor typeResolverVisitor = new TypeResolverVisitor(
-        libraryElement,
-        source,
-        typeProvider,
-        errorListener);
-    unit.accept(typeResolverVisitor);
-    //
-    // Resolve the rest of the structure
-    //
-    InheritanceManager inheritanceManager = new InheritanceManager(libraryElement);
-    ResolverVisitor resolverVisitor = new ResolverVisitor(
-        libraryElement,
-        source,
-        typeProvider,
-        inheritanceManager,
-        errorListener);
-    unit.accept(resolverVisitor);
-    //
-    // Perform additional error checking.
-    //
-    TimeCounterHandle counterHandleErrors = PerformanceStatistics.errors.start();
+    TimeCounterHandle timeCounter = PerformanceStatistics.rehydrate.start();
     try {
-      ErrorReporter errorReporter = new ErrorReporter(errorListener, source);
-      ErrorVerifier errorVerifier = new ErrorVerifier(
-          errorReporter,
+      TypeProvider typeProvider = ((InternalAnalysisContext) libraryElement.getContext())
+          .getTypeProvider();
+      ResolvableCompilationUnit resolvableUnit = getContext().computeResolvableCompilationUnit(
+          source);
+      modificationTime = resolvableUnit.getModificationTime();
+      CompilationUnit unit = resolvableUnit.getCompilationUnit();
+      if (unit == null) {
+        throw new AnalysisException("Internal error: computeResolvableCompilationUnit returned a "
+            + "value without a parsed Dart unit");
+      }
+      //
+      // Resolve names in declarations.
+      //
+      new DeclarationResolver().resolve(unit, find(libraryElement, source));
+      //
+      // Resolve the type names.
+      //
+      RecordingErrorListener errorListener = new RecordingErrorListener();
+      TypeResolverVisitor typeResolverVisitor = new TypeResolverVisitor(
           libraryElement,
+          source,
           typeProvider,
-          inheritanceManager);
-      unit.accept(errorVerifier);
-
-      ConstantVerifier constantVerifier = new ConstantVerifier(
-          errorReporter,
+          errorListener);
+      unit.accept(typeResolverVisitor);
+      //
+      // Resolve the rest of the structure
+      //
+      InheritanceManager inheritanceManager = new InheritanceManager(libraryElement);
+      ResolverVisitor resolverVisitor = new ResolverVisitor(
           libraryElement,
-          typeProvider);
-      unit.accept(constantVerifier);
+          source,
+          typeProvider,
+          inheritanceManager,
+          errorListener);
+      unit.accept(resolverVisitor);
+      //
+      // Compute the values of the constants in the unit. The constant verifier needs the values of
+      // the constant constructor invocations, which are stored on the AST rather than the elements.
+      //
+      ConstantValueComputer computer = new ConstantValueComputer(
+          typeProvider,
+          getContext().getDeclaredVariables());
+      computer.add(unit);
+      computer.computeValues();
+      //
+      // Perform additional error checking.
+      //
+      TimeCounterHandle counterHandleErrors = PerformanceStatistics.errors.start();
+      try {
+        ErrorReporter errorReporter = new ErrorReporter(errorListener, source);
+        ErrorVerifier errorVerifier = new ErrorVerifier(
+            errorReporter,
+            libraryElement,
+            typeProvider,
+            inheritanceManager);
+        unit.accept(errorVerifier);
+
+        ConstantVerifier constantVerifier = new ConstantVerifier(
+            errorReporter,
+            libraryElement,
+            typeProvider);
+        unit.accept(constantVerifier);
+      } finally {
+        counterHandleErrors.stop();
+      }
+      //
+      // Capture the results.
+      //
+      resolvedUnit = unit;
     } finally {
-      counterHandleErrors.stop();
+      timeCounter.stop();
     }
-    //
-    // Capture the results.
-    //
-    resolvedUnit = unit;
   }
 
   /**
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.task;
+
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.source.Source;
+
+/**
+ * Instances of the class {@code TaskSourceFinder} determine which sources an analysis task is
+ * being performed for. The result of visiting a task is an array containing two elements: the
+ * source that the task is performed for and the library in which that source is being analyzed.
+ * Either element can be {@code null} if the task is not associated with such a source.
+ */
+public class TaskSourceFinder implements AnalysisTaskVisitor<Source[]> {
+  /**
+   * Return an array containing the source that the given task is performed for and the library in
+   * which that source is being analyzed.
+   * 
+   * @param task the task whose sources are to be returned
+   * @return the source and library associated with the given task
+   */
+  public static Source[] getSources(AnalysisTask task) {
+    try {
+      Source[] sources = task.accept(new TaskSourceFinder());
+      if (sources != null) {
+        return sources;
+      }
+    } catch (AnalysisException exception) {
+      // Cannot happen because this visitor does not throw exceptions.
+    }
+    return new Source[] {null, null};
+  }
+
+  @Override
+  public Source[] visitBuildDartElementModelTask(BuildDartElementModelTask task) {
+    return sources(task.getTargetLibrary(), task.getTargetLibrary());
+  }
+
+  @Override
+  public Source[] visitGenerateDartErrorsTask(GenerateDartErrorsTask task) {
+    return sources(task.getSource(), getSource(task.getLibraryElement()));
+  }
+
+  @Override
+  public Source[] visitGenerateDartHintsTask(GenerateDartHintsTask task) {
+    Source librarySource = getSource(task.getLibraryElement());
+    return sources(librarySource, librarySource);
+  }
+
+  @Override
+  public Source[] visitGetContentTask(GetContentTask task) {
+    return sources(task.getSource(), null);
+  }
+
+  @Override
+  public Source[] visitIncrementalAnalysisTask(IncrementalAnalysisTask task) {
+    return sources(task.getSource(), null);
+  }
+
+  @Override
+  public Source[] visitParseDartTask(ParseDartTask task) {
+    return sources(task.getSource(), null);
+  }
+
+  @Override
+  public Source[] visitParseHtmlTask(ParseHtmlTask task) {
+    return sources(task.getSource(), null);
+  }
+
+  @Override
+  public Source[] visitPolymerBuildHtmlTask(PolymerBuildHtmlTask task) {
+    return sources(task.getSource(), null);
+  }
+
+  @Override
+  public Source[] visitPolymerResolveHtmlTask(PolymerResolveHtmlTask task) {
+    return sources(task.getSource(), null);
+  }
+
+  @Override
+  public Source[] visitResolveAngularComponentTemplateTask(ResolveAngularComponentTemplateTask task) {
+    return sources(task.getSource(), null);
+  }
+
+  @Override
+  public Source[] visitResolveAngularEntryHtmlTask(ResolveAngularEntryHtmlTask task) {
+    return sources(task.getSource(), null);
+  }
+
+  @Override
+  public Source[] visitResolveDartLibraryCycleTask(ResolveDartLibraryCycleTask task) {
+    return sources(task.getLibrarySource(), task.getLibrarySource());
+  }
+
+  @Override
+  public Source[] visitResolveDartLibraryTask(ResolveDartLibraryTask task) {
+    return sources(task.getLibrarySource(), task.getLibrarySource());
+  }
+
+  @Override
+  public Source[] visitResolveDartUnitTask(ResolveDartUnitTask task) {
+    return sources(task.getSource(), task.getLibrarySource());
+  }
+
+  @Override
+  public Source[] visitResolveHtmlTask(ResolveHtmlTask task) {
+    return sources(task.getSource(), null);
+  }
+
+  @Override
+  public Source[] visitScanDartTask(ScanDartTask task) {
+    return sources(task.getSource(), null);
+  }
+
+  /**
+   * Return the source of the given library, or {@code null} if there is no library.
+   * 
+   * @param library the library whose source is to be returned
+   * @return the source of the given library
+   */
+  private Source getSource(LibraryElement library) {
+    if (library == null) {
+      return null;
+    }
+    return library.getSource();
+  }
+
+  /**
+   * Return an array containing the given sources.
+   * 
+   * @param source the source that a task is performed for
+   * @param librarySource the library in which the source is being analyzed
+   * @return an array containing the given sources
+   */
+  private Source[] sources(Source source, Source librarySource) {
+    return new Source[] {source, librarySource};
+  }
+}
@@ -18,6 +18,11 @@ import com.google.dart.engine.AnalysisEngine;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Instances of the class {@code PackageUriResolver} resolve {@code package} URI's in the context of
@@ -36,6 +41,18 @@ public class PackageUriResolver extends UriResolver {
    */
   private File[] packagesDirectories;
 
+  /**
+   * The table returned by the last invocation of {@link #getPackageDirectories()}, or {@code null}
+   * if the table has not yet been computed.
+   */
+  private Map<String, File> packageDirectories;
+
+  /**
+   * The modification stamps of the package directories at the time {@link #packageDirectories} was
+   * computed, in the same order as {@link #packagesDirectories}.
+   */
+  private long[] packageDirectoriesStamps;
+
   /**
    * The name of the {@code package} scheme.
    */
@@ -78,6 +95,30 @@ public class PackageUriResolver extends UriResolver {
     return null;
   }
 
+  /**
+   * Return a table mapping the names of the packages that {@code package} URI's can refer to onto
+   * the canonical directories containing those packages. If more than one of the package
+   * directories contains a package with the same name, the one that is searched first is used, as
+   * it is when a URI is resolved. The package containing the application itself is not included.
+   * <p>
+   * Listing and canonicalizing the packages is expensive, so the table is only computed again when
+   * the modification stamp of one of the package directories has changed, which happens whenever
+   * a package is linked or unlinked. Clients must not modify the returned table.
+   * 
+   * @return a table mapping package names to the canonical directories containing the packages
+   */
+  public synchronized Map<String, File> getPackageDirectories() {
+    long[] stamps = new long[packagesDirectories.length];
+    for (int i = 0; i < packagesDirectories.length; i++) {
+      stamps[i] = packagesDirectories[i].lastModified();
+    }
+    if (packageDirectories == null || !Arrays.equals(stamps, packageDirectoriesStamps)) {
+      packageDirectories = Collections.unmodifiableMap(computePackageDirectories());
+      packageDirectoriesStamps = stamps;
+    }
+    return packageDirectories;
+  }
+
   @Override
   public Source resolveAbsolute(URI uri) {
     if (!isPackageUri(uri)) {
@@ -166,6 +207,33 @@ public class PackageUriResolver extends UriResolver {
     return new File(pkgDir, relPath.replace('/', File.separatorChar));
   }
 
+  /**
+   * Return a newly computed table mapping the names of the packages that {@code package} URI's can
+   * refer to onto the canonical directories containing those packages.
+   * 
+   * @return a table mapping package names to the canonical directories containing the packages
+   */
+  private Map<String, File> computePackageDirectories() {
+    TreeMap<String, File> directories = new TreeMap<String, File>();
+    HashSet<String> names = new HashSet<String>();
+    for (File packagesDirectory : packagesDirectories) {
+      File[] pkgFolders = packagesDirectory.listFiles();
+      if (pkgFolders == null) {
+        continue;
+      }
+      for (File pkgFolder : pkgFolders) {
+        String pkgName = pkgFolder.getName();
+        if (pkgFolder.isDirectory() && names.add(pkgName)) {
+          File canonicalFile = getCanonicalFile(packagesDirectory, pkgName, "");
+          if (!isSelfReference(packagesDirectory, canonicalFile)) {
+            directories.put(pkgName, canonicalFile);
+          }
+        }
+      }
+    }
+    return directories;
+  }
+
   /**
    * @return {@code true} if "file" was found in "packagesDir", and it is part of the "lib" folder
    *         of the application that contains in this "packagesDir".
@@ -17,8 +17,10 @@ import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.internal.context.AnalysisContextImpl;
 import com.google.dart.engine.sdk.DartSdk;
 
+import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Map;
 
 /**
  * Instances of the class {@code SourceFactory} resolve possibly relative URI's against an existing
@@ -126,6 +128,23 @@ public class SourceFactory {
     return null;
   }
 
+  /**
+   * Return a table mapping the names of the packages that can be referenced by {@code package}
+   * URI's onto the canonical directories containing those packages, or {@code null} if this factory
+   * does not resolve {@code package} URI's using a {@link PackageUriResolver}.
+   * 
+   * @return a table mapping package names to the canonical directories containing the packages
+   * @see PackageUriResolver#getPackageDirectories()
+   */
+  public Map<String, File> getPackageDirectories() {
+    for (UriResolver resolver : resolvers) {
+      if (resolver instanceof PackageUriResolver) {
+        return ((PackageUriResolver) resolver).getPackageDirectories();
+      }
+    }
+    return null;
+  }
+
   /**
    * Determines if the given {@link Source} is local.
    * 
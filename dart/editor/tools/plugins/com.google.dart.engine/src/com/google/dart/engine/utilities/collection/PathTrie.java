@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2012, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.utilities.collection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instances of the class {@code PathTrie} implement a set of paths that can efficiently answer
+ * whether any of the paths in the set is a prefix of a given path, such as whether a file is
+ * within one of a set of directories. Each such question takes time proportional to the length of
+ * the given path rather than to the number of paths in the set.
+ * <p>
+ * The paths are stored in a compressed trie: the characters shared by several paths are stored
+ * once, on the edge leading to the node below which those paths differ, and the children of each
+ * node are sorted by the first character of their edge so that they can be searched using a binary
+ * search. Paths are compared character by character, so the trie does not depend on the separator
+ * used by the paths.
+ * 
+ * @coverage dart.engine.utilities
+ */
+public class PathTrie {
+  /**
+   * Instances of the class {@code Node} represent a single node in the trie.
+   */
+  private static class Node {
+    /**
+     * The characters on the edge leading from the parent of this node to this node.
+     */
+    private String label;
+
+    /**
+     * The path ending at this node, or {@code null} if no path in the set ends at this node.
+     */
+    private String path;
+
+    /**
+     * The children of this node, sorted by the first character of their labels.
+     */
+    private Node[] children = NO_CHILDREN;
+
+    /**
+     * Initialize a newly created node.
+     * 
+     * @param label the characters on the edge leading to the node
+     * @param path the path ending at the node, or {@code null} if no path ends at the node
+     */
+    public Node(String label, String path) {
+      this.label = label;
+      this.path = path;
+    }
+  }
+
+  /**
+   * An empty array of nodes, shared by all of the nodes without children.
+   */
+  private static final Node[] NO_CHILDREN = new Node[0];
+
+  /**
+   * The root of the trie, which has an empty label.
+   */
+  private final Node root = new Node("", null);
+
+  /**
+   * The number of paths in the set.
+   */
+  private int count = 0;
+
+  /**
+   * Initialize a newly created trie to be empty.
+   */
+  public PathTrie() {
+    super();
+  }
+
+  /**
+   * Add the given path to this set.
+   * 
+   * @param path the path to be added
+   * @return {@code true} if the path was not already in the set
+   */
+  public boolean add(String path) {
+    Node node = root;
+    int offset = 0;
+    int length = path.length();
+    while (offset < length) {
+      int index = indexOfChild(node, path.charAt(offset));
+      if (index < 0) {
+        insertChild(node, -index - 1, new Node(path.substring(offset), path));
+        count++;
+        return true;
+      }
+      Node child = node.children[index];
+      String label = child.label;
+      int labelLength = label.length();
+      int common = 1;
+      while (common < labelLength && offset + common < length
+          && label.charAt(common) == path.charAt(offset + common)) {
+        common++;
+      }
+      if (common < labelLength) {
+        //
+        // The path leaves the edge part way along it, so split the edge.
+        //
+        Node middle = new Node(label.substring(0, common), null);
+        child.label = label.substring(common);
+        middle.children = new Node[] {child};
+        node.children[index] = middle;
+        child = middle;
+      }
+      node = child;
+      offset += common;
+    }
+    if (node.path != null) {
+      return false;
+    }
+    node.path = path;
+    count++;
+    return true;
+  }
+
+  /**
+   * Remove all of the paths from this set.
+   */
+  public void clear() {
+    root.path = null;
+    root.children = NO_CHILDREN;
+    count = 0;
+  }
+
+  /**
+   * Return {@code true} if one of the paths in this set is a prefix of the given path.
+   * 
+   * @param path the path being tested
+   * @return {@code true} if the given path starts with one of the paths in this set
+   */
+  public boolean containsPrefixOf(String path) {
+    Node node = root;
+    int offset = 0;
+    while (true) {
+      if (node.path != null) {
+        return true;
+      }
+      node = matchChild(node, path, offset);
+      if (node == null) {
+        return false;
+      }
+      offset += node.label.length();
+    }
+  }
+
+  /**
+   * Return {@code true} if one of the paths in this set is either equal to the given path or is a
+   * prefix of the given path that is immediately followed by the given separator, that is, if the
+   * given path denotes either a path in this set or something within it.
+   * 
+   * @param path the path being tested
+   * @param separator the character separating the segments of the path
+   * @return {@code true} if the given path is equal to or within one of the paths in this set
+   */
+  public boolean containsPrefixOf(String path, char separator) {
+    Node node = root;
+    int offset = 0;
+    int length = path.length();
+    while (true) {
+      if (node.path != null && (offset == length || path.charAt(offset) == separator)) {
+        return true;
+      }
+      node = matchChild(node, path, offset);
+      if (node == null) {
+        return false;
+      }
+      offset += node.label.length();
+    }
+  }
+
+  /**
+   * Return a list containing the paths in this set that start with the given prefix.
+   * 
+   * @param prefix the prefix of the paths to be returned
+   * @return the paths in this set that start with the given prefix
+   */
+  public List<String> getPathsStartingWith(String prefix) {
+    ArrayList<String> paths = new ArrayList<String>();
+    Node node = root;
+    int offset = 0;
+    int length = prefix.length();
+    while (offset < length) {
+      int index = indexOfChild(node, prefix.charAt(offset));
+      if (index < 0) {
+        return paths;
+      }
+      node = node.children[index];
+      String label = node.label;
+      int remaining = length - offset;
+      if (remaining <= label.length()) {
+        if (!label.startsWith(prefix.substring(offset))) {
+          return paths;
+        }
+        break;
+      }
+      if (!prefix.startsWith(label, offset)) {
+        return paths;
+      }
+      offset += label.length();
+    }
+    addPaths(node, paths);
+    return paths;
+  }
+
+  /**
+   * Return a list containing the paths in this set that are a prefix of the given path, shortest
+   * first.
+   * 
+   * @param path the path whose prefixes are to be returned
+   * @return the paths in this set that are a prefix of the given path
+   */
+  public List<String> getPrefixesOf(String path) {
+    ArrayList<String> prefixes = new ArrayList<String>();
+    Node node = root;
+    int offset = 0;
+    while (node != null) {
+      if (node.path != null) {
+        prefixes.add(node.path);
+      }
+      node = matchChild(node, path, offset);
+      if (node != null) {
+        offset += node.label.length();
+      }
+    }
+    return prefixes;
+  }
+
+  /**
+   * Return {@code true} if this set does not contain any paths.
+   * 
+   * @return {@code true} if this set is empty
+   */
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  /**
+   * Remove the given path from this set.
+   * 
+   * @param path the path to be removed
+   * @return {@code true} if the path was in the set
+   */
+  public boolean remove(String path) {
+    if (remove(root, path, 0)) {
+      count--;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Return the number of paths in this set.
+   * 
+   * @return the number of paths in this set
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Add all of the paths ending at or below the given node to the given list.
+   * 
+   * @param node the node whose paths are to be added
+   * @param paths the list to which the paths are to be added
+   */
+  private void addPaths(Node node, List<String> paths) {
+    if (node.path != null) {
+      paths.add(node.path);
+    }
+    for (Node child : node.children) {
+      addPaths(child, paths);
+    }
+  }
+
+  /**
+   * Return the index of the child of the given node whose label starts with the given character,
+   * or {@code -(insertion point) - 1} if there is no such child.
+   * 
+   * @param node the node whose children are to be searched
+   * @param character the first character of the label of the child
+   * @return the index of the child whose label starts with the given character
+   */
+  private int indexOfChild(Node node, char character) {
+    Node[] children = node.children;
+    int low = 0;
+    int high = children.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      char middleCharacter = children[middle].label.charAt(0);
+      if (middleCharacter < character) {
+        low = middle + 1;
+      } else if (middleCharacter > character) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -low - 1;
+  }
+
+  /**
+   * Insert the given child into the children of the given node at the given index.
+   * 
+   * @param node the node to which the child is to be added
+   * @param index the index at which the child is to be inserted
+   * @param child the child to be inserted
+   */
+  private void insertChild(Node node, int index, Node child) {
+    Node[] children = node.children;
+    int length = children.length;
+    Node[] newChildren = new Node[length + 1];
+    System.arraycopy(children, 0, newChildren, 0, index);
+    newChildren[index] = child;
+    System.arraycopy(children, index, newChildren, index + 1, length - index);
+    node.children = newChildren;
+  }
+
+  /**
+   * Return the child of the given node whose label matches the characters of the given path
+   * starting at the given offset, or {@code null} if there is no such child.
+   * 
+   * @param node the node whose children are to be searched
+   * @param path the path being matched
+   * @param offset the offset of the first character in the path that has not yet been matched
+   * @return the child whose label matches the next characters of the path
+   */
+  private Node matchChild(Node node, String path, int offset) {
+    if (offset >= path.length()) {
+      return null;
+    }
+    int index = indexOfChild(node, path.charAt(offset));
+    if (index < 0) {
+      return null;
+    }
+    Node child = node.children[index];
+    return path.startsWith(child.label, offset) ? child : null;
+  }
+
+  /**
+   * Remove the given path from the part of the trie rooted at the given node, merging or removing
+   * the nodes that are no longer needed.
+   * 
+   * @param node the node at which the characters of the path before the given offset end
+   * @param path the path to be removed
+   * @param offset the offset of the first character in the path that has not yet been matched
+   * @return {@code true} if the path was removed
+   */
+  private boolean remove(Node node, String path, int offset) {
+    if (offset == path.length()) {
+      if (node.path == null) {
+        return false;
+      }
+      node.path = null;
+      return true;
+    }
+    Node child = matchChild(node, path, offset);
+    if (child == null || !remove(child, path, offset + child.label.length())) {
+      return false;
+    }
+    if (child.path == null) {
+      int index = indexOfChild(node, child.label.charAt(0));
+      Node[] grandchildren = child.children;
+      if (grandchildren.length == 0) {
+        Node[] children = node.children;
+        Node[] newChildren = children.length == 1 ? NO_CHILDREN : new Node[children.length - 1];
+        System.arraycopy(children, 0, newChildren, 0, index);
+        System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+        node.children = newChildren;
+      } else if (grandchildren.length == 1) {
+        Node grandchild = grandchildren[0];
+        grandchild.label = child.label + grandchild.label;
+        node.children[index] = grandchild;
+      }
+    }
+    return true;
+  }
+}
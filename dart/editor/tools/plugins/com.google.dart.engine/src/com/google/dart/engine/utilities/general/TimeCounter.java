@@ -14,10 +14,9 @@
 
 package com.google.dart.engine.utilities.general;
 
-import com.google.common.collect.Lists;
 import com.google.dart.engine.AnalysisEngine;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 /**
  * Helper for measuring how much time is spent doing some operation. Each call to
@@ -44,17 +43,18 @@ public class TimeCounter {
     }
   }
 
-  private static final ThreadLocal<LinkedList<TimeCounter>> stacks = new ThreadLocal<LinkedList<TimeCounter>>();
+  private static final ThreadLocal<ArrayList<TimeCounter>> stacks = new ThreadLocal<ArrayList<TimeCounter>>();
   public static final int NANOS_PER_MILLI = 1000 * 1000;
 
   /**
    * Returns the stack of {@link TimeCounter} started on the current {@link Thread} and not stopped
-   * yet.
+   * yet. The most recently started counter is at the end of the list, so pushing and popping
+   * counters does not allocate once the list has grown to the maximum nesting depth.
    */
-  private static LinkedList<TimeCounter> getCountersStack() {
-    LinkedList<TimeCounter> stack = stacks.get();
+  private static ArrayList<TimeCounter> getCountersStack() {
+    ArrayList<TimeCounter> stack = stacks.get();
     if (stack == null) {
-      stack = Lists.newLinkedList();
+      stack = new ArrayList<TimeCounter>();
       stacks.set(stack);
     }
     return stack;
@@ -123,15 +123,15 @@ public class TimeCounter {
    */
   public synchronized void recordElapsedNanos(long delta) {
     // apply correction to the other counters on the thread stack
-    LinkedList<TimeCounter> stack = getCountersStack();
-    TimeCounter removed = stack.removeFirst();
+    ArrayList<TimeCounter> stack = getCountersStack();
+    TimeCounter removed = stack.remove(stack.size() - 1);
     if (removed != this) {
       AnalysisEngine.getInstance().getLogger().logInformation(
           "Unexpected TimeCounter instance stack in " + Thread.currentThread(),
           new IllegalStateException());
     }
-    for (TimeCounter timeCounter : stack) {
-      timeCounter.correctionTime += delta;
+    for (int i = stack.size() - 1; i >= 0; i--) {
+      stack.get(i).correctionTime += delta;
     }
     // update statistics
     totalTime += delta - correctionTime;
@@ -147,7 +147,7 @@ public class TimeCounter {
    * @return the {@link TimeCounterHandle} that should be used to stop counting.
    */
   public synchronized TimeCounterHandle start() {
-    getCountersStack().addFirst(this);
+    getCountersStack().add(this);
     return new TimeCounterHandle();
   }
 }
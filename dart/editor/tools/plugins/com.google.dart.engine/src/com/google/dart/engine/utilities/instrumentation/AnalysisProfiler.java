@@ -0,0 +1,574 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.utilities.instrumentation;
+
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.source.Source;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Instances of the class {@code AnalysisProfiler} record information about each analysis task that
+ * was performed: the source and context it was performed for, how long it took and how many bytes
+ * were allocated while performing it. Records are kept in a fixed size ring buffer that can be
+ * written from multiple threads without locking, so that only the most recent records are
+ * retained.
+ * <p>
+ * The profiler is disabled by default, in which case analysis contexts do not record anything.
+ */
+public class AnalysisProfiler {
+  /**
+   * Instances of the class {@code SourceProfile} represent the accumulated cost of all of the tasks
+   * that were recorded for a single source.
+   */
+  public static class SourceProfile {
+    /**
+     * The source for which tasks were recorded.
+     */
+    private final Source source;
+
+    /**
+     * The number of tasks that were recorded for the source.
+     */
+    private int taskCount;
+
+    /**
+     * The total number of nanoseconds spent performing the tasks.
+     */
+    private long durationNanos;
+
+    /**
+     * The total number of bytes allocated while performing the tasks, or {@code -1} if allocation
+     * could not be measured.
+     */
+    private long allocatedBytes;
+
+    /**
+     * Initialize a newly created profile to represent the tasks recorded for the given source.
+     * 
+     * @param source the source for which tasks were recorded
+     */
+    public SourceProfile(Source source) {
+      this.source = source;
+    }
+
+    /**
+     * Return the total number of bytes allocated while performing the tasks, or {@code -1} if
+     * allocation could not be measured.
+     * 
+     * @return the total number of bytes allocated while performing the tasks
+     */
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    /**
+     * Return the total number of nanoseconds spent performing the tasks.
+     * 
+     * @return the total number of nanoseconds spent performing the tasks
+     */
+    public long getDurationNanos() {
+      return durationNanos;
+    }
+
+    /**
+     * Return the source for which tasks were recorded.
+     * 
+     * @return the source for which tasks were recorded
+     */
+    public Source getSource() {
+      return source;
+    }
+
+    /**
+     * Return the number of tasks that were recorded for the source.
+     * 
+     * @return the number of tasks that were recorded for the source
+     */
+    public int getTaskCount() {
+      return taskCount;
+    }
+
+    /**
+     * Add the cost of the given task to this profile.
+     * 
+     * @param record the record of the task being added
+     */
+    private void add(TaskRecord record) {
+      taskCount++;
+      durationNanos += record.getDurationNanos();
+      if (record.getAllocatedBytes() < 0 || allocatedBytes < 0) {
+        allocatedBytes = -1L;
+      } else {
+        allocatedBytes += record.getAllocatedBytes();
+      }
+    }
+  }
+
+  /**
+   * Instances of the class {@code TaskRecord} represent the information recorded about a single
+   * analysis task.
+   */
+  public static class TaskRecord {
+    /**
+     * The name of the kind of task that was performed.
+     */
+    private final String taskName;
+
+    /**
+     * The context in which the task was performed.
+     */
+    private final AnalysisContext context;
+
+    /**
+     * The source that the task was performed for, or {@code null} if the task was not associated
+     * with a single source.
+     */
+    private final Source source;
+
+    /**
+     * The library in which the source was analyzed, or {@code null} if the task was not performed
+     * in the context of a library.
+     */
+    private final Source librarySource;
+
+    /**
+     * The number of nanoseconds spent performing the task.
+     */
+    private final long durationNanos;
+
+    /**
+     * The number of bytes allocated by the thread performing the task, or {@code -1} if allocation
+     * could not be measured.
+     */
+    private final long allocatedBytes;
+
+    /**
+     * Initialize a newly created record with the given information.
+     * 
+     * @param taskName the name of the kind of task that was performed
+     * @param context the context in which the task was performed
+     * @param source the source that the task was performed for
+     * @param librarySource the library in which the source was analyzed
+     * @param durationNanos the number of nanoseconds spent performing the task
+     * @param allocatedBytes the number of bytes allocated while performing the task
+     */
+    public TaskRecord(String taskName, AnalysisContext context, Source source,
+        Source librarySource, long durationNanos, long allocatedBytes) {
+      this.taskName = taskName;
+      this.context = context;
+      this.source = source;
+      this.librarySource = librarySource;
+      this.durationNanos = durationNanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Return the number of bytes allocated by the thread performing the task, or {@code -1} if
+     * allocation could not be measured.
+     * 
+     * @return the number of bytes allocated while performing the task
+     */
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    /**
+     * Return the context in which the task was performed.
+     * 
+     * @return the context in which the task was performed
+     */
+    public AnalysisContext getContext() {
+      return context;
+    }
+
+    /**
+     * Return the number of nanoseconds spent performing the task.
+     * 
+     * @return the number of nanoseconds spent performing the task
+     */
+    public long getDurationNanos() {
+      return durationNanos;
+    }
+
+    /**
+     * Return the library in which the source was analyzed, or {@code null} if the task was not
+     * performed in the context of a library.
+     * 
+     * @return the library in which the source was analyzed
+     */
+    public Source getLibrarySource() {
+      return librarySource;
+    }
+
+    /**
+     * Return the source that the task was performed for, or {@code null} if the task was not
+     * associated with a single source.
+     * 
+     * @return the source that the task was performed for
+     */
+    public Source getSource() {
+      return source;
+    }
+
+    /**
+     * Return the name of the kind of task that was performed.
+     * 
+     * @return the name of the kind of task that was performed
+     */
+    public String getTaskName() {
+      return taskName;
+    }
+
+    @Override
+    public String toString() {
+      return taskName + " " + source + " " + (durationNanos / 1000000) + "ms";
+    }
+  }
+
+  /**
+   * Instances of the class {@code TaskTimer} measure the cost of a single task that is being
+   * performed. Timers started while another timer is running on the same thread are nested within
+   * it, and the cost of a nested task is excluded from the cost recorded for the enclosing task.
+   */
+  public class TaskTimer {
+    /**
+     * The timer that was running on the current thread when this timer was started, or
+     * {@code null} if there was no such timer.
+     */
+    private final TaskTimer parent;
+
+    /**
+     * The value of {@link System#nanoTime()} when this timer was started.
+     */
+    private final long startNanos;
+
+    /**
+     * The number of bytes that had been allocated by the current thread when this timer was
+     * started, or {@code -1} if allocation cannot be measured.
+     */
+    private final long startBytes;
+
+    /**
+     * The number of nanoseconds spent in tasks nested within this task.
+     */
+    private long nestedNanos = 0L;
+
+    /**
+     * The number of bytes allocated in tasks nested within this task.
+     */
+    private long nestedBytes = 0L;
+
+    /**
+     * Initialize a newly created timer to start measuring the cost of a task.
+     * 
+     * @param parent the timer that was running on the current thread when this timer was started
+     */
+    private TaskTimer(TaskTimer parent) {
+      this.parent = parent;
+      startBytes = getCurrentThreadAllocatedBytes();
+      startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stop measuring the cost of the task and record it.
+     * 
+     * @param taskName the name of the kind of task that was performed
+     * @param context the context in which the task was performed
+     * @param source the source that the task was performed for
+     * @param librarySource the library in which the source was analyzed
+     */
+    public void stop(String taskName, AnalysisContext context, Source source, Source librarySource) {
+      long elapsedNanos = System.nanoTime() - startNanos;
+      long allocatedBytes = -1L;
+      if (startBytes >= 0L) {
+        allocatedBytes = getCurrentThreadAllocatedBytes() - startBytes;
+      }
+      currentTimer.set(parent);
+      if (parent != null) {
+        parent.nestedNanos += elapsedNanos;
+        if (allocatedBytes >= 0L) {
+          parent.nestedBytes += allocatedBytes;
+        }
+      }
+      if (allocatedBytes >= 0L) {
+        allocatedBytes -= nestedBytes;
+      }
+      record(
+          taskName,
+          context,
+          source,
+          librarySource,
+          elapsedNanos - nestedNanos,
+          allocatedBytes);
+    }
+  }
+
+  /**
+   * The default number of records retained by the profiler.
+   */
+  public static final int DEFAULT_CAPACITY = 1 << 16;
+
+  /**
+   * The unique instance of this class.
+   */
+  private static final AnalysisProfiler UniqueInstance = new AnalysisProfiler(DEFAULT_CAPACITY);
+
+  /**
+   * An empty array of records.
+   */
+  private static final TaskRecord[] NO_RECORDS = new TaskRecord[0];
+
+  /**
+   * Return the unique instance of this class.
+   * 
+   * @return the unique instance of this class
+   */
+  public static AnalysisProfiler getInstance() {
+    return UniqueInstance;
+  }
+
+  /**
+   * Return profiles for the given number of sources that took the longest to analyze, ordered from
+   * the most expensive to the least expensive. If {@code libraries} is {@code true}, then the cost
+   * of each task is attributed to the library in which it was performed rather than to the source
+   * for which it was performed.
+   * 
+   * @param records the records to be summarized
+   * @param count the maximum number of profiles to be returned
+   * @param libraries {@code true} if costs should be attributed to libraries
+   * @return the profiles of the most expensive sources
+   */
+  public static SourceProfile[] getSlowestSources(TaskRecord[] records, int count,
+      boolean libraries) {
+    HashMap<Source, SourceProfile> profileMap = new HashMap<Source, SourceProfile>();
+    for (TaskRecord record : records) {
+      Source source = libraries ? record.getLibrarySource() : record.getSource();
+      if (source == null) {
+        continue;
+      }
+      SourceProfile profile = profileMap.get(source);
+      if (profile == null) {
+        profile = new SourceProfile(source);
+        profileMap.put(source, profile);
+      }
+      profile.add(record);
+    }
+    SourceProfile[] profiles = profileMap.values().toArray(new SourceProfile[profileMap.size()]);
+    Arrays.sort(profiles, new Comparator<SourceProfile>() {
+      @Override
+      public int compare(SourceProfile first, SourceProfile second) {
+        long firstDuration = first.getDurationNanos();
+        long secondDuration = second.getDurationNanos();
+        return firstDuration > secondDuration ? -1 : (firstDuration == secondDuration ? 0 : 1);
+      }
+    });
+    if (profiles.length <= count) {
+      return profiles;
+    }
+    return Arrays.copyOf(profiles, count);
+  }
+
+  /**
+   * The buffer in which records are stored. Once the buffer is full the oldest records are
+   * overwritten.
+   */
+  private final AtomicReferenceArray<TaskRecord> records;
+
+  /**
+   * The total number of records that have been written since the profiler was last cleared.
+   */
+  private final AtomicLong recordCount = new AtomicLong();
+
+  /**
+   * The thread bean used to measure allocation.
+   */
+  private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+  /**
+   * The method of the thread bean used to get the number of bytes allocated by a thread, or
+   * {@code null} if allocation cannot be measured. The method is an extension provided by HotSpot
+   * VMs, so it is accessed reflectively.
+   */
+  private final Method allocatedBytesMethod;
+
+  /**
+   * The timer that is currently running on each thread.
+   */
+  private final ThreadLocal<TaskTimer> currentTimer = new ThreadLocal<TaskTimer>();
+
+  /**
+   * A flag indicating whether tasks should be recorded.
+   */
+  private volatile boolean enabled = false;
+
+  /**
+   * Initialize a newly created profiler to retain the given number of records.
+   * 
+   * @param capacity the maximum number of records to be retained
+   */
+  public AnalysisProfiler(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    records = new AtomicReferenceArray<TaskRecord>(capacity);
+    allocatedBytesMethod = getAllocatedBytesMethod();
+  }
+
+  /**
+   * Discard all of the records that have been written.
+   */
+  public void clear() {
+    recordCount.set(0L);
+    for (int i = 0; i < records.length(); i++) {
+      records.set(i, null);
+    }
+  }
+
+  /**
+   * Return the number of bytes that have been allocated by the current thread, or {@code -1} if
+   * allocation cannot be measured.
+   * 
+   * @return the number of bytes that have been allocated by the current thread
+   */
+  public long getCurrentThreadAllocatedBytes() {
+    if (allocatedBytesMethod == null) {
+      return -1L;
+    }
+    try {
+      Long bytes = (Long) allocatedBytesMethod.invoke(threadBean, Thread.currentThread().getId());
+      return bytes.longValue();
+    } catch (Exception exception) {
+      return -1L;
+    }
+  }
+
+  /**
+   * Return the records that are currently retained, ordered from the oldest to the most recent.
+   * 
+   * @return the records that are currently retained
+   */
+  public TaskRecord[] getRecords() {
+    return getRecords(null);
+  }
+
+  /**
+   * Return the records for tasks performed in the given context that are currently retained,
+   * ordered from the oldest to the most recent. If the context is {@code null} then all records
+   * are returned.
+   * 
+   * @param context the context whose records are to be returned
+   * @return the records for tasks performed in the given context
+   */
+  public TaskRecord[] getRecords(AnalysisContext context) {
+    long count = recordCount.get();
+    if (count == 0L) {
+      return NO_RECORDS;
+    }
+    int capacity = records.length();
+    long first = Math.max(0L, count - capacity);
+    ArrayList<TaskRecord> result = new ArrayList<TaskRecord>((int) (count - first));
+    for (long index = first; index < count; index++) {
+      TaskRecord record = records.get((int) (index % capacity));
+      if (record != null && (context == null || record.getContext() == context)) {
+        result.add(record);
+      }
+    }
+    return result.toArray(new TaskRecord[result.size()]);
+  }
+
+  /**
+   * Return {@code true} if tasks should be recorded.
+   * 
+   * @return {@code true} if tasks should be recorded
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Record that a task has been performed. Clients that are performing the task should use
+   * {@link #start()} instead so that the cost of nested tasks is attributed correctly.
+   * 
+   * @param taskName the name of the kind of task that was performed
+   * @param context the context in which the task was performed
+   * @param source the source that the task was performed for
+   * @param librarySource the library in which the source was analyzed
+   * @param durationNanos the number of nanoseconds spent performing the task
+   * @param allocatedBytes the number of bytes allocated while performing the task
+   */
+  public void record(String taskName, AnalysisContext context, Source source,
+      Source librarySource, long durationNanos, long allocatedBytes) {
+    TaskRecord record = new TaskRecord(
+        taskName,
+        context,
+        source,
+        librarySource,
+        durationNanos,
+        allocatedBytes);
+    long index = recordCount.getAndIncrement();
+    records.set((int) (index % records.length()), record);
+  }
+
+  /**
+   * Start measuring the cost of a task on the current thread. The returned timer must be stopped
+   * on the same thread once the task has been performed.
+   * 
+   * @return the timer used to measure the cost of the task
+   */
+  public TaskTimer start() {
+    TaskTimer timer = new TaskTimer(currentTimer.get());
+    currentTimer.set(timer);
+    return timer;
+  }
+
+  /**
+   * Set whether tasks should be recorded.
+   * 
+   * @param enabled {@code true} if tasks should be recorded
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Return the method of the thread bean that can be used to measure allocation, or {@code null} if
+   * the VM does not support measuring allocation.
+   * 
+   * @return the method that can be used to measure allocation
+   */
+  private Method getAllocatedBytesMethod() {
+    try {
+      Class<?> beanClass = Class.forName("com.sun.management.ThreadMXBean");
+      if (beanClass.isInstance(threadBean)
+          && Boolean.TRUE.equals(beanClass.getMethod("isThreadAllocatedMemorySupported").invoke(
+              threadBean))
+          && Boolean.TRUE.equals(beanClass.getMethod("isThreadAllocatedMemoryEnabled").invoke(
+              threadBean))) {
+        return beanClass.getMethod("getThreadAllocatedBytes", long.class);
+      }
+    } catch (Throwable exception) {
+      // Allocation cannot be measured on this VM.
+    }
+    return null;
+  }
+}
@@ -86,6 +86,15 @@ public class LineInfo {
     this.lineStarts = lineStarts;
   }
 
+  /**
+   * Return an array containing the offsets of the first character of each line in the source code.
+   * 
+   * @return the offsets of the first character of each line in the source code
+   */
+  public int[] getLineStarts() {
+    return lineStarts;
+  }
+
   /**
    * Return the location information for the character at the given offset.
    * 
@@ -93,12 +102,63 @@ public class LineInfo {
    * @return the location information for the character at the given offset
    */
   public Location getLocation(int offset) {
+    int lineIndex = getLineIndex(offset);
+    return new Location(lineIndex + 1, offset - lineStarts[lineIndex] + 1);
+  }
+
+  /**
+   * Return the location information for the characters at the given offsets. The offsets are
+   * expected to be sorted in ascending order, in which case the lines are found in a single pass
+   * over the offsets and the lines; offsets that are smaller than the offset before them are
+   * still mapped correctly, but each of them requires a separate search.
+   * 
+   * @param offsets the offsets of the characters for which location information is to be returned
+   * @return the location information for the characters at the given offsets, in the same order
+   */
+  public Location[] getLocations(int[] offsets) {
+    int offsetCount = offsets.length;
+    Location[] locations = new Location[offsetCount];
+    if (offsetCount == 0) {
+      return locations;
+    }
     int lineCount = lineStarts.length;
-    for (int i = 1; i < lineCount; i++) {
-      if (offset < lineStarts[i]) {
-        return new Location(i, offset - lineStarts[i - 1] + 1);
+    int lineIndex = getLineIndex(offsets[0]);
+    int previousOffset = offsets[0];
+    for (int i = 0; i < offsetCount; i++) {
+      int offset = offsets[i];
+      if (offset < previousOffset) {
+        lineIndex = getLineIndex(offset);
+      } else {
+        while (lineIndex + 1 < lineCount && lineStarts[lineIndex + 1] <= offset) {
+          lineIndex++;
+        }
+      }
+      locations[i] = new Location(lineIndex + 1, offset - lineStarts[lineIndex] + 1);
+      previousOffset = offset;
+    }
+    return locations;
+  }
+
+  /**
+   * Return the zero-based index of the line containing the character at the given offset. Offsets
+   * before the start of the second line are on the first line and offsets after the start of the
+   * last line are on the last line.
+   * 
+   * @param offset the offset of the character whose line is to be returned
+   * @return the index of the line containing the character at the given offset
+   */
+  private int getLineIndex(int offset) {
+    // Find the first line, other than the first, that starts after the offset.
+    int low = 1;
+    int high = lineStarts.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (offset < lineStarts[middle]) {
+        high = middle;
+      } else {
+        low = middle + 1;
       }
     }
-    return new Location(lineCount, offset - lineStarts[lineCount - 1] + 1);
+    return low - 1;
   }
 }
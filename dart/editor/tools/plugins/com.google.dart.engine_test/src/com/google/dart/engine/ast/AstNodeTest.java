@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2012, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.ast;
+
+import com.google.dart.engine.parser.ParserTestCase;
+
+import static com.google.dart.engine.ast.AstFactory.identifier;
+
+public class AstNodeTest extends ParserTestCase {
+  public void test_getProperty_notSet() throws Exception {
+    assertNull(identifier("a").getProperty("p"));
+  }
+
+  public void test_setProperty() throws Exception {
+    SimpleIdentifier first = identifier("a");
+    SimpleIdentifier second = identifier("a");
+    Object value = new Object();
+    first.setProperty("p", value);
+    first.setProperty("q", "q");
+    assertSame(value, first.getProperty("p"));
+    assertEquals("q", first.getProperty("q"));
+    assertNull(second.getProperty("p"));
+  }
+
+  public void test_setProperty_null() throws Exception {
+    SimpleIdentifier node = identifier("a");
+    node.setProperty("p", "p");
+    node.setProperty("q", "q");
+    node.setProperty("p", null);
+    assertNull(node.getProperty("p"));
+    assertEquals("q", node.getProperty("q"));
+    node.setProperty("q", null);
+    assertNull(node.getProperty("q"));
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.ast.visitor;
+
+import com.google.dart.engine.ast.AstNode;
+import com.google.dart.engine.ast.ClassDeclaration;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.SimpleIdentifier;
+import com.google.dart.engine.parser.ParserTestCase;
+
+public class NodeOffsetIndexTest extends ParserTestCase {
+  private static final String SOURCE = createSource(//
+      "library lib;",
+      "import 'dart:math' as math show max;",
+      "/// A documented class.",
+      "@deprecated",
+      "class A<T extends Comparable> extends Object with B implements C {",
+      "  static const int ZERO = 0;",
+      "  final List<T> items = <T>[];",
+      "  A() : super();",
+      "  A.named(this.items);",
+      "  T operator [](int i) => items[i];",
+      "  int get length => items.length;",
+      "  void m(int a, [int b = 1, int c]) {",
+      "    var f = (x) => x * 2;",
+      "    for (int i = 0; i < a; i++) {",
+      "      print('$i ${f(i)} ${math.max(a, b)}');",
+      "    }",
+      "    items..clear()..addAll([]);",
+      "    switch (a) {",
+      "      case 0: break;",
+      "      default: return;",
+      "    }",
+      "    try { throw 1; } on int catch (e, s) { } finally { }",
+      "    label: while (a > 0) { a--; continue label; }",
+      "    assert(a is! String && b != null ? true : false);",
+      "  }",
+      "}",
+      "class B {}",
+      "abstract class C {}",
+      "typedef int F(int x);",
+      "int topLevel = 0, other = 1;",
+      "main() => new A<int>.named(null)[0];");
+
+  public void test_getOffsetIndex_cached() throws Exception {
+    CompilationUnit unit = parseCompilationUnit(SOURCE);
+    NodeOffsetIndex index = unit.getOffsetIndex();
+    assertTrue(index.isIndexOf(unit));
+    assertSame(index, unit.getOffsetIndex());
+    assertFalse(index.isIndexOf(unit.getDeclarations().get(0)));
+  }
+
+  public void test_locate_matchesNodeLocator_offsets() throws Exception {
+    CompilationUnit unit = parseCompilationUnit(SOURCE);
+    NodeOffsetIndex index = new NodeOffsetIndex(unit);
+    for (int offset = -1; offset <= SOURCE.length() + 1; offset++) {
+      assertSame("offset " + offset, visit(unit, offset, offset), index.locate(offset));
+    }
+  }
+
+  public void test_locate_matchesNodeLocator_ranges() throws Exception {
+    CompilationUnit unit = parseCompilationUnit(SOURCE);
+    NodeOffsetIndex index = new NodeOffsetIndex(unit);
+    for (int start = 0; start < SOURCE.length(); start += 3) {
+      for (int end = start; end < SOURCE.length() && end < start + 40; end += 7) {
+        assertSame(
+            "range " + start + " - " + end,
+            visit(unit, start, end),
+            index.locate(start, end));
+      }
+    }
+  }
+
+  public void test_locate_withinNode() throws Exception {
+    CompilationUnit unit = parseCompilationUnit(SOURCE);
+    ClassDeclaration classB = (ClassDeclaration) unit.getDeclarations().get(1);
+    NodeOffsetIndex index = new NodeOffsetIndex(classB);
+    assertSame(classB.getName(), index.locate(classB.getName().getOffset()));
+    assertNull(index.locate(0));
+  }
+
+  public void test_locateAll() throws Exception {
+    CompilationUnit unit = parseCompilationUnit(SOURCE);
+    NodeOffsetIndex index = new NodeOffsetIndex(unit);
+    int[] offsets = {SOURCE.indexOf("items"), 0, SOURCE.length() + 10, SOURCE.indexOf("topLevel")};
+    AstNode[] nodes = index.locateAll(offsets);
+    assertLength(4, nodes);
+    assertInstanceOf(SimpleIdentifier.class, nodes[0]);
+    assertEquals("items", ((SimpleIdentifier) nodes[0]).getName());
+    assertSame(index.locate(0), nodes[1]);
+    assertNull(nodes[2]);
+    assertEquals("topLevel", ((SimpleIdentifier) nodes[3]).getName());
+  }
+
+  public void test_searchWithin_usesIndex() throws Exception {
+    CompilationUnit unit = parseCompilationUnit(SOURCE);
+    int offset = SOURCE.indexOf("length =>");
+    NodeLocator locator = new NodeLocator(offset);
+    AstNode node = locator.searchWithin(unit);
+    assertSame(visit(unit, offset, offset), node);
+    assertSame(node, locator.getFoundNode());
+  }
+
+  public void test_size() throws Exception {
+    CompilationUnit unit = parseCompilationUnit("class A {}");
+    // unit, class declaration, class name
+    assertEquals(3, new NodeOffsetIndex(unit).size());
+  }
+
+  /**
+   * Return the node found by a {@link NodeLocator} visiting the given structure.
+   */
+  private AstNode visit(AstNode root, int start, int end) {
+    NodeLocator locator = new NodeLocator(start, end);
+    try {
+      root.accept(locator);
+    } catch (RuntimeException exception) {
+      // The locator found a node.
+    }
+    return locator.getFoundNode();
+  }
+}
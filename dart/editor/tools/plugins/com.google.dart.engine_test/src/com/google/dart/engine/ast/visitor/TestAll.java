@@ -24,6 +24,7 @@ public class TestAll {
     suite.addTestSuite(ConstantEvaluatorTest.class);
     suite.addTestSuite(ElementLocatorTest.class);
     suite.addTestSuite(NodeLocatorTest.class);
+    suite.addTestSuite(NodeOffsetIndexTest.class);
     suite.addTestSuite(ToSourceVisitorTest.class);
     suite.addTestSuite(BreadthFirstVisitorTest.class);
     return suite;
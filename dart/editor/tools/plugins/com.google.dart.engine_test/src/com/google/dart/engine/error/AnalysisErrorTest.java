@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.error;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.TestSource;
+
+import static com.google.dart.engine.error.StaticWarningCode.UNDEFINED_IDENTIFIER;
+
+public class AnalysisErrorTest extends EngineTestCase {
+  public void test_equals_differentArguments() {
+    Source source = new TestSource();
+    AnalysisError first = new AnalysisError(source, 1, 2, UNDEFINED_IDENTIFIER, "a");
+    AnalysisError second = new AnalysisError(source, 1, 2, UNDEFINED_IDENTIFIER, "b");
+    assertFalse(first.equals(second));
+  }
+
+  public void test_equals_sameArguments() {
+    Source source = new TestSource();
+    AnalysisError first = new AnalysisError(source, 1, 2, UNDEFINED_IDENTIFIER, "a");
+    AnalysisError second = new AnalysisError(
+        source,
+        1,
+        2,
+        UNDEFINED_IDENTIFIER,
+        new StringBuilder("a"));
+    assertEquals(first, second);
+    assertEquals(first.hashCode(), second.hashCode());
+  }
+
+  public void test_equals_withMessage() {
+    Source source = new TestSource();
+    AnalysisError first = new AnalysisError(source, 1, 2, UNDEFINED_IDENTIFIER, "a");
+    AnalysisError second = AnalysisError.createWithMessage(
+        source,
+        1,
+        2,
+        UNDEFINED_IDENTIFIER,
+        "Undefined name 'a'",
+        null);
+    assertEquals(first, second);
+    assertEquals(second, first);
+    assertEquals(first.hashCode(), second.hashCode());
+  }
+
+  public void test_getCorrection() {
+    AnalysisError error = new AnalysisError(new TestSource(), 0, 1, HintCode.MISSING_RETURN, "int");
+    assertEquals(HintCode.MISSING_RETURN.getCorrection(), error.getCorrection());
+  }
+
+  public void test_getCorrection_none() {
+    AnalysisError error = new AnalysisError(new TestSource(), 0, 1, UNDEFINED_IDENTIFIER, "a");
+    assertNull(error.getCorrection());
+  }
+
+  public void test_getMessage_mutableArgument() {
+    StringBuilder name = new StringBuilder("a");
+    AnalysisError error = new AnalysisError(new TestSource(), 0, 1, UNDEFINED_IDENTIFIER, name);
+    name.append("b");
+    assertEquals("Undefined name 'a'", error.getMessage());
+  }
+
+  public void test_getMessage_numberArguments() {
+    AnalysisError error = new AnalysisError(
+        new TestSource(),
+        0,
+        1,
+        CompileTimeErrorCode.EXTRA_POSITIONAL_ARGUMENTS,
+        2,
+        3);
+    assertEquals("2 positional arguments expected, but 3 found", error.getMessage());
+  }
+
+  public void test_getMessage_withMessage() {
+    AnalysisError error = AnalysisError.createWithMessage(
+        new TestSource(),
+        0,
+        1,
+        UNDEFINED_IDENTIFIER,
+        "message",
+        "correction");
+    assertEquals("message", error.getMessage());
+    assertEquals("correction", error.getCorrection());
+  }
+}
@@ -21,6 +21,7 @@ import junit.framework.TestSuite;
 public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
+    suite.addTestSuite(AnalysisErrorTest.class);
     suite.addTestSuite(ErrorSeverityTest.class);
     suite.addTestSuite(TodoCodeTest.class);
     return suite;
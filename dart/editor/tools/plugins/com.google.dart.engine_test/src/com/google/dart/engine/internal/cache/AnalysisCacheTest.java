@@ -14,12 +14,19 @@
 package com.google.dart.engine.internal.cache;
 
 import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.FileBasedSource;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.source.TestSource;
 import com.google.dart.engine.utilities.collection.MapIterator;
 
 import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+
 public class AnalysisCacheTest extends EngineTestCase {
   public void test_creation() {
     assertNotNull(new AnalysisCache(new CachePartition[0]));
@@ -31,6 +38,49 @@ public class AnalysisCacheTest extends EngineTestCase {
     assertNull(cache.get(source));
   }
 
+  public void test_getIfConcurrentlyReadable() {
+    CachePartition sdkPartition = new SdkCachePartition(8);
+    CachePartition partition = new UniversalCachePartition(8, new DefaultRetentionPolicy());
+    AnalysisCache cache = new AnalysisCache(new CachePartition[] {sdkPartition, partition});
+    SourceFactory factory = new SourceFactory(new DartUriResolver(
+        DirectoryBasedDartSdk.getDefaultSdk()));
+    Source sdkSource = factory.forUri("dart:core");
+    DartEntryImpl sdkEntry = new DartEntryImpl();
+    cache.put(sdkSource, sdkEntry);
+    TestSource source = new TestSource();
+    cache.put(source, new DartEntryImpl());
+    assertSame(sdkEntry, cache.getIfConcurrentlyReadable(sdkSource));
+    assertNull(cache.getIfConcurrentlyReadable(source));
+  }
+
+  public void test_getResolutionLocks() {
+    CachePartition sdkPartition = new SdkCachePartition(8);
+    CachePartition packagePartition = new PackageCachePartition(
+        8,
+        Arrays.asList(createFile("/cache/args-1.0")));
+    CachePartition partition = new UniversalCachePartition(8, new DefaultRetentionPolicy());
+    AnalysisCache cache = new AnalysisCache(new CachePartition[] {
+        sdkPartition, packagePartition, partition});
+    SourceFactory factory = new SourceFactory(new DartUriResolver(
+        DirectoryBasedDartSdk.getDefaultSdk()));
+    Source sdkSource = factory.forUri("dart:core");
+    Source packageSource = new FileBasedSource(createFile("/cache/args-1.0/lib/args.dart"));
+    Source source = new FileBasedSource(createFile("/project/lib/main.dart"));
+    Lock sdkLock = sdkPartition.getResolutionLock();
+    Lock packageLock = packagePartition.getResolutionLock();
+    assertEquals(0, cache.getResolutionLocks(Arrays.asList(source)).length);
+    assertEquals(
+        Arrays.asList(sdkLock),
+        Arrays.asList(cache.getResolutionLocks(Arrays.asList(sdkSource))));
+    assertEquals(
+        Arrays.asList(packageLock),
+        Arrays.asList(cache.getResolutionLocks(Arrays.asList(source, packageSource))));
+    // The SDK lock is always acquired last.
+    assertEquals(
+        Arrays.asList(packageLock, sdkLock),
+        Arrays.asList(cache.getResolutionLocks(Arrays.asList(sdkSource, source, packageSource))));
+  }
+
   public void test_iterator() {
     CachePartition partition = new UniversalCachePartition(8, new DefaultRetentionPolicy());
     AnalysisCache cache = new AnalysisCache(new CachePartition[] {partition});
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.HintCode;
+import com.google.dart.engine.error.StaticWarningCode;
+import com.google.dart.engine.internal.cache.AnalysisResultStore.LibraryResults;
+import com.google.dart.engine.internal.cache.AnalysisResultStore.UnitErrors;
+import com.google.dart.engine.internal.cache.AnalysisResultStore.UnitResults;
+import com.google.dart.engine.internal.context.AnalysisOptionsImpl;
+import com.google.dart.engine.parser.ParserErrorCode;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createTempDir;
+import static com.google.dart.engine.utilities.io.FileUtilities2.createTempFile;
+import static com.google.dart.engine.utilities.io.FileUtilities2.deleteTempDir;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+
+public class AnalysisResultStoreTest extends EngineTestCase {
+  private static final String VERSION = "1.0";
+
+  private File storeFile;
+
+  private SourceFactory sourceFactory;
+
+  private Source librarySource;
+
+  private Source partSource;
+
+  public void test_computeContentHash() {
+    String hash = AnalysisResultStore.computeContentHash("library a;");
+    assertEquals(hash, AnalysisResultStore.computeContentHash(new StringBuilder("library a;")));
+    assertFalse(hash.equals(AnalysisResultStore.computeContentHash("library b;")));
+  }
+
+  public void test_computeFingerprint() {
+    HashMap<String, String> first = new HashMap<String, String>();
+    first.put("fa", "1");
+    first.put("fb", "2");
+    HashMap<String, String> second = new HashMap<String, String>();
+    second.put("fb", "2");
+    second.put("fa", "1");
+    String fingerprint = AnalysisResultStore.computeFingerprint(first, "x");
+    assertEquals(fingerprint, AnalysisResultStore.computeFingerprint(second, "x"));
+    assertFalse(fingerprint.equals(AnalysisResultStore.computeFingerprint(first, "y")));
+    second.put("fb", "3");
+    assertFalse(fingerprint.equals(AnalysisResultStore.computeFingerprint(second, "x")));
+  }
+
+  public void test_getOptionsKey() {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl();
+    String key = AnalysisResultStore.getOptionsKey(options);
+    options.setHint(!options.getHint());
+    assertFalse(key.equals(AnalysisResultStore.getOptionsKey(options)));
+  }
+
+  public void test_open_differentVersion() throws Exception {
+    AnalysisResultStore store = new AnalysisResultStore(storeFile, VERSION);
+    store.putUnitResults(librarySource, "h1", 1L, createUnitResults());
+    store.close();
+
+    store = new AnalysisResultStore(storeFile, "2.0");
+    assertNull(store.getUnitResults(sourceFactory, librarySource, "h1"));
+    assertNull(store.getContentHash(librarySource.getEncoding(), 1L));
+    store.close();
+  }
+
+  public void test_open_notWritable() throws Exception {
+    // A directory cannot be opened as a log, so the store keeps no results.
+    assertTrue(storeFile.mkdirs());
+    AnalysisResultStore store = new AnalysisResultStore(storeFile, VERSION);
+    store.putUnitResults(librarySource, "h1", 1L, createUnitResults());
+    store.flush();
+    assertNull(store.getUnitResults(sourceFactory, librarySource, "h1"));
+    store.close();
+  }
+
+  public void test_open_truncated() throws Exception {
+    AnalysisResultStore store = new AnalysisResultStore(storeFile, VERSION);
+    store.putUnitResults(librarySource, "h1", 1L, createUnitResults());
+    store.flush();
+    store.putUnitResults(partSource, "h2", 2L, createUnitResults());
+    store.close();
+    // Simulate a crash while the last record was being written.
+    RandomAccessFile file = new RandomAccessFile(storeFile, "rw");
+    file.setLength(file.length() - 3);
+    file.close();
+
+    store = new AnalysisResultStore(storeFile, VERSION);
+    assertNotNull(store.getUnitResults(sourceFactory, librarySource, "h1"));
+    assertNull(store.getUnitResults(sourceFactory, partSource, "h2"));
+    store.putUnitResults(partSource, "h3", 3L, createUnitResults());
+    store.close();
+
+    store = new AnalysisResultStore(storeFile, VERSION);
+    assertNotNull(store.getUnitResults(sourceFactory, librarySource, "h1"));
+    assertNotNull(store.getUnitResults(sourceFactory, partSource, "h3"));
+    store.close();
+  }
+
+  public void test_putLibraryResults() throws Exception {
+    AnalysisError resolutionError = new AnalysisError(
+        librarySource,
+        4,
+        3,
+        StaticWarningCode.UNDEFINED_IDENTIFIER,
+        "x");
+    AnalysisError hint = new AnalysisError(partSource, 10, 2, HintCode.DEAD_CODE);
+    AnalysisResultStore store = new AnalysisResultStore(storeFile, VERSION);
+    store.putLibraryResults(librarySource, "f1", new LibraryResults(
+        CacheState.VALID,
+        true,
+        CacheState.INVALID,
+        false,
+        new UnitErrors[] {
+            new UnitErrors(
+                librarySource,
+                AnalysisError.NO_ERRORS,
+                new AnalysisError[] {resolutionError},
+                AnalysisError.NO_ERRORS,
+                null),
+            new UnitErrors(
+                partSource,
+                AnalysisError.NO_ERRORS,
+                AnalysisError.NO_ERRORS,
+                AnalysisError.NO_ERRORS,
+                new AnalysisError[] {hint})}));
+    assertTrue(store.hasLibraryResults(librarySource, "f1"));
+    store.close();
+
+    store = new AnalysisResultStore(storeFile, VERSION);
+    assertFalse(store.hasLibraryResults(librarySource, "f2"));
+    assertNull(store.getLibraryResults(sourceFactory, librarySource, "f2"));
+    LibraryResults results = store.getLibraryResults(sourceFactory, librarySource, "f1");
+    assertNotNull(results);
+    assertSame(CacheState.VALID, results.getClientState());
+    assertTrue(results.isClient());
+    assertSame(CacheState.INVALID, results.getLaunchableState());
+    UnitErrors[] unitErrors = results.getUnitErrors();
+    assertLength(2, unitErrors);
+    assertEquals(librarySource, unitErrors[0].getSource());
+    assertLength(0, unitErrors[0].getBuildElementErrors());
+    assertLength(1, unitErrors[0].getResolutionErrors());
+    assertNull(unitErrors[0].getHints());
+    assertEquals(resolutionError, unitErrors[0].getResolutionErrors()[0]);
+    assertEquals(resolutionError.getMessage(), unitErrors[0].getResolutionErrors()[0].getMessage());
+    assertEquals(partSource, unitErrors[1].getSource());
+    assertLength(1, unitErrors[1].getHints());
+    assertEquals(hint, unitErrors[1].getHints()[0]);
+    store.close();
+  }
+
+  public void test_putUnitResults() throws Exception {
+    AnalysisResultStore store = new AnalysisResultStore(storeFile, VERSION);
+    store.putUnitResults(librarySource, "h1", 5L, createUnitResults());
+    store.close();
+
+    store = new AnalysisResultStore(storeFile, VERSION);
+    assertEquals("h1", store.getContentHash(librarySource.getEncoding(), 5L));
+    assertNull(store.getContentHash(librarySource.getEncoding(), 6L));
+    assertNull(store.getUnitResults(sourceFactory, librarySource, "h2"));
+    assertEqualsIgnoreOrder(
+        new String[] {partSource.getEncoding()},
+        store.getDependencies(librarySource.getEncoding(), "h1"));
+    UnitResults results = store.getUnitResults(sourceFactory, librarySource, "h1");
+    assertNotNull(results);
+    assertTrue(results.hasNonPartOfDirective());
+    assertFalse(results.hasPartOfDirective());
+    assertEquals(3, results.getLineStarts().length);
+    assertEquals(11, results.getLineStarts()[1]);
+    assertLength(0, results.getScanErrors());
+    assertLength(1, results.getParseErrors());
+    assertSame(ParserErrorCode.EXPECTED_TOKEN, results.getParseErrors()[0].getErrorCode());
+    assertLength(0, results.getImportedLibraries());
+    assertLength(0, results.getExportedLibraries());
+    assertLength(1, results.getIncludedParts());
+    assertEquals(partSource, results.getIncludedParts()[0]);
+    store.close();
+  }
+
+  public void test_updateModificationStamp() throws Exception {
+    AnalysisResultStore store = new AnalysisResultStore(storeFile, VERSION);
+    store.putUnitResults(librarySource, "h1", 5L, createUnitResults());
+    store.updateModificationStamp(librarySource, "h2", 6L);
+    assertEquals("h1", store.getContentHash(librarySource.getEncoding(), 5L));
+    store.updateModificationStamp(librarySource, "h1", 6L);
+    assertNull(store.getContentHash(librarySource.getEncoding(), 5L));
+    store.close();
+
+    store = new AnalysisResultStore(storeFile, VERSION);
+    assertEquals("h1", store.getContentHash(librarySource.getEncoding(), 6L));
+    assertNotNull(store.getUnitResults(sourceFactory, librarySource, "h1"));
+    store.close();
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    storeFile = new File(createTempDir("results"), "results.bin");
+    sourceFactory = new SourceFactory(new FileUriResolver());
+    librarySource = new FileBasedSource(createTempFile("lib.dart", "library a;\npart 'p.dart';\n"));
+    partSource = new FileBasedSource(createTempFile("p.dart", "part of a;\n"));
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    deleteTempDir();
+    storeFile = null;
+    sourceFactory = null;
+    librarySource = null;
+    partSource = null;
+    super.tearDown();
+  }
+
+  private UnitResults createUnitResults() {
+    return new UnitResults(
+        true,
+        false,
+        new int[] {0, 11, 26},
+        AnalysisError.NO_ERRORS,
+        new AnalysisError[] {new AnalysisError(
+            librarySource,
+            25,
+            1,
+            ParserErrorCode.EXPECTED_TOKEN,
+            ";")},
+        Source.EMPTY_ARRAY,
+        Source.EMPTY_ARRAY,
+        new Source[] {partSource});
+  }
+}
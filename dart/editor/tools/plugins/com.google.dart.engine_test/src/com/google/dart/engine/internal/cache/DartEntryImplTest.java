@@ -109,6 +109,29 @@ public class DartEntryImplTest extends EngineTestCase {
     assertLength(6, entry.getAllErrors());
   }
 
+  public void test_getAllErrors_merged() {
+    Source source = new TestSource();
+    DartEntryImpl entry = new DartEntryImpl();
+    AnalysisError[] scanErrors = new AnalysisError[] {new AnalysisError(
+        source,
+        ScannerErrorCode.UNTERMINATED_STRING_LITERAL)};
+    entry.setValue(DartEntry.SCAN_ERRORS, scanErrors);
+    // A single non-empty array is shared rather than copied.
+    assertSame(scanErrors, entry.getAllErrors());
+    entry.setValueInLibrary(DartEntry.HINTS, source, new AnalysisError[] {new AnalysisError(
+        source,
+        HintCode.DEAD_CODE)});
+    AnalysisError[] errors = entry.getAllErrors();
+    assertLength(2, errors);
+    // The merged errors are reused until one of the arrays is replaced.
+    assertSame(errors, entry.getAllErrors());
+    assertSame(errors, entry.getWritableCopy().getAllErrors());
+    entry.setValue(DartEntry.PARSE_ERRORS, new AnalysisError[] {new AnalysisError(
+        source,
+        ParserErrorCode.ABSTRACT_CLASS_MEMBER)});
+    assertLength(3, entry.getAllErrors());
+  }
+
   public void test_getResolvableCompilationUnit_none() {
     DartEntryImpl entry = new DartEntryImpl();
     assertNull(entry.getResolvableCompilationUnit());
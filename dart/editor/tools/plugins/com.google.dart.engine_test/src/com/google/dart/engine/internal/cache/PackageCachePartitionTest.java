@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.SourceFactory;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+import java.io.File;
+import java.util.Arrays;
+
+public class PackageCachePartitionTest extends EngineTestCase {
+  public void test_contains() {
+    PackageCachePartition partition = new PackageCachePartition(8, Arrays.asList(
+        createFile("/cache/args-1.0"),
+        createFile("/cache/path-1.0"),
+        createFile("/cache/path-1.0/nested"),
+        createFile("/cache/unittest-0.9")));
+    assertTrue(partition.contains(source("/cache/args-1.0/args.dart")));
+    assertTrue(partition.contains(source("/cache/path-1.0/lib/path.dart")));
+    assertTrue(partition.contains(source("/cache/path-1.0/nested/nested.dart")));
+    assertTrue(partition.contains(source("/cache/unittest-0.9/unittest.dart")));
+    assertFalse(partition.contains(source("/cache/args-1.0.1/args.dart")));
+    assertFalse(partition.contains(source("/cache/args-1/args.dart")));
+    assertFalse(partition.contains(source("/cache/path.dart")));
+    assertFalse(partition.contains(source("/cache/zed-1.0/zed.dart")));
+    assertFalse(partition.contains(source("/app/lib/app.dart")));
+  }
+
+  public void test_contains_sdk() {
+    PackageCachePartition partition = new PackageCachePartition(8, Arrays.asList(createFile("/")));
+    SourceFactory factory = new SourceFactory(new DartUriResolver(
+        DirectoryBasedDartSdk.getDefaultSdk()));
+    assertFalse(partition.contains(factory.forUri("dart:core")));
+  }
+
+  public void test_creation() {
+    assertNotNull(new PackageCachePartition(8, Arrays.<File> asList()));
+  }
+
+  public void test_isConcurrentlyReadable() {
+    assertTrue(new PackageCachePartition(8, Arrays.<File> asList()).isConcurrentlyReadable());
+  }
+
+  private FileBasedSource source(String path) {
+    return new FileBasedSource(createFile(path));
+  }
+}
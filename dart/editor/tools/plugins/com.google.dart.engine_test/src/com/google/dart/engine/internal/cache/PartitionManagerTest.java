@@ -14,14 +14,91 @@
 package com.google.dart.engine.internal.cache;
 
 import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.internal.context.AnalysisOptionsImpl;
 import com.google.dart.engine.internal.sdk.MockDartSdk;
 import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.source.FileBasedSource;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
 
 public class PartitionManagerTest extends EngineTestCase {
+  /**
+   * The analysis options used by the contexts that would share a partition.
+   */
+  private AnalysisOptionsImpl options = new AnalysisOptionsImpl();
+
   public void test_creation() {
     assertNotNull(new PartitionManager());
   }
 
+  public void test_forPackages() {
+    PartitionManager manager = new PartitionManager();
+    manager.setPubCacheDirectory(createFile("/cache"));
+    DartSdk sdk = new MockDartSdk();
+
+    Map<String, File> packages1 = packages("args", "/cache/args-1.0", "path", "/cache/path-1.0");
+    PackageCachePartition partition1 = manager.forPackages(sdk, packages1, options);
+    assertNotNull(partition1);
+    assertTrue(partition1.contains(new FileBasedSource(createFile("/cache/args-1.0/args.dart"))));
+    assertSame(
+        partition1,
+        manager.forPackages(
+            sdk,
+            packages("path", "/cache/path-1.0", "args", "/cache/args-1.0"),
+            options));
+
+    // a different version of a package
+    Map<String, File> packages2 = packages("args", "/cache/args-1.1", "path", "/cache/path-1.0");
+    PackageCachePartition partition2 = manager.forPackages(sdk, packages2, options);
+    assertNotNull(partition2);
+    assertNotSame(partition1, partition2);
+
+    // a different SDK
+    PackageCachePartition partition3 = manager.forPackages(new MockDartSdk(), packages1, options);
+    assertNotNull(partition3);
+    assertNotSame(partition1, partition3);
+  }
+
+  public void test_forPackages_notShared() {
+    PartitionManager manager = new PartitionManager();
+    manager.setPubCacheDirectory(createFile("/cache"));
+    DartSdk sdk = new MockDartSdk();
+    assertNull(manager.forPackages(sdk, null, options));
+    assertNull(manager.forPackages(sdk, new HashMap<String, File>(), options));
+    assertNull(manager.forPackages(
+        sdk,
+        packages("args", "/cache/args-1.0", "local", "/workspace/local/lib"), options));
+    // sharing is disabled
+    manager.setPubCacheDirectory(null);
+    assertNull(manager.getPubCacheDirectory());
+    assertNull(manager.forPackages(sdk, packages("args", "/cache/args-1.0"), options));
+  }
+
+  public void test_forPackages_options() {
+    PartitionManager manager = new PartitionManager();
+    manager.setPubCacheDirectory(createFile("/cache"));
+    DartSdk sdk = new MockDartSdk();
+    Map<String, File> packages = packages("args", "/cache/args-1.0");
+    PackageCachePartition partition1 = manager.forPackages(sdk, packages, options);
+    assertNotNull(partition1);
+
+    // options that affect the results
+    AnalysisOptionsImpl options2 = new AnalysisOptionsImpl(options);
+    options2.setEnableAsync(!options.getEnableAsync());
+    PackageCachePartition partition2 = manager.forPackages(sdk, packages, options2);
+    assertNotNull(partition2);
+    assertNotSame(partition1, partition2);
+
+    // options that do not affect the results
+    AnalysisOptionsImpl options3 = new AnalysisOptionsImpl(options);
+    options3.setCacheSize(options.getCacheSize() + 1);
+    assertSame(partition1, manager.forPackages(sdk, packages, options3));
+  }
+
   public void test_forSdk() {
     PartitionManager manager = new PartitionManager();
 
@@ -36,4 +113,32 @@ public class PartitionManagerTest extends EngineTestCase {
     assertSame(partition2, manager.forSdk(sdk2));
     assertNotSame(partition1, partition2);
   }
+
+  public void test_setPubCacheDirectory() {
+    PartitionManager manager = new PartitionManager();
+    File directory = createFile("/cache");
+    manager.setPubCacheDirectory(directory);
+    assertSame(directory, manager.getPubCacheDirectory());
+    DartSdk sdk = new MockDartSdk();
+    Map<String, File> packages = packages("args", "/cache/args-1.0");
+    PackageCachePartition partition = manager.forPackages(sdk, packages, options);
+    assertNotNull(partition);
+    // the partitions for the previous directory are discarded
+    manager.setPubCacheDirectory(directory);
+    assertNotSame(partition, manager.forPackages(sdk, packages, options));
+  }
+
+  /**
+   * Return a table mapping the given package names to the files with the given paths.
+   * 
+   * @param namesAndPaths the names of the packages, each followed by the path of its directory
+   * @return the table mapping package names to package directories
+   */
+  private Map<String, File> packages(String... namesAndPaths) {
+    HashMap<String, File> packages = new HashMap<String, File>();
+    for (int i = 0; i < namesAndPaths.length; i += 2) {
+      packages.put(namesAndPaths[i], createFile(namesAndPaths[i + 1]));
+    }
+    return packages;
+  }
 }
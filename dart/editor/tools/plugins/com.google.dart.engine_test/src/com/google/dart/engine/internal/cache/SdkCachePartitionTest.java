@@ -38,4 +38,53 @@ public class SdkCachePartitionTest extends EngineTestCase {
   public void test_creation() {
     assertNotNull(new SdkCachePartition(8));
   }
+
+  public void test_getResolutionLock() {
+    SdkCachePartition partition = new SdkCachePartition(8);
+    Object lock = partition.getResolutionLock();
+    assertNotNull(lock);
+    assertNotSame(partition, lock);
+    assertSame(lock, partition.getResolutionLock());
+  }
+
+  public void test_isConcurrentlyReadable() {
+    assertTrue(new SdkCachePartition(8).isConcurrentlyReadable());
+  }
+
+  public void test_put_concurrent() throws Exception {
+    final SdkCachePartition partition = new SdkCachePartition(4);
+    SourceFactory factory = new SourceFactory(new DartUriResolver(
+        DirectoryBasedDartSdk.getDefaultSdk()));
+    final Source[] sources = {
+        factory.forUri("dart:core"), factory.forUri("dart:async"), factory.forUri("dart:html"),
+        factory.forUri("dart:math"), factory.forUri("dart:collection"),
+        factory.forUri("dart:convert")};
+    final Throwable[] failure = new Throwable[1];
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int j = 0; j < 1000; j++) {
+              Source source = sources[j % sources.length];
+              DartEntryImpl entry = new DartEntryImpl();
+              entry.setValue(DartEntry.PARSED_UNIT, null);
+              partition.put(source, entry);
+              partition.storedAst(source);
+              assertNotNull(partition.get(source));
+            }
+          } catch (Throwable exception) {
+            failure[0] = exception;
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertNull(failure[0]);
+    assertEquals(sources.length, partition.size());
+  }
 }
@@ -22,8 +22,10 @@ public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(AnalysisCacheTest.class);
+    suite.addTestSuite(AnalysisResultStoreTest.class);
     suite.addTestSuite(DartEntryImplTest.class);
     suite.addTestSuite(HtmlEntryImplTest.class);
+    suite.addTestSuite(PackageCachePartitionTest.class);
     suite.addTestSuite(PartitionManagerTest.class);
     suite.addTestSuite(SdkCachePartitionTest.class);
     suite.addTestSuite(UniversalCachePartitionTest.class);
@@ -53,6 +53,14 @@ public class UniversalCachePartitionTest extends EngineTestCase {
     assertNull(partition.get(source));
   }
 
+  public void test_getResolutionLock() {
+    assertNull(new UniversalCachePartition(8, null).getResolutionLock());
+  }
+
+  public void test_isConcurrentlyReadable() {
+    assertFalse(new UniversalCachePartition(8, null).isConcurrentlyReadable());
+  }
+
   public void test_put_noFlush() {
     UniversalCachePartition partition = new UniversalCachePartition(8, null);
     TestSource source = new TestSource();
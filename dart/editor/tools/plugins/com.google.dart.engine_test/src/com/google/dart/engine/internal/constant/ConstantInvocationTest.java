@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.constant;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.ConstructorElement;
+import com.google.dart.engine.internal.element.ClassElementImpl;
+import com.google.dart.engine.internal.element.CompilationUnitElementImpl;
+import com.google.dart.engine.internal.element.ConstructorElementImpl;
+import com.google.dart.engine.internal.object.DartObjectImpl;
+import com.google.dart.engine.internal.object.GenericState;
+import com.google.dart.engine.internal.object.IntState;
+import com.google.dart.engine.internal.object.ListState;
+import com.google.dart.engine.internal.resolver.TestTypeProvider;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.UriKind;
+import com.google.dart.engine.type.InterfaceType;
+import com.google.dart.engine.type.Type;
+
+import static com.google.dart.engine.element.ElementFactory.classElement;
+import static com.google.dart.engine.element.ElementFactory.constructorElement;
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+
+public class ConstantInvocationTest extends EngineTestCase {
+  private TestTypeProvider typeProvider = new TestTypeProvider();
+
+  public void test_forArguments() {
+    ConstructorElement constructor = createConstructor(false, "A");
+    assertNotNull(ConstantInvocation.forArguments(
+        constructor,
+        constructor.getEnclosingElement().getType(),
+        new DartObjectImpl[] {intValue(1), listValue()},
+        new HashMap<String, DartObjectImpl>()));
+  }
+
+  public void test_forArguments_equal() {
+    ConstructorElement constructor = createConstructor(false, "A");
+    InterfaceType type = constructor.getEnclosingElement().getType();
+    assertEquals(ConstantInvocation.forArguments(
+        constructor,
+        type,
+        new DartObjectImpl[] {intValue(1)},
+        new HashMap<String, DartObjectImpl>()), ConstantInvocation.forArguments(
+        constructor,
+        type,
+        new DartObjectImpl[] {intValue(1)},
+        new HashMap<String, DartObjectImpl>()));
+  }
+
+  public void test_forArguments_inexact() {
+    ConstructorElement constructor = createConstructor(false, "A");
+    DartObjectImpl value = new DartObjectImpl(
+        typeProvider.getObjectType(),
+        new GenericState(new HashMap<String, DartObjectImpl>()));
+    assertNull(ConstantInvocation.forArguments(
+        constructor,
+        constructor.getEnclosingElement().getType(),
+        new DartObjectImpl[] {value},
+        new HashMap<String, DartObjectImpl>()));
+  }
+
+  public void test_forArguments_sdk() {
+    ConstructorElement constructor = createConstructor(true, "A");
+    HashMap<String, DartObjectImpl> namedArgumentValues = new HashMap<String, DartObjectImpl>();
+    namedArgumentValues.put("b", intValue(2));
+    assertNotNull(ConstantInvocation.forArguments(
+        constructor,
+        constructor.getEnclosingElement().getType(),
+        new DartObjectImpl[] {intValue(1)},
+        namedArgumentValues));
+  }
+
+  public void test_forArguments_sdk_list() {
+    ConstructorElement constructor = createConstructor(true, "A");
+    assertNull(ConstantInvocation.forArguments(
+        constructor,
+        constructor.getEnclosingElement().getType(),
+        new DartObjectImpl[] {listValue()},
+        new HashMap<String, DartObjectImpl>()));
+  }
+
+  public void test_forArguments_sdk_sdkTypeArgument() {
+    ConstructorElement constructor = createConstructor(true, "A", "T");
+    CompilationUnitElement unit = (CompilationUnitElement) constructor.getEnclosingElement()
+        .getEnclosingElement();
+    ClassElement argumentClass = unit.getType("Other");
+    InterfaceType type = constructor.getEnclosingElement().getType().substitute(
+        new Type[] {argumentClass.getType()});
+    assertNotNull(ConstantInvocation.forArguments(
+        constructor,
+        type,
+        new DartObjectImpl[] {intValue(1)},
+        new HashMap<String, DartObjectImpl>()));
+  }
+
+  public void test_forArguments_sdk_userTypeArgument() {
+    ConstructorElement constructor = createConstructor(true, "A", "T");
+    ClassElement argumentClass = createConstructor(false, "B").getEnclosingElement();
+    InterfaceType type = constructor.getEnclosingElement().getType().substitute(
+        new Type[] {argumentClass.getType()});
+    assertNull(ConstantInvocation.forArguments(
+        constructor,
+        type,
+        new DartObjectImpl[] {intValue(1)},
+        new HashMap<String, DartObjectImpl>()));
+  }
+
+  /**
+   * Return a constant constructor of a new class with the given name and type parameters. The class
+   * is declared in a compilation unit that also declares a class named "Other".
+   * 
+   * @param inSdk {@code true} if the compilation unit is part of the SDK
+   * @param className the name of the class declaring the constructor
+   * @param parameterNames the names of the type parameters of the class
+   * @return the constructor that was created
+   */
+  private ConstructorElement createConstructor(boolean inSdk, String className,
+      String... parameterNames) {
+    ClassElementImpl classElement = classElement(className, parameterNames);
+    ConstructorElementImpl constructor = constructorElement(classElement, null, true);
+    classElement.setConstructors(new ConstructorElement[] {constructor});
+    CompilationUnitElementImpl unit = new CompilationUnitElementImpl("test.dart");
+    unit.setSource(new FileBasedSource(createFile("/test.dart"), inSdk ? UriKind.DART_URI
+        : UriKind.FILE_URI));
+    unit.setTypes(new ClassElement[] {classElement, classElement("Other")});
+    return constructor;
+  }
+
+  private DartObjectImpl intValue(int value) {
+    return new DartObjectImpl(typeProvider.getIntType(), new IntState(BigInteger.valueOf(value)));
+  }
+
+  private DartObjectImpl listValue() {
+    return new DartObjectImpl(typeProvider.getListType(), new ListState(new DartObjectImpl[0]));
+  }
+}
@@ -50,8 +50,9 @@ public class ConstantValueComputerTest extends ResolverTestCase {
     private AstNode nodeBeingEvaluated;
 
     public ValidatingConstantVisitor(TypeProvider typeProvider,
-        DirectedGraph<AstNode> referenceGraph, AstNode nodeBeingEvaluated) {
-      super(typeProvider);
+        DirectedGraph<AstNode> referenceGraph, AstNode nodeBeingEvaluated,
+        HashMap<DartObjectImpl, DartObjectImpl> canonicalObjects) {
+      super(typeProvider, null, canonicalObjects);
       this.referenceGraph = referenceGraph;
       this.nodeBeingEvaluated = nodeBeingEvaluated;
     }
@@ -123,7 +124,11 @@ public class ConstantValueComputerTest extends ResolverTestCase {
 
     @Override
     protected ConstantVisitor createConstantVisitor() {
-      return new ValidatingConstantVisitor(typeProvider, referenceGraph, nodeBeingEvaluated);
+      return new ValidatingConstantVisitor(
+          typeProvider,
+          referenceGraph,
+          nodeBeingEvaluated,
+          canonicalObjects);
     }
   }
 
@@ -457,6 +462,39 @@ public class ConstantValueComputerTest extends ResolverTestCase {
     assertIntField(fields, "k", 13L);
   }
 
+  public void test_instanceCreationExpression_computedField_memoized() throws Exception {
+    CompilationUnit compilationUnit = resolveSource(createSource(//
+        "const foo = const A(4, 5);",
+        "const bar = const A(4, 5);",
+        "const baz = const A(5, 4);",
+        "class A {",
+        "  const A(int i, int j) : k = 2 * i + j;",
+        "  final int k;",
+        "}"));
+    EvaluationResultImpl fooResult = evaluateInstanceCreationExpression(compilationUnit, "foo");
+    EvaluationResultImpl barResult = evaluateInstanceCreationExpression(compilationUnit, "bar");
+    EvaluationResultImpl bazResult = evaluateInstanceCreationExpression(compilationUnit, "baz");
+    assertSame(((ValidResult) fooResult).getValue(), ((ValidResult) barResult).getValue());
+    assertIntField(assertType(bazResult, "A"), "k", 14L);
+  }
+
+  public void test_instanceCreationExpression_computedField_memoized_inexactArgument()
+      throws Exception {
+    CompilationUnit compilationUnit = resolveSource(createSource(//
+        "const foo = const A(const B());",
+        "const bar = const A(const B());",
+        "class A {",
+        "  const A(this.b);",
+        "  final B b;",
+        "}",
+        "class B {",
+        "  const B();",
+        "}"));
+    EvaluationResultImpl fooResult = evaluateInstanceCreationExpression(compilationUnit, "foo");
+    EvaluationResultImpl barResult = evaluateInstanceCreationExpression(compilationUnit, "bar");
+    assertNotSame(((ValidResult) fooResult).getValue(), ((ValidResult) barResult).getValue());
+  }
+
   public void test_instanceCreationExpression_computedField_namedOptionalWithDefault()
       throws Exception {
     checkInstanceCreationOptionalParams(false, true, true);
@@ -749,6 +787,26 @@ public class ConstantValueComputerTest extends ResolverTestCase {
     assertFalse(ConstantValueComputer.isValidPublicSymbol("+.foo"));
   }
 
+  public void test_listLiteral_canonicalized() throws Exception {
+    CompilationUnit compilationUnit = resolveSource(createSource(//
+        "const foo = const [1, 'a'];",
+        "const bar = const [1, 'a'];",
+        "const baz = const ['a', 1];"));
+    DartObjectImpl foo = evaluateTopLevelVariable(compilationUnit, "foo");
+    assertSame(foo, evaluateTopLevelVariable(compilationUnit, "bar"));
+    assertNotSame(foo, evaluateTopLevelVariable(compilationUnit, "baz"));
+  }
+
+  public void test_mapLiteral_canonicalized() throws Exception {
+    CompilationUnit compilationUnit = resolveSource(createSource(//
+        "const foo = const {'a' : 1};",
+        "const bar = const {'a' : 1};",
+        "const baz = const {'a' : 2};"));
+    DartObjectImpl foo = evaluateTopLevelVariable(compilationUnit, "foo");
+    assertSame(foo, evaluateTopLevelVariable(compilationUnit, "bar"));
+    assertNotSame(foo, evaluateTopLevelVariable(compilationUnit, "baz"));
+  }
+
   private HashMap<String, DartObjectImpl> assertFieldType(HashMap<String, DartObjectImpl> fields,
       String fieldName, String expectedType) {
     DartObjectImpl field = fields.get(fieldName);
@@ -922,6 +980,22 @@ public class ConstantValueComputerTest extends ResolverTestCase {
     return ((InstanceCreationExpression) expression).getEvaluationResult();
   }
 
+  private DartObjectImpl evaluateTopLevelVariable(CompilationUnit compilationUnit, String name) {
+    for (CompilationUnitMember member : compilationUnit.getDeclarations()) {
+      if (member instanceof TopLevelVariableDeclaration) {
+        for (VariableDeclaration variable : ((TopLevelVariableDeclaration) member).getVariables().getVariables()) {
+          if (variable.getName().getName().equals(name)) {
+            EvaluationResultImpl result = ((VariableElementImpl) variable.getElement()).getEvaluationResult();
+            assertInstanceOf(ValidResult.class, result);
+            return ((ValidResult) result).getValue();
+          }
+        }
+      }
+    }
+    fail("Could not find variable " + name);
+    return null;
+  }
+
   private ConstantValueComputer makeConstantValueComputer() {
     return new ValidatingConstantValueComputer(
         new TestTypeProvider(),
@@ -22,6 +22,7 @@ public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(ConstantFinderTest.class);
+    suite.addTestSuite(ConstantInvocationTest.class);
     suite.addTestSuite(ConstantValueComputerTest.class);
     suite.addTestSuite(ConstantVisitorTest.class);
     suite.addTestSuite(ReferenceFinderTest.class);
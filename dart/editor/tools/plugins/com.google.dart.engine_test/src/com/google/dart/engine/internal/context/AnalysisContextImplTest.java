@@ -13,7 +13,11 @@
  */
 package com.google.dart.engine.internal.context;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.ast.ClassDeclaration;
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.ast.ImportDirective;
 import com.google.dart.engine.ast.SimpleIdentifier;
@@ -40,25 +44,37 @@ import com.google.dart.engine.error.ErrorSeverity;
 import com.google.dart.engine.html.ast.HtmlScriptTagNode;
 import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.html.ast.XmlTagNode;
+import com.google.dart.engine.internal.cache.AnalysisCache;
+import com.google.dart.engine.internal.cache.AnalysisResultStore;
 import com.google.dart.engine.internal.cache.DartEntry;
+import com.google.dart.engine.internal.cache.DartEntryImpl;
+import com.google.dart.engine.internal.cache.PartitionManager;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.internal.task.ResolveDartLibraryTask;
+import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
 import com.google.dart.engine.source.DartUriResolver;
 import com.google.dart.engine.source.FileBasedSource;
 import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.PackageUriResolver;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.source.SourceKind;
 import com.google.dart.engine.source.TestSource;
+import com.google.dart.engine.utilities.instrumentation.AnalysisProfiler;
+import com.google.dart.engine.utilities.instrumentation.AnalysisProfiler.TaskRecord;
 import com.google.dart.engine.utilities.source.LineInfo;
 
 import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+import static com.google.dart.engine.utilities.io.FileUtilities2.createTempDir;
+import static com.google.dart.engine.utilities.io.FileUtilities2.deleteTempDir;
 
+import java.io.File;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class AnalysisContextImplTest extends EngineTestCase {
   /**
@@ -136,6 +152,24 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertTrue(context.getSourcesNeedingProcessing().contains(source));
   }
 
+  public void test_applyChanges_addMany_drain() throws Exception {
+    int sourceCount = 100;
+    ChangeSet changeSet = new ChangeSet();
+    for (int i = 0; i < sourceCount; i++) {
+      String name = "lib" + i;
+      String contents = "library " + name + ";";
+      changeSet.addedSource(new TestSource(createFile("/" + name + ".dart"), contents));
+    }
+    context.applyChanges(changeSet);
+    assertSizeOfList(sourceCount, context.getSourcesNeedingProcessing());
+    int taskCount = 0;
+    while (context.performAnalysisTask().getChangeNotices() != null) {
+      taskCount++;
+    }
+    assertSizeOfList(0, context.getSourcesNeedingProcessing());
+    assertTrue("Performed " + taskCount + " tasks", taskCount >= sourceCount);
+  }
+
   public void test_applyChanges_change_flush_element() throws Exception {
     context = AnalysisContextFactory.contextWithCore();
     sourceFactory = context.getSourceFactory();
@@ -309,6 +343,21 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertEquals("/// line 1\n" + "/// line 2\n" + "/// line 3", actual);
   }
 
+  public void test_computeErrors_dart_flushedUnit_constants() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source source = addSource("/lib.dart", createSource(//
+        "class A { const A(); }",
+        "const x = const [const A()];",
+        "f([p = const A()]) {}"));
+    assertNotNull(context.computeLibraryElement(source));
+    flushAstStructures(source);
+    int rehydrateCount = PerformanceStatistics.rehydrate.getCount();
+    AnalysisError[] errors = context.computeErrors(source);
+    assertLength(0, errors);
+    assertEquals(rehydrateCount + 1, PerformanceStatistics.rehydrate.getCount());
+  }
+
   public void test_computeErrors_dart_none() throws Exception {
     Source source = addSource("/lib.dart", "library lib;");
     AnalysisError[] errors = context.computeErrors(source);
@@ -401,6 +450,136 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertNotNull(element);
   }
 
+  public void test_computeLibraryElement_packageCycle() throws Exception {
+    PartitionManager manager = AnalysisEngine.getInstance().getPartitionManager();
+    File defaultPubCache = manager.getPubCacheDirectory();
+    try {
+      //
+      // A library outside the pub cache is in a cycle with a package in the pub cache, so resolving
+      // it builds the element model of a library in the shared package partition.
+      //
+      File pubCache = createTempDir("pub-cache").getCanonicalFile();
+      File packagesDirectory = new File(pubCache, "packages");
+      File packageDirectory = new File(packagesDirectory, "pkg");
+      File appDirectory = createTempDir("app").getCanonicalFile();
+      File appFile = new File(appDirectory, "app.dart");
+      assertTrue(packageDirectory.mkdirs());
+      Files.write(createSource(//
+          "library pkg;",
+          "import '" + appFile.toURI() + "';",
+          "class A extends B {}"), new File(packageDirectory, "pkg.dart"), Charsets.UTF_8);
+      Files.write(createSource(//
+          "library app;",
+          "import 'package:pkg/pkg.dart';",
+          "class B {}"), appFile, Charsets.UTF_8);
+      manager.setPubCacheDirectory(pubCache);
+      DartSdk sdk = DirectoryBasedDartSdk.getDefaultSdk();
+      final AnalysisContextImpl context = createContextWithPackages(sdk, packagesDirectory);
+      final Source source = new FileBasedSource(appFile);
+      context.computeLibraryElement(context.getSourceFactory().forUri(DartSdk.DART_CORE));
+      //
+      // While another context holds the lock of the package partition, the library cannot be
+      // resolved.
+      //
+      ReentrantLock packageLock = (ReentrantLock) manager.forPackages(
+          sdk,
+          context.getSourceFactory().getPackageDirectories(),
+          context.getAnalysisOptions()).getResolutionLock();
+      final LibraryElement[] library = new LibraryElement[1];
+      final Throwable[] failure = new Throwable[1];
+      Thread thread = new Thread() {
+        @Override
+        public void run() {
+          try {
+            library[0] = context.computeLibraryElement(source);
+          } catch (Throwable exception) {
+            failure[0] = exception;
+          }
+        }
+      };
+      packageLock.lock();
+      try {
+        thread.start();
+        while (thread.isAlive() && !packageLock.hasQueuedThread(thread)) {
+          Thread.sleep(1);
+        }
+        assertTrue(packageLock.hasQueuedThread(thread));
+      } finally {
+        packageLock.unlock();
+      }
+      thread.join();
+      assertNull(failure[0]);
+      assertNotNull(library[0]);
+    } finally {
+      manager.setPubCacheDirectory(defaultPubCache);
+      deleteTempDir();
+    }
+  }
+
+  public void test_computeLibraryElement_sharedSdk_concurrent() throws Exception {
+    //
+    // Resolve a library in each of several contexts that share an SDK that has not been resolved
+    // yet, each on its own thread.
+    //
+    DartSdk sdk = new DirectoryBasedDartSdk(DirectoryBasedDartSdk.getDefaultSdkDirectory());
+    final AnalysisContextImpl[] contexts = new AnalysisContextImpl[4];
+    final Source[] sources = new Source[contexts.length];
+    final LibraryElement[] libraries = new LibraryElement[contexts.length];
+    final Throwable[] failures = new Throwable[contexts.length];
+    Thread[] threads = new Thread[contexts.length];
+    for (int i = 0; i < contexts.length; i++) {
+      contexts[i] = new AnalysisContextImpl();
+      contexts[i].setSourceFactory(new SourceFactory(new DartUriResolver(sdk)));
+      sources[i] = new FileBasedSource(createFile("/test" + i + ".dart"));
+      ChangeSet changeSet = new ChangeSet();
+      changeSet.addedSource(sources[i]);
+      contexts[i].applyChanges(changeSet);
+      contexts[i].setContents(sources[i], createSource(//
+          "library test;",
+          "import 'dart:async';",
+          "Future<int> f() => new Future.value(0);"));
+      final int index = i;
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            libraries[index] = contexts[index].computeLibraryElement(sources[index]);
+          } catch (Throwable exception) {
+            failures[index] = exception;
+          }
+        }
+      };
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    //
+    // Every context uses the same elements for the SDK libraries.
+    //
+    Source coreSource = contexts[0].getSourceFactory().forUri(DartSdk.DART_CORE);
+    Source asyncSource = contexts[0].getSourceFactory().forUri("dart:async");
+    LibraryElement coreLibrary = contexts[0].getLibraryElement(coreSource);
+    LibraryElement asyncLibrary = contexts[0].getLibraryElement(asyncSource);
+    assertNotNull(coreLibrary);
+    assertNotNull(asyncLibrary);
+    for (int i = 0; i < contexts.length; i++) {
+      assertNull(failures[i]);
+      assertNotNull(libraries[i]);
+      assertSame(coreLibrary, contexts[i].getLibraryElement(coreSource));
+      assertSame(asyncLibrary, contexts[i].getLibraryElement(asyncSource));
+      for (LibraryElement importedLibrary : libraries[i].getImportedLibraries()) {
+        if (importedLibrary.getSource().equals(coreSource)) {
+          assertSame(coreLibrary, importedLibrary);
+        } else if (importedLibrary.getSource().equals(asyncSource)) {
+          assertSame(asyncLibrary, importedLibrary);
+        }
+      }
+    }
+  }
+
   public void test_computeLineInfo_dart() throws Exception {
     Source source = addSource("/test.dart", createSource("library lib;", "", "main() {}"));
     LineInfo info = context.computeLineInfo(source);
@@ -901,6 +1080,33 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertLength(0, statistics.getCacheRows());
     assertLength(0, statistics.getExceptions());
     assertLength(0, statistics.getSources());
+    assertLength(0, statistics.getTaskRecords());
+  }
+
+  public void test_getStatistics_taskRecords() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source source = addSource("/test.dart", "library lib; main() {}");
+    AnalysisProfiler profiler = AnalysisProfiler.getInstance();
+    profiler.clear();
+    profiler.setEnabled(true);
+    try {
+      analyzeAll_assertFinished();
+    } finally {
+      profiler.setEnabled(false);
+    }
+    TaskRecord[] records = context.getStatistics().getTaskRecords();
+    assertTrue(records.length > 0);
+    boolean foundParse = false;
+    for (TaskRecord record : records) {
+      assertSame(context, record.getContext());
+      assertTrue(record.getDurationNanos() >= 0);
+      if (record.getTaskName().equals("ParseDartTask") && source.equals(record.getSource())) {
+        foundParse = true;
+      }
+    }
+    assertTrue(foundParse);
+    profiler.clear();
   }
 
   public void test_isClientLibrary_dart() throws Exception {
@@ -1138,6 +1344,39 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertNotNull("part resolved 3", context.getResolvedCompilationUnit(partSource, libSource));
   }
 
+  public void test_performAnalysisTask_flushedUnit_rehydrated() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source libSource = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "part 'part.dart';",
+        "class A {}"));
+    Source partSource = addSource("/part.dart", createSource(//
+        "part of lib;",
+        "class B extends A {}"));
+    analyzeAll_assertFinished();
+    LibraryElement library = context.getLibraryElement(libSource);
+    flushAstStructures(libSource);
+    flushAstStructures(partSource);
+    assertNull(context.getResolvedCompilationUnit(partSource, library));
+    int rehydrateCount = PerformanceStatistics.rehydrate.getCount();
+    int resolveLibraryCount = PerformanceStatistics.resolveLibrary.getCount();
+    ArrayList<Source> sources = new ArrayList<Source>();
+    sources.add(partSource);
+    context.setAnalysisPriorityOrder(sources);
+    analyzeAll_assertFinished();
+    CompilationUnit unit = context.getResolvedCompilationUnit(partSource, library);
+    assertNotNull(unit);
+    assertSame(library, context.getLibraryElement(libSource));
+    ClassDeclaration classB = (ClassDeclaration) unit.getDeclarations().get(0);
+    assertSame(findClass(library.getParts()[0], "B"), classB.getElement());
+    assertSame(
+        findClass(library.getDefiningCompilationUnit(), "A"),
+        classB.getExtendsClause().getSuperclass().getName().getStaticElement());
+    assertEquals(rehydrateCount + 1, PerformanceStatistics.rehydrate.getCount());
+    assertEquals(resolveLibraryCount, PerformanceStatistics.resolveLibrary.getCount());
+  }
+
   public void test_performAnalysisTask_importedLibraryAdd() throws Exception {
     Source libASource = addSource("/libA.dart", "library libA; import 'libB.dart';");
     analyzeAll_assertFinished();
@@ -1232,6 +1471,44 @@ public class AnalysisContextImplTest extends EngineTestCase {
         context.getLibraryElement(source));
   }
 
+  public void test_resolveCompilationUnit_flushed_rehydrated() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source source = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "class A {}"));
+    LibraryElement library = context.computeLibraryElement(source);
+    assertNotNull(context.resolveCompilationUnit(source, library));
+    flushAstStructures(source);
+    int rehydrateCount = PerformanceStatistics.rehydrate.getCount();
+    int resolveLibraryCount = PerformanceStatistics.resolveLibrary.getCount();
+    CompilationUnit unit = context.resolveCompilationUnit(source, library);
+    assertNotNull(unit);
+    assertSame(library.getDefiningCompilationUnit(), unit.getElement());
+    assertSame(
+        findClass(library.getDefiningCompilationUnit(), "A"),
+        ((ClassDeclaration) unit.getDeclarations().get(0)).getElement());
+    assertSame(library, context.computeLibraryElement(source));
+    assertEquals(rehydrateCount + 1, PerformanceStatistics.rehydrate.getCount());
+    assertEquals(resolveLibraryCount, PerformanceStatistics.resolveLibrary.getCount());
+  }
+
+  public void test_resolveCompilationUnit_flushed_sourceChanged() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source source = addSource("/lib.dart", "library lib;");
+    assertNotNull(context.resolveCompilationUnit(source, source));
+    flushAstStructures(source);
+    context.setContents(source, "library lib; class A {}");
+    int rehydrateCount = PerformanceStatistics.rehydrate.getCount();
+    int resolveLibraryCount = PerformanceStatistics.resolveLibrary.getCount();
+    CompilationUnit unit = context.resolveCompilationUnit(source, source);
+    assertNotNull(unit);
+    assertNotNull(((ClassDeclaration) unit.getDeclarations().get(0)).getElement());
+    assertEquals(rehydrateCount, PerformanceStatistics.rehydrate.getCount());
+    assertEquals(resolveLibraryCount + 1, PerformanceStatistics.resolveLibrary.getCount());
+  }
+
   public void test_resolveCompilationUnit_library() throws Exception {
     context = AnalysisContextFactory.contextWithCore();
     sourceFactory = context.getSourceFactory();
@@ -1286,6 +1563,47 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertEquals(options.getHint(), result.getHint());
   }
 
+  public void test_setAnalysisOptions_packagesInPubCache() throws Exception {
+    PartitionManager manager = AnalysisEngine.getInstance().getPartitionManager();
+    File defaultPubCache = manager.getPubCacheDirectory();
+    try {
+      File pubCache = createTempDir("pub-cache").getCanonicalFile();
+      File packagesDirectory = new File(pubCache, "packages");
+      File packageDirectory = new File(packagesDirectory, "pkg");
+      assertTrue(packageDirectory.mkdirs());
+      Files.write(createSource(//
+          "library pkg;",
+          "class A {}"), new File(packageDirectory, "pkg.dart"), Charsets.UTF_8);
+      manager.setPubCacheDirectory(pubCache);
+      DartSdk sdk = DirectoryBasedDartSdk.getDefaultSdk();
+      AnalysisContextImpl context1 = createContextWithPackages(sdk, packagesDirectory);
+      Source source = context1.getSourceFactory().forUri("package:pkg/pkg.dart");
+      LibraryElement library = context1.computeLibraryElement(source);
+      assertNotNull(library);
+      //
+      // Contexts with different options do not share the results for the packages.
+      //
+      AnalysisContextImpl context2 = createContextWithPackages(sdk, packagesDirectory);
+      AnalysisOptionsImpl options = new AnalysisOptionsImpl(context2.getAnalysisOptions());
+      options.setEnableEnum(!options.getEnableEnum());
+      context2.setAnalysisOptions(options);
+      LibraryElement library2 = context2.computeLibraryElement(source);
+      assertNotNull(library2);
+      assertNotSame(library, library2);
+      //
+      // Changing the options of a context moves it to the partition for its new options.
+      //
+      context1.setAnalysisOptions(options);
+      assertSame(library2, context1.computeLibraryElement(source));
+      options.setEnableEnum(!options.getEnableEnum());
+      context2.setAnalysisOptions(options);
+      assertSame(library, context2.computeLibraryElement(source));
+    } finally {
+      manager.setPubCacheDirectory(defaultPubCache);
+      deleteTempDir();
+    }
+  }
+
   public void test_setAnalysisOptions_reduceAnalysisPriorityOrder() throws Exception {
     AnalysisOptionsImpl options = new AnalysisOptionsImpl(context.getAnalysisOptions());
     ArrayList<Source> sources = new ArrayList<Source>();
@@ -1428,6 +1746,118 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertNull(getIncrementalAnalysisCache(context));
   }
 
+  public void test_setResultStore() throws Exception {
+    try {
+      File directory = createTempDir("results");
+      File libraryFile = new File(directory, "lib.dart");
+      Files.write(createSource(//
+          "library lib;",
+          "part 'part.dart';",
+          "int a = b;"), libraryFile, Charsets.UTF_8);
+      File partFile = new File(directory, "part.dart");
+      Files.write(createSource(//
+          "part of lib;",
+          "int b = 'x';"), partFile, Charsets.UTF_8);
+      Source librarySource = new FileBasedSource(libraryFile);
+      Source partSource = new FileBasedSource(partFile);
+      File storeFile = new File(directory, "results.bin");
+      AnalysisResultStore store = new AnalysisResultStore(storeFile, "test");
+      context = createContextWithStore(store, librarySource, partSource);
+      analyzeAll_assertFinished();
+      AnalysisError[] errors = context.computeErrors(partSource);
+      assertLength(1, errors);
+      store.close();
+      //
+      // A new context restores the results rather than resolving the library.
+      //
+      store = new AnalysisResultStore(storeFile, "test");
+      context = createContextWithStore(store, librarySource, partSource);
+      analyzeAll_assertFinished();
+      assertNull(context.getLibraryElement(librarySource));
+      assertEqualsIgnoreOrder(errors, context.computeErrors(partSource));
+      assertSame(SourceKind.PART, context.getKindOf(partSource));
+      assertNotNull(context.computeLibraryElement(librarySource));
+      store.close();
+    } finally {
+      deleteTempDir();
+    }
+  }
+
+  public void test_setResultStore_changedImport() throws Exception {
+    try {
+      File directory = createTempDir("results");
+      File libraryFile = new File(directory, "lib.dart");
+      Files.write(createSource(//
+          "library lib;",
+          "import 'imported.dart';",
+          "String a = b;"), libraryFile, Charsets.UTF_8);
+      File importedFile = new File(directory, "imported.dart");
+      Files.write(createSource(//
+          "library imported;",
+          "int b = 0;"), importedFile, Charsets.UTF_8);
+      Source librarySource = new FileBasedSource(libraryFile);
+      Source importedSource = new FileBasedSource(importedFile);
+      File storeFile = new File(directory, "results.bin");
+      AnalysisResultStore store = new AnalysisResultStore(storeFile, "test");
+      context = createContextWithStore(store, librarySource, importedSource);
+      analyzeAll_assertFinished();
+      assertLength(1, context.computeErrors(librarySource));
+      store.close();
+      //
+      // After the imported library changes, the stored errors of the importing library are stale.
+      //
+      Files.write(createSource(//
+          "library imported;",
+          "String b = '';"), importedFile, Charsets.UTF_8);
+      store = new AnalysisResultStore(storeFile, "test");
+      context = createContextWithStore(store, librarySource, importedSource);
+      analyzeAll_assertFinished();
+      assertLength(0, context.computeErrors(librarySource));
+      assertNotNull(context.getLibraryElement(librarySource));
+      store.close();
+    } finally {
+      deleteTempDir();
+    }
+  }
+
+  public void test_setResultStore_changedPart() throws Exception {
+    try {
+      File directory = createTempDir("results");
+      File libraryFile = new File(directory, "lib.dart");
+      Files.write(createSource(//
+          "library lib;",
+          "part 'part.dart';",
+          "int a = b;"), libraryFile, Charsets.UTF_8);
+      File partFile = new File(directory, "part.dart");
+      Files.write(createSource(//
+          "part of lib;",
+          "int b = 'x';"), partFile, Charsets.UTF_8);
+      Source librarySource = new FileBasedSource(libraryFile);
+      Source partSource = new FileBasedSource(partFile);
+      File storeFile = new File(directory, "results.bin");
+      AnalysisResultStore store = new AnalysisResultStore(storeFile, "test");
+      context = createContextWithStore(store, librarySource, partSource);
+      analyzeAll_assertFinished();
+      assertLength(1, context.computeErrors(partSource));
+      store.close();
+      //
+      // After the part changes, the stored errors of the library are stale.
+      //
+      Files.write(createSource(//
+          "part of lib;",
+          "int b = 0;"), partFile, Charsets.UTF_8);
+      store = new AnalysisResultStore(storeFile, "test");
+      context = createContextWithStore(store, librarySource, partSource);
+      analyzeAll_assertFinished();
+      assertLength(0, context.computeErrors(partSource));
+      assertLength(0, context.computeErrors(librarySource));
+      assertNotNull(context.getLibraryElement(librarySource));
+      store.close();
+    } finally {
+      deleteTempDir();
+    }
+  }
+
   public void test_setSourceFactory() {
     assertEquals(sourceFactory, context.getSourceFactory());
     SourceFactory factory = new SourceFactory();
@@ -1435,6 +1865,49 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertEquals(factory, context.getSourceFactory());
   }
 
+  public void test_setSourceFactory_packagesInPubCache() throws Exception {
+    PartitionManager manager = AnalysisEngine.getInstance().getPartitionManager();
+    File defaultPubCache = manager.getPubCacheDirectory();
+    try {
+      File pubCache = createTempDir("pub-cache").getCanonicalFile();
+      File packagesDirectory = new File(pubCache, "packages");
+      File packageDirectory = new File(packagesDirectory, "pkg");
+      assertTrue(packageDirectory.mkdirs());
+      Files.write(createSource(//
+          "library pkg;",
+          "class A {}"), new File(packageDirectory, "pkg.dart"), Charsets.UTF_8);
+      manager.setPubCacheDirectory(pubCache);
+      DartSdk sdk = DirectoryBasedDartSdk.getDefaultSdk();
+      //
+      // Contexts that use the same packages in the pub cache share the results for them.
+      //
+      AnalysisContextImpl context1 = createContextWithPackages(sdk, packagesDirectory);
+      Source source = context1.getSourceFactory().forUri("package:pkg/pkg.dart");
+      LibraryElement library = context1.computeLibraryElement(source);
+      assertNotNull(library);
+      AnalysisContextImpl context2 = createContextWithPackages(sdk, packagesDirectory);
+      assertSame(library, context2.computeLibraryElement(source));
+      //
+      // Adding a source to one of the contexts does not invalidate the shared results.
+      //
+      ChangeSet changeSet = new ChangeSet();
+      changeSet.addedSource(new FileBasedSource(createFile("/test.dart")));
+      context2.applyChanges(changeSet);
+      assertSame(library, context1.getLibraryElement(source));
+      //
+      // Contexts that do not use the pub cache do not share results.
+      //
+      manager.setPubCacheDirectory(null);
+      AnalysisContextImpl context3 = createContextWithPackages(sdk, packagesDirectory);
+      LibraryElement library3 = context3.computeLibraryElement(source);
+      assertNotNull(library3);
+      assertNotSame(library, library3);
+    } finally {
+      manager.setPubCacheDirectory(defaultPubCache);
+      deleteTempDir();
+    }
+  }
+
   public void test_unreadableSource() throws Exception {
     context = AnalysisContextFactory.contextWithCore();
     sourceFactory = context.getSourceFactory();
@@ -1546,6 +2019,42 @@ public class AnalysisContextImplTest extends EngineTestCase {
     context.applyChanges(changeSet);
   }
 
+  /**
+   * Create a context that uses the given SDK and that resolves {@code package} URI's using the
+   * given packages directory.
+   * 
+   * @param sdk the SDK to be used by the context
+   * @param packagesDirectory the packages directory to be used by the context
+   * @return the context that was created
+   */
+  private AnalysisContextImpl createContextWithPackages(DartSdk sdk, File packagesDirectory) {
+    AnalysisContextImpl context = new AnalysisContextImpl();
+    context.setSourceFactory(new SourceFactory(
+        new DartUriResolver(sdk),
+        new PackageUriResolver(packagesDirectory),
+        new FileUriResolver()));
+    return context;
+  }
+
+  /**
+   * Create a context that uses the given result store and to which the given sources have been
+   * added without overriding their contents, so that they are read from disk.
+   * 
+   * @param store the result store to be used by the context
+   * @param sources the sources to be added to the context
+   * @return the context that was created
+   */
+  private AnalysisContextImpl createContextWithStore(AnalysisResultStore store, Source... sources) {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    context.setResultStore(store);
+    ChangeSet changeSet = new ChangeSet();
+    for (Source source : sources) {
+      changeSet.addedSource(source);
+    }
+    context.applyChanges(changeSet);
+    return context;
+  }
+
   /**
    * Search the given compilation unit for a class with the given name. Return the class with the
    * given name, or {@code null} if the class cannot be found.
@@ -1563,6 +2072,22 @@ public class AnalysisContextImplTest extends EngineTestCase {
     return null;
   }
 
+  /**
+   * Flush the AST structures associated with the given source from the cache, the way they are
+   * flushed when the cache is full.
+   * 
+   * @param source the source whose AST structures are to be flushed
+   */
+  private void flushAstStructures(Source source) throws Exception {
+    Field field = AnalysisContextImpl.class.getDeclaredField("cache");
+    field.setAccessible(true);
+    AnalysisCache cache = (AnalysisCache) field.get(context);
+    DartEntryImpl dartCopy = ((DartEntry) cache.get(source)).getWritableCopy();
+    dartCopy.flushAstStructures();
+    cache.put(source, dartCopy);
+    cache.removedAst(source);
+  }
+
   private IncrementalAnalysisCache getIncrementalAnalysisCache(AnalysisContextImpl context2)
       throws Exception {
     Field field = AnalysisContextImpl.class.getDeclaredField("incrementalAnalysisCache");
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2012, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.source.DirectoryBasedSourceContainer;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ChangeSetCoalescerTest extends EngineTestCase {
+  /**
+   * Instances of the class {@code RecordingContext} record the change sets applied to them.
+   */
+  private static class RecordingContext extends TestAnalysisContext {
+    private final ArrayList<ChangeSet> changeSets = new ArrayList<ChangeSet>();
+
+    @Override
+    public void applyChanges(ChangeSet changeSet) {
+      changeSets.add(changeSet);
+    }
+  }
+
+  /**
+   * Instances of the class {@code TestCoalescer} use a clock that is controlled by the test.
+   */
+  private static class TestCoalescer extends ChangeSetCoalescer {
+    private long time = 1000L;
+
+    public TestCoalescer() {
+      super(100L, 1000L);
+    }
+
+    @Override
+    protected long currentTime() {
+      return time;
+    }
+  }
+
+  public void test_addChanges_addedThenChanged() {
+    AnalysisContext context = new RecordingContext();
+    Source source = source("/project/a.dart");
+    ChangeSetCoalescer coalescer = new ChangeSetCoalescer();
+    coalescer.addChanges(context, added(source));
+    coalescer.addChanges(context, changed(source));
+    ChangeSet changeSet = onlyChangeSet(coalescer.takeChanges(), context);
+    assertSources(changeSet.getAddedSources(), source);
+    assertSources(changeSet.getChangedSources());
+    assertEquals(2, coalescer.getRecordedCount());
+    assertEquals(1, coalescer.getCollapsedCount());
+  }
+
+  public void test_addChanges_addedThenRemoved() {
+    AnalysisContext context = new RecordingContext();
+    Source source = source("/project/a.dart");
+    ChangeSetCoalescer coalescer = new ChangeSetCoalescer();
+    coalescer.addChanges(context, added(source));
+    coalescer.addChanges(context, removed(source));
+    ChangeSet changeSet = onlyChangeSet(coalescer.takeChanges(), context);
+    assertSources(changeSet.getAddedSources());
+    assertSources(changeSet.getRemovedSources(), source);
+  }
+
+  public void test_addChanges_changedContents() {
+    AnalysisContext context = new RecordingContext();
+    Source source = source("/project/a.dart");
+    ChangeSetCoalescer coalescer = new ChangeSetCoalescer();
+    coalescer.addChanges(context, changed(source));
+    ChangeSet contents = new ChangeSet();
+    contents.changedContent(source, "library a;");
+    coalescer.addChanges(context, contents);
+    List<ChangeSet> changeSets = coalescer.takeChanges().get(context);
+    assertSizeOfList(2, changeSets);
+    assertSources(changeSets.get(0).getChangedSources(), source);
+    assertSame(contents, changeSets.get(1));
+  }
+
+  public void test_addChanges_empty() {
+    ChangeSetCoalescer coalescer = new ChangeSetCoalescer();
+    coalescer.addChanges(new RecordingContext(), new ChangeSet());
+    assertTrue(coalescer.isEmpty());
+    assertEquals(-1L, coalescer.getDelay());
+  }
+
+  public void test_addChanges_removedContainer() {
+    AnalysisContext context = new RecordingContext();
+    Source inside = source("/project/lib/a.dart");
+    Source outside = source("/project/b.dart");
+    SourceContainer container = new DirectoryBasedSourceContainer(createFile("/project/lib"));
+    ChangeSetCoalescer coalescer = new ChangeSetCoalescer();
+    coalescer.addChanges(context, changed(inside));
+    coalescer.addChanges(context, changed(outside));
+    ChangeSet removal = new ChangeSet();
+    removal.removedContainer(container);
+    coalescer.addChanges(context, removal);
+    coalescer.addChanges(context, removed(inside));
+    ChangeSet changeSet = onlyChangeSet(coalescer.takeChanges(), context);
+    assertSources(changeSet.getChangedSources(), outside);
+    assertSources(changeSet.getRemovedSources());
+    assertEquals(1, changeSet.getRemovedContainers().size());
+    assertEquals(4, coalescer.getRecordedCount());
+    assertEquals(2, coalescer.getCollapsedCount());
+  }
+
+  public void test_addChanges_removedContainerThenAdded() {
+    AnalysisContext context = new RecordingContext();
+    Source source = source("/project/lib/a.dart");
+    SourceContainer container = new DirectoryBasedSourceContainer(createFile("/project/lib"));
+    ChangeSetCoalescer coalescer = new ChangeSetCoalescer();
+    ChangeSet removal = new ChangeSet();
+    removal.removedContainer(container);
+    coalescer.addChanges(context, removal);
+    coalescer.addChanges(context, added(source));
+    List<ChangeSet> changeSets = coalescer.takeChanges().get(context);
+    // The source must be added after the container is removed.
+    assertSizeOfList(2, changeSets);
+    assertEquals(1, changeSets.get(0).getRemovedContainers().size());
+    assertSources(changeSets.get(1).getAddedSources(), source);
+  }
+
+  public void test_addChanges_removedThenAdded() {
+    AnalysisContext context = new RecordingContext();
+    Source source = source("/project/a.dart");
+    ChangeSetCoalescer coalescer = new ChangeSetCoalescer();
+    coalescer.addChanges(context, removed(source));
+    coalescer.addChanges(context, changed(source));
+    ChangeSet changeSet = onlyChangeSet(coalescer.takeChanges(), context);
+    assertSources(changeSet.getAddedSources(), source);
+    assertSources(changeSet.getRemovedSources());
+  }
+
+  public void test_applyChanges_branchSwitch() {
+    //
+    // Simulate switching branches: one delta per file, in which most files are changed (some of
+    // them several times, as the files are written in pieces), some files are replaced by being
+    // removed and then added, some files are only on the old branch, some only on the new branch,
+    // and one directory only exists on the old branch.
+    //
+    RecordingContext context1 = new RecordingContext();
+    RecordingContext context2 = new RecordingContext();
+    ChangeSetCoalescer coalescer = new ChangeSetCoalescer();
+    ArrayList<Source> changedSources = new ArrayList<Source>();
+    ArrayList<Source> addedSources = new ArrayList<Source>();
+    ArrayList<Source> removedSources = new ArrayList<Source>();
+    int deltaCount = 0;
+    for (int i = 0; i < 1000; i++) {
+      RecordingContext context = i % 2 == 0 ? context1 : context2;
+      Source source = source("/project" + (i % 2) + "/lib/file" + i + ".dart");
+      switch (i % 5) {
+        case 0:
+          coalescer.addChanges(context, changed(source));
+          coalescer.addChanges(context, changed(source));
+          coalescer.addChanges(context, changed(source));
+          deltaCount += 3;
+          changedSources.add(source);
+          break;
+        case 1:
+          coalescer.addChanges(context, removed(source));
+          coalescer.addChanges(context, added(source));
+          coalescer.addChanges(context, changed(source));
+          deltaCount += 3;
+          addedSources.add(source);
+          break;
+        case 2:
+          coalescer.addChanges(context, removed(source));
+          deltaCount++;
+          removedSources.add(source);
+          break;
+        case 3:
+          coalescer.addChanges(context, added(source));
+          coalescer.addChanges(context, changed(source));
+          deltaCount += 2;
+          addedSources.add(source);
+          break;
+        default:
+          Source generated = source("/project" + (i % 2) + "/old/file" + i + ".dart");
+          coalescer.addChanges(context, changed(generated));
+          coalescer.addChanges(context, removed(generated));
+          deltaCount += 2;
+          break;
+      }
+    }
+    ChangeSet removal = new ChangeSet();
+    removal.removedContainer(new DirectoryBasedSourceContainer(createFile("/project0/old")));
+    coalescer.addChanges(context1, removal);
+    removal = new ChangeSet();
+    removal.removedContainer(new DirectoryBasedSourceContainer(createFile("/project1/old")));
+    coalescer.addChanges(context2, removal);
+    deltaCount += 2;
+
+    List<AnalysisContext> changedContexts = coalescer.applyChanges();
+    assertSizeOfList(2, changedContexts);
+    assertSame(context1, changedContexts.get(0));
+    assertSame(context2, changedContexts.get(1));
+    assertSizeOfList(1, context1.changeSets);
+    assertSizeOfList(1, context2.changeSets);
+    ArrayList<Source> appliedChanged = new ArrayList<Source>();
+    ArrayList<Source> appliedAdded = new ArrayList<Source>();
+    ArrayList<Source> appliedRemoved = new ArrayList<Source>();
+    int containerCount = 0;
+    for (RecordingContext context : new RecordingContext[] {context1, context2}) {
+      ChangeSet changeSet = context.changeSets.get(0);
+      appliedChanged.addAll(changeSet.getChangedSources());
+      appliedAdded.addAll(changeSet.getAddedSources());
+      appliedRemoved.addAll(changeSet.getRemovedSources());
+      containerCount += changeSet.getRemovedContainers().size();
+    }
+    assertSameElements(changedSources, appliedChanged);
+    assertSameElements(addedSources, appliedAdded);
+    assertSameElements(removedSources, appliedRemoved);
+    assertEquals(2, containerCount);
+    assertEquals(deltaCount, coalescer.getRecordedCount());
+    int appliedCount = appliedChanged.size() + appliedAdded.size() + appliedRemoved.size()
+        + containerCount;
+    assertEquals(deltaCount - appliedCount, coalescer.getCollapsedCount());
+    assertTrue(coalescer.isEmpty());
+  }
+
+  public void test_getDelay() {
+    TestCoalescer coalescer = new TestCoalescer();
+    AnalysisContext context = new RecordingContext();
+    assertEquals(-1L, coalescer.getDelay());
+    coalescer.addChanges(context, changed(source("/project/a.dart")));
+    assertEquals(100L, coalescer.getDelay());
+    coalescer.time += 60L;
+    assertEquals(40L, coalescer.getDelay());
+    //
+    // Each change restarts the quiet period, but not past the maximum delay.
+    //
+    for (int i = 0; i < 15; i++) {
+      coalescer.addChanges(context, changed(source("/project/b" + i + ".dart")));
+      coalescer.time += 60L;
+    }
+    assertEquals(40L, coalescer.getDelay());
+    coalescer.time += 60L;
+    assertEquals(0L, coalescer.getDelay());
+    coalescer.takeChanges();
+    assertEquals(-1L, coalescer.getDelay());
+  }
+
+  private ChangeSet added(Source source) {
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.addedSource(source);
+    return changeSet;
+  }
+
+  private void assertSameElements(List<Source> expected, List<Source> actual) {
+    assertEquals(expected.size(), actual.size());
+    assertTrue(actual.containsAll(expected));
+  }
+
+  private void assertSources(List<Source> actual, Source... expected) {
+    assertSizeOfList(expected.length, actual);
+    for (int i = 0; i < expected.length; i++) {
+      assertSame(expected[i], actual.get(i));
+    }
+  }
+
+  private ChangeSet changed(Source source) {
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.changedSource(source);
+    return changeSet;
+  }
+
+  private ChangeSet onlyChangeSet(Map<AnalysisContext, List<ChangeSet>> changes,
+      AnalysisContext context) {
+    assertSizeOfMap(1, changes);
+    List<ChangeSet> changeSets = changes.get(context);
+    assertSizeOfList(1, changeSets);
+    return changeSets.get(0);
+  }
+
+  private ChangeSet removed(Source source) {
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.removedSource(source);
+    return changeSet;
+  }
+
+  private Source source(String path) {
+    return new FileBasedSource(createFile(path));
+  }
+}
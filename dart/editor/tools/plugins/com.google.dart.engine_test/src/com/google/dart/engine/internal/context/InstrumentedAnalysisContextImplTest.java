@@ -33,6 +33,7 @@ import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.internal.element.angular.AngularApplication;
 import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.scope.ImportedNameTable;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.Source.ContentReceiver;
@@ -400,6 +401,20 @@ public class InstrumentedAnalysisContextImplTest extends EngineTestCase {
     assertTrue(invoked[0]);
   }
 
+  public void test_getImportedNameTable() {
+    final boolean[] invoked = {false};
+    InstrumentedAnalysisContextImpl context = new InstrumentedAnalysisContextImpl(
+        new TestAnalysisContext() {
+          @Override
+          public ImportedNameTable getImportedNameTable(LibraryElement library) {
+            invoked[0] = true;
+            return null;
+          }
+        });
+    context.getImportedNameTable(null);
+    assertTrue(invoked[0]);
+  }
+
   public void test_getKindOf() {
     final boolean[] invoked = {false};
     InstrumentedAnalysisContextImpl context = new InstrumentedAnalysisContextImpl(
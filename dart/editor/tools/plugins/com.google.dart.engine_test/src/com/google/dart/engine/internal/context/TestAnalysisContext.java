@@ -33,6 +33,7 @@ import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.internal.element.angular.AngularApplication;
 import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.scope.ImportedNameTable;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.Source.ContentReceiver;
@@ -211,6 +212,12 @@ public class TestAnalysisContext implements InternalAnalysisContext {
     return null;
   }
 
+  @Override
+  public ImportedNameTable getImportedNameTable(LibraryElement library) {
+    fail("Unexpected invocation of getImportedNameTable");
+    return null;
+  }
+
   @Override
   public SourceKind getKindOf(Source source) {
     fail("Unexpected invocation of getKindOf");
@@ -15,6 +15,7 @@ package com.google.dart.engine.internal.context;
 
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.internal.context.WorkManager.WorkIterator;
+import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.TestSource;
 
 import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
@@ -22,6 +23,32 @@ import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 import java.util.NoSuchElementException;
 
 public class WorkManagerTest extends EngineTestCase {
+  public void test_add_changePriority() {
+    TestSource source1 = new TestSource(createFile("/f1.dart"), "");
+    TestSource source2 = new TestSource(createFile("/f2.dart"), "");
+    WorkManager manager = new WorkManager();
+    manager.add(source1, SourcePriority.UNKNOWN);
+    manager.add(source2, SourcePriority.UNKNOWN);
+    manager.add(source2, SourcePriority.LIBRARY);
+    WorkIterator iterator = manager.iterator();
+    assertSame(source2, iterator.next());
+    assertSame(source1, iterator.next());
+    assertFalse(iterator.hasNext());
+  }
+
+  public void test_add_samePriority() {
+    TestSource source1 = new TestSource(createFile("/f1.dart"), "");
+    TestSource source2 = new TestSource(createFile("/f2.dart"), "");
+    WorkManager manager = new WorkManager();
+    manager.add(source1, SourcePriority.UNKNOWN);
+    manager.add(source2, SourcePriority.UNKNOWN);
+    manager.add(source1, SourcePriority.UNKNOWN);
+    WorkIterator iterator = manager.iterator();
+    assertSame(source1, iterator.next());
+    assertSame(source2, iterator.next());
+    assertFalse(iterator.hasNext());
+  }
+
   public void test_addFirst() {
     TestSource source1 = new TestSource(createFile("/f1.dart"), "");
     TestSource source2 = new TestSource(createFile("/f2.dart"), "");
@@ -33,10 +60,77 @@ public class WorkManagerTest extends EngineTestCase {
     assertSame(source1, iterator.next());
   }
 
+  public void test_block() {
+    TestSource source1 = new TestSource(createFile("/f1.dart"), "");
+    TestSource source2 = new TestSource(createFile("/f2.dart"), "");
+    WorkManager manager = new WorkManager();
+    manager.add(source1, SourcePriority.UNKNOWN);
+    manager.add(source2, SourcePriority.UNKNOWN);
+    assertFalse(manager.hasBlockedSources());
+    manager.block(source1);
+    assertTrue(manager.hasBlockedSources());
+    assertEqualsIgnoreOrder(new Source[] {source1}, manager.getBlockedSources());
+    WorkIterator iterator = manager.iterator();
+    assertSame(source2, iterator.next());
+    assertFalse(iterator.hasNext());
+  }
+
+  public void test_block_add() {
+    TestSource source = new TestSource();
+    WorkManager manager = new WorkManager();
+    manager.add(source, SourcePriority.UNKNOWN);
+    manager.block(source);
+    manager.add(source, SourcePriority.UNKNOWN);
+    assertFalse(manager.hasBlockedSources());
+    WorkIterator iterator = manager.iterator();
+    assertSame(source, iterator.next());
+  }
+
+  public void test_block_notAdded() {
+    WorkManager manager = new WorkManager();
+    manager.block(new TestSource());
+    assertFalse(manager.hasBlockedSources());
+    assertFalse(manager.iterator().hasNext());
+  }
+
+  public void test_block_remove() {
+    TestSource source = new TestSource();
+    WorkManager manager = new WorkManager();
+    manager.add(source, SourcePriority.UNKNOWN);
+    manager.block(source);
+    manager.remove(source);
+    assertFalse(manager.hasBlockedSources());
+    manager.unblock(source);
+    assertFalse(manager.iterator().hasNext());
+  }
+
   public void test_creation() {
     assertNotNull(new WorkManager());
   }
 
+  public void test_iterator_afterPriorityChange() {
+    int sourceCount = 10;
+    TestSource[] sources = new TestSource[sourceCount];
+    WorkManager manager = new WorkManager();
+    for (int i = 0; i < sourceCount; i++) {
+      sources[i] = new TestSource(createFile("/f" + i + ".dart"), "");
+      manager.add(sources[i], SourcePriority.UNKNOWN);
+    }
+    for (int i = 0; i < sourceCount; i++) {
+      manager.add(sources[i], i % 2 == 0 ? SourcePriority.LIBRARY : SourcePriority.NORMAL_PART);
+    }
+    // the libraries come first, then the parts, each in the order in which they were added
+    for (int i = 0; i < sourceCount; i++) {
+      WorkIterator iterator = manager.iterator();
+      assertTrue(iterator.hasNext());
+      Source source = iterator.next();
+      int index = i < sourceCount / 2 ? 2 * i : 2 * (i - sourceCount / 2) + 1;
+      assertSame(sources[index], source);
+      manager.remove(source);
+    }
+    assertFalse(manager.iterator().hasNext());
+  }
+
   public void test_iterator_empty() {
     WorkManager manager = new WorkManager();
     WorkIterator iterator = manager.iterator();
@@ -76,6 +170,14 @@ public class WorkManagerTest extends EngineTestCase {
     assertNotNull(manager.toString());
   }
 
+  public void test_toString_blocked() {
+    TestSource source = new TestSource();
+    WorkManager manager = new WorkManager();
+    manager.add(source, SourcePriority.UNKNOWN);
+    manager.block(source);
+    assertEquals("BLOCKED: " + source.getFullName(), manager.toString());
+  }
+
   public void test_toString_nonEmpty() {
     WorkManager manager = new WorkManager();
     manager.add(new TestSource(), SourcePriority.HTML);
@@ -85,4 +187,22 @@ public class WorkManagerTest extends EngineTestCase {
     manager.add(new TestSource(), SourcePriority.UNKNOWN);
     assertNotNull(manager.toString());
   }
+
+  public void test_unblock() {
+    TestSource source1 = new TestSource(createFile("/f1.dart"), "");
+    TestSource source2 = new TestSource(createFile("/f2.dart"), "");
+    TestSource source3 = new TestSource(createFile("/f3.dart"), "");
+    WorkManager manager = new WorkManager();
+    manager.add(source1, SourcePriority.LIBRARY);
+    manager.add(source2, SourcePriority.UNKNOWN);
+    manager.add(source3, SourcePriority.UNKNOWN);
+    manager.block(source3);
+    manager.unblock(source3);
+    assertFalse(manager.hasBlockedSources());
+    WorkIterator iterator = manager.iterator();
+    assertSame(source1, iterator.next());
+    assertSame(source3, iterator.next());
+    assertSame(source2, iterator.next());
+    assertFalse(iterator.hasNext());
+  }
 }
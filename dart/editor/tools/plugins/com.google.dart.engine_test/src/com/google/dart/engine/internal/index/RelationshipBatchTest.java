@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+
+import org.mockito.InOrder;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+public class RelationshipBatchTest extends EngineTestCase {
+  private final AnalysisContext contextA = mock(AnalysisContext.class);
+  private final AnalysisContext contextB = mock(AnalysisContext.class);
+  private final Source sourceA = mock(Source.class);
+  private final Source sourceB = mock(Source.class);
+  private final Source sourceC = mock(Source.class);
+  private final Element elementA = mock(Element.class);
+  private final Element elementB = mock(Element.class);
+  private final Element elementC = mock(Element.class);
+  private final Relationship relationshipA = Relationship.getRelationship("batch-relationship-A");
+  private final Relationship relationshipB = Relationship.getRelationship("batch-relationship-B");
+  private final Location locationA = new Location(elementA, 1, 2);
+  private final Location locationB = new Location(elementB, 3, 4);
+  private final Location locationC = new Location(elementC, 5, 6);
+  private final RelationshipBatch batch = new RelationshipBatch();
+
+  public void test_clear() throws Exception {
+    batch.recordRelationship(elementA, relationshipA, locationA);
+    batch.clear();
+    assertEquals(0, batch.size());
+    assertLength(0, batch.getRelationships(elementA, relationshipA));
+  }
+
+  public void test_commit() throws Exception {
+    batch.recordRelationship(elementA, relationshipA, locationA);
+    batch.recordRelationship(elementB, relationshipB, locationB);
+    batch.recordRelationship(elementA, relationshipB, locationB);
+    IndexStore store = mock(IndexStore.class);
+    batch.commit(store);
+    InOrder inOrder = inOrder(store);
+    inOrder.verify(store).recordRelationship(elementA, relationshipA, locationA);
+    inOrder.verify(store).recordRelationship(elementB, relationshipB, locationB);
+    inOrder.verify(store).recordRelationship(elementA, relationshipB, locationB);
+    verifyNoMoreInteractions(store);
+  }
+
+  public void test_creation() throws Exception {
+    assertEquals(0, batch.size());
+    assertTrue(batch.aboutToIndexDart(null, null));
+    assertTrue(batch.aboutToIndexHtml(null, null));
+  }
+
+  public void test_getRelationships() throws Exception {
+    batch.recordRelationship(elementA, relationshipA, locationA);
+    batch.recordRelationship(elementA, relationshipA, locationB);
+    batch.recordRelationship(elementA, relationshipB, locationB);
+    assertEquals("3 relationships", batch.getStatistics());
+    assertLength(2, batch.getRelationships(elementA, relationshipA));
+    assertLength(1, batch.getRelationships(elementA, relationshipB));
+    assertLength(0, batch.getRelationships(elementB, relationshipA));
+  }
+
+  public void test_recordRelationship_grow() throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      batch.recordRelationship(elementA, relationshipA, new Location(elementB, i, 1));
+    }
+    assertEquals(1000, batch.size());
+    Location[] locations = batch.getRelationships(elementA, relationshipA);
+    assertLength(1000, locations);
+    assertEquals(999, locations[999].getOffset());
+  }
+
+  public void test_recordRelationship_null() throws Exception {
+    batch.recordRelationship(null, relationshipA, locationA);
+    batch.recordRelationship(elementA, relationshipA, null);
+    assertEquals(0, batch.size());
+  }
+
+  public void test_removeContext() throws Exception {
+    batch.recordRelationship(elementA, relationshipA, locationA);
+    batch.recordRelationship(elementB, relationshipB, locationB);
+    batch.recordRelationship(elementC, relationshipA, locationA);
+    batch.recordRelationship(elementC, relationshipA, locationC);
+    batch.removeContext(contextA);
+    assertEquals(1, batch.size());
+    assertSame(locationC, batch.getRelationships(elementC, relationshipA)[0]);
+  }
+
+  public void test_removeContext_null() throws Exception {
+    batch.recordRelationship(elementA, relationshipA, locationA);
+    batch.removeContext(null);
+    assertEquals(1, batch.size());
+  }
+
+  public void test_removeSource() throws Exception {
+    batch.recordRelationship(elementA, relationshipA, locationA);
+    batch.recordRelationship(elementB, relationshipB, locationB);
+    batch.recordRelationship(elementC, relationshipA, locationA);
+    batch.recordRelationship(elementC, relationshipA, locationC);
+    batch.removeSource(contextA, sourceA);
+    assertEquals(2, batch.size());
+    assertLength(0, batch.getRelationships(elementA, relationshipA));
+    assertLength(1, batch.getRelationships(elementB, relationshipB));
+    assertSame(locationC, batch.getRelationships(elementC, relationshipA)[0]);
+  }
+
+  public void test_removeSource_otherContext() throws Exception {
+    batch.recordRelationship(elementA, relationshipA, locationA);
+    batch.removeSource(contextB, sourceA);
+    assertEquals(1, batch.size());
+  }
+
+  public void test_removeSources() throws Exception {
+    SourceContainer container = mock(SourceContainer.class);
+    when(container.contains(sourceB)).thenReturn(true);
+    batch.recordRelationship(elementA, relationshipA, locationA);
+    batch.recordRelationship(elementB, relationshipB, locationB);
+    batch.recordRelationship(elementA, relationshipA, locationB);
+    batch.recordRelationship(elementC, relationshipA, locationC);
+    batch.removeSources(contextA, container);
+    assertEquals(2, batch.size());
+    assertSame(locationA, batch.getRelationships(elementA, relationshipA)[0]);
+    assertSame(locationC, batch.getRelationships(elementC, relationshipA)[0]);
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    when(elementA.getContext()).thenReturn(contextA);
+    when(elementA.getSource()).thenReturn(sourceA);
+    when(elementB.getContext()).thenReturn(contextA);
+    when(elementB.getSource()).thenReturn(sourceB);
+    when(elementC.getContext()).thenReturn(contextB);
+    when(elementC.getSource()).thenReturn(sourceC);
+  }
+}
@@ -27,6 +27,7 @@ public class TestAll {
     suite.addTestSuite(IndexImplTest.class);
     suite.addTestSuite(MemoryIndexStoreImplTest.class);
     suite.addTestSuite(NameElementImplTest.class);
+    suite.addTestSuite(RelationshipBatchTest.class);
     suite.addTestSuite(UniverseElementImplTest.class);
     return suite;
   }
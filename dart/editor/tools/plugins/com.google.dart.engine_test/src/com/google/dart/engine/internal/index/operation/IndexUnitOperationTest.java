@@ -18,11 +18,15 @@ import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
 import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.internal.index.IndexContributor;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.logging.Logger;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Matchers.same;
@@ -60,7 +64,11 @@ public class IndexUnitOperationTest extends EngineTestCase {
   public void test_performOperation_aboutToIndex_false() throws Exception {
     when(store.aboutToIndexDart(context, unitElement)).thenReturn(false);
     operation.performOperation();
-    verify(unit, never()).accept(isA(IndexContributor.class));
+    verify(store, never()).recordRelationship(
+        any(Element.class),
+        any(Relationship.class),
+        any(Location.class));
+    verify(store, never()).doneIndex();
   }
 
   public void test_performOperation_whenException() throws Exception {
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.scope;
+
+import com.google.dart.engine.element.ImportElement;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.internal.element.LibraryElementImpl;
+import com.google.dart.engine.resolver.ResolverTestCase;
+import com.google.dart.engine.source.SourceFactory;
+
+import static com.google.dart.engine.element.ElementFactory.importFor;
+
+public class ImportedNameTableCacheTest extends ResolverTestCase {
+  private AnalysisContextImpl context;
+
+  private LibraryElementImpl importedLibrary;
+
+  private ImportedNameTableCache cache;
+
+  public void test_clear() {
+    LibraryElementImpl library = createImportingLibrary("importing");
+    ImportedNameTable table = cache.getTable(library);
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertNotSame(table, cache.getTable(library));
+  }
+
+  public void test_getTable() {
+    LibraryElementImpl library = createImportingLibrary("importing");
+    ImportedNameTable table = cache.getTable(library);
+    assertSame(table, cache.getTable(library));
+    assertEquals(1, cache.size());
+  }
+
+  public void test_getTable_bounded() {
+    LibraryElementImpl firstLibrary = createImportingLibrary("importing0");
+    ImportedNameTable firstTable = cache.getTable(firstLibrary);
+    for (int i = 1; i <= 64; i++) {
+      cache.getTable(createImportingLibrary("importing" + i));
+    }
+    assertEquals(64, cache.size());
+    // the least recently used table was discarded
+    assertNotSame(firstTable, cache.getTable(firstLibrary));
+  }
+
+  @Override
+  public void setUp() {
+    super.setUp();
+    context = new AnalysisContextImpl();
+    context.setSourceFactory(new SourceFactory());
+    importedLibrary = createTestLibrary(context, "imported");
+    cache = new ImportedNameTableCache();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    context = null;
+    importedLibrary = null;
+    cache = null;
+    super.tearDown();
+  }
+
+  private LibraryElementImpl createImportingLibrary(String name) {
+    LibraryElementImpl library = createTestLibrary(context, name);
+    library.setImports(new ImportElement[] {importFor(importedLibrary, null)});
+    return library;
+  }
+}
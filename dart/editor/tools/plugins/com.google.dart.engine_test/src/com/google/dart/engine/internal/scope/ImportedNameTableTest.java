@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.scope;
+
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ImportElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.NamespaceCombinator;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.internal.element.CompilationUnitElementImpl;
+import com.google.dart.engine.internal.element.HideElementCombinatorImpl;
+import com.google.dart.engine.internal.element.LibraryElementImpl;
+import com.google.dart.engine.internal.element.MultiplyDefinedElementImpl;
+import com.google.dart.engine.resolver.ResolverTestCase;
+import com.google.dart.engine.source.SourceFactory;
+
+import static com.google.dart.engine.element.ElementFactory.classElement;
+import static com.google.dart.engine.element.ElementFactory.importFor;
+import static com.google.dart.engine.element.ElementFactory.prefix;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ImportedNameTableTest extends ResolverTestCase {
+  private AnalysisContext context;
+
+  private ClassElement typeA;
+
+  private ClassElement typeB1;
+
+  private ClassElement typeB2;
+
+  private LibraryElement importedLibrary1;
+
+  private LibraryElement importedLibrary2;
+
+  public void test_forLibrary_cached() {
+    LibraryElementImpl importingLibrary = createTestLibrary(context, "importing");
+    importingLibrary.setImports(new ImportElement[] {
+        importFor(importedLibrary1, null), importFor(importedLibrary2, prefix("p"))});
+    ImportedNameTable table = ImportedNameTable.forLibrary(importingLibrary);
+    assertSame(table, ImportedNameTable.forLibrary(importingLibrary));
+    // a new element for the same library, with the same imports
+    LibraryElementImpl newImportingLibrary = createTestLibrary(context, "importing");
+    newImportingLibrary.setImports(new ImportElement[] {
+        importFor(importedLibrary1, null), importFor(importedLibrary2, prefix("p"))});
+    assertSame(table, ImportedNameTable.forLibrary(newImportingLibrary));
+  }
+
+  public void test_forLibrary_changedImports() {
+    LibraryElementImpl importingLibrary = createTestLibrary(context, "importing");
+    importingLibrary.setImports(new ImportElement[] {importFor(importedLibrary1, null)});
+    ImportedNameTable table = ImportedNameTable.forLibrary(importingLibrary);
+    // different combinators
+    importingLibrary.setImports(new ImportElement[] {importFor(
+        importedLibrary1,
+        null,
+        hide("A"))});
+    ImportedNameTable hideTable = ImportedNameTable.forLibrary(importingLibrary);
+    assertNotSame(table, hideTable);
+    assertNull(hideTable.lookup("A", context));
+    // different prefix
+    importingLibrary.setImports(new ImportElement[] {importFor(importedLibrary1, prefix("p"))});
+    ImportedNameTable prefixTable = ImportedNameTable.forLibrary(importingLibrary);
+    assertNotSame(hideTable, prefixTable);
+    assertNull(prefixTable.lookup("A", context));
+    assertSame(typeA, prefixTable.lookup("p.A", context));
+    // a new element for the imported library
+    LibraryElementImpl newImportedLibrary = createTestLibrary(context, "imported1");
+    importingLibrary.setImports(new ImportElement[] {importFor(newImportedLibrary, prefix("p"))});
+    assertNotSame(prefixTable, ImportedNameTable.forLibrary(importingLibrary));
+  }
+
+  public void test_forLibrary_noContext() {
+    LibraryElementImpl importingLibrary = createTestLibrary(context, "importing");
+    importingLibrary.setImports(new ImportElement[] {importFor(importedLibrary1, null)});
+    LibraryElement library = mock(LibraryElement.class);
+    when(library.getImports()).thenReturn(importingLibrary.getImports());
+    ImportedNameTable table = ImportedNameTable.forLibrary(library);
+    assertNotSame(table, ImportedNameTable.forLibrary(library));
+    assertSame(typeA, table.lookup("A", context));
+  }
+
+  public void test_forLibrary_otherContext() {
+    LibraryElementImpl importingLibrary = createTestLibrary(context, "importing");
+    importingLibrary.setImports(new ImportElement[] {importFor(importedLibrary1, null)});
+    ImportedNameTable table = ImportedNameTable.forLibrary(importingLibrary);
+    // the same library and imports, in a different context
+    AnalysisContextImpl otherContext = new AnalysisContextImpl();
+    otherContext.setSourceFactory(new SourceFactory());
+    LibraryElementImpl otherImportingLibrary = createTestLibrary(otherContext, "importing");
+    otherImportingLibrary.setImports(new ImportElement[] {importFor(importedLibrary1, null)});
+    assertNotSame(table, ImportedNameTable.forLibrary(otherImportingLibrary));
+    assertSame(table, ImportedNameTable.forLibrary(importingLibrary));
+  }
+
+  public void test_lookup() {
+    LibraryElementImpl importingLibrary = createTestLibrary(context, "importing");
+    importingLibrary.setImports(new ImportElement[] {
+        importFor(importedLibrary1, null), importFor(importedLibrary2, null)});
+    ImportedNameTable table = ImportedNameTable.forLibrary(importingLibrary);
+    assertSame(typeA, table.lookup("A", context));
+    assertNull(table.lookup("C", context));
+    Element element = table.lookup("B", context);
+    assertInstanceOf(MultiplyDefinedElementImpl.class, element);
+    assertSame(context, element.getContext());
+    assertEqualsIgnoreOrder(
+        new Element[] {typeB1, typeB2},
+        ((MultiplyDefinedElementImpl) element).getConflictingElements());
+    // each lookup of a conflicting name returns a new element
+    assertNotSame(element, table.lookup("B", context));
+  }
+
+  @Override
+  public void setUp() {
+    super.setUp();
+    context = new AnalysisContextImpl();
+    context.setSourceFactory(new SourceFactory());
+    typeA = classElement("A");
+    typeB1 = classElement("B");
+    typeB2 = classElement("B");
+    importedLibrary1 = createTestLibrary(context, "imported1");
+    ((CompilationUnitElementImpl) importedLibrary1.getDefiningCompilationUnit()).setTypes(new ClassElement[] {
+        typeA, typeB1});
+    importedLibrary2 = createTestLibrary(context, "imported2");
+    ((CompilationUnitElementImpl) importedLibrary2.getDefiningCompilationUnit()).setTypes(new ClassElement[] {typeB2});
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    context = null;
+    typeA = null;
+    typeB1 = null;
+    typeB2 = null;
+    importedLibrary1 = null;
+    importedLibrary2 = null;
+    super.tearDown();
+  }
+
+  private NamespaceCombinator hide(String... names) {
+    HideElementCombinatorImpl combinator = new HideElementCombinatorImpl();
+    combinator.setHiddenNames(names);
+    return combinator;
+  }
+}
@@ -22,6 +22,8 @@ public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(EnclosedScopeTest.class);
+    suite.addTestSuite(ImportedNameTableCacheTest.class);
+    suite.addTestSuite(ImportedNameTableTest.class);
     suite.addTestSuite(LibraryImportScopeTest.class);
     suite.addTestSuite(LibraryScopeTest.class);
     suite.addTestSuite(ScopeBuilderTest.class);
@@ -22,6 +22,7 @@ import junit.framework.TestCase;
 import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Map;
 
 public class PackageUriResolverTest extends TestCase {
   public void test_absolute_vs_canonical() throws Exception {
@@ -53,6 +54,60 @@ public class PackageUriResolverTest extends TestCase {
     assertEquals(createFile("/does/not/exist.dart").getAbsolutePath(), result.getFullName());
   }
 
+  public void test_getPackageDirectories() throws Exception {
+    if (!FileUtilities2.isSymLinkSupported()) {
+      System.out.println("Skipping " + getClass().getSimpleName() + " test_getPackageDirectories");
+      return;
+    }
+
+    File lib1Dir = FileUtilities2.createTempDir("pkg1/lib").getCanonicalFile();
+    File packagesDir = FileUtilities2.createTempDir("pkg1/packages").getCanonicalFile();
+    File lib2Dir = FileUtilities2.createTempDir("pkg2/lib").getCanonicalFile();
+    File otherPackagesDir = FileUtilities2.createTempDir("other/packages").getCanonicalFile();
+    File lib3Dir = FileUtilities2.createTempDir("pkg3/lib").getCanonicalFile();
+
+    // Create symlinks packages/pkg1 --> lib1 and packages/pkg2 --> lib2
+    FileUtilities2.createSymLink(lib1Dir, new File(packagesDir, "pkg1"));
+    FileUtilities2.createSymLink(lib2Dir, new File(packagesDir, "pkg2"));
+
+    // Create symlinks other/packages/pkg2 --> lib3 and other/packages/pkg3 --> lib3
+    FileUtilities2.createSymLink(lib3Dir, new File(otherPackagesDir, "pkg2"));
+    FileUtilities2.createSymLink(lib3Dir, new File(otherPackagesDir, "pkg3"));
+
+    PackageUriResolver resolver = new PackageUriResolver(packagesDir, otherPackagesDir);
+    Map<String, File> directories = resolver.getPackageDirectories();
+
+    // The application itself is not included, and the first directory containing pkg2 is used
+    assertEquals(2, directories.size());
+    assertEquals(lib2Dir, directories.get("pkg2"));
+    assertEquals(lib3Dir, directories.get("pkg3"));
+  }
+
+  public void test_getPackageDirectories_cached() throws Exception {
+    if (!FileUtilities2.isSymLinkSupported()) {
+      System.out.println("Skipping " + getClass().getSimpleName()
+          + " test_getPackageDirectories_cached");
+      return;
+    }
+
+    File lib1Dir = FileUtilities2.createTempDir("pkg1/lib").getCanonicalFile();
+    File packagesDir = FileUtilities2.createTempDir("app/packages").getCanonicalFile();
+    File lib2Dir = FileUtilities2.createTempDir("pkg2/lib").getCanonicalFile();
+    FileUtilities2.createSymLink(lib1Dir, new File(packagesDir, "pkg1"));
+
+    PackageUriResolver resolver = new PackageUriResolver(packagesDir);
+    Map<String, File> directories = resolver.getPackageDirectories();
+    assertEquals(1, directories.size());
+    assertSame(directories, resolver.getPackageDirectories());
+
+    // Linking a package changes the modification stamp of the packages directory
+    FileUtilities2.createSymLink(lib2Dir, new File(packagesDir, "pkg2"));
+    packagesDir.setLastModified(packagesDir.lastModified() + 1000);
+    directories = resolver.getPackageDirectories();
+    assertEquals(2, directories.size());
+    assertEquals(lib2Dir, directories.get("pkg2"));
+  }
+
   public void test_isPackageUri_null_scheme() throws Exception {
     URI uri = new URI("foo.dart");
     assertNull(uri.getScheme());
@@ -24,6 +24,7 @@ public class TestAll {
     suite.addTest(com.google.dart.engine.utilities.ast.TestAll.suite());
     suite.addTest(com.google.dart.engine.utilities.collection.TestAll.suite());
     suite.addTest(com.google.dart.engine.utilities.general.TestAll.suite());
+    suite.addTest(com.google.dart.engine.utilities.instrumentation.TestAll.suite());
     suite.addTest(com.google.dart.engine.utilities.io.TestAll.suite());
     suite.addTest(com.google.dart.engine.utilities.os.TestAll.suite());
     suite.addTest(com.google.dart.engine.utilities.source.TestAll.suite());
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2012, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.utilities.collection;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class PathTrieTest extends TestCase {
+  public void test_add() {
+    PathTrie trie = new PathTrie();
+    assertTrue(trie.add("/a/b"));
+    assertTrue(trie.add("/a/c"));
+    assertTrue(trie.add("/a"));
+    assertFalse(trie.add("/a/b"));
+    assertEquals(3, trie.size());
+    assertFalse(trie.isEmpty());
+  }
+
+  public void test_clear() {
+    PathTrie trie = new PathTrie();
+    trie.add("/a/b");
+    trie.add("");
+    trie.clear();
+    assertTrue(trie.isEmpty());
+    assertFalse(trie.containsPrefixOf("/a/b"));
+  }
+
+  public void test_containsPrefixOf() {
+    PathTrie trie = new PathTrie();
+    trie.add("/a/b/");
+    trie.add("/c/d/");
+    assertTrue(trie.containsPrefixOf("/a/b/x.dart"));
+    assertTrue(trie.containsPrefixOf("/c/d/e/f.dart"));
+    assertFalse(trie.containsPrefixOf("/a/bc/x.dart"));
+    assertFalse(trie.containsPrefixOf("/a/b"));
+    assertFalse(trie.containsPrefixOf("/c/x.dart"));
+    assertFalse(trie.containsPrefixOf(""));
+  }
+
+  public void test_containsPrefixOf_empty() {
+    PathTrie trie = new PathTrie();
+    assertFalse(trie.containsPrefixOf("/a"));
+    trie.add("");
+    assertTrue(trie.containsPrefixOf("/a"));
+  }
+
+  public void test_containsPrefixOf_separator() {
+    PathTrie trie = new PathTrie();
+    trie.add("/a/b");
+    assertTrue(trie.containsPrefixOf("/a/b", '/'));
+    assertTrue(trie.containsPrefixOf("/a/b/c", '/'));
+    assertFalse(trie.containsPrefixOf("/a/bc", '/'));
+    assertFalse(trie.containsPrefixOf("/a", '/'));
+  }
+
+  public void test_creation() {
+    PathTrie trie = new PathTrie();
+    assertEquals(0, trie.size());
+    assertTrue(trie.isEmpty());
+  }
+
+  public void test_getPathsStartingWith() {
+    PathTrie trie = new PathTrie();
+    trie.add("/a/b");
+    trie.add("/a/bc");
+    trie.add("/a/c");
+    trie.add("/d");
+    assertPaths(trie.getPathsStartingWith("/a/b"), "/a/b", "/a/bc");
+    assertPaths(trie.getPathsStartingWith("/a/"), "/a/b", "/a/bc", "/a/c");
+    assertPaths(trie.getPathsStartingWith("/a/bc"), "/a/bc");
+    assertPaths(trie.getPathsStartingWith("/a/bcd"));
+    assertPaths(trie.getPathsStartingWith("/e"));
+    assertPaths(trie.getPathsStartingWith(""), "/a/b", "/a/bc", "/a/c", "/d");
+  }
+
+  public void test_getPrefixesOf() {
+    PathTrie trie = new PathTrie();
+    trie.add("/a");
+    trie.add("/a/b");
+    trie.add("/a/bc");
+    trie.add("/a/c");
+    assertPaths(trie.getPrefixesOf("/a/bcd"), "/a", "/a/b", "/a/bc");
+    assertPaths(trie.getPrefixesOf("/a/c"), "/a", "/a/c");
+    assertPaths(trie.getPrefixesOf("/b"));
+  }
+
+  public void test_matchesStartsWith_random() {
+    Random random = new Random(0);
+    PathTrie trie = new PathTrie();
+    List<String> paths = new ArrayList<String>();
+    for (int i = 0; i < 2000; i++) {
+      String path = randomPath(random);
+      if (random.nextInt(3) == 0) {
+        assertEquals(paths.remove(path), trie.remove(path));
+      } else {
+        assertEquals(!paths.contains(path), trie.add(path));
+        if (!paths.contains(path)) {
+          paths.add(path);
+        }
+      }
+      assertEquals(paths.size(), trie.size());
+      String candidate = randomPath(random);
+      boolean expected = false;
+      for (String prefix : paths) {
+        if (candidate.startsWith(prefix)) {
+          expected = true;
+        }
+      }
+      assertEquals(candidate, expected, trie.containsPrefixOf(candidate));
+    }
+  }
+
+  public void test_remove() {
+    PathTrie trie = new PathTrie();
+    trie.add("/a/b");
+    trie.add("/a/bc");
+    trie.add("/a/c");
+    assertFalse(trie.remove("/a"));
+    assertFalse(trie.remove("/a/bcd"));
+    assertTrue(trie.remove("/a/b"));
+    assertFalse(trie.remove("/a/b"));
+    assertEquals(2, trie.size());
+    assertFalse(trie.containsPrefixOf("/a/b"));
+    assertTrue(trie.containsPrefixOf("/a/bc"));
+    assertTrue(trie.remove("/a/bc"));
+    assertTrue(trie.remove("/a/c"));
+    assertTrue(trie.isEmpty());
+    assertTrue(trie.add("/a/b"));
+    assertTrue(trie.containsPrefixOf("/a/b/c"));
+  }
+
+  private void assertPaths(List<String> actual, String... expected) {
+    List<String> sorted = new ArrayList<String>(actual);
+    Collections.sort(sorted);
+    assertEquals(expected.length, sorted.size());
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], sorted.get(i));
+    }
+  }
+
+  private String randomPath(Random random) {
+    StringBuilder builder = new StringBuilder();
+    int segmentCount = 1 + random.nextInt(3);
+    for (int i = 0; i < segmentCount; i++) {
+      builder.append('/');
+      builder.append("abc".charAt(random.nextInt(3)));
+      if (random.nextBoolean()) {
+        builder.append("ab".charAt(random.nextInt(2)));
+      }
+    }
+    return builder.toString();
+  }
+}
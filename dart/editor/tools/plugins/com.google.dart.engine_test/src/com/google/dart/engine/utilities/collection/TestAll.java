@@ -27,6 +27,7 @@ public class TestAll {
     suite.addTestSuite(IntStackTest.class);
     suite.addTestSuite(ListUtilitiesTest.class);
     suite.addTestSuite(MultipleMapIteratorTest.class);
+    suite.addTestSuite(PathTrieTest.class);
     suite.addTestSuite(SingleMapIteratorTest.class);
     suite.addTestSuite(TokenMapTest.class);
     return suite;
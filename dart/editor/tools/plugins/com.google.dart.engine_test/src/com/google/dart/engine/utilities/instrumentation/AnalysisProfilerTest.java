@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.utilities.instrumentation;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.internal.context.TestAnalysisContext;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.TestSource;
+import com.google.dart.engine.utilities.instrumentation.AnalysisProfiler.SourceProfile;
+import com.google.dart.engine.utilities.instrumentation.AnalysisProfiler.TaskRecord;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+public class AnalysisProfilerTest extends EngineTestCase {
+  public void test_clear() {
+    AnalysisProfiler profiler = new AnalysisProfiler(4);
+    profiler.record("ParseDartTask", null, null, null, 1L, 1L);
+    profiler.clear();
+    assertLength(0, profiler.getRecords());
+  }
+
+  public void test_creation() {
+    AnalysisProfiler profiler = new AnalysisProfiler(4);
+    assertFalse(profiler.isEnabled());
+    assertLength(0, profiler.getRecords());
+  }
+
+  public void test_creation_invalidCapacity() {
+    try {
+      new AnalysisProfiler(0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException exception) {
+      // Expected
+    }
+  }
+
+  public void test_getRecords_context() {
+    AnalysisContext firstContext = new TestAnalysisContext();
+    AnalysisContext secondContext = new TestAnalysisContext();
+    AnalysisProfiler profiler = new AnalysisProfiler(4);
+    profiler.record("ParseDartTask", firstContext, null, null, 1L, 1L);
+    profiler.record("ParseDartTask", secondContext, null, null, 2L, 1L);
+    profiler.record("ScanDartTask", firstContext, null, null, 3L, 1L);
+    TaskRecord[] records = profiler.getRecords(firstContext);
+    assertLength(2, records);
+    assertEquals(1L, records[0].getDurationNanos());
+    assertEquals(3L, records[1].getDurationNanos());
+  }
+
+  public void test_getSlowestSources() {
+    Source first = new TestSource(createFile("/first.dart"), "");
+    Source second = new TestSource(createFile("/second.dart"), "");
+    AnalysisProfiler profiler = new AnalysisProfiler(8);
+    profiler.record("ParseDartTask", null, first, null, 10L, 100L);
+    profiler.record("ParseDartTask", null, second, null, 15L, 100L);
+    profiler.record("ResolveDartLibraryTask", null, first, first, 20L, -1L);
+    profiler.record("WaitForAsyncTask", null, null, null, 50L, 0L);
+    SourceProfile[] profiles = AnalysisProfiler.getSlowestSources(profiler.getRecords(), 10, false);
+    assertLength(2, profiles);
+    assertSame(first, profiles[0].getSource());
+    assertEquals(30L, profiles[0].getDurationNanos());
+    assertEquals(2, profiles[0].getTaskCount());
+    assertEquals(-1L, profiles[0].getAllocatedBytes());
+    assertSame(second, profiles[1].getSource());
+    assertEquals(100L, profiles[1].getAllocatedBytes());
+  }
+
+  public void test_getSlowestSources_count() {
+    Source first = new TestSource(createFile("/first.dart"), "");
+    Source second = new TestSource(createFile("/second.dart"), "");
+    AnalysisProfiler profiler = new AnalysisProfiler(8);
+    profiler.record("ParseDartTask", null, first, null, 10L, 0L);
+    profiler.record("ParseDartTask", null, second, null, 15L, 0L);
+    SourceProfile[] profiles = AnalysisProfiler.getSlowestSources(profiler.getRecords(), 1, false);
+    assertLength(1, profiles);
+    assertSame(second, profiles[0].getSource());
+  }
+
+  public void test_getSlowestSources_libraries() {
+    Source library = new TestSource(createFile("/library.dart"), "");
+    Source part = new TestSource(createFile("/part.dart"), "");
+    AnalysisProfiler profiler = new AnalysisProfiler(8);
+    profiler.record("ParseDartTask", null, part, null, 10L, 0L);
+    profiler.record("ResolveDartUnitTask", null, part, library, 15L, 0L);
+    profiler.record("GenerateDartHintsTask", null, library, library, 5L, 0L);
+    SourceProfile[] profiles = AnalysisProfiler.getSlowestSources(profiler.getRecords(), 10, true);
+    assertLength(1, profiles);
+    assertSame(library, profiles[0].getSource());
+    assertEquals(20L, profiles[0].getDurationNanos());
+  }
+
+  public void test_record_overflow() {
+    AnalysisProfiler profiler = new AnalysisProfiler(3);
+    for (int i = 0; i < 5; i++) {
+      profiler.record("ParseDartTask", null, null, null, i, 0L);
+    }
+    TaskRecord[] records = profiler.getRecords();
+    assertLength(3, records);
+    assertEquals(2L, records[0].getDurationNanos());
+    assertEquals(3L, records[1].getDurationNanos());
+    assertEquals(4L, records[2].getDurationNanos());
+  }
+
+  public void test_setEnabled() {
+    AnalysisProfiler profiler = new AnalysisProfiler(4);
+    profiler.setEnabled(true);
+    assertTrue(profiler.isEnabled());
+    profiler.setEnabled(false);
+    assertFalse(profiler.isEnabled());
+  }
+}
@@ -45,6 +45,38 @@ public class LineInfoTest extends TestCase {
     assertEquals(5, location.getColumnNumber());
   }
 
+  public void test_getLocation_singleLine() {
+    LineInfo info = new LineInfo(new int[] {0});
+    assertLocation(1, 8, info.getLocation(7));
+  }
+
+  public void test_getLocations_empty() {
+    LineInfo info = new LineInfo(new int[] {0, 12, 34});
+    assertEquals(0, info.getLocations(new int[0]).length);
+  }
+
+  public void test_getLocations_sorted() {
+    LineInfo info = new LineInfo(new int[] {0, 12, 34});
+    LineInfo.Location[] locations = info.getLocations(new int[] {0, 4, 12, 12, 33, 34, 50});
+    assertEquals(7, locations.length);
+    assertLocation(1, 1, locations[0]);
+    assertLocation(1, 5, locations[1]);
+    assertLocation(2, 1, locations[2]);
+    assertLocation(2, 1, locations[3]);
+    assertLocation(2, 22, locations[4]);
+    assertLocation(3, 1, locations[5]);
+    assertLocation(3, 17, locations[6]);
+  }
+
+  public void test_getLocations_unsorted() {
+    LineInfo info = new LineInfo(new int[] {0, 12, 34});
+    LineInfo.Location[] locations = info.getLocations(new int[] {36, 4, 20});
+    assertEquals(3, locations.length);
+    assertLocation(3, 3, locations[0]);
+    assertLocation(1, 5, locations[1]);
+    assertLocation(2, 9, locations[2]);
+  }
+
   public void test_lastLine() {
     LineInfo info = new LineInfo(new int[] {0, 12, 34});
     LineInfo.Location location = info.getLocation(36);
@@ -58,4 +90,9 @@ public class LineInfoTest extends TestCase {
     assertEquals(2, location.getLineNumber());
     assertEquals(1, location.getColumnNumber());
   }
+
+  private void assertLocation(int lineNumber, int columnNumber, LineInfo.Location location) {
+    assertEquals(lineNumber, location.getLineNumber());
+    assertEquals(columnNumber, location.getColumnNumber());
+  }
 }
@@ -14,25 +14,177 @@
 package com.google.dart.server.internal.remote;
 
 import com.google.common.base.Charsets;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.PrintStream;
+import java.io.Reader;
 
 /**
  * An {@link InputStream} based implementation of {@link ResponseStream}. Each line must contain
  * exactly one complete JSON object.
+ * <p>
+ * Responses are parsed directly from the UTF-8 bytes of the stream, without first reading each
+ * line into a {@link String}, so that large notifications do not require a copy of their text.
  * 
  * @coverage dart.server.remote
  */
 public class ByteResponseStream implements ResponseStream {
   /**
-   * The {@link BufferedReader} to read JSON strings from.
+   * A {@link Reader} that decodes the UTF-8 bytes of the current line of the enclosing stream and
+   * reports the end of the stream when the end of the line is reached. A single instance is used
+   * for every line, so that reading a response does not allocate a decoder and its buffers. Bytes
+   * that are not valid UTF-8 are decoded as the replacement character.
    */
-  private final BufferedReader reader;
+  private class LineReader extends Reader {
+    /**
+     * The low surrogate of a supplementary character whose high surrogate has been returned, or
+     * zero if there is no such character.
+     */
+    private char pendingLowSurrogate = 0;
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      int count = 0;
+      if (pendingLowSurrogate != 0) {
+        chars[offset + count++] = pendingLowSurrogate;
+        pendingLowSurrogate = 0;
+      }
+      while (count < length) {
+        int b = nextByte();
+        if (b < 0) {
+          break;
+        }
+        int codePoint = b < 0x80 ? b : decode(b);
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+          chars[offset + count++] = (char) codePoint;
+        } else {
+          int bits = codePoint - Character.MIN_SUPPLEMENTARY_CODE_POINT;
+          chars[offset + count++] = (char) (Character.MIN_HIGH_SURROGATE + (bits >>> 10));
+          char lowSurrogate = (char) (Character.MIN_LOW_SURROGATE + (bits & 0x3FF));
+          if (count < length) {
+            chars[offset + count++] = lowSurrogate;
+          } else {
+            pendingLowSurrogate = lowSurrogate;
+          }
+        }
+      }
+      return count == 0 ? -1 : count;
+    }
+
+    /**
+     * Prepare to read the current line.
+     */
+    void startLine() {
+      pendingLowSurrogate = 0;
+    }
+
+    /**
+     * Decode the character whose encoding starts with the given byte, which is not an ASCII
+     * character, consuming the continuation bytes of the encoding.
+     * 
+     * @param b the first byte of the encoding
+     * @return the code point of the decoded character
+     */
+    private int decode(int b) throws IOException {
+      int continuationCount;
+      int codePoint;
+      int minimum;
+      if ((b & 0xE0) == 0xC0) {
+        continuationCount = 1;
+        codePoint = b & 0x1F;
+        minimum = 0x80;
+      } else if ((b & 0xF0) == 0xE0) {
+        continuationCount = 2;
+        codePoint = b & 0x0F;
+        minimum = 0x800;
+      } else if ((b & 0xF8) == 0xF0) {
+        continuationCount = 3;
+        codePoint = b & 0x07;
+        minimum = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+      } else {
+        return REPLACEMENT_CHARACTER;
+      }
+      for (int i = 0; i < continuationCount; i++) {
+        int bits = nextContinuationBits();
+        if (bits < 0) {
+          return REPLACEMENT_CHARACTER;
+        }
+        codePoint = (codePoint << 6) | bits;
+      }
+      if (codePoint < minimum || codePoint > Character.MAX_CODE_POINT
+          || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+        return REPLACEMENT_CHARACTER;
+      }
+      return codePoint;
+    }
+  }
+
+  /**
+   * The character used in place of bytes that are not valid UTF-8.
+   */
+  private static final int REPLACEMENT_CHARACTER = 0xFFFD;
+
+  /**
+   * The size of the buffer used to read bytes from the underlying stream.
+   */
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * The byte stream to read JSON objects from.
+   */
+  private final InputStream stream;
+
+  /**
+   * The buffer containing bytes read from {@link #stream}.
+   */
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+
+  /**
+   * The index in {@link #buffer} of the next byte to be read.
+   */
+  private int position = 0;
+
+  /**
+   * The number of valid bytes in {@link #buffer}.
+   */
+  private int limit = 0;
+
+  /**
+   * {@code true} if the end of the current line has been reached.
+   */
+  private boolean endOfLine = false;
+
+  /**
+   * The reader used to read the characters of the current line.
+   */
+  private final LineReader lineReader = new LineReader();
+
+  /**
+   * The parser used to build JSON objects from the bytes of each line.
+   */
+  private final JsonParser parser = new JsonParser();
+
+  /**
+   * The bytes of the current line, or {@code null} if the text of lines is not needed because
+   * there is no {@link #debugStream}.
+   */
+  private final ByteArrayOutputStream lineText;
 
   /**
    * The {@link PrintStream} to print all lines to.
@@ -46,8 +198,9 @@ public class ByteResponseStream implements ResponseStream {
    * @param debugStream the {@link PrintStream} to print all lines to, may be {@code null}
    */
   public ByteResponseStream(InputStream stream, PrintStream debugStream) {
-    reader = new BufferedReader(new InputStreamReader(stream, Charsets.UTF_8));
+    this.stream = stream;
     this.debugStream = debugStream;
+    this.lineText = debugStream != null ? new ByteArrayOutputStream() : null;
   }
 
   @Override
@@ -57,21 +210,137 @@ public class ByteResponseStream implements ResponseStream {
   @Override
   public JsonObject take() throws Exception {
     while (true) {
-      String line = reader.readLine();
       // check for EOF
-      if (line == null) {
+      if (position >= limit && !fillBuffer()) {
         return null;
       }
-      // debug output
-      if (debugStream != null) {
-        debugStream.println(System.currentTimeMillis() + " <= " + line);
+      endOfLine = false;
+      if (lineText != null) {
+        lineText.reset();
+      }
+      // parse JSON lines, ignore non-JSON (debug) lines
+      JsonObject response = null;
+      try {
+        if (buffer[position] == '{') {
+          response = parseLine();
+        }
+      } finally {
+        skipToEndOfLine();
+        // debug output
+        if (debugStream != null) {
+          debugStream.println(System.currentTimeMillis() + " <= "
+              + new String(lineText.toByteArray(), Charsets.UTF_8.name()));
+        }
+      }
+      if (response != null) {
+        return response;
+      }
+    }
+  }
+
+  /**
+   * Read more bytes from the underlying stream into the buffer, blocking until at least one byte is
+   * available.
+   * 
+   * @return {@code true} if bytes were read, or {@code false} if the end of the stream was reached
+   */
+  private boolean fillBuffer() throws IOException {
+    int count;
+    do {
+      count = stream.read(buffer, 0, buffer.length);
+    } while (count == 0);
+    if (count < 0) {
+      position = 0;
+      limit = 0;
+      return false;
+    }
+    position = 0;
+    limit = count;
+    return true;
+  }
+
+  /**
+   * Consume and return the next byte of the current line, or {@code -1} if the end of the line has
+   * been reached.
+   */
+  private int nextByte() throws IOException {
+    if (endOfLine) {
+      return -1;
+    }
+    if (position >= limit && !fillBuffer()) {
+      endOfLine = true;
+      return -1;
+    }
+    byte b = buffer[position++];
+    if (b == '\n') {
+      endOfLine = true;
+      return -1;
+    }
+    if (lineText != null) {
+      lineText.write(b);
+    }
+    return b & 0xFF;
+  }
+
+  /**
+   * If the next byte of the current line is a UTF-8 continuation byte, consume it and return the
+   * bits that it contributes to the character being decoded. Otherwise leave the byte to be read as
+   * the start of the next character and return {@code -1}.
+   */
+  private int nextContinuationBits() throws IOException {
+    if (endOfLine || (position >= limit && !fillBuffer())) {
+      return -1;
+    }
+    byte b = buffer[position];
+    if ((b & 0xC0) != 0x80) {
+      return -1;
+    }
+    position++;
+    if (lineText != null) {
+      lineText.write(b);
+    }
+    return b & 0x3F;
+  }
+
+  /**
+   * Parse the JSON object on the current line. The object is parsed leniently, as
+   * {@link JsonParser#parse(String)} does, but anything other than whitespace following the object
+   * on the same line is an error.
+   * 
+   * @return the JSON object on the current line
+   * @throws JsonParseException if the line does not contain exactly one JSON object
+   */
+  private JsonObject parseLine() throws IOException {
+    lineReader.startLine();
+    JsonReader reader = new JsonReader(lineReader);
+    reader.setLenient(true);
+    JsonElement element = parser.parse(reader);
+    if (reader.peek() != JsonToken.END_DOCUMENT) {
+      throw new JsonSyntaxException("Did not consume the entire line");
+    }
+    return element.getAsJsonObject();
+  }
+
+  /**
+   * Consume the remaining bytes of the current line, including the line terminator.
+   */
+  private void skipToEndOfLine() throws IOException {
+    while (!endOfLine) {
+      if (position >= limit && !fillBuffer()) {
+        endOfLine = true;
+        return;
+      }
+      int start = position;
+      while (position < limit && buffer[position] != '\n') {
+        position++;
+      }
+      if (lineText != null) {
+        lineText.write(buffer, start, position - start);
       }
-      // ignore non-JSON (debug) lines
-      if (!line.startsWith("{")) {
-        continue;
+      if (position < limit) {
+        position++;
+        endOfLine = true;
       }
-      // return as JSON
-      return (JsonObject) new JsonParser().parse(line);
     }
   }
 }
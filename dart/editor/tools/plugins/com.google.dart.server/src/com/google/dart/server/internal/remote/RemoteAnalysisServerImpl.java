@@ -25,10 +25,12 @@ import com.google.dart.server.AnalysisService;
 import com.google.dart.server.AssistsConsumer;
 import com.google.dart.server.BasicConsumer;
 import com.google.dart.server.CompletionIdConsumer;
+import com.google.dart.server.CompletionSuggestion;
 import com.google.dart.server.Consumer;
 import com.google.dart.server.ContentChange;
 import com.google.dart.server.FixesConsumer;
 import com.google.dart.server.HoverConsumer;
+import com.google.dart.server.HoverInformation;
 import com.google.dart.server.Location;
 import com.google.dart.server.RefactoringApplyConsumer;
 import com.google.dart.server.SearchIdConsumer;
@@ -179,8 +181,13 @@ public class RemoteAnalysisServerImpl implements AnalysisServer {
 
   private final static List<String> EMPTY_STR_LIST = Lists.newArrayList();
 
+  /**
+   * The default number of milliseconds that requests are held so that they can be coalesced.
+   */
+  public static final long DEFAULT_FLUSH_DELAY_MILLIS = 20;
+
   private final AnalysisServerSocket socket;
-  private RequestSink requestSink;
+  private RequestPipeline requestSink;
   private ResponseStream responseStream;
   private LineReaderStream errorStream;
   private final AtomicLong lastResponseTime = new AtomicLong(0);
@@ -216,8 +223,26 @@ public class RemoteAnalysisServerImpl implements AnalysisServer {
    */
   private boolean watch;
 
+  /**
+   * The number of milliseconds that requests are held so that they can be coalesced, or {@code 0}
+   * if requests are to be sent immediately.
+   */
+  private final long flushDelayMillis;
+
   public RemoteAnalysisServerImpl(AnalysisServerSocket socket) {
+    this(socket, DEFAULT_FLUSH_DELAY_MILLIS);
+  }
+
+  /**
+   * Initialize a newly created server.
+   * 
+   * @param socket the socket used to communicate with the server
+   * @param flushDelayMillis the number of milliseconds that requests are held so that they can be
+   *          coalesced, or {@code 0} if requests are to be sent immediately
+   */
+  public RemoteAnalysisServerImpl(AnalysisServerSocket socket, long flushDelayMillis) {
     this.socket = socket;
+    this.flushDelayMillis = flushDelayMillis;
   }
 
   @Override
@@ -279,6 +304,16 @@ public class RemoteAnalysisServerImpl implements AnalysisServer {
         consumer);
   }
 
+  /**
+   * Return the pipeline through which requests are sent to the server, or {@code null} if the
+   * server has not been started.
+   * 
+   * @return the pipeline through which requests are sent to the server
+   */
+  public RequestPipeline getRequestPipeline() {
+    return requestSink;
+  }
+
   @Override
   public void getAssists(String file, int offset, int length, AssistsConsumer consumer) {
     String id = generateUniqueId();
@@ -479,6 +514,29 @@ public class RemoteAnalysisServerImpl implements AnalysisServer {
         RequestUtilities.generateAnalysisUpdateSdks(id, added, removed, defaultSdk));
   }
 
+  /**
+   * Complete the request with the given identifier, which will not be sent because it was merged
+   * into or superseded by another request, so that its consumer is not left waiting for a response
+   * that will never arrive. A superseded hover request produces no hovers, and a superseded
+   * completion request produces a completion with no suggestions.
+   * 
+   * @param id the identifier of the request that was dropped
+   */
+  private void completeDroppedRequest(String id) {
+    Consumer consumer;
+    synchronized (consumerMapLock) {
+      consumer = consumerMap.remove(id);
+    }
+    if (consumer instanceof HoverConsumer) {
+      ((HoverConsumer) consumer).computedHovers(new HoverInformation[0]);
+    } else if (consumer instanceof CompletionIdConsumer) {
+      // Use an identifier that cannot be confused with one assigned by the server.
+      String completionId = "dropped-" + id;
+      ((CompletionIdConsumer) consumer).computedCompletionId(completionId);
+      listener.computedCompletion(completionId, new CompletionSuggestion[0], true);
+    }
+  }
+
   /**
    * Generate and return a unique {@link String} id to be used in the requests sent to the analysis
    * server.
@@ -628,7 +686,16 @@ public class RemoteAnalysisServerImpl implements AnalysisServer {
   private void startServer() throws Exception {
     socket.start();
     consumerMap.clear();
-    requestSink = socket.getRequestSink();
+    requestSink = new RequestPipeline(
+        socket.getRequestSink(),
+        flushDelayMillis,
+        RequestPipeline.DEFAULT_MAX_PENDING_CHARS,
+        new RequestPipeline.Listener() {
+          @Override
+          public void requestDropped(String id) {
+            completeDroppedRequest(id);
+          }
+        });
     responseStream = socket.getResponseStream();
     errorStream = socket.getErrorStream();
     new ServerResponseReaderThread(responseStream).start();
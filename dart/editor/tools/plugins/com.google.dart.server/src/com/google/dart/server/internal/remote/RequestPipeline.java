@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.server.internal.remote;
+
+import com.google.common.collect.Lists;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link RequestSink} that holds requests for a short time before passing them to another sink,
+ * so that requests made in quick succession can be coalesced.
+ * <ul>
+ * <li>Consecutive "analysis.updateContent" requests are merged into a single request, combining
+ * the changes made to each file.</li>
+ * <li>A pending "analysis.getHover" or "completion.getSuggestions" request is dropped when a newer
+ * request of the same kind is made.</li>
+ * <li>Any other request is sent immediately, after all of the pending requests.</li>
+ * </ul>
+ * Pending requests are sent when the flush delay has elapsed or when the size of the pending
+ * content exceeds a threshold.
+ * 
+ * @coverage dart.server.remote
+ */
+public class RequestPipeline implements RequestSink {
+  /**
+   * The interface {@code Listener} defines the behavior of objects that are notified when a
+   * request will not be sent because it was merged into or superseded by another request.
+   */
+  public interface Listener {
+    /**
+     * Notification that the request with the given identifier will not be sent, so no response
+     * will be received for it.
+     * 
+     * @param id the identifier of the request that was dropped
+     */
+    void requestDropped(String id);
+  }
+
+  /**
+   * The default number of characters of content that can be pending before the pending requests
+   * are sent.
+   */
+  public static final int DEFAULT_MAX_PENDING_CHARS = 1 << 20;
+
+  private static final String ID = "id";
+  private static final String METHOD = "method";
+  private static final String PARAMS = "params";
+  private static final String FILES = "files";
+  private static final String CONTENT = "content";
+  private static final String OFFSET = "offset";
+  private static final String OLD_LENGTH = "oldLength";
+  private static final String NEW_LENGTH = "newLength";
+
+  private static final String METHOD_ANALYSIS_GET_HOVER = "analysis.getHover";
+  private static final String METHOD_ANALYSIS_UPDATE_CONTENT = "analysis.updateContent";
+  private static final String METHOD_COMPLETION_GET_SUGGESTIONS = "completion.getSuggestions";
+
+  /**
+   * The executor used to send pending requests once the flush delay has elapsed.
+   */
+  private static final ScheduledExecutorService FLUSH_EXECUTOR = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "RequestPipeline");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+  /**
+   * Return a content change equivalent to applying the first given change and then the second.
+   * 
+   * @param first the change that was made first
+   * @param second the change that was made after the first
+   * @return a content change equivalent to both changes
+   */
+  static JsonObject mergeContentChanges(JsonObject first, JsonObject second) {
+    if (!isIncremental(second)) {
+      return second;
+    }
+    if (!isIncremental(first)) {
+      JsonObject result = new JsonObject();
+      result.add(CONTENT, second.get(CONTENT));
+      return result;
+    }
+    int firstOffset = first.get(OFFSET).getAsInt();
+    int firstOldLength = first.get(OLD_LENGTH).getAsInt();
+    int firstNewLength = first.get(NEW_LENGTH).getAsInt();
+    int secondOffset = second.get(OFFSET).getAsInt();
+    int secondOldLength = second.get(OLD_LENGTH).getAsInt();
+    int secondNewLength = second.get(NEW_LENGTH).getAsInt();
+    // The region, in the content between the changes, that covers both changes.
+    int start = Math.min(firstOffset, secondOffset);
+    int end = Math.max(firstOffset + firstNewLength, secondOffset + secondOldLength);
+    JsonObject result = new JsonObject();
+    result.add(CONTENT, second.get(CONTENT));
+    result.addProperty(OFFSET, start);
+    result.addProperty(OLD_LENGTH, end - firstNewLength + firstOldLength - start);
+    result.addProperty(NEW_LENGTH, end - secondOldLength + secondNewLength - start);
+    return result;
+  }
+
+  /**
+   * Return the length of the content in the given change, or {@code 0} if the content is to be
+   * read from disk.
+   */
+  private static int getContentLength(JsonElement change) {
+    JsonElement content = change.getAsJsonObject().get(CONTENT);
+    if (content == null || !content.isJsonPrimitive()) {
+      return 0;
+    }
+    return content.getAsString().length();
+  }
+
+  /**
+   * Return the "files" map of the given "analysis.updateContent" request.
+   */
+  private static JsonObject getFiles(JsonObject request) {
+    return request.getAsJsonObject(PARAMS).getAsJsonObject(FILES);
+  }
+
+  /**
+   * Return the method of the given request.
+   */
+  private static String getMethod(JsonObject request) {
+    return request.get(METHOD).getAsString();
+  }
+
+  /**
+   * Return {@code true} if the given content change describes the region that was changed.
+   */
+  private static boolean isIncremental(JsonObject change) {
+    return change.has(OFFSET);
+  }
+
+  /**
+   * Return {@code true} if a pending request with the given method is superseded by a newer request
+   * with the same method.
+   */
+  private static boolean isSupersededByNewer(String method) {
+    return method.equals(METHOD_ANALYSIS_GET_HOVER)
+        || method.equals(METHOD_COMPLETION_GET_SUGGESTIONS);
+  }
+
+  /**
+   * The sink to which requests are sent.
+   */
+  private final RequestSink sink;
+
+  /**
+   * The number of milliseconds that a request can be pending before it is sent, or {@code 0} if
+   * requests are to be sent immediately.
+   */
+  private final long flushDelayMillis;
+
+  /**
+   * The number of characters of content that can be pending before the pending requests are sent.
+   */
+  private final int maxPendingChars;
+
+  /**
+   * The listener to be notified when a request is dropped.
+   */
+  private final Listener listener;
+
+  /**
+   * The requests that have not yet been sent, in the order in which they were made.
+   */
+  private final List<JsonObject> pendingRequests = Lists.newArrayList();
+
+  /**
+   * The number of characters of content in the pending requests.
+   */
+  private int pendingChars = 0;
+
+  /**
+   * {@code true} if a flush of the pending requests has been scheduled.
+   */
+  private boolean flushScheduled = false;
+
+  /**
+   * The number of requests that have been sent to the sink.
+   */
+  private int sentRequestCount = 0;
+
+  /**
+   * The number of "analysis.updateContent" requests that were merged into an earlier request.
+   */
+  private int coalescedRequestCount = 0;
+
+  /**
+   * The number of requests that were dropped because a newer request superseded them.
+   */
+  private int supersededRequestCount = 0;
+
+  /**
+   * The task used to send the pending requests.
+   */
+  private final Runnable flushTask = new Runnable() {
+    @Override
+    public void run() {
+      synchronized (RequestPipeline.this) {
+        flushScheduled = false;
+        flush();
+      }
+    }
+  };
+
+  /**
+   * Initialize a newly created pipeline to send requests to the given sink.
+   * 
+   * @param sink the sink to which requests are sent
+   * @param flushDelayMillis the number of milliseconds that a request can be pending before it is
+   *          sent, or {@code 0} if requests are to be sent immediately
+   * @param maxPendingChars the number of characters of content that can be pending before the
+   *          pending requests are sent
+   * @param listener the listener to be notified when a request is dropped
+   */
+  public RequestPipeline(RequestSink sink, long flushDelayMillis, int maxPendingChars,
+      Listener listener) {
+    this.sink = sink;
+    this.flushDelayMillis = flushDelayMillis;
+    this.maxPendingChars = maxPendingChars;
+    this.listener = listener;
+  }
+
+  @Override
+  public synchronized void add(JsonObject request) {
+    String method = getMethod(request);
+    if (method.equals(METHOD_ANALYSIS_UPDATE_CONTENT)) {
+      addContentUpdate(request);
+    } else if (isSupersededByNewer(method)) {
+      Iterator<JsonObject> iterator = pendingRequests.iterator();
+      while (iterator.hasNext()) {
+        JsonObject pendingRequest = iterator.next();
+        if (getMethod(pendingRequest).equals(method)) {
+          iterator.remove();
+          supersededRequestCount++;
+          dropped(pendingRequest);
+        }
+      }
+      pendingRequests.add(request);
+    } else {
+      pendingRequests.add(request);
+      flush();
+      return;
+    }
+    if (flushDelayMillis <= 0 || pendingChars >= maxPendingChars) {
+      flush();
+    } else if (!flushScheduled) {
+      flushScheduled = true;
+      FLUSH_EXECUTOR.schedule(flushTask, flushDelayMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    flush();
+    sink.close();
+  }
+
+  /**
+   * Send all of the pending requests.
+   */
+  public synchronized void flush() {
+    for (JsonObject request : pendingRequests) {
+      sink.add(request);
+      sentRequestCount++;
+    }
+    pendingRequests.clear();
+    pendingChars = 0;
+  }
+
+  /**
+   * Return the number of "analysis.updateContent" requests that were merged into an earlier
+   * request rather than being sent.
+   * 
+   * @return the number of requests that were merged into an earlier request
+   */
+  public synchronized int getCoalescedRequestCount() {
+    return coalescedRequestCount;
+  }
+
+  /**
+   * Return the number of requests that have been sent to the underlying sink.
+   * 
+   * @return the number of requests that have been sent
+   */
+  public synchronized int getSentRequestCount() {
+    return sentRequestCount;
+  }
+
+  /**
+   * Return the number of requests that were dropped because a newer request superseded them.
+   * 
+   * @return the number of requests that were superseded
+   */
+  public synchronized int getSupersededRequestCount() {
+    return supersededRequestCount;
+  }
+
+  /**
+   * Add the given "analysis.updateContent" request to the pending requests, merging it into the
+   * last pending request if that request is also an "analysis.updateContent" request.
+   * 
+   * @param request the request to be added
+   */
+  private void addContentUpdate(JsonObject request) {
+    JsonObject files = getFiles(request);
+    int lastIndex = pendingRequests.size() - 1;
+    if (lastIndex < 0
+        || !getMethod(pendingRequests.get(lastIndex)).equals(METHOD_ANALYSIS_UPDATE_CONTENT)) {
+      pendingRequests.add(request);
+      for (Entry<String, JsonElement> entry : files.entrySet()) {
+        pendingChars += getContentLength(entry.getValue());
+      }
+      return;
+    }
+    JsonObject pendingFiles = getFiles(pendingRequests.get(lastIndex));
+    for (Entry<String, JsonElement> entry : files.entrySet()) {
+      String file = entry.getKey();
+      JsonObject change = entry.getValue().getAsJsonObject();
+      JsonElement pendingChange = pendingFiles.get(file);
+      if (pendingChange != null) {
+        pendingChars -= getContentLength(pendingChange);
+        change = mergeContentChanges(pendingChange.getAsJsonObject(), change);
+      }
+      pendingFiles.add(file, change);
+      pendingChars += getContentLength(change);
+    }
+    coalescedRequestCount++;
+    dropped(request);
+  }
+
+  /**
+   * Notify the listener that the given request will not be sent.
+   * 
+   * @param request the request that will not be sent
+   */
+  private void dropped(JsonObject request) {
+    if (listener != null) {
+      listener.requestDropped(request.get(ID).getAsString());
+    }
+  }
+}
@@ -13,55 +13,173 @@
  */
 package com.google.dart.server.internal.remote.processor;
 
+import com.google.dart.server.Element;
+import com.google.dart.server.Location;
 import com.google.dart.server.SearchResult;
 import com.google.dart.server.SearchResultKind;
 import com.google.dart.server.internal.BroadcastAnalysisServerListener;
-import com.google.dart.server.internal.SearchResultImpl;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
-import java.util.Iterator;
-
 /**
  * Processor for "search.results" notification.
+ * <p>
+ * A single notification can contain tens of thousands of results, so the results are reported to
+ * the listener in chunks of a bounded size, and only the last chunk of the last notification for a
+ * search is reported as being the last. The chunks are reported on the thread reading responses
+ * from the server, so no further responses are read until the listener has processed them; a slow
+ * listener therefore causes the server to block when writing, rather than causing the responses to
+ * be buffered in the client.
+ * <p>
+ * The results reported to the listener keep the JSON object they were read from, and only
+ * construct the {@link Location} and path of the result when they are first requested.
  * 
  * @coverage dart.server.remote
  */
 public class NotificationSearchResultsProcessor extends NotificationProcessor {
+  /**
+   * Instances of the class {@code JsonSearchResult} implement a search result whose location and
+   * path are constructed from the JSON object representing the result when they are first
+   * requested.
+   */
+  private class JsonSearchResult implements SearchResult {
+    /**
+     * The JSON object representing this result, or {@code null} once both the location and the
+     * path have been constructed.
+     */
+    private JsonObject resultObject;
+
+    private final SearchResultKind kind;
+    private final boolean isPotential;
+    private Location location;
+    private Element[] path;
+
+    /**
+     * Initialize a newly created search result to represent the result described by the given JSON
+     * object.
+     * 
+     * @param resultObject the JSON object representing the result
+     */
+    public JsonSearchResult(JsonObject resultObject) {
+      this.resultObject = resultObject;
+      this.kind = SearchResultKind.valueOf(resultObject.get("kind").getAsString());
+      this.isPotential = resultObject.get("isPotential").getAsBoolean();
+    }
+
+    @Override
+    public SearchResultKind getKind() {
+      return kind;
+    }
+
+    @Override
+    public synchronized Location getLocation() {
+      if (location == null) {
+        location = constructLocation(resultObject.getAsJsonObject("location"));
+        releaseJson();
+      }
+      return location;
+    }
+
+    @Override
+    public synchronized Element[] getPath() {
+      if (path == null) {
+        path = constructElementArray(resultObject.getAsJsonArray("path"));
+        releaseJson();
+      }
+      return path;
+    }
+
+    @Override
+    public boolean isPotential() {
+      return isPotential;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder builder = new StringBuilder();
+      builder.append("[kind=");
+      builder.append(kind);
+      builder.append(", location=");
+      builder.append(getLocation());
+      builder.append(", potential=");
+      builder.append(isPotential);
+      builder.append(", path=");
+      builder.append(getPath());
+      builder.append("]");
+      return builder.toString();
+    }
+
+    /**
+     * Release the JSON object representing this result if it is no longer needed.
+     */
+    private void releaseJson() {
+      if (location != null && path != null) {
+        resultObject = null;
+      }
+    }
+  }
+
+  /**
+   * The default maximum number of results reported to the listener at a time.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 500;
+
+  /**
+   * The maximum number of results reported to the listener at a time.
+   */
+  private final int chunkSize;
 
   public NotificationSearchResultsProcessor(BroadcastAnalysisServerListener listener) {
+    this(listener, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Initialize a newly created processor.
+   * 
+   * @param listener the listener to which the results are to be reported
+   * @param chunkSize the maximum number of results reported to the listener at a time
+   */
+  public NotificationSearchResultsProcessor(BroadcastAnalysisServerListener listener,
+      int chunkSize) {
     super(listener);
+    this.chunkSize = chunkSize;
   }
 
   @Override
   public void process(JsonObject response) throws Exception {
     JsonObject params = response.getAsJsonObject("params");
-    getListener().computedSearchResults(
-        params.get("id").getAsString(),
-        constructSearchResultArray(params.getAsJsonArray("results")),
-        params.get("last").getAsBoolean());
+    String searchId = params.get("id").getAsString();
+    JsonArray resultsArray = params.getAsJsonArray("results");
+    boolean last = params.get("last").getAsBoolean();
+    int resultCount = resultsArray == null ? 0 : resultsArray.size();
+    int start = 0;
+    do {
+      int end = Math.min(start + chunkSize, resultCount);
+      getListener().computedSearchResults(
+          searchId,
+          constructSearchResultArray(resultsArray, start, end),
+          last && end == resultCount);
+      start = end;
+    } while (start < resultCount);
   }
 
-  protected SearchResult[] constructSearchResultArray(JsonArray jsonArray) {
-    if (jsonArray == null) {
-      return new SearchResult[] {};
+  /**
+   * Return the search results represented by the elements of the given array between the given
+   * indices.
+   * 
+   * @param jsonArray the array of JSON objects representing search results, may be {@code null}
+   * @param start the index of the first result to be returned
+   * @param end the index after the last result to be returned
+   * @return the search results represented by the elements of the array
+   */
+  protected SearchResult[] constructSearchResultArray(JsonArray jsonArray, int start, int end) {
+    if (start == end) {
+      return SearchResult.EMPTY_ARRAY;
     }
-    int i = 0;
-    SearchResult[] results = new SearchResult[jsonArray.size()];
-    Iterator<JsonElement> iterator = jsonArray.iterator();
-    while (iterator.hasNext()) {
-      results[i] = constructSearchResult(iterator.next().getAsJsonObject());
-      ++i;
+    SearchResult[] results = new SearchResult[end - start];
+    for (int i = start; i < end; i++) {
+      results[i - start] = new JsonSearchResult(jsonArray.get(i).getAsJsonObject());
     }
     return results;
   }
-
-  private SearchResult constructSearchResult(JsonObject resultObject) {
-    return new SearchResultImpl(
-        constructElementArray(resultObject.getAsJsonArray("path")),
-        SearchResultKind.valueOf(resultObject.get("kind").getAsString()),
-        constructLocation(resultObject.getAsJsonObject("location")),
-        resultObject.get("isPotential").getAsBoolean());
-  }
 }
@@ -24,7 +24,6 @@ public class TestAll {
     suite.addTestSuite(HighlightRegionImplTest.class);
     suite.addTestSuite(NavigationRegionImplTest.class);
     suite.addTestSuite(OutlineImplTest.class);
-    suite.addTestSuite(SearchResultImplTest.class);
     suite.addTestSuite(SourceRegionImplTest.class);
     suite.addTestSuite(TypeHierarchyItemImplTest.class);
     suite.addTest(com.google.dart.server.internal.remote.TestAll.suite());
@@ -16,6 +16,7 @@ package com.google.dart.server.internal;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.general.ArrayUtilities;
 import com.google.dart.server.AnalysisError;
@@ -38,12 +39,15 @@ import junit.framework.AssertionFailedError;
 import static org.fest.assertions.Assertions.assertThat;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class TestAnalysisServerListener implements AnalysisServerListener {
   private final Map<String, CompletionSuggestion[]> completionsMap = Maps.newHashMap();
-  private final Map<String, SearchResult[]> searchResultsMap = Maps.newHashMap();
+  private final Map<String, List<SearchResult>> searchResultsMap = Maps.newHashMap();
+  private final Set<String> completedSearches = Sets.newHashSet();
   private final List<AnalysisServerError> serverErrors = Lists.newArrayList();
   private final Map<String, AnalysisError[]> sourcesErrors = Maps.newHashMap();
   private final Map<String, HighlightRegion[]> highlightsMap = Maps.newHashMap();
@@ -171,8 +175,17 @@ public class TestAnalysisServerListener implements AnalysisServerListener {
   }
 
   @Override
-  public void computedSearchResults(String searchId, SearchResult[] results, boolean last) {
-    searchResultsMap.put(searchId, results);
+  public synchronized void computedSearchResults(String searchId, SearchResult[] results,
+      boolean last) {
+    List<SearchResult> searchResults = searchResultsMap.get(searchId);
+    if (searchResults == null) {
+      searchResults = Lists.newArrayList();
+      searchResultsMap.put(searchId, searchResults);
+    }
+    Collections.addAll(searchResults, results);
+    if (last) {
+      completedSearches.add(searchId);
+    }
   }
 
   /**
@@ -250,11 +263,23 @@ public class TestAnalysisServerListener implements AnalysisServerListener {
   }
 
   /**
-   * Returns {@link SearchResult[]} for the given search id, maybe {@code null} if have not been
-   * ever notified.
+   * Returns all of the {@link SearchResult}s reported so far for the given search id, maybe
+   * {@code null} if have not been ever notified.
+   */
+  public synchronized SearchResult[] getSearchResults(String searchId) {
+    List<SearchResult> searchResults = searchResultsMap.get(searchId);
+    if (searchResults == null) {
+      return null;
+    }
+    return searchResults.toArray(new SearchResult[searchResults.size()]);
+  }
+
+  /**
+   * Returns {@code true} if the last {@link SearchResult}s for the given search id have been
+   * reported.
    */
-  public SearchResult[] getSearchResults(String searchId) {
-    return searchResultsMap.get(searchId);
+  public synchronized boolean isSearchCompleted(String searchId) {
+    return completedSearches.contains(searchId);
   }
 
   @Override
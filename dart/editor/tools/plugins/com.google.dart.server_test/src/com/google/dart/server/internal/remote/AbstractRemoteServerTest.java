@@ -26,7 +26,7 @@ public abstract class AbstractRemoteServerTest extends AbstractServerTest {
 
   @Override
   protected AnalysisServer createServer() throws Exception {
-    server = new RemoteAnalysisServerImpl(socket);
+    server = new RemoteAnalysisServerImpl(socket, 0);
     server.start(0);
     requestSink = socket.getRequestSink();
     responseStream = socket.getResponseStream();
@@ -16,6 +16,7 @@ package com.google.dart.server.internal.remote;
 import com.google.common.base.Charsets;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
 
 import junit.framework.TestCase;
 
@@ -25,12 +26,58 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
 
 /**
  * Test for {@link ByteResponseStream}.
  */
 public class ByteResposeStreamTest extends TestCase {
+  /**
+   * An {@link InputStream} that returns at most a fixed number of bytes from each read, the way a
+   * pipe connected to a running server does.
+   */
+  private static class ChunkedInputStream extends InputStream {
+    private final InputStream stream;
+    private final int chunkSize;
+
+    public ChunkedInputStream(byte[] bytes, int chunkSize) {
+      this.stream = new ByteArrayInputStream(bytes);
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return stream.read();
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      return stream.read(bytes, offset, Math.min(length, chunkSize));
+    }
+  }
+
+  /**
+   * Traffic recorded from a server analyzing a small project, one message per line.
+   */
+  private static final String[] RECORDED_TRAFFIC = {
+      "Observatory listening on http://127.0.0.1:8181",
+      "{\"event\":\"server.connected\"}",
+      "{\"id\":\"0\",\"result\":{\"version\":\"0.0.1\"}}",
+      "{\"event\":\"server.status\",\"params\":{\"analysis\":{\"analyzing\":true}}}",
+      "{\"event\":\"analysis.errors\",\"params\":{\"file\":\"/project/lib/main.dart\",\"errors\":["
+          + "{\"severity\":\"WARNING\",\"type\":\"STATIC_WARNING\",\"location\":{"
+          + "\"file\":\"/project/lib/main.dart\",\"offset\":42,\"length\":3,\"startLine\":4,"
+          + "\"startColumn\":7},\"message\":\"Undefined name 'f\u00f6\u00f6'\","
+          + "\"correction\":\"Try \\\"f\u00fc\u00fc\\\" \u2713\"}]}}",
+      "{\"event\":\"server.status\",\"params\":{\"analysis\":{\"analyzing\":false}}}"};
+
+  /**
+   * The number of regions in the generated "analysis.highlights" notification.
+   */
+  private static final int HIGHLIGHT_REGION_COUNT = 20000;
+
   public void test_lastRequestProcessed() throws Exception {
     byte[] bytes = "".getBytes(Charsets.UTF_8);
     ByteArrayInputStream byteStream = new ByteArrayInputStream(bytes);
@@ -53,6 +100,27 @@ public class ByteResposeStreamTest extends TestCase {
     assertNull(responseStream.take());
   }
 
+  public void test_take_chunked() throws Exception {
+    String traffic = getRecordedTraffic();
+    for (int chunkSize = 1; chunkSize < 16; chunkSize++) {
+      ByteResponseStream responseStream = new ByteResponseStream(new ChunkedInputStream(
+          traffic.getBytes(Charsets.UTF_8),
+          chunkSize), null);
+      assertRecordedTraffic(responseStream);
+      assertNull(responseStream.take());
+    }
+  }
+
+  public void test_take_crlf() throws Exception {
+    byte[] bytes = "debug\r\n{'id': '0'}\r\n\r\n{'id': '1'}\r\n".getBytes(Charsets.UTF_8);
+    ByteResponseStream responseStream = new ByteResponseStream(
+        new ByteArrayInputStream(bytes),
+        null);
+    assertEquals(parseJson("{'id': '0'}"), responseStream.take());
+    assertEquals(parseJson("{'id': '1'}"), responseStream.take());
+    assertNull(responseStream.take());
+  }
+
   public void test_take_debugStream() throws Exception {
     PrintStream debugStream = mock(PrintStream.class);
     byte[] bytes = ("some text\n" + "{}\n").getBytes(Charsets.UTF_8);
@@ -64,6 +132,128 @@ public class ByteResposeStreamTest extends TestCase {
     verify(debugStream, times(2)).println(anyString());
   }
 
+  public void test_take_invalidUtf8() throws Exception {
+    byte[] prefix = "{'id': '0', 'error': '".getBytes(Charsets.UTF_8);
+    byte[] suffix = "'}\n{'id': '1'}\n".getBytes(Charsets.UTF_8);
+    // a truncated two byte sequence, a lone continuation byte and an overlong encoding of '/'
+    byte[] invalid = {(byte) 0xC3, 'a', (byte) 0x80, (byte) 0xC0, (byte) 0xAF};
+    byte[] bytes = new byte[prefix.length + invalid.length + suffix.length];
+    System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+    System.arraycopy(invalid, 0, bytes, prefix.length, invalid.length);
+    System.arraycopy(suffix, 0, bytes, prefix.length + invalid.length, suffix.length);
+    ByteResponseStream responseStream = new ByteResponseStream(
+        new ByteArrayInputStream(bytes),
+        null);
+    assertEquals(
+        parseJson("{'id': '0', 'error': '\ufffda\ufffd\ufffd'}"),
+        responseStream.take());
+    assertEquals(parseJson("{'id': '1'}"), responseStream.take());
+    assertNull(responseStream.take());
+  }
+
+  public void test_take_largeNotification() throws Exception {
+    String notification = getHighlightsNotification();
+    byte[] bytes = (notification + "\n" + notification + "\n").getBytes(Charsets.UTF_8);
+    ByteResponseStream responseStream = new ByteResponseStream(new ChunkedInputStream(
+        bytes,
+        4096), null);
+    JsonObject expected = parseJson(notification);
+    assertEquals(expected, responseStream.take());
+    assertEquals(expected, responseStream.take());
+    assertNull(responseStream.take());
+  }
+
+  public void test_take_manyResponses() throws Exception {
+    int repeatCount = 20;
+    StringBuilder builder = new StringBuilder();
+    String traffic = getRecordedTraffic();
+    for (int i = 0; i < repeatCount; i++) {
+      builder.append(traffic);
+    }
+    builder.append(getHighlightsNotification());
+    builder.append('\n');
+    byte[] bytes = builder.toString().getBytes(Charsets.UTF_8);
+    ByteResponseStream responseStream = new ByteResponseStream(new ChunkedInputStream(
+        bytes,
+        65536), null);
+    for (int i = 0; i < repeatCount; i++) {
+      assertRecordedTraffic(responseStream);
+    }
+    JsonObject highlights = responseStream.take();
+    assertNull(responseStream.take());
+    assertEquals(
+        HIGHLIGHT_REGION_COUNT,
+        highlights.get("params").getAsJsonObject().get("regions").getAsJsonArray().size());
+  }
+
+  public void test_take_supplementaryCharacter() throws Exception {
+    String json = "{'id': '0', 'error': '\ud83c\udfaf \ud834\udd1e'}";
+    ByteResponseStream responseStream = new ByteResponseStream(new ChunkedInputStream(
+        (json + "\n").getBytes(Charsets.UTF_8),
+        1), null);
+    assertEquals(parseJson(json), responseStream.take());
+    assertNull(responseStream.take());
+  }
+
+  public void test_take_trailingText() throws Exception {
+    byte[] bytes = "{'id': '0'} garbage\n{'id': '1'}  \n".getBytes(Charsets.UTF_8);
+    ByteResponseStream responseStream = new ByteResponseStream(
+        new ByteArrayInputStream(bytes),
+        null);
+    try {
+      responseStream.take();
+      fail("Expected JsonSyntaxException");
+    } catch (JsonSyntaxException exception) {
+      // expected
+    }
+    // the rest of the line was skipped, so the next response can still be read
+    assertEquals(parseJson("{'id': '1'}"), responseStream.take());
+    assertNull(responseStream.take());
+  }
+
+  /**
+   * Assert that the next responses in the given stream are the JSON messages of
+   * {@link #RECORDED_TRAFFIC}.
+   */
+  private void assertRecordedTraffic(ByteResponseStream responseStream) throws Exception {
+    for (String line : RECORDED_TRAFFIC) {
+      if (line.startsWith("{")) {
+        assertEquals(parseJson(line), responseStream.take());
+      }
+    }
+  }
+
+  /**
+   * Return an "analysis.highlights" notification for a large file.
+   */
+  private String getHighlightsNotification() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("{\"event\":\"analysis.highlights\",\"params\":{");
+    builder.append("\"file\":\"/project/lib/gen\u00e9r\u00e9.dart\",\"regions\":[");
+    for (int i = 0; i < HIGHLIGHT_REGION_COUNT; i++) {
+      if (i != 0) {
+        builder.append(',');
+      }
+      builder.append("{\"type\":\"IDENTIFIER_DEFAULT\",\"offset\":");
+      builder.append(i * 10);
+      builder.append(",\"length\":5}");
+    }
+    builder.append("]}}");
+    return builder.toString();
+  }
+
+  /**
+   * Return the text of {@link #RECORDED_TRAFFIC}.
+   */
+  private String getRecordedTraffic() {
+    StringBuilder builder = new StringBuilder();
+    for (String line : RECORDED_TRAFFIC) {
+      builder.append(line);
+      builder.append('\n');
+    }
+    return builder.toString();
+  }
+
   /**
    * Parses the given {@link String} as a {@link JsonObject}.
    */
@@ -129,6 +129,27 @@ public class RemoteAnalysisServerImplTest extends AbstractRemoteServerTest {
     assertEquals("typeB", hovers[0].getStaticType());
   }
 
+  public void test_analysis_getHover_superseded() throws Exception {
+    RemoteAnalysisServerImpl pipelinedServer = createPipelinedServer();
+    final HoverInformation[][] hovers = new HoverInformation[2][];
+    pipelinedServer.getHover("/fileA.dart", 17, new HoverConsumer() {
+      @Override
+      public void computedHovers(HoverInformation[] result) {
+        hovers[0] = result;
+      }
+    });
+    pipelinedServer.getHover("/fileA.dart", 18, new HoverConsumer() {
+      @Override
+      public void computedHovers(HoverInformation[] result) {
+        hovers[1] = result;
+      }
+    });
+    // The first request was superseded, so it is completed without being sent.
+    assertNotNull(hovers[0]);
+    assertThat(hovers[0]).isEmpty();
+    assertNull(hovers[1]);
+  }
+
   public void test_analysis_getTypeHierarchy() throws Exception {
     final TypeHierarchyItem[] items = new TypeHierarchyItem[1];
     server.getTypeHierarchy(
@@ -1076,6 +1097,27 @@ public class RemoteAnalysisServerImplTest extends AbstractRemoteServerTest {
     assertEquals("completionId0", completionIdPtr[0]);
   }
 
+  public void test_completion_getSuggestions_superseded() throws Exception {
+    RemoteAnalysisServerImpl pipelinedServer = createPipelinedServer();
+    final String[] completionIds = new String[2];
+    pipelinedServer.getCompletionSuggestions("/fileA.dart", 0, new CompletionIdConsumer() {
+      @Override
+      public void computedCompletionId(String completionId) {
+        completionIds[0] = completionId;
+      }
+    });
+    pipelinedServer.getCompletionSuggestions("/fileA.dart", 1, new CompletionIdConsumer() {
+      @Override
+      public void computedCompletionId(String completionId) {
+        completionIds[1] = completionId;
+      }
+    });
+    // The first request was superseded, so it is completed with no suggestions.
+    assertNotNull(completionIds[0]);
+    assertThat(listener.getCompletions(completionIds[0])).isEmpty();
+    assertNull(completionIds[1]);
+  }
+
   public void test_completion_notification_results() throws Exception {
     putResponse(//
         "{",
@@ -1853,6 +1895,18 @@ public class RemoteAnalysisServerImplTest extends AbstractRemoteServerTest {
     assertEquals(startColumn, location.getStartColumn());
   }
 
+  /**
+   * Return a started server that holds requests long enough for them to be coalesced.
+   */
+  private RemoteAnalysisServerImpl createPipelinedServer() throws Exception {
+    RemoteAnalysisServerImpl pipelinedServer = new RemoteAnalysisServerImpl(
+        new TestServerSocket(),
+        60000);
+    pipelinedServer.start(0);
+    pipelinedServer.addAnalysisServerListener(listener);
+    return pipelinedServer;
+  }
+
   /**
    * Builds a JSON string from the given lines.
    */
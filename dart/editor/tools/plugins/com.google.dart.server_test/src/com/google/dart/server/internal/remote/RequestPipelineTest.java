@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.server.internal.remote;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.dart.server.ContentChange;
+import com.google.dart.server.internal.remote.utilities.RequestUtilities;
+import com.google.gson.JsonObject;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * Test for {@link RequestPipeline}.
+ */
+public class RequestPipelineTest extends TestCase {
+  private static final long LONG_DELAY = 60000;
+
+  private TestRequestSink sink = new TestRequestSink();
+  private List<String> droppedIds = Lists.newArrayList();
+  private RequestPipeline.Listener listener = new RequestPipeline.Listener() {
+    @Override
+    public void requestDropped(String id) {
+      droppedIds.add(id);
+    }
+  };
+
+  public void test_add_getHover_superseded() throws Exception {
+    RequestPipeline pipeline = new RequestPipeline(sink, LONG_DELAY, 1000, listener);
+    pipeline.add(RequestUtilities.generateAnalysisGetHover("0", "/a.dart", 1));
+    pipeline.add(RequestUtilities.generateAnalysisGetHover("1", "/a.dart", 2));
+    pipeline.add(RequestUtilities.generateCompletionGetSuggestions("2", "/a.dart", 3));
+    pipeline.add(RequestUtilities.generateAnalysisGetHover("3", "/a.dart", 4));
+    assertEquals(0, sink.getRequests().size());
+    pipeline.flush();
+    assertIds("2", "3");
+    assertEquals(2, pipeline.getSupersededRequestCount());
+    assertEquals(Lists.newArrayList("0", "1"), droppedIds);
+  }
+
+  public void test_add_maxPendingChars() throws Exception {
+    RequestPipeline pipeline = new RequestPipeline(sink, LONG_DELAY, 5, listener);
+    pipeline.add(updateContent("0", "/a.dart", new ContentChange("abc")));
+    assertEquals(0, sink.getRequests().size());
+    pipeline.add(updateContent("1", "/b.dart", new ContentChange("def")));
+    assertIds("0");
+    assertEquals(1, pipeline.getCoalescedRequestCount());
+  }
+
+  public void test_add_noDelay() throws Exception {
+    RequestPipeline pipeline = new RequestPipeline(sink, 0, 1000, listener);
+    pipeline.add(updateContent("0", "/a.dart", new ContentChange("abc")));
+    pipeline.add(updateContent("1", "/a.dart", new ContentChange("abcd")));
+    assertIds("0", "1");
+    assertEquals(0, pipeline.getCoalescedRequestCount());
+    assertTrue(droppedIds.isEmpty());
+  }
+
+  public void test_add_other_flushesPending() throws Exception {
+    RequestPipeline pipeline = new RequestPipeline(sink, LONG_DELAY, 1000, listener);
+    pipeline.add(updateContent("0", "/a.dart", new ContentChange("abc")));
+    pipeline.add(RequestUtilities.generateAnalysisGetHover("1", "/a.dart", 2));
+    pipeline.add(RequestUtilities.generateServerGetVersion("2"));
+    assertIds("0", "1", "2");
+    assertEquals(3, pipeline.getSentRequestCount());
+  }
+
+  public void test_add_updateContent_afterOther() throws Exception {
+    RequestPipeline pipeline = new RequestPipeline(sink, LONG_DELAY, 1000, listener);
+    pipeline.add(updateContent("0", "/a.dart", new ContentChange("abc")));
+    pipeline.add(RequestUtilities.generateAnalysisGetHover("1", "/a.dart", 2));
+    pipeline.add(updateContent("2", "/a.dart", new ContentChange("abcd")));
+    pipeline.flush();
+    // the hover request must see the first content, so the updates are not merged
+    assertIds("0", "1", "2");
+  }
+
+  public void test_add_updateContent_merged() throws Exception {
+    RequestPipeline pipeline = new RequestPipeline(sink, LONG_DELAY, 1000, listener);
+    pipeline.add(updateContent("0", "/a.dart", new ContentChange("abc")));
+    pipeline.add(updateContent("1", "/b.dart", new ContentChange("def")));
+    pipeline.add(updateContent("2", "/a.dart", new ContentChange("abXc", 2, 0, 1)));
+    pipeline.flush();
+    assertIds("0");
+    assertEquals(2, pipeline.getCoalescedRequestCount());
+    assertEquals(Lists.newArrayList("1", "2"), droppedIds);
+    JsonObject files = sink.getRequests().get(0).getAsJsonObject("params").getAsJsonObject(
+        "files");
+    assertEquals(2, files.entrySet().size());
+    assertEquals("abXc", files.getAsJsonObject("/a.dart").get("content").getAsString());
+    assertFalse(files.getAsJsonObject("/a.dart").has("offset"));
+    assertEquals("def", files.getAsJsonObject("/b.dart").get("content").getAsString());
+  }
+
+  public void test_close() throws Exception {
+    RequestPipeline pipeline = new RequestPipeline(sink, LONG_DELAY, 1000, listener);
+    pipeline.add(updateContent("0", "/a.dart", new ContentChange("abc")));
+    pipeline.close();
+    assertIds("0");
+    assertTrue(sink.isClosed());
+  }
+
+  public void test_flushDelay() throws Exception {
+    RequestPipeline pipeline = new RequestPipeline(sink, 10, 1000, listener);
+    pipeline.add(updateContent("0", "/a.dart", new ContentChange("abc")));
+    long endTime = System.currentTimeMillis() + 5000;
+    while (pipeline.getSentRequestCount() == 0 && System.currentTimeMillis() < endTime) {
+      Thread.sleep(5);
+    }
+    assertIds("0");
+  }
+
+  public void test_mergeContentChanges_full_incremental() throws Exception {
+    JsonObject merged = RequestPipeline.mergeContentChanges(
+        contentChange(new ContentChange("abc")),
+        contentChange(new ContentChange("aXbc", 1, 0, 1)));
+    assertEquals("aXbc", merged.get("content").getAsString());
+    assertFalse(merged.has("offset"));
+  }
+
+  public void test_mergeContentChanges_incremental_after() throws Exception {
+    assertMerged("abcdefgh", "abXXdefgh", 2, 1, 2, "abXXdefYYh", 7, 1, 2);
+  }
+
+  public void test_mergeContentChanges_incremental_before() throws Exception {
+    assertMerged("abcdefgh", "abcdefXXh", 6, 1, 2, "YbcdefXXh", 0, 1, 1);
+  }
+
+  public void test_mergeContentChanges_incremental_full() throws Exception {
+    JsonObject merged = RequestPipeline.mergeContentChanges(
+        contentChange(new ContentChange("aXbc", 1, 0, 1)),
+        contentChange(new ContentChange(null)));
+    assertTrue(merged.get("content").isJsonNull());
+    assertFalse(merged.has("offset"));
+  }
+
+  public void test_mergeContentChanges_incremental_overlapping() throws Exception {
+    assertMerged("abcdefgh", "abXXXfgh", 2, 3, 3, "abXYgh", 3, 3, 1);
+  }
+
+  public void test_mergeContentChanges_incremental_same() throws Exception {
+    assertMerged("abcdefgh", "abcXdefgh", 3, 0, 1, "abcXYdefgh", 4, 0, 1);
+  }
+
+  /**
+   * Return the content that results from applying the given incremental change to the given
+   * content.
+   */
+  private String applyChange(String oldContent, JsonObject change) {
+    String newContent = change.get("content").getAsString();
+    int offset = change.get("offset").getAsInt();
+    int oldLength = change.get("oldLength").getAsInt();
+    int newLength = change.get("newLength").getAsInt();
+    return oldContent.substring(0, offset) + newContent.substring(offset, offset + newLength)
+        + oldContent.substring(offset + oldLength);
+  }
+
+  /**
+   * Assert that the ids of the requests sent to the sink are the given ids.
+   */
+  private void assertIds(String... expectedIds) {
+    List<String> ids = Lists.newArrayList();
+    for (JsonObject request : sink.getRequests()) {
+      ids.add(request.get("id").getAsString());
+    }
+    assertEquals(Lists.newArrayList(expectedIds), ids);
+  }
+
+  /**
+   * Assert that merging the two given incremental changes to the given content produces a change
+   * that transforms the original content into the final content.
+   */
+  private void assertMerged(String content0, String content1, int offset1, int oldLength1,
+      int newLength1, String content2, int offset2, int oldLength2, int newLength2) {
+    JsonObject first = contentChange(new ContentChange(content1, offset1, oldLength1, newLength1));
+    JsonObject second = contentChange(new ContentChange(content2, offset2, oldLength2, newLength2));
+    assertEquals(content1, applyChange(content0, first));
+    assertEquals(content2, applyChange(content1, second));
+    JsonObject merged = RequestPipeline.mergeContentChanges(first, second);
+    assertEquals(content2, applyChange(content0, merged));
+  }
+
+  /**
+   * Return the JSON form of the given content change.
+   */
+  private JsonObject contentChange(ContentChange change) {
+    return updateContent("0", "/a.dart", change).getAsJsonObject("params").getAsJsonObject(
+        "files").getAsJsonObject("/a.dart");
+  }
+
+  /**
+   * Return an "analysis.updateContent" request with the given change to the given file.
+   */
+  private JsonObject updateContent(String id, String file, ContentChange change) {
+    return RequestUtilities.generateAnalysisUpdateContent(id, ImmutableMap.of(file, change));
+  }
+}
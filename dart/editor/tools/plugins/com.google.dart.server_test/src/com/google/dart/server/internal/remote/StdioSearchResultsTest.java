@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.server.internal.remote;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.dart.server.AnalysisServerListenerAdapter;
+import com.google.dart.server.AnalysisServerSocket;
+import com.google.dart.server.SearchResult;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the delivery of search results by a {@link RemoteAnalysisServerImpl} connected to a fake
+ * server that writes its responses to a pipe of a bounded size, the way a server process writes
+ * them to its standard output.
+ */
+public class StdioSearchResultsTest extends TestCase {
+  /**
+   * A server socket whose responses are read from a pipe written to by the test.
+   */
+  private static class PipeServerSocket implements AnalysisServerSocket {
+    private final PipedOutputStream serverOutput = new PipedOutputStream();
+    private final TestRequestSink requestSink = new TestRequestSink();
+    private ResponseStream responseStream;
+
+    @Override
+    public ByteLineReaderStream getErrorStream() {
+      return null;
+    }
+
+    @Override
+    public RequestSink getRequestSink() {
+      return requestSink;
+    }
+
+    @Override
+    public ResponseStream getResponseStream() {
+      return responseStream;
+    }
+
+    @Override
+    public void start() throws Exception {
+      responseStream = new ByteResponseStream(new PipedInputStream(serverOutput, PIPE_SIZE), null);
+    }
+
+    @Override
+    public void stop() {
+      try {
+        serverOutput.close();
+      } catch (IOException exception) {
+        // ignored
+      }
+    }
+  }
+
+  /**
+   * The number of bytes that can be written to the pipe before the fake server blocks.
+   */
+  private static final int PIPE_SIZE = 4096;
+
+  /**
+   * The number of milliseconds to wait for the client or the fake server.
+   */
+  private static final long TIMEOUT = 10000;
+
+  private PipeServerSocket socket = new PipeServerSocket();
+  private RemoteAnalysisServerImpl server;
+
+  public void test_searchResults_backpressure() throws Exception {
+    final List<Integer> chunkSizes = Collections.synchronizedList(Lists.<Integer> newArrayList());
+    final List<Boolean> lastFlags = Collections.synchronizedList(Lists.<Boolean> newArrayList());
+    final CountDownLatch firstChunkReceived = new CountDownLatch(1);
+    final CountDownLatch releaseListener = new CountDownLatch(1);
+    final CountDownLatch lastChunkReceived = new CountDownLatch(1);
+    server.addAnalysisServerListener(new AnalysisServerListenerAdapter() {
+      @Override
+      public void computedSearchResults(String searchId, SearchResult[] results, boolean last) {
+        assertEquals("search0", searchId);
+        chunkSizes.add(results.length);
+        lastFlags.add(last);
+        if (chunkSizes.size() == 1) {
+          firstChunkReceived.countDown();
+          try {
+            releaseListener.await(TIMEOUT, TimeUnit.MILLISECONDS);
+          } catch (InterruptedException exception) {
+            // continue
+          }
+        }
+        if (last) {
+          lastChunkReceived.countDown();
+        }
+      }
+    });
+    final IOException[] writeException = new IOException[1];
+    Thread serverThread = new Thread("fake server") {
+      @Override
+      public void run() {
+        try {
+          OutputStream output = socket.serverOutput;
+          writeSearchResults(output, "search0", 0, 1200, false);
+          writeSearchResults(output, "search0", 1200, 300, true);
+          output.close();
+        } catch (IOException exception) {
+          writeException[0] = exception;
+        }
+      }
+    };
+    serverThread.start();
+    assertTrue(firstChunkReceived.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    // The first chunk has not been processed yet, so the server cannot write all of its output.
+    serverThread.join(200);
+    assertTrue(serverThread.isAlive());
+    releaseListener.countDown();
+    assertTrue(lastChunkReceived.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    serverThread.join(TIMEOUT);
+    assertFalse(serverThread.isAlive());
+    assertNull(writeException[0]);
+    assertEquals(Lists.newArrayList(500, 500, 200, 300), chunkSizes);
+    assertEquals(Lists.newArrayList(false, false, false, true), lastFlags);
+  }
+
+  public void test_searchResults_lazyLocation() throws Exception {
+    final List<SearchResult> results = Collections.synchronizedList(
+        Lists.<SearchResult> newArrayList());
+    final CountDownLatch lastChunkReceived = new CountDownLatch(1);
+    server.addAnalysisServerListener(new AnalysisServerListenerAdapter() {
+      @Override
+      public void computedSearchResults(String searchId, SearchResult[] chunk, boolean last) {
+        Collections.addAll(results, chunk);
+        if (last) {
+          lastChunkReceived.countDown();
+        }
+      }
+    });
+    writeSearchResults(socket.serverOutput, "search0", 0, 3, true);
+    assertTrue(lastChunkReceived.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    assertEquals(3, results.size());
+    SearchResult result = results.get(1);
+    assertEquals("/file1.dart", result.getLocation().getFile());
+    assertEquals(1, result.getLocation().getOffset());
+    assertEquals("f1", result.getPath()[0].getName());
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    server = new RemoteAnalysisServerImpl(socket, 0);
+    server.start(0);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    socket.stop();
+    server = null;
+    socket = null;
+    super.tearDown();
+  }
+
+  /**
+   * Write a "search.results" notification containing the given number of results to the given
+   * stream, as a single line.
+   */
+  private void writeSearchResults(OutputStream output, String searchId, int firstResult,
+      int resultCount, boolean last) throws IOException {
+    StringBuilder builder = new StringBuilder();
+    builder.append("{\"event\":\"search.results\",\"params\":{\"id\":\"");
+    builder.append(searchId);
+    builder.append("\",\"results\":[");
+    for (int i = firstResult; i < firstResult + resultCount; i++) {
+      if (i > firstResult) {
+        builder.append(',');
+      }
+      String location = "{\"file\":\"/file" + i + ".dart\",\"offset\":" + i
+          + ",\"length\":5,\"startLine\":1,\"startColumn\":1}";
+      builder.append("{\"location\":");
+      builder.append(location);
+      builder.append(",\"kind\":\"REFERENCE\",\"isPotential\":false,\"path\":[");
+      builder.append("{\"kind\":\"FUNCTION\",\"name\":\"f" + i + "\",\"location\":");
+      builder.append(location);
+      builder.append(",\"flags\":0}]}");
+    }
+    builder.append("],\"last\":");
+    builder.append(last);
+    builder.append("}}\n");
+    output.write(builder.toString().getBytes(Charsets.UTF_8));
+    output.flush();
+  }
+}
@@ -24,6 +24,8 @@ public class TestAll {
     suite.addTestSuite(ByteRequestSinkTest.class);
     suite.addTestSuite(ByteResposeStreamTest.class);
     suite.addTestSuite(RemoteAnalysisServerImplTest.class);
+    suite.addTestSuite(RequestPipelineTest.class);
+    suite.addTestSuite(StdioSearchResultsTest.class);
     return suite;
   }
 }
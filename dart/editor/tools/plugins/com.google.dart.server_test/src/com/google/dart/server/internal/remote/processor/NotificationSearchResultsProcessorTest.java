@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.server.internal.remote.processor;
+
+import com.google.common.collect.Lists;
+import com.google.dart.server.AnalysisServerListenerAdapter;
+import com.google.dart.server.SearchResult;
+import com.google.dart.server.SearchResultKind;
+import com.google.dart.server.internal.BroadcastAnalysisServerListener;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+public class NotificationSearchResultsProcessorTest extends TestCase {
+  /**
+   * A listener that records the search results it is notified of.
+   */
+  private static class RecordingListener extends AnalysisServerListenerAdapter {
+    private final List<SearchResult[]> chunks = Lists.newArrayList();
+    private final List<Boolean> lastFlags = Lists.newArrayList();
+
+    @Override
+    public void computedSearchResults(String searchId, SearchResult[] results, boolean last) {
+      assertEquals("search0", searchId);
+      chunks.add(results);
+      lastFlags.add(last);
+    }
+  }
+
+  private BroadcastAnalysisServerListener broadcast = new BroadcastAnalysisServerListener();
+  private RecordingListener listener = new RecordingListener();
+
+  public void test_process_chunks() throws Exception {
+    new NotificationSearchResultsProcessor(broadcast, 4).process(createNotification(
+        "search0",
+        10,
+        true));
+    assertEquals(3, listener.chunks.size());
+    assertEquals(4, listener.chunks.get(0).length);
+    assertEquals(4, listener.chunks.get(1).length);
+    assertEquals(2, listener.chunks.get(2).length);
+    assertEquals(false, listener.lastFlags.get(0).booleanValue());
+    assertEquals(false, listener.lastFlags.get(1).booleanValue());
+    assertEquals(true, listener.lastFlags.get(2).booleanValue());
+    assertEquals("f9", listener.chunks.get(2)[1].getPath()[0].getName());
+  }
+
+  public void test_process_empty_last() throws Exception {
+    new NotificationSearchResultsProcessor(broadcast, 4).process(createNotification(
+        "search0",
+        0,
+        true));
+    assertEquals(1, listener.chunks.size());
+    assertEquals(0, listener.chunks.get(0).length);
+    assertEquals(true, listener.lastFlags.get(0).booleanValue());
+  }
+
+  public void test_process_notLast() throws Exception {
+    new NotificationSearchResultsProcessor(broadcast, 4).process(createNotification(
+        "search0",
+        8,
+        false));
+    assertEquals(2, listener.chunks.size());
+    assertEquals(false, listener.lastFlags.get(0).booleanValue());
+    assertEquals(false, listener.lastFlags.get(1).booleanValue());
+  }
+
+  public void test_searchResult() throws Exception {
+    new NotificationSearchResultsProcessor(broadcast).process(createNotification(
+        "search0",
+        3,
+        true));
+    assertEquals(1, listener.chunks.size());
+    SearchResult result = listener.chunks.get(0)[2];
+    assertEquals(SearchResultKind.REFERENCE, result.getKind());
+    assertEquals(false, result.isPotential());
+    assertEquals("/file2.dart", result.getLocation().getFile());
+    assertEquals(2, result.getLocation().getOffset());
+    assertEquals(3, result.getLocation().getStartColumn());
+    assertSame(result.getLocation(), result.getLocation());
+    assertEquals(1, result.getPath().length);
+    assertEquals("f2", result.getPath()[0].getName());
+    assertSame(result.getPath(), result.getPath());
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    broadcast.addListener(listener);
+  }
+
+  /**
+   * Return a "search.results" notification containing the given number of results.
+   */
+  private JsonObject createNotification(String searchId, int resultCount, boolean last) {
+    JsonArray results = new JsonArray();
+    for (int i = 0; i < resultCount; i++) {
+      JsonObject location = new JsonObject();
+      location.addProperty("file", "/file" + i + ".dart");
+      location.addProperty("offset", i);
+      location.addProperty("length", 5);
+      location.addProperty("startLine", 1);
+      location.addProperty("startColumn", i + 1);
+      JsonObject element = new JsonObject();
+      element.addProperty("kind", "FUNCTION");
+      element.addProperty("name", "f" + i);
+      element.add("location", location);
+      element.addProperty("flags", 0);
+      JsonArray path = new JsonArray();
+      path.add(element);
+      JsonObject result = new JsonObject();
+      result.add("location", location);
+      result.addProperty("kind", "REFERENCE");
+      result.addProperty("isPotential", false);
+      result.add("path", path);
+      results.add(result);
+    }
+    JsonObject params = new JsonObject();
+    params.addProperty("id", searchId);
+    params.add("results", results);
+    params.addProperty("last", last);
+    JsonObject notification = new JsonObject();
+    notification.addProperty("event", "search.results");
+    notification.add("params", params);
+    return notification;
+  }
+}
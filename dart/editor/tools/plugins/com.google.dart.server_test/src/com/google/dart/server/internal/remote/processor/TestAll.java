@@ -21,6 +21,7 @@ public class TestAll {
     TestSuite suite = new TestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTest(com.google.dart.server.internal.remote.utilities.TestAll.suite());
     suite.addTestSuite(AnalysisErrorImplTest.class);
+    suite.addTestSuite(NotificationSearchResultsProcessorTest.class);
     return suite;
   }
 }
@@ -51,6 +51,7 @@ public class AnalysisServerDataImpl implements AnalysisServerData {
   private final Map<AnalysisService, List<String>> analysisSubscriptions = Maps.newHashMap();
   private final Map<String, SearchResultsListener> searchResultsListeners = Maps.newHashMap();
   private final Map<String, List<SearchResultsSet>> searchResultsData = Maps.newHashMap();
+  private final Set<String> cancelledSearchIds = Sets.newHashSet();
   // TODO(scheglov) restore or remove for the new API
 //  private final Map<String, Set<ErrorCode>> fixableErrorCodesData = Maps.newHashMap();
 
@@ -58,6 +59,7 @@ public class AnalysisServerDataImpl implements AnalysisServerData {
 
   @Override
   public synchronized void addSearchResultsListener(String searchId, SearchResultsListener listener) {
+    cancelledSearchIds.remove(searchId);
     List<SearchResultsSet> resultsSets = searchResultsData.remove(searchId);
     boolean hasLast = false;
     if (resultsSets != null) {
@@ -113,7 +115,10 @@ public class AnalysisServerDataImpl implements AnalysisServerData {
   public synchronized void removeSearchResultsListener(String searchId,
       SearchResultsListener listener) {
     searchResultsData.remove(searchId);
-    searchResultsListeners.remove(searchId);
+    if (searchResultsListeners.remove(searchId) != null) {
+      // ignore the rest of the results of the search
+      cancelledSearchIds.add(searchId);
+    }
   }
 
   /**
@@ -235,6 +240,22 @@ public class AnalysisServerDataImpl implements AnalysisServerData {
         searchResultsListeners.remove(searchId);
       }
       listener.computedSearchResults(results, last);
+    } else if (cancelledSearchIds.contains(searchId)) {
+      // the listener was removed, drop the results
+      if (last) {
+        cancelledSearchIds.remove(searchId);
+      }
+    } else if (last) {
+      // no listener was added for the whole search, drop its results
+      searchResultsData.remove(searchId);
+    } else {
+      // keep the results until a listener is added for the search
+      List<SearchResultsSet> resultsSets = searchResultsData.get(searchId);
+      if (resultsSets == null) {
+        resultsSets = Lists.newArrayList();
+        searchResultsData.put(searchId, resultsSets);
+      }
+      resultsSets.add(new SearchResultsSet(results, last));
     }
   }
 
@@ -13,9 +13,12 @@
  */
 package com.google.dart.tools.core.internal.analysis.model;
 
+import com.google.dart.engine.source.DirectoryBasedSourceContainer;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
+import com.google.dart.engine.utilities.collection.PathTrie;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 
@@ -29,17 +32,40 @@ public class CompositeSourceContainer implements SourceContainer {
 
   private final SourceContainer[] containers;
 
+  /**
+   * The paths of the {@link DirectoryBasedSourceContainer directory based containers} in
+   * {@link #containers}, which are tested in a single lookup rather than one container at a time.
+   */
+  private final PathTrie directoryPaths = new PathTrie();
+
+  /**
+   * The containers in {@link #containers} that are not directory based.
+   */
+  private final SourceContainer[] otherContainers;
+
   public CompositeSourceContainer(Collection<SourceContainer> containers) {
     this(containers.toArray(new SourceContainer[containers.size()]));
   }
 
   public CompositeSourceContainer(SourceContainer[] containers) {
     this.containers = containers;
+    ArrayList<SourceContainer> others = new ArrayList<SourceContainer>();
+    for (SourceContainer container : containers) {
+      if (container instanceof DirectoryBasedSourceContainer) {
+        directoryPaths.add(((DirectoryBasedSourceContainer) container).getPath());
+      } else {
+        others.add(container);
+      }
+    }
+    otherContainers = others.toArray(new SourceContainer[others.size()]);
   }
 
   @Override
   public boolean contains(Source source) {
-    for (SourceContainer container : containers) {
+    if (!directoryPaths.isEmpty() && directoryPaths.containsPrefixOf(source.getFullName())) {
+      return true;
+    }
+    for (SourceContainer container : otherContainers) {
       if (container.contains(source)) {
         return true;
       }
@@ -1,7 +1,9 @@
 package com.google.dart.tools.core.internal.analysis.model;
 
 import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.internal.context.ChangeSetCoalescer;
 import com.google.dart.tools.core.DartCore;
+import com.google.dart.tools.core.DartCoreDebug;
 import com.google.dart.tools.core.analysis.model.Project;
 import com.google.dart.tools.core.analysis.model.ProjectManager;
 import com.google.dart.tools.core.internal.builder.AnalysisWorker;
@@ -17,12 +19,25 @@ import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * The {@code WorkspaceDeltaProcessor} receives resource changes from Eclipse and updates the
  * associated {@link ProjectManager} based on those changes. In addition, it traverses changes in
  * the "packages" directory hierarchy because the builder does not receive resources changes for
  * symlinked folders (e.g. packages).
+ * <p>
+ * Running pub or switching branches produces many resource change events for the "packages"
+ * directory hierarchy. Rather than applying the changes from each event and starting a new
+ * analysis worker for each of them, the changes are accumulated by a {@link ChangeSetCoalescer}
+ * and applied once no more events have arrived for a short while.
  * 
  * @coverage dart.tools.core.model
  */
@@ -32,8 +47,36 @@ public class WorkspaceDeltaProcessor implements IResourceChangeListener {
    */
   private final ProjectManager manager;
 
+  /**
+   * The coalescer accumulating the changes that have not yet been applied (not {@code null}).
+   */
+  private final ChangeSetCoalescer coalescer = new ChangeSetCoalescer();
+
+  /**
+   * A table mapping the contexts that are to be analyzed once the pending changes have been applied
+   * to the projects containing them. Access to this field must be synchronized on the table.
+   */
+  private final LinkedHashMap<AnalysisContext, Project> pendingContexts = new LinkedHashMap<AnalysisContext, Project>();
+
+  /**
+   * The job used to apply the pending changes once they are ready to be applied (not {@code null}).
+   */
+  private final Job applyChangesJob = new Job("Apply package changes") {
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      long delay = coalescer.getDelay();
+      if (delay > 0) {
+        schedule(delay);
+      } else {
+        applyPendingChanges();
+      }
+      return Status.OK_STATUS;
+    }
+  };
+
   public WorkspaceDeltaProcessor(ProjectManager manager) {
     this.manager = manager;
+    applyChangesJob.setSystem(true);
   }
 
   @Override
@@ -73,9 +116,12 @@ public class WorkspaceDeltaProcessor implements IResourceChangeListener {
                 filter.addDeltaListener(indexUpdater);
                 processor.addDeltaListener(filter);
                 processor.traverse(delta);
-                updater.applyChanges();
+                updater.applyChanges(coalescer);
                 AnalysisContext context = manager.getContext(res);
-                startBackgroundAnalysis(project, context);
+                synchronized (pendingContexts) {
+                  pendingContexts.put(context, project);
+                }
+                scheduleApplyChanges(Math.max(coalescer.getDelay(), 0L));
                 return false;
               }
               return true;
@@ -91,6 +137,37 @@ public class WorkspaceDeltaProcessor implements IResourceChangeListener {
     }
   }
 
+  /**
+   * Apply the pending changes to the contexts to which they belong, and start analyzing the
+   * contexts in which the changes were made.
+   */
+  protected void applyPendingChanges() {
+    int collapsedCount = coalescer.getCollapsedCount();
+    coalescer.applyChanges();
+    ArrayList<Map.Entry<AnalysisContext, Project>> contexts;
+    synchronized (pendingContexts) {
+      contexts = new ArrayList<Map.Entry<AnalysisContext, Project>>(pendingContexts.entrySet());
+      pendingContexts.clear();
+    }
+    if (DartCoreDebug.TRACE_UPDATE) {
+      DartCore.logInformation("Applied package changes to " + contexts.size() + " contexts, "
+          + (coalescer.getCollapsedCount() - collapsedCount) + " redundant changes collapsed");
+    }
+    for (Map.Entry<AnalysisContext, Project> entry : contexts) {
+      startBackgroundAnalysis(entry.getValue(), entry.getKey());
+    }
+  }
+
+  /**
+   * Schedule the pending changes to be applied after the given number of milliseconds. Overridden
+   * when testing this class.
+   * 
+   * @param delay the number of milliseconds to wait before applying the changes
+   */
+  protected void scheduleApplyChanges(long delay) {
+    applyChangesJob.schedule(delay);
+  }
+
   /**
    * Kick off a background analysis worker for the given context.
    * 
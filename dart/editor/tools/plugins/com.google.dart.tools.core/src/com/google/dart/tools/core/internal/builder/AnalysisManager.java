@@ -14,6 +14,7 @@
 package com.google.dart.tools.core.internal.builder;
 
 import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
 import com.google.dart.tools.core.analysis.model.ContextManager;
 import com.google.dart.tools.core.analysis.model.Project;
 import com.google.dart.tools.core.analysis.model.ProjectManager;
@@ -27,10 +28,24 @@ import java.util.ArrayList;
 
 /**
  * Instances of {@code AnalysisManager} manage a queue of {@link AnalysisWorker} instances and
- * perform analysis via those instances.
+ * perform analysis via those instances. Workers for different contexts are run concurrently on a
+ * bounded number of background jobs, but no two workers for the same context are run at the same
+ * time. Workers whose context contains priority sources are run before other workers, and a
+ * running worker for a context without priority sources yields to them when every job is busy.
+ * <p>
+ * Contexts that share an SDK also share the element models of the SDK libraries. The contexts
+ * serialize the resolution of those libraries themselves, so that concurrent workers cannot build
+ * different elements for the same SDK library.
  */
 public class AnalysisManager {
 
+  /**
+   * The default maximum number of workers that are run concurrently.
+   */
+  public static final int DEFAULT_MAX_ACTIVE_WORKERS = Math.max(
+      1,
+      Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
   /**
    * The instance of {@link AnalysisManager} typically used for background processing.
    */
@@ -43,6 +58,18 @@ public class AnalysisManager {
     return INSTANCE;
   }
 
+  /**
+   * Return {@code true} if the given worker is analyzing a context that contains priority sources.
+   * 
+   * @param worker the worker being tested
+   * @return {@code true} if the worker's context contains priority sources
+   */
+  private static boolean hasPrioritySources(AnalysisWorker worker) {
+    AnalysisContext context = worker.getContext();
+    return context instanceof InternalAnalysisContext
+        && ((InternalAnalysisContext) context).getPrioritySources().length > 0;
+  }
+
   /**
    * A collection of workers waiting to perform analysis. Synchronize against this field before
    * accessing it.
@@ -50,21 +77,44 @@ public class AnalysisManager {
   private final ArrayList<AnalysisWorker> backgroundQueue = new ArrayList<AnalysisWorker>();
 
   /**
-   * The background job on which the queued workers are executed, or {@code null} if none.
-   * Synchronize against {@link backgroundQueue} before accessing this field.
+   * The background jobs on which the queued workers are executed. Synchronize against
+   * {@link #backgroundQueue} before accessing this field.
    */
-  private Job backgroundJob = null;
+  private final ArrayList<Job> backgroundJobs = new ArrayList<Job>();
 
   /**
-   * The currently executing {@link AnalysisWorker}.
+   * The currently executing workers. Synchronize against {@link #backgroundQueue} before accessing
+   * this field.
    */
-  private AnalysisWorker activeWorker = null;
+  private final ArrayList<AnalysisWorker> activeWorkers = new ArrayList<AnalysisWorker>();
+
+  /**
+   * The maximum number of workers that are run concurrently.
+   */
+  private final int maxActiveWorkers;
 
   /**
    * Flag indicating whether {@link #stopBackgroundAnalysis()} has been called.
    */
   private boolean stopped = false;
 
+  /**
+   * Initialize a newly created manager to run at most {@link #DEFAULT_MAX_ACTIVE_WORKERS} workers
+   * concurrently.
+   */
+  public AnalysisManager() {
+    this(DEFAULT_MAX_ACTIVE_WORKERS);
+  }
+
+  /**
+   * Initialize a newly created manager to run at most the given number of workers concurrently.
+   * 
+   * @param maxActiveWorkers the maximum number of workers that are run concurrently
+   */
+  public AnalysisManager(int maxActiveWorkers) {
+    this.maxActiveWorkers = Math.max(1, maxActiveWorkers);
+  }
+
   /**
    * Add the given worker to the queue of workers that will be processed.
    * 
@@ -80,29 +130,55 @@ public class AnalysisManager {
   }
 
   /**
-   * Answer the currently executing {@link AnalysisWorker}.
+   * Answer the currently executing {@link AnalysisWorker}. If more than one worker is executing,
+   * the one that started first is returned.
    * 
    * @return the worker or {@code null} if none
    */
   public AnalysisWorker getActiveWorker() {
     synchronized (backgroundQueue) {
-      return activeWorker;
+      return activeWorkers.isEmpty() ? null : activeWorkers.get(0);
     }
   }
 
   /**
-   * Answer the next queued worker or {@code null} if the processor is paused or the queue is empty.
+   * Answer the currently executing {@link AnalysisWorker}s. The number of analysis tasks each of
+   * them has performed is available from {@link AnalysisWorker#getPerformedTaskCount()}.
+   * 
+   * @return an array of workers (not {@code null}, contains no {@code null}s)
+   */
+  public AnalysisWorker[] getActiveWorkers() {
+    synchronized (backgroundQueue) {
+      return activeWorkers.toArray(new AnalysisWorker[activeWorkers.size()]);
+    }
+  }
+
+  /**
+   * Answer the maximum number of workers that are run concurrently.
+   * 
+   * @return the maximum number of workers that are run concurrently
+   */
+  public int getMaxActiveWorkers() {
+    return maxActiveWorkers;
+  }
+
+  /**
+   * Answer the next queued worker that can be run, or {@code null} if there is no such worker.
+   * Workers whose context contains priority sources are returned first, and workers whose context
+   * is already being analyzed by an active worker are skipped.
    * 
    * @return the next worker or {@code null}
    */
   public AnalysisWorker getNextWorker() {
     synchronized (backgroundQueue) {
-      if (backgroundQueue.isEmpty()) {
-        backgroundJob = null;
-        backgroundQueue.notifyAll();
+      int index = findRunnableWorker(true);
+      if (index < 0) {
+        index = findRunnableWorker(false);
+      }
+      if (index < 0) {
         return null;
       }
-      return backgroundQueue.remove(0);
+      return backgroundQueue.remove(index);
     }
   }
 
@@ -118,10 +194,10 @@ public class AnalysisManager {
   }
 
   /**
-   * For each queued {@link AnalysisWorker}, remove that worker from the queue and call the
-   * {@link AnalysisWorker#performAnalysis(AnalysisManager)} to perform analysis. Continue until the
-   * queue is empty. This is typically called indirectly on a background thread via
-   * {@link #startBackgroundAnalysis()}.
+   * For each queued {@link AnalysisWorker} that can be run, remove that worker from the queue and
+   * call the {@link AnalysisWorker#performAnalysis(AnalysisManager)} to perform analysis. Continue
+   * until there are no more workers that can be run. This is typically called indirectly on a
+   * background thread via {@link #startBackgroundAnalysis()}, possibly on several threads at once.
    * 
    * @param job The job on which the analysis is performed or {@code null} if none.
    */
@@ -133,7 +209,7 @@ public class AnalysisManager {
         if (worker == null) {
           break;
         }
-        activeWorker = worker;
+        activeWorkers.add(worker);
       }
       try {
         if (job != null) {
@@ -148,7 +224,7 @@ public class AnalysisManager {
         worker.performAnalysis(this);
       } finally {
         synchronized (backgroundQueue) {
-          activeWorker = null;
+          activeWorkers.remove(worker);
         }
       }
     }
@@ -170,24 +246,78 @@ public class AnalysisManager {
   }
 
   /**
-   * Start a job to perform background analysis if it has not already been started.
+   * Add the given worker, which stopped before its analysis was complete in order to yield to
+   * another worker, to the end of the queue of workers that will be processed.
+   * 
+   * @param worker the worker to add (not {@code null})
+   */
+  public void requeueWorker(AnalysisWorker worker) {
+    synchronized (backgroundQueue) {
+      if (!stopped && !backgroundQueue.contains(worker)) {
+        backgroundQueue.add(worker);
+        startBackgroundAnalysis();
+      }
+    }
+  }
+
+  /**
+   * Answer {@code true} if the given active worker should stop so that a queued worker for a
+   * context containing priority sources can be run. This is the case when every job is busy, the
+   * given worker's context does not contain priority sources and there is a queued worker for a
+   * context containing priority sources that is not already being analyzed.
+   * 
+   * @param worker the worker performing analysis (not {@code null})
+   * @return {@code true} if the worker should stop and be requeued
+   */
+  public boolean shouldYield(AnalysisWorker worker) {
+    synchronized (backgroundQueue) {
+      if (activeWorkers.size() < maxActiveWorkers || hasPrioritySources(worker)) {
+        return false;
+      }
+      return findRunnableWorker(true) >= 0;
+    }
+  }
+
+  /**
+   * Start jobs to perform background analysis, up to the maximum number of concurrent workers, if
+   * they have not already been started.
    */
   public void startBackgroundAnalysis() {
     synchronized (backgroundQueue) {
       if (stopped) {
         return;
       }
-      if (backgroundJob == null) {
-        backgroundJob = new Job("Analyzing") {
+      int jobCount = Math.min(maxActiveWorkers, activeWorkers.size() + backgroundQueue.size());
+      while (backgroundJobs.size() < jobCount) {
+        Job job = new Job("Analyzing") {
           @Override
           protected IStatus run(IProgressMonitor monitor) {
-            performAnalysis(backgroundJob);
-            return Status.OK_STATUS;
+            try {
+              while (true) {
+                performAnalysis(this);
+                // A worker may have been queued after this job found no runnable worker, so check
+                // again and remove this job while holding the lock.
+                synchronized (backgroundQueue) {
+                  if (stopped || findRunnableWorker(false) < 0) {
+                    backgroundJobs.remove(this);
+                    backgroundQueue.notifyAll();
+                    return Status.OK_STATUS;
+                  }
+                }
+              }
+            } finally {
+              synchronized (backgroundQueue) {
+                if (backgroundJobs.remove(this)) {
+                  backgroundQueue.notifyAll();
+                }
+              }
+            }
           }
         };
-        backgroundJob.setPriority(Job.BUILD);
+        job.setPriority(Job.BUILD);
+        backgroundJobs.add(job);
+        job.schedule();
       }
-      backgroundJob.schedule();
     }
   }
 
@@ -197,14 +327,14 @@ public class AnalysisManager {
   public void stopBackgroundAnalysis() {
     synchronized (backgroundQueue) {
       stopped = true;
-      if (activeWorker != null) {
-        activeWorker.stop();
+      for (AnalysisWorker worker : activeWorkers) {
+        worker.stop();
       }
       backgroundQueue.clear();
-      if (backgroundJob != null) {
-        backgroundJob.cancel();
-        backgroundJob = null;
+      for (Job job : backgroundJobs) {
+        job.cancel();
       }
+      backgroundJobs.clear();
       backgroundQueue.notifyAll();
     }
   }
@@ -218,7 +348,7 @@ public class AnalysisManager {
   public boolean waitForBackgroundAnalysis(long milliseconds) {
     synchronized (backgroundQueue) {
       long end = System.currentTimeMillis() + milliseconds;
-      while (backgroundJob != null) {
+      while (!backgroundJobs.isEmpty()) {
         long delta = end - System.currentTimeMillis();
         if (delta <= 0) {
           return false;
@@ -232,4 +362,46 @@ public class AnalysisManager {
       return true;
     }
   }
+
+  /**
+   * Return the index of the first queued worker that can be run, or {@code -1} if there is no such
+   * worker. A worker can be run if no active worker is analyzing the same context. Synchronize
+   * against {@link #backgroundQueue} before calling this method.
+   * 
+   * @param priorityOnly {@code true} if only workers whose context contains priority sources are
+   *          to be considered
+   * @return the index of the first queued worker that can be run
+   */
+  private int findRunnableWorker(boolean priorityOnly) {
+    int count = backgroundQueue.size();
+    for (int i = 0; i < count; i++) {
+      AnalysisWorker worker = backgroundQueue.get(i);
+      if (priorityOnly && !hasPrioritySources(worker)) {
+        continue;
+      }
+      if (!isContextActive(worker.getContext())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Return {@code true} if an active worker is analyzing the given context. Synchronize against
+   * {@link #backgroundQueue} before calling this method.
+   * 
+   * @param context the context being tested
+   * @return {@code true} if an active worker is analyzing the given context
+   */
+  private boolean isContextActive(AnalysisContext context) {
+    if (context == null) {
+      return false;
+    }
+    for (AnalysisWorker worker : activeWorkers) {
+      if (worker.getContext() == context) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
@@ -255,6 +255,11 @@ public class AnalysisWorker {
    */
   private AnalysisContext context;
 
+  /**
+   * The number of analysis tasks that have been performed by this worker.
+   */
+  private volatile int performedTaskCount = 0;
+
   /**
    * The marker manager used to translate errors into Eclipse markers (not {@code null}).
    */
@@ -331,6 +336,16 @@ public class AnalysisWorker {
     }
   }
 
+  /**
+   * Answer the number of analysis tasks that have been performed by the receiver, which can be used
+   * to report the progress of analysis of the receiver's context.
+   * 
+   * @return the number of analysis tasks performed
+   */
+  public int getPerformedTaskCount() {
+    return performedTaskCount;
+  }
+
   /**
    * Perform analysis by repeatedly calling {@link AnalysisContext#performAnalysisTask()} and update
    * both the index and the error markers based upon the analysis results.
@@ -402,6 +417,15 @@ public class AnalysisWorker {
       // Process changes and allow subclasses to check results
       processChanges(context, changes);
       checkResults(context);
+      performedTaskCount++;
+
+      // Yield to a worker for a context containing priority sources, resuming later
+      if (manager != null && manager.shouldYield(this)) {
+        setCacheSize(context, IDLE_CACHE_SIZE);
+        markerManager.done();
+        manager.requeueWorker(this);
+        return;
+      }
     }
 
     setCacheSize(context, IDLE_CACHE_SIZE);
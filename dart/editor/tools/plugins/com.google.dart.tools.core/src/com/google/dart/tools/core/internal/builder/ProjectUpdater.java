@@ -15,6 +15,7 @@ package com.google.dart.tools.core.internal.builder;
 
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.internal.context.ChangeSetCoalescer;
 import com.google.dart.tools.core.DartCore;
 import com.google.dart.tools.core.DartCoreDebug;
 import com.google.dart.tools.core.analysis.model.Project;
@@ -63,6 +64,18 @@ public class ProjectUpdater implements DeltaListener {
     }
   }
 
+  /**
+   * Record the change sets in the given coalescer rather than applying them to the associated
+   * contexts, so that they can be merged with the changes from other deltas.
+   * 
+   * @param coalescer the coalescer in which the changes are to be recorded
+   */
+  public void applyChanges(ChangeSetCoalescer coalescer) {
+    for (Entry<AnalysisContext, ChangeSet> entry : contextChangeMap.entrySet()) {
+      coalescer.addChanges(entry.getKey(), entry.getValue());
+    }
+  }
+
   @Override
   public void packageSourceAdded(SourceDeltaEvent event) {
     currentChanges.addedSource(event.getSource());
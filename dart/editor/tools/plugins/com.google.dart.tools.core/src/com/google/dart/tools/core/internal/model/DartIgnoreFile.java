@@ -13,6 +13,7 @@
  */
 package com.google.dart.tools.core.internal.model;
 
+import com.google.dart.engine.utilities.collection.PathTrie;
 import com.google.dart.tools.core.utilities.io.FileUtilities;
 
 import java.io.BufferedReader;
@@ -22,6 +23,7 @@ import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -56,6 +58,12 @@ public class DartIgnoreFile {
 
   private final Set<String> ignores = new HashSet<String>();
 
+  /**
+   * The same patterns as {@link #ignores}, organized so that the patterns that are a prefix of a
+   * given pattern, or that start with a given pattern, can be found without testing every pattern.
+   */
+  private final PathTrie ignoreTrie = new PathTrie();
+
   private final File file;
 
   /**
@@ -76,11 +84,14 @@ public class DartIgnoreFile {
   public boolean add(String pattern) {
 
     //only add if not subsumed by an existing pattern
-    if (!isSubsumedIn(pattern, ignores)) {
+    if (!ignoreTrie.containsPrefixOf(pattern)) {
       //remove subsumed patterns
-      Collection<String> submsumed = getSubsumedPatterns(pattern, ignores);
-      ignores.removeAll(submsumed);
+      for (String subsumed : ignoreTrie.getPathsStartingWith(pattern)) {
+        ignores.remove(subsumed);
+        ignoreTrie.remove(subsumed);
+      }
       ignores.add(pattern);
+      ignoreTrie.add(pattern);
       return true;
     }
     return false;
@@ -143,14 +154,11 @@ public class DartIgnoreFile {
   public Collection<String> remove(String pattern) {
 
     //collect all patterns that contain the target pattern
-    ArrayList<String> toRemove = new ArrayList<String>();
-    for (String p : ignores) {
-      if (pattern.startsWith(p)) {
-        toRemove.add(p);
-      }
+    List<String> toRemove = ignoreTrie.getPrefixesOf(pattern);
+    for (String p : toRemove) {
+      ignores.remove(p);
+      ignoreTrie.remove(p);
     }
-
-    ignores.removeAll(toRemove);
     return toRemove;
   }
 
@@ -13,6 +13,7 @@
  */
 package com.google.dart.tools.core.internal.model;
 
+import com.google.dart.engine.utilities.collection.PathTrie;
 import com.google.dart.tools.core.DartCore;
 import com.google.dart.tools.core.model.DartIgnoreEvent;
 import com.google.dart.tools.core.model.DartIgnoreListener;
@@ -117,6 +118,12 @@ public class DartIgnoreManager {
    */
   private ArrayList<String> exclusionPatterns;
 
+  /**
+   * The same patterns as {@link #exclusionPatterns}, organized so that a path can be tested against
+   * all of them in time proportional to the length of the path.
+   */
+  private final PathTrie exclusionTrie = new PathTrie();
+
   public DartIgnoreManager() {
     this(new DartIgnoreFile(ResourcesPlugin.getWorkspace().getRoot().getLocation().append(
         IGNORE_FILE_NAME).toFile()));
@@ -338,14 +345,10 @@ public class DartIgnoreManager {
   public boolean isIgnored(String absolutePath) {
     if (absolutePath != null) {
       // TODO(brianwilkerson) Re-implement this once the real semantics have been decided on.
-      ArrayList<String> patterns = getExclusionPatterns();
-      if (patterns.size() > 0) {
-        for (String pattern : patterns) {
-          // TODO(brianwilkerson) Replace this with some form of pattern matching.
-          if (absolutePath.equals(pattern) || absolutePath.startsWith(pattern + "/")) {
-            return true;
-          }
-        }
+      loadContent();
+      // The path is ignored if it is equal to, or within, one of the exclusion patterns.
+      if (exclusionTrie.containsPrefixOf(absolutePath, '/')) {
+        return true;
       }
       return isIgnoredByDefault(absolutePath);
     }
@@ -459,6 +462,10 @@ public class DartIgnoreManager {
       exclusionPatterns.clear();
     }
     exclusionPatterns.addAll(storage.getPatterns());
+    exclusionTrie.clear();
+    for (String pattern : exclusionPatterns) {
+      exclusionTrie.add(pattern);
+    }
   }
 
   /**
@@ -62,4 +62,25 @@ public class CompositeSourceContainerTest extends TestCase {
 
   }
 
+  public void test_contains_mixedContainers() {
+    File dir1 = createFile("/does/not/exist");
+    File dir2 = createFile("/dir2/folder");
+    File file1 = createFile("/does/not/exist/some.dart");
+    File file2 = createFile("/dir2/folder/some2.dart");
+    File file3 = createFile("/dir2/folder2/some3.dart");
+
+    FileBasedSource source1 = new FileBasedSource(file1);
+    FileBasedSource source2 = new FileBasedSource(file2);
+    FileBasedSource source3 = new FileBasedSource(file3);
+
+    List<SourceContainer> containers = new ArrayList<SourceContainer>();
+    containers.add(new DirectoryBasedSourceContainer(dir1));
+    containers.add(new InvertedSourceContainer(new DirectoryBasedSourceContainer(dir2)));
+
+    CompositeSourceContainer container = new CompositeSourceContainer(containers);
+    assertTrue(container.contains(source1));
+    assertFalse(container.contains(source2));
+    assertTrue(container.contains(source3));
+  }
+
 }
@@ -112,6 +112,7 @@ public class WorkspaceDeltaProcessorTest extends TestCase {
 
   private class Target extends WorkspaceDeltaProcessor {
     private boolean backgroundAnalysisStarted = false;
+    private boolean deferChanges = false;
 
     Target(ProjectManager manager) {
       super(manager);
@@ -121,6 +122,14 @@ public class WorkspaceDeltaProcessorTest extends TestCase {
       assertEquals(expected, backgroundAnalysisStarted);
     }
 
+    @Override
+    protected void scheduleApplyChanges(long delay) {
+      // Apply the changes immediately rather than waiting for the job to run.
+      if (!deferChanges) {
+        applyPendingChanges();
+      }
+    }
+
     @Override
     protected void startBackgroundAnalysis(Project project, AnalysisContext context) {
       backgroundAnalysisStarted = true;
@@ -162,6 +171,36 @@ public class WorkspaceDeltaProcessorTest extends TestCase {
     processor.assertBackgroundAnalysisStarted(true);
   }
 
+  public void test_resourceChanged_files_in_package_coalesced() {
+    MockFolder packages = projectContainer.getMockFolder(DartCore.PACKAGES_DIRECTORY_NAME);
+    MockFolder pkg1 = packages.getMockFolder("pkg1");
+    MockFile file1 = pkg1.getMockFile("bar.dart");
+    MockFile file2 = pkg1.addFile("baz.dart");
+    processor.deferChanges = true;
+
+    MockDelta delta = new MockDelta(projectContainer);
+    delta.add(packages).add(pkg1).add(file1);
+    processor.resourceChanged(new MockResourceChangeEvent(delta));
+    delta = new MockDelta(projectContainer);
+    delta.add(packages).add(pkg1).add(file2);
+    processor.resourceChanged(new MockResourceChangeEvent(delta));
+    delta = new MockDelta(projectContainer);
+    delta.add(packages).add(pkg1).add(file1);
+    processor.resourceChanged(new MockResourceChangeEvent(delta));
+
+    MockContext context = (MockContext) project.getDefaultContext();
+    context.assertNoCalls();
+    processor.assertBackgroundAnalysisStarted(false);
+
+    processor.applyPendingChanges();
+    ChangeSet expected = new ChangeSet();
+    expected.changedSource(new FileBasedSource(file1.getLocation().toFile()));
+    expected.changedSource(new FileBasedSource(file2.getLocation().toFile()));
+    context.assertChanged(expected);
+    context.assertNoCalls();
+    processor.assertBackgroundAnalysisStarted(true);
+  }
+
   public void test_resourceChanged_project_removed() {
     MockDelta delta = new MockDelta(projectContainer, IResourceDelta.REMOVED);
     processor.resourceChanged(new MockResourceChangeEvent(delta));
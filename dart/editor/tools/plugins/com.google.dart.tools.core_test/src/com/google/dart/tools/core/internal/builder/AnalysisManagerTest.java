@@ -13,13 +13,20 @@
  */
 package com.google.dart.tools.core.internal.builder;
 
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.source.Source;
 import com.google.dart.tools.core.AbstractDartCoreTest;
 import com.google.dart.tools.core.analysis.model.ContextManager;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AnalysisManagerTest extends AbstractDartCoreTest {
 
@@ -28,7 +35,11 @@ public class AnalysisManagerTest extends AbstractDartCoreTest {
     private int analysisCount;
 
     public MockWorker() {
-      super(mock(ContextManager.class), null);
+      this(null);
+    }
+
+    public MockWorker(AnalysisContext context) {
+      super(mock(ContextManager.class), context);
     }
 
     @Override
@@ -45,6 +56,14 @@ public class AnalysisManagerTest extends AbstractDartCoreTest {
   private class Target extends AnalysisManager {
     private int startBackgroundAnalysisCount = 0;
 
+    public Target() {
+      super();
+    }
+
+    public Target(int maxActiveWorkers) {
+      super(maxActiveWorkers);
+    }
+
     @Override
     public void startBackgroundAnalysis() {
       startBackgroundAnalysisCount++;
@@ -85,6 +104,43 @@ public class AnalysisManagerTest extends AbstractDartCoreTest {
     assertNull(target.getNextWorker());
   }
 
+  public void test_getNextWorker_contextActive() throws Exception {
+    AnalysisContext contextA = mockContext(false);
+    AnalysisContext contextB = mockContext(false);
+    final List<AnalysisWorker> next = new ArrayList<AnalysisWorker>();
+    MockWorker worker1 = new MockWorker(contextA) {
+      @Override
+      public void performAnalysis(AnalysisManager manager) {
+        super.performAnalysis(manager);
+        next.add(manager.getNextWorker());
+        next.add(manager.getNextWorker());
+      }
+    };
+    MockWorker worker2 = new MockWorker(contextA);
+    MockWorker worker3 = new MockWorker(contextB);
+    target.addWorker(worker3);
+    target.addWorker(worker2);
+    target.addWorker(worker1);
+    target.performAnalysis(null);
+    // worker2 is skipped while worker1 is analyzing the same context
+    assertSame(worker3, next.get(0));
+    assertNull(next.get(1));
+    worker1.assertAnalysisCount(1);
+    worker2.assertAnalysisCount(1);
+    worker3.assertAnalysisCount(0);
+  }
+
+  public void test_getNextWorker_priority() throws Exception {
+    MockWorker worker1 = new MockWorker(mockContext(true));
+    MockWorker worker2 = new MockWorker(mockContext(false));
+    target.addWorker(worker1);
+    target.addWorker(worker2);
+    assertSame(worker2, target.getQueueWorkers()[0]);
+    assertSame(worker1, target.getNextWorker());
+    assertSame(worker2, target.getNextWorker());
+    assertNull(target.getNextWorker());
+  }
+
   public void test_performAnalysis() throws Exception {
     MockWorker worker = new MockWorker();
     target.performAnalysis(null);
@@ -95,6 +151,83 @@ public class AnalysisManagerTest extends AbstractDartCoreTest {
     worker.assertAnalysisCount(1);
   }
 
+  public void test_performAnalysis_workload() throws Exception {
+    final Target target = new Target(2);
+    final CountDownLatch concurrent = new CountDownLatch(2);
+    final AtomicInteger activeInContextA = new AtomicInteger();
+    final AtomicInteger maxActiveInContextA = new AtomicInteger();
+    final AtomicInteger performed = new AtomicInteger();
+    AnalysisContext contextA = mockContext(false);
+    for (int i = 0; i < 4; i++) {
+      target.addWorker(new MockWorker(contextA) {
+        @Override
+        public void performAnalysis(AnalysisManager manager) {
+          int active = activeInContextA.incrementAndGet();
+          if (active > maxActiveInContextA.get()) {
+            maxActiveInContextA.set(active);
+          }
+          concurrent.countDown();
+          try {
+            concurrent.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            //$FALL-THROUGH$
+          }
+          activeInContextA.decrementAndGet();
+          performed.incrementAndGet();
+        }
+      });
+    }
+    target.addWorker(new MockWorker(mockContext(false)) {
+      @Override
+      public void performAnalysis(AnalysisManager manager) {
+        concurrent.countDown();
+        performed.incrementAndGet();
+      }
+    });
+    target.superStartBackgroundAnalysis();
+    assertTrue(concurrent.await(5, TimeUnit.SECONDS));
+    assertTrue(target.waitForBackgroundAnalysis(10000));
+    assertEquals(5, performed.get());
+    assertEquals(1, maxActiveInContextA.get());
+    assertEquals(0, target.getActiveWorkers().length);
+    assertEquals(0, target.getQueueWorkers().length);
+  }
+
+  public void test_shouldYield() throws Exception {
+    final Target target = new Target(1);
+    final MockWorker priorityWorker = new MockWorker(mockContext(true));
+    final boolean[] shouldYield = new boolean[2];
+    MockWorker worker = new MockWorker(mockContext(false)) {
+      @Override
+      public void performAnalysis(AnalysisManager manager) {
+        super.performAnalysis(manager);
+        shouldYield[0] = manager.shouldYield(this);
+        manager.addWorker(priorityWorker);
+        shouldYield[1] = manager.shouldYield(this);
+      }
+    };
+    target.addWorker(worker);
+    target.performAnalysis(null);
+    assertFalse(shouldYield[0]);
+    assertTrue(shouldYield[1]);
+    assertFalse(target.shouldYield(priorityWorker));
+  }
+
+  public void test_shouldYield_poolNotFull() throws Exception {
+    final Target target = new Target(2);
+    final boolean[] shouldYield = new boolean[1];
+    MockWorker worker = new MockWorker(mockContext(false)) {
+      @Override
+      public void performAnalysis(AnalysisManager manager) {
+        manager.addWorker(new MockWorker(mockContext(true)));
+        shouldYield[0] = manager.shouldYield(this);
+      }
+    };
+    target.addWorker(worker);
+    target.performAnalysis(null);
+    assertFalse(shouldYield[0]);
+  }
+
   public void test_startBackgroundAnalysis() throws Exception {
     final CountDownLatch latch = new CountDownLatch(1);
     MockWorker worker = new MockWorker() {
@@ -170,4 +303,15 @@ public class AnalysisManagerTest extends AbstractDartCoreTest {
     assertTrue(finished[0]);
     assertNull(target.getActiveWorker());
   }
+
+  /**
+   * Return a mock context that does or does not contain priority sources.
+   */
+  private InternalAnalysisContext mockContext(boolean hasPrioritySources) {
+    InternalAnalysisContext context = mock(InternalAnalysisContext.class);
+    Source[] prioritySources = hasPrioritySources ? new Source[] {mock(Source.class)}
+        : new Source[0];
+    when(context.getPrioritySources()).thenReturn(prioritySources);
+    return context;
+  }
 }
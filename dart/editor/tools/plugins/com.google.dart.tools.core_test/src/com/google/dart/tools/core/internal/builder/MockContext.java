@@ -26,6 +26,7 @@ import com.google.dart.engine.internal.context.ResolvableCompilationUnit;
 import com.google.dart.engine.internal.context.TimestampedData;
 import com.google.dart.engine.internal.element.angular.AngularApplication;
 import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.scope.ImportedNameTable;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.source.ContentCache;
 import com.google.dart.engine.source.DirectoryBasedSourceContainer;
@@ -415,6 +416,11 @@ public class MockContext implements InternalAnalysisContext {
     return Source.EMPTY_ARRAY;
   }
 
+  @Override
+  public ImportedNameTable getImportedNameTable(LibraryElement library) {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public SourceKind getKindOf(Source source) {
     throw new UnsupportedOperationException();
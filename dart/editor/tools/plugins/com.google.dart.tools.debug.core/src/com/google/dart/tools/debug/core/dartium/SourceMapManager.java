@@ -32,6 +32,7 @@ import org.eclipse.core.runtime.Path;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -93,10 +94,32 @@ public class SourceMapManager implements ResourceChangeParticipant {
     }
   }
 
+  /**
+   * The sources named in a source map, resolved to workspace files.
+   */
+  private static class ResolvedSources {
+    /**
+     * A table mapping the name of each source to the file it resolves to.
+     */
+    private Map<String, IFile> files = new HashMap<String, IFile>();
+
+    /**
+     * A table mapping each resolved file to the names of the sources that resolve to it.
+     */
+    private Map<IFile, List<String>> paths = new HashMap<IFile, List<String>>();
+  }
+
   private static final int MAX_SOURCE_MAPS = 10;
 
   private Map<IFile, SourceMap> sourceMaps = new LinkedHashMap<IFile, SourceMap>();
 
+  /**
+   * The resolved sources of the source maps in {@link #sourceMaps}, computed when first needed.
+   * Since the resolution of a relative source depends on whether the file exists, this is cleared
+   * whenever a file is added or removed. Guarded by {@link #sourceMaps}.
+   */
+  private Map<IFile, ResolvedSources> resolvedSources = new HashMap<IFile, ResolvedSources>();
+
   public SourceMapManager(IProject project) {
     // Collect all maps in the current project.
     try {
@@ -119,7 +142,10 @@ public class SourceMapManager implements ResourceChangeParticipant {
   }
 
   public void dispose() {
-    sourceMaps.clear();
+    synchronized (sourceMaps) {
+      sourceMaps.clear();
+      resolvedSources.clear();
+    }
 
     ResourceChangeManager.removeChangeParticipant(this);
   }
@@ -136,21 +162,23 @@ public class SourceMapManager implements ResourceChangeParticipant {
   public SourceLocation getMappingFor(IFile file, int line, int column) {
     IFile mapFile = file.getParent().getFile(new Path(file.getName() + SourceMap.SOURCE_MAP_EXT));
 
-    SourceMap map = sourceMaps.get(mapFile);
+    synchronized (sourceMaps) {
+      SourceMap map = sourceMaps.get(mapFile);
 
-    if (map != null) {
-      // Re-order the map.
-      sourceMaps.remove(mapFile);
-      sourceMaps.put(mapFile, map);
+      if (map != null) {
+        // Re-order the map.
+        sourceMaps.remove(mapFile);
+        sourceMaps.put(mapFile, map);
 
-      // Return mapping info.
-      SourceMapInfo mapping = map.getMappingFor(line, column);
+        // Return mapping info.
+        SourceMapInfo mapping = map.getMappingFor(line, column);
 
-      if (mapping != null) {
-        IFile resolvedFile = resolveFile(mapFile, mapping.getFile());
+        if (mapping != null && mapping.getFile() != null) {
+          IFile resolvedFile = getResolvedSources(mapFile, map).files.get(mapping.getFile());
 
-        if (resolvedFile != null) {
-          return new SourceLocation(resolvedFile, mapping.getLine());
+          if (resolvedFile != null) {
+            return new SourceLocation(resolvedFile, mapping.getLine());
+          }
         }
       }
     }
@@ -174,37 +202,37 @@ public class SourceMapManager implements ResourceChangeParticipant {
     synchronized (sourceMaps) {
       for (IFile sourceFile : sourceMaps.keySet()) {
         SourceMap map = sourceMaps.get(sourceFile);
+        List<String> paths = getResolvedSources(sourceFile, map).paths.get(targetFile);
 
-        for (String path : map.getSourceNames()) {
-          // TODO(devoncarew): the files in the maps should all be pre-resolved
-          IFile file = resolveFile(sourceFile, path);
+        if (paths == null) {
+          continue;
+        }
 
-          if (file != null && file.equals(targetFile)) {
-            List<SourceMapInfo> reverseMappings = map.getReverseMappingsFor(path, line);
+        foundMappings.add(sourceFile);
 
-            foundMappings.add(file);
+        for (String path : paths) {
+          List<SourceMapInfo> reverseMappings = map.getReverseMappingsFor(path, line);
 
-            for (SourceMapInfo reverseMapping : reverseMappings) {
-              if (reverseMapping != null) {
-                IFile mapSource = map.getMapSource();
+          for (SourceMapInfo reverseMapping : reverseMappings) {
+            if (reverseMapping != null) {
+              IFile mapSource = map.getMapSource();
 
-                if (mapSource != null) {
-                  mappings.add(new SourceLocation(
-                      mapSource,
-                      reverseMapping.getLine(),
-                      reverseMapping.getColumn()));
-                }
+              if (mapSource != null) {
+                mappings.add(new SourceLocation(
+                    mapSource,
+                    reverseMapping.getLine(),
+                    reverseMapping.getColumn()));
               }
             }
           }
         }
       }
-    }
 
-    for (IFile mapFile : foundMappings) {
-      // Re-order the map.
-      SourceMap map = sourceMaps.remove(mapFile);
-      sourceMaps.put(mapFile, map);
+      for (IFile mapFile : foundMappings) {
+        // Re-order the map.
+        SourceMap map = sourceMaps.remove(mapFile);
+        sourceMaps.put(mapFile, map);
+      }
     }
 
     return mappings;
@@ -212,6 +240,12 @@ public class SourceMapManager implements ResourceChangeParticipant {
 
   @Override
   public void handleFileAdded(IFile file) {
+    if (!isMapFileName(file)) {
+      synchronized (sourceMaps) {
+        resolvedSources.clear();
+      }
+    }
+
     handleFileChanged(file);
   }
 
@@ -221,6 +255,7 @@ public class SourceMapManager implements ResourceChangeParticipant {
       if (shouldFilterMapFile(file)) {
         synchronized (sourceMaps) {
           sourceMaps.remove(file);
+          resolvedSources.remove(file);
         }
       } else {
         try {
@@ -231,17 +266,20 @@ public class SourceMapManager implements ResourceChangeParticipant {
             // It's a source map file; put it in the source map map.
             sourceMaps.remove(file);
             sourceMaps.put(file, sourceMap);
+            resolvedSources.remove(file);
 
             // Make sure we bound how many source maps we remember. The source map hashmap is sorted
             // by least recently used.
             if (sourceMaps.size() > MAX_SOURCE_MAPS) {
               IFile firstFile = sourceMaps.keySet().iterator().next();
               sourceMaps.remove(firstFile);
+              resolvedSources.remove(firstFile);
             }
           }
         } catch (Exception ce) {
           synchronized (sourceMaps) {
             sourceMaps.remove(file);
+            resolvedSources.remove(file);
           }
         }
       }
@@ -250,9 +288,12 @@ public class SourceMapManager implements ResourceChangeParticipant {
 
   @Override
   public void handleFileRemoved(IFile file) {
-    if (isMapFileName(file)) {
-      synchronized (sourceMaps) {
+    synchronized (sourceMaps) {
+      if (isMapFileName(file)) {
         sourceMaps.remove(file);
+        resolvedSources.remove(file);
+      } else {
+        resolvedSources.clear();
       }
     }
   }
@@ -282,13 +323,8 @@ public class SourceMapManager implements ResourceChangeParticipant {
         for (IFile sourceFile : sourceMaps.keySet()) {
           SourceMap map = sourceMaps.get(sourceFile);
 
-          for (String path : map.getSourceNames()) {
-            // TODO(devoncarew): the files in the maps should all be pre-resolved
-            IFile file = resolveFile(sourceFile, path);
-
-            if (file != null && file.equals(targetFile)) {
-              return true;
-            }
+          if (getResolvedSources(sourceFile, map).paths.containsKey(targetFile)) {
+            return true;
           }
         }
       }
@@ -312,6 +348,43 @@ public class SourceMapManager implements ResourceChangeParticipant {
     return false;
   }
 
+  /**
+   * Return the resolved sources of the given source map, resolving them if necessary. The caller
+   * must hold the lock on {@link #sourceMaps}.
+   */
+  private ResolvedSources getResolvedSources(IFile mapFile, SourceMap map) {
+    ResolvedSources resolved = resolvedSources.get(mapFile);
+
+    if (resolved == null) {
+      resolved = new ResolvedSources();
+
+      for (String path : map.getSourceNames()) {
+        if (resolved.files.containsKey(path)) {
+          continue;
+        }
+
+        IFile file = resolveFile(mapFile, path);
+
+        resolved.files.put(path, file);
+
+        if (file != null) {
+          List<String> paths = resolved.paths.get(file);
+
+          if (paths == null) {
+            paths = new ArrayList<String>();
+            resolved.paths.put(file, paths);
+          }
+
+          paths.add(path);
+        }
+      }
+
+      resolvedSources.put(mapFile, resolved);
+    }
+
+    return resolved;
+  }
+
   private boolean isMapFileName(IFile file) {
     return file.getName().endsWith(SourceMap.SOURCE_MAP_EXT);
   }
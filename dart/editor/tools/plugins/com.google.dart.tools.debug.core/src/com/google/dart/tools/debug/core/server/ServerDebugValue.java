@@ -369,6 +369,10 @@ public class ServerDebugValue extends ServerDebugElement implements IValue, IDar
     } catch (InterruptedException e) {
 
     }
+
+    if (value.getVmObject() != null) {
+      prefetchObjectProperties(value.getVmObject().getFields());
+    }
   }
 
   protected void fillInListFields() {
@@ -412,6 +416,52 @@ public class ServerDebugValue extends ServerDebugElement implements IValue, IDar
     }
   }
 
+  /**
+   * The views ask each field for its children as soon as the fields are displayed. Retrieve the
+   * properties of all the fields' objects in one batch, so that this does not cost a round trip to
+   * the VM per field.
+   */
+  private void prefetchObjectProperties(List<VmVariable> variables) {
+    if (variables == null) {
+      return;
+    }
+
+    VmIsolate isolate = value.getIsolate();
+    List<Integer> objectIds = new ArrayList<Integer>();
+
+    for (VmVariable variable : variables) {
+      VmValue fieldValue = variable.getValue();
+
+      if (fieldValue != null && fieldValue.isObject() && !fieldValue.isNull()
+          && isolate.getCachedObject(fieldValue.getObjectId()) == null) {
+        objectIds.add(fieldValue.getObjectId());
+      }
+    }
+
+    if (objectIds.size() < 2) {
+      return;
+    }
+
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    try {
+      getConnection().getObjectProperties(isolate, objectIds, new VmCallback<List<VmObject>>() {
+        @Override
+        public void handleResult(VmResult<List<VmObject>> result) {
+          latch.countDown();
+        }
+      });
+    } catch (IOException e) {
+      latch.countDown();
+    }
+
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+
+    }
+  }
+
   private String printNull(String str) {
     if (str == null) {
       return "null";
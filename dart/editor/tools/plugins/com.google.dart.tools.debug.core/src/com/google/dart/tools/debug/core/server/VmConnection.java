@@ -32,6 +32,7 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -526,12 +527,20 @@ public class VmConnection {
     }
   }
 
-  public void getListElements(final VmIsolate isolate, int listObjectId, int index,
+  public void getListElements(final VmIsolate isolate, final int listObjectId, final int index,
       final VmCallback<VmValue> callback) throws IOException {
     if (callback == null) {
       throw new IllegalArgumentException("a callback is required");
     }
 
+    VmValue cachedValue = isolate.getCachedListElement(listObjectId, index);
+
+    if (cachedValue != null) {
+      callback.handleResult(VmResult.createFrom(cachedValue));
+
+      return;
+    }
+
     try {
       JSONObject request = new JSONObject();
 
@@ -543,6 +552,10 @@ public class VmConnection {
         public void handleResult(JSONObject result) throws JSONException {
           VmResult<VmValue> vmObjectResult = convertGetListElementsResult(isolate, result);
 
+          if (!vmObjectResult.isError() && vmObjectResult.getResult() != null) {
+            isolate.cacheListElement(listObjectId, index, vmObjectResult.getResult());
+          }
+
           callback.handleResult(vmObjectResult);
         }
       });
@@ -551,12 +564,87 @@ public class VmConnection {
     }
   }
 
+  /**
+   * Retrieve the given range of elements of a list in a single request. Elements that were already
+   * retrieved since the isolate paused are returned from the cache; if the whole range is cached no
+   * request is sent.
+   * 
+   * @param isolate
+   * @param listObjectId
+   * @param index the index of the first element to retrieve
+   * @param length the number of elements to retrieve
+   * @param callback
+   * @throws IOException
+   */
+  public void getListElements(final VmIsolate isolate, final int listObjectId, final int index,
+      final int length, final VmCallback<List<VmValue>> callback) throws IOException {
+    if (callback == null) {
+      throw new IllegalArgumentException("a callback is required");
+    }
+
+    List<VmValue> cachedValues = new ArrayList<VmValue>(length);
+
+    for (int i = 0; i < length; i++) {
+      VmValue cachedValue = isolate.getCachedListElement(listObjectId, index + i);
+
+      if (cachedValue == null) {
+        cachedValues = null;
+
+        break;
+      }
+
+      cachedValues.add(cachedValue);
+    }
+
+    if (cachedValues != null) {
+      callback.handleResult(VmResult.createFrom(cachedValues));
+
+      return;
+    }
+
+    try {
+      JSONObject request = new JSONObject();
+
+      request.put("command", "getListElements");
+      request.put(
+          "params",
+          new JSONObject().put("objectId", listObjectId).put("index", index).put("length", length));
+
+      sendRequest(request, isolate.getId(), new Callback() {
+        @Override
+        public void handleResult(JSONObject result) throws JSONException {
+          VmResult<List<VmValue>> vmResult = convertGetListElementsRangeResult(isolate, result);
+
+          if (!vmResult.isError() && vmResult.getResult() != null) {
+            List<VmValue> values = vmResult.getResult();
+
+            for (int i = 0; i < values.size(); i++) {
+              isolate.cacheListElement(listObjectId, index + i, values.get(i));
+            }
+          }
+
+          callback.handleResult(vmResult);
+        }
+      });
+    } catch (JSONException exception) {
+      throw new IOException(exception);
+    }
+  }
+
   public void getObjectProperties(final VmIsolate isolate, final int objectId,
       final VmCallback<VmObject> callback) throws IOException {
     if (callback == null) {
       throw new IllegalArgumentException("a callback is required");
     }
 
+    VmObject cachedObject = isolate.getCachedObject(objectId);
+
+    if (cachedObject != null) {
+      callback.handleResult(VmResult.createFrom(cachedObject));
+
+      return;
+    }
+
     try {
       JSONObject request = new JSONObject();
 
@@ -571,6 +659,10 @@ public class VmConnection {
               objectId,
               result);
 
+          if (!vmObjectResult.isError() && vmObjectResult.getResult() != null) {
+            isolate.cacheObject(objectId, vmObjectResult.getResult());
+          }
+
           callback.handleResult(vmObjectResult);
         }
       });
@@ -579,6 +671,63 @@ public class VmConnection {
     }
   }
 
+  /**
+   * Retrieve the properties of several objects. The requests for objects that are not already
+   * cached are all sent before any response is read, so the whole batch costs a single round trip.
+   * The callback is called once, with the objects in the same order as the given ids; an object
+   * that could not be retrieved is {@code null} in the result.
+   * 
+   * @param isolate
+   * @param objectIds
+   * @param callback
+   * @throws IOException
+   */
+  public void getObjectProperties(final VmIsolate isolate, final List<Integer> objectIds,
+      final VmCallback<List<VmObject>> callback) throws IOException {
+    if (callback == null) {
+      throw new IllegalArgumentException("a callback is required");
+    }
+
+    final VmObject[] objects = new VmObject[objectIds.size()];
+    final int[] remaining = new int[] {objects.length + 1};
+
+    final Runnable completeOne = new Runnable() {
+      @Override
+      public void run() {
+        boolean done;
+
+        synchronized (remaining) {
+          done = --remaining[0] == 0;
+        }
+
+        if (done) {
+          callback.handleResult(VmResult.createFrom(Arrays.asList(objects)));
+        }
+      }
+    };
+
+    for (int i = 0; i < objects.length; i++) {
+      final int index = i;
+
+      try {
+        getObjectProperties(isolate, objectIds.get(i), new VmCallback<VmObject>() {
+          @Override
+          public void handleResult(VmResult<VmObject> result) {
+            if (!result.isError()) {
+              objects[index] = result.getResult();
+            }
+
+            completeOne.run();
+          }
+        });
+      } catch (IOException e) {
+        completeOne.run();
+      }
+    }
+
+    completeOne.run();
+  }
+
   /**
    * This synchronous, potentially long-running call returns the cached source for the given
    * libraryId and source url.
@@ -1143,6 +1292,30 @@ public class VmConnection {
     return result;
   }
 
+  private VmResult<List<VmValue>> convertGetListElementsRangeResult(VmIsolate isolate,
+      JSONObject object) throws JSONException {
+    VmResult<List<VmValue>> result = VmResult.createFrom(object);
+
+    if (object.has("result")) {
+      JSONObject jsonResult = object.getJSONObject("result");
+      JSONArray arr = jsonResult.optJSONArray("elements");
+      List<VmValue> values = new ArrayList<VmValue>();
+
+      if (arr != null) {
+        for (int i = 0; i < arr.length(); i++) {
+          values.add(VmValue.createFrom(isolate, arr.getJSONObject(i)));
+        }
+      } else {
+        // A VM that does not understand the length parameter returns the single element.
+        values.add(VmValue.createFrom(isolate, jsonResult));
+      }
+
+      result.setResult(values);
+    }
+
+    return result;
+  }
+
   private VmResult<VmObject> convertGetObjectPropertiesResult(VmIsolate isolate, int objectId,
       JSONObject object) throws JSONException {
     VmResult<VmObject> result = VmResult.createFrom(object);
@@ -1238,6 +1411,7 @@ public class VmConnection {
 
   private void notifyDebuggerResumed(VmIsolate isolate) {
     isolate.clearClassInfoMap();
+    isolate.clearPauseCache();
 
     for (VmListener listener : listeners) {
       listener.debuggerResumed(isolate);
@@ -1307,6 +1481,7 @@ public class VmConnection {
         VmLocation location = VmLocation.createFrom(isolate, params.optJSONObject("location"));
 
         isolate.setPaused(true);
+        isolate.clearPauseCache();
 
         sendDelayedDebuggerPaused(PausedReason.parse(reason), isolate, location, exception);
       } else if (eventName.equals(EVENT_BREAKPOINTRESOLVED)) {
@@ -27,6 +27,13 @@ public class VmIsolate {
   private Map<Integer, VmClass> classInfoMap = new HashMap<Integer, VmClass>();
   private Map<Integer, VmLibrary> libraryInfoMap = new HashMap<Integer, VmLibrary>();
 
+  /**
+   * Object properties retrieved while the isolate is paused, keyed by object id. Values in this
+   * cache and in {@link #listElementCache} are only valid until the isolate resumes.
+   */
+  private Map<Integer, VmObject> objectCache = new HashMap<Integer, VmObject>();
+  private Map<Long, VmValue> listElementCache = new HashMap<Long, VmValue>();
+
   protected VmIsolate(int isolateId) {
     this.id = isolateId;
   }
@@ -90,11 +97,35 @@ public class VmIsolate {
     return "VmIsolate " + getId();
   }
 
+  protected synchronized void cacheListElement(int listObjectId, int index, VmValue value) {
+    listElementCache.put(getListElementKey(listObjectId, index), value);
+  }
+
+  protected synchronized void cacheObject(int objectId, VmObject object) {
+    objectCache.put(objectId, object);
+  }
+
   protected void clearClassInfoMap() {
     classInfoMap.clear();
     libraryInfoMap.clear();
   }
 
+  /**
+   * Discard the object properties and list elements retrieved since the isolate was last paused.
+   */
+  protected synchronized void clearPauseCache() {
+    objectCache.clear();
+    listElementCache.clear();
+  }
+
+  protected synchronized VmValue getCachedListElement(int listObjectId, int index) {
+    return listElementCache.get(getListElementKey(listObjectId, index));
+  }
+
+  protected synchronized VmObject getCachedObject(int objectId) {
+    return objectCache.get(objectId);
+  }
+
   protected void setClassInfo(int classId, VmClass vmClass) {
     classInfoMap.put(classId, vmClass);
   }
@@ -103,4 +134,8 @@ public class VmIsolate {
     libraryInfoMap.put(libraryId, vmLibrary);
   }
 
+  private long getListElementKey(int listObjectId, int index) {
+    return ((long) listObjectId << 32) | (index & 0xFFFFFFFFL);
+  }
+
 }
@@ -29,6 +29,12 @@ import java.util.concurrent.CountDownLatch;
  */
 public class VmVariable extends VmRef implements Comparable<VmVariable> {
 
+  /**
+   * The number of list elements that are retrieved together when one of them is needed. This
+   * matches the size of the groups in which the debug views display list elements.
+   */
+  static final int LIST_PAGE_SIZE = 100;
+
   static class LazyValue {
     private VmConnection connection;
 
@@ -42,6 +48,19 @@ public class VmVariable extends VmRef implements Comparable<VmVariable> {
     }
 
     public VmValue evaluate(VmIsolate isolate) {
+      // Retrieve the whole page containing the element, so that displaying the neighboring
+      // elements does not require a request per element.
+      int pageStart = index - index % LIST_PAGE_SIZE;
+      int pageLength = Math.min(LIST_PAGE_SIZE, listValue.getLength() - pageStart);
+
+      if (pageLength > 1) {
+        List<VmValue> page = evaluatePage(isolate, pageStart, pageLength);
+
+        if (page != null && page.size() == pageLength) {
+          return page.get(index - pageStart);
+        }
+      }
+
       final VmValue[] result = new VmValue[1];
 
       final CountDownLatch latch = new CountDownLatch(1);
@@ -71,6 +90,40 @@ public class VmVariable extends VmRef implements Comparable<VmVariable> {
 
       return result[0];
     }
+
+    private List<VmValue> evaluatePage(VmIsolate isolate, int pageStart, int pageLength) {
+      final List<List<VmValue>> result = new ArrayList<List<VmValue>>(1);
+
+      final CountDownLatch latch = new CountDownLatch(1);
+
+      try {
+        connection.getListElements(
+            isolate,
+            listValue.getObjectId(),
+            pageStart,
+            pageLength,
+            new VmCallback<List<VmValue>>() {
+              @Override
+              public void handleResult(VmResult<List<VmValue>> r) {
+                if (!r.isError()) {
+                  result.add(r.getResult());
+                }
+
+                latch.countDown();
+              }
+            });
+      } catch (IOException e) {
+        latch.countDown();
+      }
+
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+
+      }
+
+      return result.isEmpty() ? null : result.get(0);
+    }
   }
 
   static VmVariable createArrayEntry(VmConnection connection, VmValue listValue, int index) {
@@ -35,13 +35,19 @@ import java.io.Reader;
 import java.text.NumberFormat;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 // //@ sourceMappingURL=/path/to/file.js.map
 
 /**
  * This maps from a generated file back to the original source files. It also supports the reverse
  * mapping; from locations in the source files to locations in the generated file.
+ * <p>
+ * The mappings are decoded lazily, a generated line at a time, and are kept in parallel int arrays
+ * rather than as an object per mapping. The index used for reverse lookups is built the first time
+ * one is made.
  * 
  * @see http://www.html5rocks.com/en/tutorials/developertools/sourcemaps/
  */
@@ -77,7 +83,7 @@ public class SourceMap {
     return new SourceMap(path, jsonObject);
   }
 
-  private static SourceMap createFrom(IPath path, String contents) throws JSONException {
+  static SourceMap createFrom(IPath path, String contents) throws JSONException {
     if (contents.startsWith(")]}")) {
       contents = contents.substring(3);
     }
@@ -121,9 +127,21 @@ public class SourceMap {
   private String sourcesContent[];
 
   /**
-   * The full list of source map entries.
+   * The decoded source map entries.
    */
-  private SourceMapInfoEntry[] entries;
+  private SourceMapDecoder entries;
+
+  /**
+   * A table mapping the name of each source to the indexes in {@link #sources} at which it appears.
+   */
+  private Map<String, int[]> sourceIndexes;
+
+  /**
+   * For each source, the entries that map to it, sorted by their line in the source, or
+   * {@code null} if the index has not been built yet. Each element holds the source line in its
+   * high 32 bits and the index of the entry in its low 32 bits.
+   */
+  private long[][] reverseIndex;
 
   public SourceMap() {
 
@@ -156,10 +174,22 @@ public class SourceMap {
       }
     }
 
-    String mapStr = obj.getString("mappings");
+    sourceIndexes = new HashMap<String, int[]>();
+
+    for (int i = 0; i < sources.length; i++) {
+      int[] indexes = sourceIndexes.get(sources[i]);
 
-    List<SourceMapInfoEntry> result = SourceMapDecoder.decode(sources, names, mapStr);
-    entries = result.toArray(new SourceMapInfoEntry[result.size()]);
+      if (indexes == null) {
+        indexes = new int[] {i};
+      } else {
+        indexes = Arrays.copyOf(indexes, indexes.length + 1);
+        indexes[indexes.length - 1] = i;
+      }
+
+      sourceIndexes.put(sources[i], indexes);
+    }
+
+    entries = new SourceMapDecoder(obj.getString("mappings"));
   }
 
   public String getFile() {
@@ -173,35 +203,31 @@ public class SourceMap {
    * @param column the column in the generated source; -1 means the column is not interesting
    * @return the corresponding location in the original source
    */
-  public SourceMapInfo getMappingFor(int line, int column) {
-    int index = findIndexForLine(line);
-
-    if (index == -1) {
+  public synchronized SourceMapInfo getMappingFor(int line, int column) {
+    if (line < 0 || line >= entries.getLineCount()) {
       return null;
     }
 
-    SourceMapInfoEntry entry = entries[index];
+    entries.decodeThrough(line);
+
+    if (entries.getLineStart(line) == entries.getLineEnd(line)) {
+      return null;
+    }
 
     // If column == -1, return the first mapping for that line.
     if (column == -1) {
-      return entry.getInfo();
+      return getInfo(entries.getLineStart(line));
     }
 
-    // Search for a matching mapping.
-    while (index < entries.length) {
-      entry = entries[index];
+    // Search for a matching mapping; if the line has none, continue with the following lines.
+    for (; line < entries.getLineCount(); line++) {
+      entries.decodeThrough(line);
 
-      if (entry.column <= column) {
-        if (entry.endColumn == -1) {
-          return entry.getInfo();
-        }
+      int index = findEntryForColumn(line, column);
 
-        if (column < entry.endColumn) {
-          return entry.getInfo();
-        }
+      if (index != -1) {
+        return getInfo(index);
       }
-
-      index++;
     }
 
     // no mapping found
@@ -238,29 +264,46 @@ public class SourceMap {
    * @param column
    * @return
    */
-  public List<SourceMapInfo> getReverseMappingsFor(String file, int line) {
-    // TODO(devoncarew): calculate this information once for O(1) lookup
-    for (SourceMapInfoEntry entry : entries) {
-      SourceMapInfo info = entry.getInfo();
+  public synchronized List<SourceMapInfo> getReverseMappingsFor(String file, int line) {
+    int[] indexes = sourceIndexes.get(file);
+
+    if (indexes == null) {
+      return Collections.emptyList();
+    }
+
+    if (reverseIndex == null) {
+      buildReverseIndex();
+    }
+
+    // TODO(devoncarew): there will be several entries on this line
+    // We need to choose one that has a non-zero range, or is a catch-all entry
+    int match = -1;
 
-      if (info == null) {
-        continue;
+    for (int index : indexes) {
+      long[] sourceEntries = reverseIndex[index];
+      int location = Arrays.binarySearch(sourceEntries, (long) line << 32);
+
+      if (location < 0) {
+        location = -(location + 1);
       }
 
-      if (line == info.getLine()) {
-        if (file.equals(info.getFile())) {
-          // TODO(devoncarew): there will be several entries on this line
-          // We need to choose one that has a non-zero range, or is a catch-all entry
+      if (location < sourceEntries.length && (int) (sourceEntries[location] >> 32) == line) {
+        int entry = (int) sourceEntries[location];
 
-          return Collections.singletonList(new SourceMapInfo(
-              path.toString(),
-              entry.line,
-              entry.column));
+        if (match == -1 || entry < match) {
+          match = entry;
         }
       }
     }
 
-    return Collections.emptyList();
+    if (match == -1) {
+      return Collections.emptyList();
+    }
+
+    return Collections.singletonList(new SourceMapInfo(
+        path.toString(),
+        entries.getLineOf(match),
+        entries.column[match]));
   }
 
   public String[] getSourceNames() {
@@ -277,38 +320,95 @@ public class SourceMap {
   @Override
   public String toString() {
     return "[" + getPath().lastSegment() + ", "
-        + NumberFormat.getNumberInstance().format(entries.length) + " lines]";
+        + NumberFormat.getNumberInstance().format(entries.getLineCount()) + " lines]";
   }
 
-  private int findIndexForLine(int line) {
-    // TODO(devoncarew): test this binary search
+  /**
+   * Decode all of the entries, and index the entries for each source by their line in the source.
+   */
+  private void buildReverseIndex() {
+    entries.decodeAll();
+
+    int[] counts = new int[sources.length];
+
+    for (int i = 0; i < entries.entryCount; i++) {
+      int index = entries.sourceIndex[i];
+
+      if (index >= 0 && index < sources.length) {
+        counts[index]++;
+      }
+    }
+
+    long[][] result = new long[sources.length][];
+
+    for (int i = 0; i < sources.length; i++) {
+      result[i] = new long[counts[i]];
+      counts[i] = 0;
+    }
+
+    for (int i = 0; i < entries.entryCount; i++) {
+      int index = entries.sourceIndex[i];
+
+      if (index >= 0 && index < sources.length) {
+        result[index][counts[index]++] = ((long) entries.sourceLine[i] << 32) | i;
+      }
+    }
+
+    for (long[] sourceEntries : result) {
+      Arrays.sort(sourceEntries);
+    }
+
+    reverseIndex = result;
+  }
 
-    int location = Arrays.binarySearch(
-        entries,
-        SourceMapInfoEntry.forLine(line),
-        SourceMapInfoEntry.lineComparator());
+  /**
+   * Return the index of the entry on the given line whose range contains the given column, or
+   * {@code -1} if there is no such entry. The line must have been decoded.
+   */
+  private int findEntryForColumn(int line, int column) {
+    int low = entries.getLineStart(line);
+    int high = entries.getLineEnd(line) - 1;
+    int match = -1;
+
+    // The ranges of the entries on a line are in order and do not overlap, so only the last entry
+    // that starts at or before the column can contain it.
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+
+      if (entries.column[mid] <= column) {
+        match = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
 
-    if (location < 0) {
-      return -1;
+    if (match != -1 && (entries.endColumn[match] == -1 || column < entries.endColumn[match])) {
+      return match;
     }
 
-    while (location > 0 && entries[location - 1].line == line) {
-      location--;
+    return -1;
+  }
+
+  private SourceMapInfo getInfo(int entry) {
+    SourceMapInfo info = new SourceMapInfo(
+        getString(sources, entries.sourceIndex[entry]),
+        entries.sourceLine[entry],
+        entries.sourceColumn[entry]);
+
+    if (entries.nameIndex[entry] != SourceMapDecoder.NO_NAME) {
+      info.setName(getString(names, entries.nameIndex[entry]));
     }
 
-    return location;
-
-//    for (int i = 0; i < entries.length; i++) {
-//      SourceMapInfoEntry entry = entries[i];
-//
-//      if (entry.line == line) {
-//        return i;
-//      } else if (entry.line > line) {
-//        return -1;
-//      }
-//    }
-//
-//    return -1;
+    return info;
+  }
+
+  private String getString(String[] strs, int index) {
+    if (index >= 0 && index < strs.length) {
+      return strs[index];
+    } else {
+      return null;
+    }
   }
 
   private String[] parseStringArray(JSONArray arr) throws JSONException {
@@ -14,94 +14,214 @@
 
 package com.google.dart.tools.debug.core.sourcemaps;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import java.util.Arrays;
+
+/**
+ * Decodes the "mappings" entry of a source map into parallel arrays of ints, one element per
+ * mapping entry. Entry {@code i} maps the range [{@code column[i]}, {@code endColumn[i]}) of its
+ * generated line to {@code sourceLine[i]} and {@code sourceColumn[i]} in the source with index
+ * {@code sourceIndex[i]}.
+ * <p>
+ * Lines are decoded lazily and in order: the start of each generated line is found up front, and
+ * the VLQ segments of a line are only decoded when a lookup needs that line (or a later one).
+ */
 class SourceMapDecoder {
+  /**
+   * The value of {@link #nameIndex} for an entry without a name.
+   */
+  static final int NO_NAME = -1;
 
-  public static List<SourceMapInfoEntry> decode(String[] sources, String[] names, String mapStr) {
-    return new SourceMapDecoder(sources, names).decodeLines(mapStr);
-  }
+  private final String mappings;
 
-  private String[] sources;
-  private String[] names;
+  /**
+   * The offset in {@link #mappings} of the start of each generated line, followed by the offset
+   * just past the end of the last line.
+   */
+  private final int[] lineOffsets;
 
-  private List<SourceMapInfoEntry> entries;
+  /**
+   * The index of the first entry of each decoded line, followed by the number of entries.
+   */
+  private final int[] lineEntryStarts;
 
-  int originalFileIndex = 0;
-  int originalLine = 0;
-  int originalColumn = 0;
-  int nameIndex = 0;
+  private int decodedLineCount = 0;
 
-  private SourceMapDecoder(String[] sources, String[] names) {
-    this.sources = sources;
-    this.names = names;
-  }
+  private int sourceIndexState = 0;
+  private int sourceLineState = 0;
+  private int sourceColumnState = 0;
+  private int nameIndexState = 0;
+
+  private final int[] segment = new int[5];
+
+  int entryCount = 0;
 
-  List<SourceMapInfoEntry> decodeLines(String mapStr) {
+  int[] column;
+  int[] endColumn;
+  int[] sourceIndex;
+  int[] sourceLine;
+  int[] sourceColumn;
+  int[] nameIndex;
+
+  SourceMapDecoder(String mappings) {
     // In the given string, semi-colons demarcate lines and commas demarcate groups.
     // A;A;;;;;;;A;A;;A;A;A,mB,W,C,C,I,C,C;A,cAyVEA;AAAiB,QAAK,MAAFC
 
-    entries = new ArrayList<SourceMapInfoEntry>();
+    this.mappings = mappings;
+
+    int lineCount = 1;
+
+    for (int i = 0; i < mappings.length(); i++) {
+      if (mappings.charAt(i) == ';') {
+        lineCount++;
+      }
+    }
+
+    lineOffsets = new int[lineCount + 1];
+
+    int line = 1;
+
+    for (int i = 0; i < mappings.length(); i++) {
+      if (mappings.charAt(i) == ';') {
+        lineOffsets[line++] = i + 1;
+      }
+    }
+
+    lineOffsets[lineCount] = mappings.length() + 1;
+    lineEntryStarts = new int[lineCount + 1];
+
+    int capacity = Math.max(16, mappings.length() / 8);
+
+    column = new int[capacity];
+    endColumn = new int[capacity];
+    sourceIndex = new int[capacity];
+    sourceLine = new int[capacity];
+    sourceColumn = new int[capacity];
+    nameIndex = new int[capacity];
+  }
+
+  /**
+   * Decode all of the lines.
+   */
+  void decodeAll() {
+    decodeThrough(getLineCount() - 1);
+  }
+
+  /**
+   * Decode the lines up to and including the given line.
+   */
+  void decodeThrough(int line) {
+    while (decodedLineCount <= line && decodedLineCount < getLineCount()) {
+      decodeLine(decodedLineCount);
 
-    int lineNumber = 0;
+      decodedLineCount++;
+      lineEntryStarts[decodedLineCount] = entryCount;
+    }
+  }
+
+  /**
+   * Return the index just past the last entry of the given line, which must have been decoded.
+   */
+  int getLineEnd(int line) {
+    return lineEntryStarts[line + 1];
+  }
 
-    for (String line : mapStr.split(";")) {
-      if (line.length() > 0) {
-        decodeLine(line.split(","), lineNumber);
+  /**
+   * Return the generated line of the given entry, which must have been decoded.
+   */
+  int getLineOf(int entry) {
+    int low = 0;
+    int high = decodedLineCount - 1;
+
+    // Find the last line that starts at or before the entry; empty lines start at the same index
+    // as the line that follows them.
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+
+      if (lineEntryStarts[mid] <= entry) {
+        low = mid;
+      } else {
+        high = mid - 1;
       }
+    }
+
+    return low;
+  }
+
+  int getLineCount() {
+    return lineOffsets.length - 1;
+  }
+
+  /**
+   * Return the index of the first entry of the given line, which must have been decoded.
+   */
+  int getLineStart(int line) {
+    return lineEntryStarts[line];
+  }
+
+  private void addEntry(int generatedColumn) {
+    if (entryCount == column.length) {
+      int capacity = entryCount * 2;
 
-      lineNumber++;
+      column = Arrays.copyOf(column, capacity);
+      endColumn = Arrays.copyOf(endColumn, capacity);
+      sourceIndex = Arrays.copyOf(sourceIndex, capacity);
+      sourceLine = Arrays.copyOf(sourceLine, capacity);
+      sourceColumn = Arrays.copyOf(sourceColumn, capacity);
+      nameIndex = Arrays.copyOf(nameIndex, capacity);
     }
 
-    return entries;
+    column[entryCount] = generatedColumn;
+    endColumn[entryCount] = -1;
+    sourceIndex[entryCount] = sourceIndexState;
+    sourceLine[entryCount] = sourceLineState;
+    sourceColumn[entryCount] = sourceColumnState;
+    nameIndex[entryCount] = NO_NAME;
+
+    entryCount++;
   }
 
-  private void decodeLine(String[] mappings, int line) {
+  private void decodeLine(int line) {
     int generatedColumn = 0;
+    int previousEntry = -1;
+
+    int end = lineOffsets[line + 1] - 1;
+    int start = lineOffsets[line];
+
+    while (start < end) {
+      int segmentEnd = start;
 
-    SourceMapInfoEntry previousEntry = null;
+      while (segmentEnd < end && mappings.charAt(segmentEnd) != ',') {
+        segmentEnd++;
+      }
+
+      int count = VlqDecoder.decode(mappings, start, segmentEnd, segment);
 
-    for (String mapping : mappings) {
-      int[] indexes = VlqDecoder.decode(mapping);
+      start = segmentEnd + 1;
 
-      if (indexes.length == 1 || indexes.length == 4 || indexes.length == 5) {
-        generatedColumn += indexes[0];
+      if (count == 1 || count == 4 || count == 5) {
+        generatedColumn += segment[0];
 
-        if (previousEntry != null) {
-          previousEntry.setEndColumn(generatedColumn);
+        if (previousEntry != -1) {
+          endColumn[previousEntry] = generatedColumn;
         }
 
-        if (indexes.length < 4) {
+        if (count < 4) {
           continue;
         }
 
-        originalFileIndex += indexes[1];
-        originalLine += indexes[2];
-        originalColumn += indexes[3];
+        sourceIndexState += segment[1];
+        sourceLineState += segment[2];
+        sourceColumnState += segment[3];
 
-        String originalFile = getString(sources, originalFileIndex);
+        addEntry(generatedColumn);
 
-        SourceMapInfo info = new SourceMapInfo(originalFile, originalLine, originalColumn);
+        previousEntry = entryCount - 1;
 
-        if (indexes.length > 4) {
-          nameIndex += indexes[4];
-          info.setName(getString(names, nameIndex));
+        if (count > 4) {
+          nameIndexState += segment[4];
+          nameIndex[previousEntry] = nameIndexState;
         }
-
-        previousEntry = new SourceMapInfoEntry(line, generatedColumn, info);
-
-        entries.add(previousEntry);
       }
     }
   }
-
-  private String getString(String[] strs, int index) {
-    if (index >= 0 && index < strs.length) {
-      return strs[index];
-    } else {
-      return null;
-    }
-  }
-
 }
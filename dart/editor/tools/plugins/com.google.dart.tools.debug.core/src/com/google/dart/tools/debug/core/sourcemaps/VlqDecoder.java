@@ -86,6 +86,44 @@ public class VlqDecoder {
     return Ints.toArray(results);
   }
 
+  /**
+   * Decode the Base64 VLQ sequence in the given range of the given string into the given array,
+   * without allocating. Values beyond the length of the array are decoded but not stored.
+   * 
+   * @param str the string containing the sequence
+   * @param start the index of the first character of the sequence
+   * @param end the index just past the last character of the sequence
+   * @param result the array in which to store the decoded values
+   * @return the number of values in the sequence
+   */
+  static int decode(String str, int start, int end, int[] result) {
+    int count = 0;
+    int i = start;
+
+    while (i < end) {
+      int value = 0;
+      boolean continuation;
+      int shift = 0;
+
+      do {
+        char c = str.charAt(i++);
+        int digit = c < BASE64_DECODE_MAP.length ? BASE64_DECODE_MAP[c] : -1;
+        continuation = (digit & VLQ_CONTINUATION_BIT) != 0;
+        digit &= VLQ_BASE_MASK;
+        value = value + (digit << shift);
+        shift = shift + VLQ_BASE_SHIFT;
+      } while (continuation && i < end);
+
+      if (count < result.length) {
+        result[count] = fromVLQSigned(value);
+      }
+
+      count++;
+    }
+
+    return count;
+  }
+
   /**
    * Encode the given sequence of ints to a Base64 VLQ encoded string.
    * 
@@ -31,27 +31,50 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
  * A web server that serves up workspace resources.
+ * <p>
+ * Connections are accepted, read and written by a single dispatch thread using a {@link Selector};
+ * requests are handled on a thread pool. Connections are kept alive between requests, so a browser
+ * loading an application with many resources does not pay for a new connection per resource.
  */
 public class ResourceServer implements IResourceResolver {
-  private ServerSocket serverSocket;
+  /**
+   * The number of milliseconds that an idle keep-alive connection is held open.
+   */
+  static final long KEEP_ALIVE_TIMEOUT = 30000;
+
+  private ServerSocketChannel serverChannel;
+
+  private Selector selector;
 
   private ExecutorService threadPool;
 
+  /**
+   * The connections whose responses are ready to be written by the dispatch thread.
+   */
+  private ConcurrentLinkedQueue<ResourceServerConnection> pendingWrites = new ConcurrentLinkedQueue<ResourceServerConnection>();
+
+  private ResourceServerCache cache = new ResourceServerCache();
+
   private Set<String> previousAgents = new HashSet<String>();
 
   /**
@@ -69,7 +92,13 @@ public class ResourceServer implements IResourceResolver {
    * @throws IOException
    */
   public ResourceServer(int port) throws IOException {
-    serverSocket = new ServerSocket(port);
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.socket().bind(new InetSocketAddress(port));
+    serverChannel.configureBlocking(false);
+
+    selector = Selector.open();
+    serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
     threadPool = Executors.newCachedThreadPool();
 
     new Thread(new Runnable() {
@@ -88,7 +117,7 @@ public class ResourceServer implements IResourceResolver {
   }
 
   public int getPort() {
-    return serverSocket.getLocalPort();
+    return serverChannel.socket().getLocalPort();
   }
 
   @Override
@@ -137,10 +166,32 @@ public class ResourceServer implements IResourceResolver {
    */
   public void shutdown() {
     try {
-      serverSocket.close();
+      serverChannel.close();
+      selector.close();
     } catch (IOException exception) {
       DartDebugCorePlugin.logError(exception);
     }
+
+    threadPool.shutdown();
+  }
+
+  /**
+   * Handle the given request on the thread pool.
+   */
+  void execute(Runnable handler) {
+    threadPool.execute(handler);
+  }
+
+  ResourceServerCache getCache() {
+    return cache;
+  }
+
+  /**
+   * Have the dispatch thread write the response that is ready on the given connection.
+   */
+  void scheduleWrite(ResourceServerConnection connection) {
+    pendingWrites.add(connection);
+    selector.wakeup();
   }
 
   protected String getAvailableAppsContent() throws IOException {
@@ -238,7 +289,7 @@ public class ResourceServer implements IResourceResolver {
           "http",
           null,
           NetUtils.getLoopbackAddress(),
-          serverSocket.getLocalPort(),
+          getPort(),
           path,
           null,
           null);
@@ -261,15 +312,102 @@ public class ResourceServer implements IResourceResolver {
     return template1 + replace + template2;
   }
 
+  private void acceptConnection() throws IOException {
+    SocketChannel channel = serverChannel.accept();
+
+    if (channel == null) {
+      return;
+    }
+
+    try {
+      channel.configureBlocking(false);
+      channel.socket().setTcpNoDelay(true);
+
+      ResourceServerConnection connection = new ResourceServerConnection(this, channel);
+      connection.setKey(channel.register(selector, SelectionKey.OP_READ, connection));
+    } catch (IOException e) {
+      channel.close();
+
+      throw e;
+    }
+  }
+
+  private void closeIdleConnections() {
+    for (SelectionKey key : selector.keys()) {
+      if (key.attachment() instanceof ResourceServerConnection) {
+        ResourceServerConnection connection = (ResourceServerConnection) key.attachment();
+
+        if (connection.isIdle(KEEP_ALIVE_TIMEOUT)) {
+          connection.close();
+        }
+      }
+    }
+  }
+
   private void startServer() {
     try {
       while (true) {
-        Socket socket = serverSocket.accept();
+        selector.select(KEEP_ALIVE_TIMEOUT);
+
+        if (!selector.isOpen()) {
+          break;
+        }
+
+        ResourceServerConnection pending;
 
-        threadPool.execute(new ResourceServerHandler(this, socket));
+        while ((pending = pendingWrites.poll()) != null) {
+          try {
+            pending.handleWrite();
+          } catch (RuntimeException e) {
+            pending.close();
+          }
+        }
+
+        Set<SelectionKey> keys = selector.selectedKeys();
+
+        for (SelectionKey key : keys) {
+          if (!key.isValid()) {
+            continue;
+          }
+
+          if (key.isAcceptable()) {
+            try {
+              acceptConnection();
+            } catch (IOException e) {
+              if (!serverChannel.isOpen()) {
+                // The server channel was closed by the shutdown() call.
+                return;
+              }
+
+              // The connection could not be accepted (for example, because there are too many open
+              // files); skip it and keep serving the other connections.
+            }
+          } else {
+            ResourceServerConnection connection = (ResourceServerConnection) key.attachment();
+
+            try {
+              if (key.isWritable()) {
+                connection.handleWrite();
+              } else if (key.isReadable()) {
+                connection.handleRead();
+              }
+            } catch (RuntimeException e) {
+              // For example, a CancelledKeyException because the connection was closed while it
+              // was being handled. Only this connection is affected.
+              connection.close();
+            }
+          }
+        }
+
+        keys.clear();
+
+        closeIdleConnections();
       }
+    } catch (ClosedSelectorException e) {
+      // The selector was closed by the shutdown() call.
+
     } catch (IOException e) {
-      // The server socket was closed by the shutdown() call.
+      // The selector was closed by the shutdown() call.
 
     }
   }
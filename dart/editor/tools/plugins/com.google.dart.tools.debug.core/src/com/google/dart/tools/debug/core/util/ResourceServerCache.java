@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.util;
+
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache of the contents of small files served by a {@link ResourceServer}.
+ * Entries are keyed by the file's path, modification time and length, so an edited file is never
+ * served from the cache.
+ */
+class ResourceServerCache {
+  /**
+   * The largest file whose contents are cached.
+   */
+  static final int MAX_ENTRY_SIZE = 64 * 1024;
+
+  /**
+   * The maximum number of bytes held by the cache.
+   */
+  static final int MAX_TOTAL_SIZE = 8 * 1024 * 1024;
+
+  private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<String, byte[]>(
+      16,
+      0.75f,
+      true);
+
+  private int totalSize = 0;
+
+  /**
+   * Return the contents of the given file, or {@code null} if the file is too large to be cached.
+   * 
+   * @param file the file whose contents are to be returned
+   * @param lastModified the modification time of the file
+   * @param length the length of the file
+   * @throws IOException if the file could not be read
+   */
+  public byte[] getContents(File file, long lastModified, long length) throws IOException {
+    if (length > MAX_ENTRY_SIZE) {
+      return null;
+    }
+
+    String key = file.getPath() + "|" + lastModified + "|" + length;
+
+    synchronized (entries) {
+      byte[] contents = entries.get(key);
+
+      if (contents != null) {
+        return contents;
+      }
+    }
+
+    byte[] contents = Files.toByteArray(file);
+
+    if (contents.length != length) {
+      // The file changed while it was being read.
+      return contents;
+    }
+
+    synchronized (entries) {
+      byte[] previous = entries.put(key, contents);
+
+      if (previous != null) {
+        totalSize -= previous.length;
+      }
+
+      totalSize += contents.length;
+
+      Iterator<Map.Entry<String, byte[]>> iter = entries.entrySet().iterator();
+
+      while (totalSize > MAX_TOTAL_SIZE && iter.hasNext()) {
+        totalSize -= iter.next().getValue().length;
+        iter.remove();
+      }
+    }
+
+    return contents;
+  }
+}
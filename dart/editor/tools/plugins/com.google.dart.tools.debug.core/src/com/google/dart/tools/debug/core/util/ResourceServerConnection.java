@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.util;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A client connection to a {@link ResourceServer}. The bytes of requests are read, and the bytes of
+ * responses are written, on the server's dispatch thread using non-blocking I/O. Each complete
+ * request is handed to a {@link ResourceServerHandler} on the server's thread pool, which calls one
+ * of the {@code sendResponse} methods when the response is ready. The connection is kept open for
+ * further requests unless the handler asks for it to be closed.
+ */
+class ResourceServerConnection {
+  /**
+   * The maximum number of bytes in the header of a request.
+   */
+  private static final int MAX_HEADER_LENGTH = 64 * 1024;
+
+  /**
+   * The maximum number of bytes in the body of a request. This matches Jetty's setting.
+   */
+  private static final int MAX_BODY_LENGTH = 200000 + 100;
+
+  private static final String CONTENT_LENGTH = "content-length:";
+
+  private final ResourceServer server;
+
+  private final SocketChannel channel;
+
+  private SelectionKey key;
+
+  private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+
+  /**
+   * The bytes read from the channel that are not yet part of a dispatched request.
+   */
+  private byte[] pending = new byte[8192];
+
+  private int pendingLength = 0;
+
+  /**
+   * {@code true} while a request is being handled or its response is being written; no further
+   * requests are dispatched until it is complete.
+   */
+  private boolean busy = false;
+
+  private ByteBuffer responseHeader;
+
+  private ByteBuffer responseBody;
+
+  private FileChannel responseFile;
+
+  private long responseFilePosition;
+
+  private long responseFileEnd;
+
+  private boolean closeAfterResponse;
+
+  private long lastActivityTime = System.currentTimeMillis();
+
+  ResourceServerConnection(ResourceServer server, SocketChannel channel) {
+    this.server = server;
+    this.channel = channel;
+  }
+
+  /**
+   * Close the connection, discarding any response that has not been written.
+   */
+  public void close() {
+    responseHeader = null;
+    responseBody = null;
+    closeResponseFile();
+
+    try {
+      channel.close();
+    } catch (IOException e) {
+
+    }
+  }
+
+  public InetAddress getRemoteAddress() {
+    return channel.socket().getInetAddress();
+  }
+
+  /**
+   * Send a response consisting of the given header and body.
+   * 
+   * @param header the bytes of the status line and headers
+   * @param body the bytes of the body, or {@code null} if there is no body
+   * @param keepAlive {@code false} if the connection should be closed after the response is sent
+   */
+  public void sendResponse(byte[] header, byte[] body, boolean keepAlive) {
+    responseHeader = ByteBuffer.wrap(header);
+    responseBody = body == null ? null : ByteBuffer.wrap(body);
+    closeAfterResponse = !keepAlive;
+
+    server.scheduleWrite(this);
+  }
+
+  /**
+   * Send a response consisting of the given header and the first bytes of the given file. The file
+   * is transferred directly to the socket, without being copied through a buffer, and is closed
+   * when the response has been sent.
+   * 
+   * @param header the bytes of the status line and headers
+   * @param file the open file whose contents are the body of the response
+   * @param length the number of bytes of the file to send, as declared by the header
+   * @param keepAlive {@code false} if the connection should be closed after the response is sent
+   */
+  public void sendResponse(byte[] header, FileChannel file, long length, boolean keepAlive) {
+    responseHeader = ByteBuffer.wrap(header);
+    responseBody = null;
+    responseFile = file;
+    responseFilePosition = 0;
+    responseFileEnd = length;
+    closeAfterResponse = !keepAlive;
+
+    server.scheduleWrite(this);
+  }
+
+  /**
+   * Read the available bytes from the channel, and dispatch a request if one is complete. Called on
+   * the dispatch thread when the channel is readable.
+   */
+  void handleRead() {
+    readBuffer.clear();
+
+    int count;
+
+    try {
+      count = channel.read(readBuffer);
+    } catch (IOException e) {
+      count = -1;
+    }
+
+    if (count < 0) {
+      close();
+      return;
+    }
+
+    lastActivityTime = System.currentTimeMillis();
+
+    if (pendingLength + count > pending.length) {
+      byte[] newPending = new byte[Math.max(pending.length * 2, pendingLength + count)];
+      System.arraycopy(pending, 0, newPending, 0, pendingLength);
+      pending = newPending;
+    }
+
+    System.arraycopy(readBuffer.array(), 0, pending, pendingLength, count);
+    pendingLength += count;
+
+    dispatchRequest();
+  }
+
+  /**
+   * Write as much of the response as the channel will accept. Called on the dispatch thread when
+   * the channel is writable, or when a response has been scheduled.
+   */
+  void handleWrite() {
+    try {
+      if (responseHeader != null) {
+        channel.write(responseHeader);
+
+        if (responseHeader.hasRemaining()) {
+          waitForWritable();
+          return;
+        }
+
+        responseHeader = null;
+      }
+
+      if (responseBody != null) {
+        channel.write(responseBody);
+
+        if (responseBody.hasRemaining()) {
+          waitForWritable();
+          return;
+        }
+
+        responseBody = null;
+      }
+
+      if (responseFile != null) {
+        while (responseFilePosition < responseFileEnd) {
+          long count = responseFile.transferTo(
+              responseFilePosition,
+              responseFileEnd - responseFilePosition,
+              channel);
+
+          if (count <= 0) {
+            if (responseFilePosition >= responseFile.size()) {
+              // The file was truncated, so the declared length can no longer be sent.
+              close();
+              return;
+            }
+
+            waitForWritable();
+            return;
+          }
+
+          responseFilePosition += count;
+        }
+
+        closeResponseFile();
+      }
+    } catch (IOException e) {
+      close();
+      return;
+    }
+
+    lastActivityTime = System.currentTimeMillis();
+
+    if (closeAfterResponse) {
+      close();
+    } else {
+      busy = false;
+      key.interestOps(SelectionKey.OP_READ);
+
+      // A client can send the next request before the previous response is complete.
+      dispatchRequest();
+    }
+  }
+
+  /**
+   * Return {@code true} if the connection has been waiting for a request for longer than the given
+   * number of milliseconds.
+   */
+  boolean isIdle(long timeoutMillis) {
+    return !busy && System.currentTimeMillis() - lastActivityTime > timeoutMillis;
+  }
+
+  void setKey(SelectionKey key) {
+    this.key = key;
+  }
+
+  private void closeResponseFile() {
+    if (responseFile != null) {
+      try {
+        responseFile.close();
+      } catch (IOException e) {
+
+      }
+
+      responseFile = null;
+    }
+  }
+
+  /**
+   * If the pending bytes contain a complete request, hand it to a handler.
+   */
+  private void dispatchRequest() {
+    if (busy) {
+      return;
+    }
+
+    int headerEnd = findHeaderEnd();
+
+    if (headerEnd == -1) {
+      if (pendingLength > MAX_HEADER_LENGTH) {
+        close();
+      }
+
+      return;
+    }
+
+    int bodyLength = getContentLength(headerEnd);
+
+    if (bodyLength > MAX_BODY_LENGTH) {
+      close();
+      return;
+    }
+
+    int requestLength = headerEnd + Math.max(bodyLength, 0);
+
+    if (pendingLength < requestLength) {
+      return;
+    }
+
+    byte[] request = new byte[requestLength];
+    System.arraycopy(pending, 0, request, 0, requestLength);
+    System.arraycopy(pending, requestLength, pending, 0, pendingLength - requestLength);
+    pendingLength -= requestLength;
+
+    busy = true;
+    key.interestOps(0);
+
+    server.execute(new ResourceServerHandler(server, this, request));
+  }
+
+  /**
+   * Return the index just past the blank line that ends the header of the first pending request,
+   * or {@code -1} if the header is not complete.
+   */
+  private int findHeaderEnd() {
+    for (int i = 0; i < pendingLength; i++) {
+      if (pending[i] == '\n') {
+        if (i + 1 < pendingLength && pending[i + 1] == '\n') {
+          return i + 2;
+        }
+
+        if (i + 2 < pendingLength && pending[i + 1] == '\r' && pending[i + 2] == '\n') {
+          return i + 3;
+        }
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Return the value of the Content-Length header of the first pending request, or {@code -1} if
+   * there is no such header.
+   */
+  private int getContentLength(int headerEnd) {
+    String header = new String(pending, 0, headerEnd).toLowerCase();
+    int index = header.indexOf("\n" + CONTENT_LENGTH);
+
+    if (index == -1) {
+      return -1;
+    }
+
+    int start = index + 1 + CONTENT_LENGTH.length();
+    int end = header.indexOf('\n', start);
+
+    try {
+      return Integer.parseInt(header.substring(start, end).trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Have the dispatch thread finish writing the response once the channel can accept more bytes.
+   */
+  private void waitForWritable() {
+    key.interestOps(SelectionKey.OP_WRITE);
+  }
+}
@@ -39,16 +39,16 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.net.ConnectException;
 import java.net.InetAddress;
-import java.net.Socket;
 import java.net.SocketException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLDecoder;
+import java.nio.channels.FileChannel;
 import java.text.DateFormat;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -65,7 +65,7 @@ import java.util.Map;
 // Server: Apache/1.3.3.7 (Unix) (Red-Hat/Linux)
 // Last-Modified: Wed, 08 Jan 2003 23:11:55 GMT
 // Content-Length: 438
-// Connection: close
+// Connection: keep-alive
 // Content-Type: text/html; charset=UTF-8
 
 /**
@@ -79,6 +79,9 @@ class ResourceServerHandler implements Runnable {
     public static final String METHOD_POST = "POST";
 
     private static final String RANGE = "Range";
+    private static final String CONNECTION = "Connection";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
 
     public String method;
     public String file;
@@ -155,6 +158,55 @@ class ResourceServerHandler implements Runnable {
       return null;
     }
 
+    /**
+     * Return {@code true} if the client wants the connection kept open after the response. This is
+     * the default for HTTP/1.1; HTTP/1.0 clients must ask for it.
+     */
+    public boolean isKeepAlive() {
+      String connection = getHeaderKey(CONNECTION);
+
+      if ("HTTP/1.1".equals(version)) {
+        return connection == null || !connection.equalsIgnoreCase("close");
+      } else {
+        return connection != null && connection.equalsIgnoreCase("keep-alive");
+      }
+    }
+
+    /**
+     * Return {@code true} if the client accepts a response for which the given entity tag and
+     * modification time are current, so the response can be sent without a body.
+     */
+    public boolean isNotModified(String etag, long lastModified) {
+      String noneMatch = getHeaderKey(IF_NONE_MATCH);
+
+      if (noneMatch != null) {
+        for (String tag : noneMatch.split(",")) {
+          tag = tag.trim();
+
+          if (tag.equals(etag) || tag.equals("*")) {
+            return true;
+          }
+        }
+
+        return false;
+      }
+
+      String modifiedSince = getHeaderKey(IF_MODIFIED_SINCE);
+
+      if (modifiedSince != null) {
+        try {
+          Date date = HttpResponse.parseDate(modifiedSince);
+
+          // HTTP dates have a resolution of one second.
+          return lastModified / 1000 <= date.getTime() / 1000;
+        } catch (ParseException e) {
+          return false;
+        }
+      }
+
+      return false;
+    }
+
     @Override
     public String toString() {
       return "[" + method + " " + file + " " + version + "]";
@@ -175,21 +227,42 @@ class ResourceServerHandler implements Runnable {
     public static final int OK = 200; // "OK"
     public static final int PARTIAL_CONTENT = 206; // "Partial Content"
     public static final int REDIRECT = 302; // "Found"
+    public static final int NOT_MODIFIED = 304; // "Not Modified"
     public static final int NOT_FOUND = 404; // "Not Found"
     public static final int UNAUTHORIZED = 401; // "Unauthorized"
 
-    public static final DateFormat RFC_1123_DATE_FORMAT = new SimpleDateFormat(
+    private static final DateFormat RFC_1123_DATE_FORMAT = new SimpleDateFormat(
         "EEE, dd MMM yyyy HH:mm:ss z",
         Locale.US);
 
+    /**
+     * Format the given date for an HTTP header. Requests are handled on several threads, and
+     * {@link DateFormat} is not thread-safe.
+     */
+    public static String formatDate(Date date) {
+      synchronized (RFC_1123_DATE_FORMAT) {
+        return RFC_1123_DATE_FORMAT.format(date);
+      }
+    }
+
+    public static Date parseDate(String str) throws ParseException {
+      synchronized (RFC_1123_DATE_FORMAT) {
+        return RFC_1123_DATE_FORMAT.parse(str);
+      }
+    }
+
     public int responseCode = OK;
     public String responseText = "OK";
 
     public Map<String, String> headers = new LinkedHashMap<String, String>();
 
-    // one or the other needs to be null
+    // at most one of these is non-null
     public String responseBodyText;
-    public InputStream responseBodyStream;
+    public byte[] responseBodyBytes;
+    public FileChannel responseBodyFile;
+
+    // the number of bytes of responseBodyFile that are sent, as declared by Content-Length
+    public long responseBodyFileLength;
 
     @Override
     public String toString() {
@@ -203,6 +276,7 @@ class ResourceServerHandler implements Runnable {
   private static final String ACCEPT_RANGES = "Accept-Ranges";
   private static final String CONTENT_RANGE = "Content-Range";
   private static final String LAST_MODIFIED = "Last-Modified";
+  private static final String ETAG = "ETag";
 
   private static final String ISO_8859_1 = "ISO-8859-1";
   private static final String US_ASCII = "US-ASCII";
@@ -298,17 +372,28 @@ class ResourceServerHandler implements Runnable {
 
   private ResourceServer resourceServer;
 
-  private Socket socket;
+  private ResourceServerConnection connection;
 
-  public ResourceServerHandler(ResourceServer resourceServer, Socket socket) {
+  private byte[] request;
+
+  /**
+   * Create a handler for the given request.
+   * 
+   * @param resourceServer the server that received the request
+   * @param connection the connection on which the request was received
+   * @param request the bytes of the request header and body
+   */
+  public ResourceServerHandler(ResourceServer resourceServer, ResourceServerConnection connection,
+      byte[] request) {
     this.resourceServer = resourceServer;
-    this.socket = socket;
+    this.connection = connection;
+    this.request = request;
   }
 
   @Override
   public void run() {
     try {
-      DataInputStream in = new DataInputStream(socket.getInputStream());
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(request));
 
       HttpHeader header = parseHeader(in);
 
@@ -317,8 +402,8 @@ class ResourceServerHandler implements Runnable {
           System.out.println("resource server: socket closed early");
         }
 
-        safeClose(socket);
-      } else if (isAllowableConnection(socket, header)) {
+        connection.close();
+      } else if (isAllowableConnection(connection.getRemoteAddress(), header)) {
         HttpResponse response;
 
         if (HttpHeader.METHOD_GET.equals(header.method)
@@ -338,14 +423,12 @@ class ResourceServerHandler implements Runnable {
           }
         }
 
-        sendResponse(response);
+        sendResponse(header, response);
       } else {
-        // do nothing
+        connection.close();
       }
-
-      socket.close();
     } catch (IOException ioe) {
-      safeClose(socket);
+      connection.close();
 
       // ignore java.net.SocketException: Connection reset
       // ignore java.net.SocketException: Broken pipe
@@ -353,13 +436,14 @@ class ResourceServerHandler implements Runnable {
         DartDebugCorePlugin.logError(ioe);
       }
     } catch (Throwable t) {
+      connection.close();
+
       DartDebugCorePlugin.logError(t);
     }
   }
 
   private HttpResponse addStandardResponseHeaders(HttpResponse response) {
     response.headers.put("Server", "Dart Editor v" + DartCore.getVersion());
-    response.headers.put("Connection", "close");
     return response;
   }
 
@@ -446,10 +530,17 @@ class ResourceServerHandler implements Runnable {
 
     HttpResponse response = new HttpResponse();
 
+    long lastModified = javaFile.lastModified();
+    long length = javaFile.length();
+
+    // ETag: "12b3f0c5e88-1b6"
+    String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+    response.headers.put(ETAG, etag);
+
     try {
       // Last-Modified: Wed, 08 Jan 2003 23:11:55 GMT
-      Date date = new Date(javaFile.lastModified());
-      response.headers.put(LAST_MODIFIED, HttpResponse.RFC_1123_DATE_FORMAT.format(date));
+      Date date = new Date(lastModified);
+      response.headers.put(LAST_MODIFIED, HttpResponse.formatDate(date));
     } catch (ArrayIndexOutOfBoundsException ex) {
       // This happens occasionally on Windows. 
 
@@ -464,17 +555,19 @@ class ResourceServerHandler implements Runnable {
     // Cache-control: no-cache
     response.headers.put(CACHE_CONTROL, "no-cache");
 
-    // Content-Length: 438
-    if (javaFile != null) {
-      long length = javaFile.length();
+    // The browser revalidates on every load; answer with no body if its copy is current.
+    if (header.getRanges() == null && header.isNotModified(etag, lastModified)) {
+      response.responseCode = HttpResponse.NOT_MODIFIED;
+      response.responseText = "Not Modified";
 
-//      if (javaScriptContent != null) {
-//        length = javaScriptContent.length;
-//      }
+      addStandardResponseHeaders(response);
 
-      response.headers.put(CONTENT_LENGTH, Long.toString(length));
+      return response;
     }
 
+    // Content-Length: 438
+    response.headers.put(CONTENT_LENGTH, Long.toString(length));
+
     if (!headOnly) {
 //      if (javaScriptContent != null) {
 //        response.responseBodyStream = new ByteArrayInputStream(javaScriptContent);
@@ -484,7 +577,7 @@ class ResourceServerHandler implements Runnable {
       if (ranges != null) {
         byte[] rangeData = readRangeData(javaFile, ranges);
 
-        response.responseBodyStream = new ByteArrayInputStream(rangeData);
+        response.responseBodyBytes = rangeData;
 
         response.responseCode = HttpResponse.PARTIAL_CONTENT;
         response.responseText = "Partial Content";
@@ -495,7 +588,22 @@ class ResourceServerHandler implements Runnable {
         response.headers.put(CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/"
             + rangeData.length);
       } else {
-        response.responseBodyStream = new FileInputStream(javaFile);
+        response.responseBodyBytes = resourceServer.getCache().getContents(
+            javaFile,
+            lastModified,
+            length);
+
+        if (response.responseBodyBytes == null) {
+          // Declare the length of the file that is sent, even if it changed since it was stat'ed.
+          FileChannel file = new FileInputStream(javaFile).getChannel();
+
+          response.responseBodyFile = file;
+          response.responseBodyFileLength = file.size();
+
+          response.headers.put(CONTENT_LENGTH, Long.toString(response.responseBodyFileLength));
+        } else if (response.responseBodyBytes.length != length) {
+          response.headers.put(CONTENT_LENGTH, Integer.toString(response.responseBodyBytes.length));
+        }
       }
 
       // Indicate that we support requesting a subset of the document.
@@ -546,7 +654,9 @@ class ResourceServerHandler implements Runnable {
     if ("/log".equals(file)) {
       handleLoggingPost(str);
 
-      return addStandardResponseHeaders(new HttpResponse());
+      HttpResponse response = new HttpResponse();
+      response.headers.put(CONTENT_LENGTH, Integer.toString(0));
+      return addStandardResponseHeaders(response);
     } else {
       // 404 NOT FOUND
       return createErrorResponse();
@@ -687,9 +797,7 @@ class ResourceServerHandler implements Runnable {
     }
   }
 
-  private boolean isAllowableConnection(Socket connection, HttpHeader header) {
-    InetAddress remoteAddress = connection.getInetAddress();
-
+  private boolean isAllowableConnection(InetAddress remoteAddress, HttpHeader header) {
     if (isLocalAddress(remoteAddress)) {
       return true;
     }
@@ -918,16 +1026,15 @@ class ResourceServerHandler implements Runnable {
     return out.toByteArray();
   }
 
-  private void safeClose(Socket socket) {
-    try {
-      socket.close();
-    } catch (IOException e) {
-
-    }
-  }
+  private void sendResponse(HttpHeader header, HttpResponse response) throws IOException {
+    // The client can only find the end of a response whose body has no declared length by waiting
+    // for the connection to be closed.
+    boolean hasLength = response.headers.containsKey(CONTENT_LENGTH)
+        || response.responseCode == HttpResponse.NOT_MODIFIED
+        || HttpHeader.METHOD_HEAD.equals(header.method);
+    boolean keepAlive = header.isKeepAlive() && hasLength;
 
-  private void sendResponse(HttpResponse response) throws IOException {
-    OutputStream out = socket.getOutputStream();
+    response.headers.put("Connection", keepAlive ? "keep-alive" : "close");
 
     StringBuilder builder = new StringBuilder();
 
@@ -940,26 +1047,19 @@ class ResourceServerHandler implements Runnable {
 
     builder.append(CRLF);
 
-    out.write(builder.toString().getBytes(ISO_8859_1));
-
-    if (response.responseBodyText != null) {
-      out.write(response.responseBodyText.getBytes(US_ASCII));
-    } else if (response.responseBodyStream != null) {
-      byte[] buffer = new byte[2048];
-
-      int count = response.responseBodyStream.read(buffer);
-
-      while (count != -1) {
-        out.write(buffer, 0, count);
+    byte[] headerBytes = builder.toString().getBytes(ISO_8859_1);
 
-        count = response.responseBodyStream.read(buffer);
-      }
-
-      response.responseBodyStream.close();
+    if (response.responseBodyFile != null) {
+      connection.sendResponse(
+          headerBytes,
+          response.responseBodyFile,
+          response.responseBodyFileLength,
+          keepAlive);
+    } else if (response.responseBodyText != null) {
+      connection.sendResponse(headerBytes, response.responseBodyText.getBytes(US_ASCII), keepAlive);
+    } else {
+      connection.sendResponse(headerBytes, response.responseBodyBytes, keepAlive);
     }
-
-    out.flush();
-    out.close();
   }
 
   private HttpResponse serveAvailableApps(HttpHeader header) throws IOException {
@@ -971,7 +1071,7 @@ class ResourceServerHandler implements Runnable {
     response.headers.put(CONTENT_LENGTH, Integer.toString(bytes.length));
     response.headers.put(CONTENT_TYPE, "text/html; charset=UTF-8");
     response.headers.put(CACHE_CONTROL, "no-cache");
-    response.responseBodyStream = new ByteArrayInputStream(bytes);
+    response.responseBodyBytes = bytes;
 
     addStandardResponseHeaders(response);
 
@@ -986,12 +1086,15 @@ class ResourceServerHandler implements Runnable {
         URL url = ResourceServerHandler.class.getResource(resourceInfo[2]);
 
         URLConnection conn = url.openConnection();
+        InputStream in = conn.getInputStream();
+        byte[] bytes = ByteStreams.toByteArray(in);
+        in.close();
 
-        response.headers.put(CONTENT_LENGTH, Integer.toString(conn.getContentLength()));
+        response.headers.put(CONTENT_LENGTH, Integer.toString(bytes.length));
         response.headers.put(CONTENT_TYPE, resourceInfo[1]);
 
         if (!headOnly) {
-          response.responseBodyStream = conn.getInputStream();
+          response.responseBodyBytes = bytes;
         }
 
         addStandardResponseHeaders(response);
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.server;
+
+import junit.framework.TestCase;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the retrieval of objects and list elements by {@link VmConnection}, against a fake VM that
+ * answers getListElements and getObjectProperties requests.
+ */
+public class VmConnectionTest extends TestCase {
+
+  /**
+   * A fake VM debug server that records the requests it receives.
+   */
+  private static class FakeVm implements Runnable {
+    private final ServerSocket serverSocket;
+    private final List<JSONObject> requests = Collections.synchronizedList(
+        new ArrayList<JSONObject>());
+
+    FakeVm() throws IOException {
+      serverSocket = new ServerSocket(0);
+
+      Thread thread = new Thread(this, "FakeVm");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    public void close() throws IOException {
+      serverSocket.close();
+    }
+
+    public int getPort() {
+      return serverSocket.getLocalPort();
+    }
+
+    public int getRequestCount(String command) {
+      int count = 0;
+
+      synchronized (requests) {
+        for (JSONObject request : requests) {
+          if (command.equals(request.optString("command"))) {
+            count++;
+          }
+        }
+      }
+
+      return count;
+    }
+
+    public JSONObject getLastRequest() {
+      return requests.get(requests.size() - 1);
+    }
+
+    @Override
+    public void run() {
+      try {
+        Socket socket = serverSocket.accept();
+        JSONTokener tokener = new JSONTokener(new InputStreamReader(
+            socket.getInputStream(),
+            "UTF-8"));
+        OutputStream out = socket.getOutputStream();
+
+        while (true) {
+          JSONObject request = (JSONObject) tokener.nextValue();
+
+          requests.add(request);
+
+          JSONObject response = new JSONObject();
+          response.put("id", request.getInt("id"));
+          response.put("result", createResult(request));
+
+          synchronized (out) {
+            out.write(response.toString().getBytes("UTF-8"));
+            out.flush();
+          }
+        }
+      } catch (Exception e) {
+        // The connection was closed.
+      }
+    }
+
+    private JSONObject createResult(JSONObject request) throws JSONException {
+      String command = request.getString("command");
+      JSONObject params = request.getJSONObject("params");
+
+      if (command.equals("getListElements")) {
+        int index = params.getInt("index");
+
+        if (!params.has("length")) {
+          return createElement(index);
+        }
+
+        JSONArray elements = new JSONArray();
+
+        for (int i = 0; i < params.getInt("length"); i++) {
+          elements.put(createElement(index + i));
+        }
+
+        return new JSONObject().put("elements", elements);
+      } else if (command.equals("getObjectProperties")) {
+        JSONObject field = new JSONObject();
+        field.put("name", "id");
+        field.put("value", createElement(params.getInt("objectId")));
+
+        return new JSONObject().put("classId", 1).put("fields", new JSONArray().put(field));
+      } else {
+        return new JSONObject();
+      }
+    }
+
+    private JSONObject createElement(int index) throws JSONException {
+      return new JSONObject().put("kind", "number").put("text", Integer.toString(index));
+    }
+  }
+
+  private FakeVm vm;
+  private VmConnection connection;
+  private VmIsolate isolate;
+
+  public void test_getListElements_cached() throws Exception {
+    getListElementsSync(7, 0, 100);
+    assertEquals(1, vm.getRequestCount("getListElements"));
+
+    VmValue value = getListElementSync(7, 42);
+
+    assertEquals("42", value.getText());
+    assertEquals(1, vm.getRequestCount("getListElements"));
+  }
+
+  public void test_getListElements_clearedOnResume() throws Exception {
+    getListElementsSync(7, 0, 100);
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    connection.addListener(new VMListenerAdapter() {
+      @Override
+      public void debuggerResumed(VmIsolate isolate) {
+        latch.countDown();
+      }
+    });
+    connection.resume(isolate);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+    getListElementsSync(7, 0, 100);
+    assertEquals(2, vm.getRequestCount("getListElements"));
+  }
+
+  public void test_getListElements_range() throws Exception {
+    List<VmValue> values = getListElementsSync(7, 200, 50);
+
+    assertEquals(50, values.size());
+    assertEquals("200", values.get(0).getText());
+    assertEquals("249", values.get(49).getText());
+    assertEquals(1, vm.getRequestCount("getListElements"));
+    assertEquals(50, vm.getLastRequest().getJSONObject("params").getInt("length"));
+  }
+
+  public void test_getObjectProperties_batch() throws Exception {
+    List<Integer> objectIds = new ArrayList<Integer>();
+
+    for (int i = 1; i <= 20; i++) {
+      objectIds.add(i);
+    }
+
+    List<VmObject> objects = getObjectPropertiesSync(objectIds);
+
+    assertEquals(20, objects.size());
+    assertEquals(20, vm.getRequestCount("getObjectProperties"));
+
+    for (int i = 0; i < 20; i++) {
+      assertEquals(i + 1, objects.get(i).getObjectId());
+      assertEquals(Integer.toString(i + 1), objects.get(i).getFields().get(0).getValue().getText());
+    }
+
+    // The second request is answered from the cache.
+    getObjectPropertiesSync(objectIds);
+    assertEquals(20, vm.getRequestCount("getObjectProperties"));
+  }
+
+  public void test_lazyValue_page() throws Exception {
+    VmValue listValue = VmValue.createFrom(
+        isolate,
+        new JSONObject().put("objectId", 7).put("kind", "list").put("length", 250));
+
+    for (int i = 200; i < 250; i++) {
+      VmVariable variable = VmVariable.createArrayEntry(connection, listValue, i);
+
+      assertEquals(Integer.toString(i), variable.getValue().getText());
+    }
+
+    assertEquals(1, vm.getRequestCount("getListElements"));
+    assertEquals(200, vm.getLastRequest().getJSONObject("params").getInt("index"));
+    assertEquals(50, vm.getLastRequest().getJSONObject("params").getInt("length"));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    vm = new FakeVm();
+    connection = new VmConnection("127.0.0.1", vm.getPort());
+    connection.connect();
+    isolate = new VmIsolate(1);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    connection.close();
+    vm.close();
+
+    super.tearDown();
+  }
+
+  private VmValue getListElementSync(int listObjectId, int index) throws Exception {
+    final List<VmValue> result = new ArrayList<VmValue>();
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    connection.getListElements(isolate, listObjectId, index, new VmCallback<VmValue>() {
+      @Override
+      public void handleResult(VmResult<VmValue> r) {
+        result.add(r.getResult());
+        latch.countDown();
+      }
+    });
+
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+    return result.get(0);
+  }
+
+  private List<VmValue> getListElementsSync(int listObjectId, int index, int length)
+      throws Exception {
+    final List<VmValue> result = new ArrayList<VmValue>();
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    connection.getListElements(
+        isolate,
+        listObjectId,
+        index,
+        length,
+        new VmCallback<List<VmValue>>() {
+          @Override
+          public void handleResult(VmResult<List<VmValue>> r) {
+            result.addAll(r.getResult());
+            latch.countDown();
+          }
+        });
+
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+    return result;
+  }
+
+  private List<VmObject> getObjectPropertiesSync(List<Integer> objectIds) throws Exception {
+    final List<VmObject> result = new ArrayList<VmObject>();
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    connection.getObjectProperties(isolate, objectIds, new VmCallback<List<VmObject>>() {
+      @Override
+      public void handleResult(VmResult<List<VmObject>> r) {
+        result.addAll(r.getResult());
+        latch.countDown();
+      }
+    });
+
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+    return result;
+  }
+}
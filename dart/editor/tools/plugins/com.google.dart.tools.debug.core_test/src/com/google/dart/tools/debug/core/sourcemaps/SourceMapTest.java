@@ -25,6 +25,8 @@ import static org.junit.Assert.assertArrayEquals;
 
 import java.io.File;
 import java.net.URL;
+import java.util.List;
+import java.util.Random;
 
 public class SourceMapTest extends AbstractDartCoreTest {
 
@@ -32,6 +34,11 @@ public class SourceMapTest extends AbstractDartCoreTest {
       + "sourceRoot : \"\",\nsources: [\"foo.js\", \"bar.js\"],\n"
       + "names: [\"src\", \"maps\", \"are\", \"fun\"],\n" + "mappings: \"AA,AB;;ABCDE;\"\n}\n";
 
+  /**
+   * The number of lines in each of the sources of a generated source map.
+   */
+  private static final int SOURCE_LINE_COUNT = 500;
+
   public void testDwcParse() throws Exception {
     IFile file = testProject.setFileContent(
         "main.dart.map",
@@ -44,6 +51,38 @@ public class SourceMapTest extends AbstractDartCoreTest {
     assertEquals("../main.dart,15,0", map.getMappingFor(24, 0).toString());
   }
 
+  public void testGeneratedMap() throws Exception {
+    int lineCount = 2000;
+    int sourceCount = 10;
+    int[][] firstEntries = new int[sourceCount * SOURCE_LINE_COUNT][];
+    String[] firstMappings = new String[lineCount];
+
+    SourceMap map = createGeneratedMap(lineCount, sourceCount, firstEntries, firstMappings);
+
+    for (int line = 0; line < lineCount; line++) {
+      SourceMapInfo info = map.getMappingFor(line, -1);
+
+      assertEquals(firstMappings[line], info == null ? null : info.toString());
+    }
+
+    for (int source = 0; source < sourceCount; source++) {
+      for (int line = 0; line < SOURCE_LINE_COUNT; line++) {
+        List<SourceMapInfo> mappings = map.getReverseMappingsFor("source" + source + ".dart", line);
+        int[] expected = firstEntries[source * SOURCE_LINE_COUNT + line];
+
+        if (expected == null) {
+          assertEquals(0, mappings.size());
+        } else {
+          assertEquals(1, mappings.size());
+          assertEquals(expected[0], mappings.get(0).getLine());
+          assertEquals(expected[1], mappings.get(0).getColumn());
+        }
+      }
+    }
+
+    assertEquals(0, map.getReverseMappingsFor("unknown.dart", 1).size());
+  }
+
   public void testSimpleParse() throws Exception {
     String[] expectedNames = {"foo.js", "bar.js"};
 
@@ -88,6 +127,33 @@ public class SourceMapTest extends AbstractDartCoreTest {
         map.getMappingFor(1353, 60).toString());
   }
 
+  public void x_testGeneratedMapSpeed() throws Exception {
+    int lineCount = 200000;
+    int sourceCount = 100;
+
+    long startTime = System.currentTimeMillis();
+
+    SourceMap map = createGeneratedMap(lineCount, sourceCount, null, null);
+
+    long parseTime = System.currentTimeMillis();
+
+    map.getReverseMappingsFor("source0.dart", 0);
+
+    long indexTime = System.currentTimeMillis();
+
+    int lookupCount = 10000;
+
+    for (int i = 0; i < lookupCount; i++) {
+      map.getReverseMappingsFor("source" + (i % sourceCount) + ".dart", i % SOURCE_LINE_COUNT);
+    }
+
+    long endTime = System.currentTimeMillis();
+
+    // Currently 1300 ms to parse, 650 ms to index and 30 ms for the lookups.
+    System.out.println("parse " + (parseTime - startTime) + " ms, index " + (indexTime - parseTime)
+        + " ms, " + lookupCount + " reverse lookups " + (endTime - indexTime) + " ms");
+  }
+
   public void x_testParseSpeed() throws Exception {
     URL bundleURL = FileLocator.find(DartDebugCoreTestPlugin.getPlugin().getBundle(), new Path(
         "src/com/google/dart/tools/debug/core/sourcemaps/solar.dart.js.map"), null);
@@ -118,4 +184,69 @@ public class SourceMapTest extends AbstractDartCoreTest {
     System.out.printf("source maps parse at %.2f MB/s\n", mbps);
   }
 
+  /**
+   * Create a source map with the given number of generated lines, each with a random number of
+   * mappings into the given number of sources.
+   * 
+   * @param firstEntries if not {@code null}, filled with the generated line and column of the first
+   *          mapping to each line of each source
+   * @param firstMappings if not {@code null}, filled with the first mapping of each generated line
+   */
+  private SourceMap createGeneratedMap(int lineCount, int sourceCount, int[][] firstEntries,
+      String[] firstMappings) throws Exception {
+    Random random = new Random(0);
+    StringBuilder mappings = new StringBuilder();
+    int previousSource = 0;
+    int previousLine = 0;
+    int previousColumn = 0;
+
+    for (int line = 0; line < lineCount; line++) {
+      if (line > 0) {
+        mappings.append(';');
+      }
+
+      int column = 0;
+      int segmentCount = random.nextInt(20);
+
+      for (int i = 0; i < segmentCount; i++) {
+        int source = random.nextInt(sourceCount);
+        int sourceLine = random.nextInt(SOURCE_LINE_COUNT);
+        int sourceColumn = random.nextInt(80);
+        int columnDelta = 1 + random.nextInt(40);
+
+        if (i > 0) {
+          mappings.append(',');
+        }
+
+        mappings.append(VlqDecoder.encode(new int[] {
+            columnDelta, source - previousSource, sourceLine - previousLine,
+            sourceColumn - previousColumn}));
+
+        column += columnDelta;
+        previousSource = source;
+        previousLine = sourceLine;
+        previousColumn = sourceColumn;
+
+        if (firstEntries != null && firstEntries[source * SOURCE_LINE_COUNT + sourceLine] == null) {
+          firstEntries[source * SOURCE_LINE_COUNT + sourceLine] = new int[] {line, column};
+        }
+
+        if (firstMappings != null && i == 0) {
+          firstMappings[line] = "source" + source + ".dart," + sourceLine + "," + sourceColumn;
+        }
+      }
+    }
+
+    StringBuilder sources = new StringBuilder();
+
+    for (int i = 0; i < sourceCount; i++) {
+      sources.append(i == 0 ? "" : ", ").append("\"source" + i + ".dart\"");
+    }
+
+    String contents = "{version: 3, file: \"out.js\", sources: [" + sources + "], names: [],"
+        + " mappings: \"" + mappings + "\"}";
+
+    return SourceMap.createFrom(Path.fromOSString("/test/out.js.map"), contents);
+  }
+
 }
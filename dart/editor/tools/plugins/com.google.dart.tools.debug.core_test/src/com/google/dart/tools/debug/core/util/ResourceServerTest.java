@@ -15,6 +15,7 @@
 package com.google.dart.tools.debug.core.util;
 
 import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CharStreams;
 import com.google.common.io.Files;
 import com.google.dart.tools.core.test.util.TestProject;
@@ -24,11 +25,19 @@ import junit.framework.TestCase;
 
 import org.eclipse.core.resources.IFile;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class ResourceServerTest extends TestCase {
   private ResourceServer server;
@@ -62,6 +71,163 @@ public class ResourceServerTest extends TestCase {
     connection.getInputStream().close();
   }
 
+  public void test_conditionalGet_ifModifiedSince() throws Exception {
+    IFile file = project.setFileContent("foo.txt", "foo");
+    String url = server.getUrlForResource(file);
+
+    HttpURLConnection connection = createConnection(url);
+    assertEquals(200, connection.getResponseCode());
+    String lastModified = connection.getHeaderField("Last-Modified");
+    connection.getInputStream().close();
+
+    connection = createConnection(url);
+    connection.setRequestProperty("If-Modified-Since", lastModified);
+
+    assertEquals(304, connection.getResponseCode());
+    assertEquals(-1, connection.getInputStream().read());
+  }
+
+  public void test_conditionalGet_ifNoneMatch() throws Exception {
+    IFile file = project.setFileContent("foo.txt", "foo");
+    String url = server.getUrlForResource(file);
+
+    HttpURLConnection connection = createConnection(url);
+    assertEquals(200, connection.getResponseCode());
+    String etag = connection.getHeaderField("ETag");
+    connection.getInputStream().close();
+
+    assertNotNull(etag);
+
+    connection = createConnection(url);
+    connection.setRequestProperty("If-None-Match", etag);
+    assertEquals(304, connection.getResponseCode());
+    connection.getInputStream().close();
+
+    // A changed file does not match the old tag.
+    project.setFileContent("foo.txt", "foobar");
+
+    connection = createConnection(url);
+    connection.setRequestProperty("If-None-Match", etag);
+    assertEquals(200, connection.getResponseCode());
+    assertEquals(
+        "foobar",
+        CharStreams.toString(new InputStreamReader(connection.getInputStream(), "UTF-8")));
+  }
+
+  public void test_keepAlive() throws Exception {
+    IFile file1 = project.setFileContent("foo.txt", "foo");
+    IFile file2 = project.setFileContent("bar.txt", "barbaz");
+    String path1 = URI.create(server.getUrlForResource(file1)).getRawPath();
+    String path2 = URI.create(server.getUrlForResource(file2)).getRawPath();
+
+    Socket socket = new Socket("localhost", server.getPort());
+    socket.setSoTimeout(3000);
+
+    try {
+      OutputStream out = socket.getOutputStream();
+      InputStream in = socket.getInputStream();
+
+      // Two requests in sequence, then two pipelined requests, on the same connection.
+      out.write(createRequest(path1, "").getBytes("US-ASCII"));
+      assertEquals("foo", readResponseBody(in));
+
+      out.write(createRequest(path2, "").getBytes("US-ASCII"));
+      assertEquals("barbaz", readResponseBody(in));
+
+      String requests = createRequest(path2, "") + createRequest(path1, "Connection: close\r\n");
+      out.write(requests.getBytes("US-ASCII"));
+      assertEquals("barbaz", readResponseBody(in));
+      assertEquals("foo", readResponseBody(in));
+
+      // The server closed the connection, as asked.
+      assertEquals(-1, in.read());
+    } finally {
+      socket.close();
+    }
+  }
+
+  public void test_keepAlive_postLog() throws Exception {
+    IFile file = project.setFileContent("foo.txt", "foo");
+    String path = URI.create(server.getUrlForResource(file)).getRawPath();
+
+    Socket socket = new Socket("localhost", server.getPort());
+    socket.setSoTimeout(3000);
+
+    try {
+      OutputStream out = socket.getOutputStream();
+      InputStream in = socket.getInputStream();
+
+      // The logging response has an empty body, and the connection stays usable after it.
+      String body = "{}";
+      String request = "POST /log HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + body.length()
+          + "\r\n\r\n" + body;
+      out.write(request.getBytes("US-ASCII"));
+      assertEquals("", readResponseBody(in));
+
+      out.write(createRequest(path, "").getBytes("US-ASCII"));
+      assertEquals("foo", readResponseBody(in));
+    } finally {
+      socket.close();
+    }
+  }
+
+  public void test_load() throws Exception {
+    final int fileCount = 20;
+    final int threadCount = 8;
+    final int requestCount = 50;
+
+    final List<String> urls = new ArrayList<String>();
+
+    for (int i = 0; i < fileCount; i++) {
+      StringBuilder builder = new StringBuilder();
+
+      // Include files too large to be held in the server's cache.
+      for (int j = 0; j < (i % 2 == 0 ? 10 : 10000); j++) {
+        builder.append("file" + i + " ");
+      }
+
+      urls.add(server.getUrlForResource(project.setFileContent(
+          "file" + i + ".txt",
+          builder.toString())));
+    }
+
+    final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+    Thread[] threads = new Thread[threadCount];
+
+    for (int i = 0; i < threadCount; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < requestCount; j++) {
+            int index = (int) (Math.random() * fileCount);
+
+            try {
+              HttpURLConnection connection = createConnection(urls.get(index));
+              String content = CharStreams.toString(new InputStreamReader(
+                  connection.getInputStream(),
+                  "UTF-8"));
+
+              if (connection.getResponseCode() != 200
+                  || content.length() != connection.getContentLength()
+                  || !content.startsWith("file" + index + " ")) {
+                failures.add(urls.get(index));
+              }
+            } catch (IOException e) {
+              failures.add(urls.get(index) + ": " + e);
+            }
+          }
+        }
+      };
+      threads[i].start();
+    }
+
+    for (Thread thread : threads) {
+      thread.join(60000);
+    }
+
+    assertEquals(Collections.emptyList(), failures);
+  }
+
   public void test_onlyServeWorkspaceFiles() throws Exception {
     File file = File.createTempFile("foo", ".txt");
     Files.write("foo", file, Charsets.UTF_8);
@@ -116,6 +282,10 @@ public class ResourceServerTest extends TestCase {
     super.tearDown();
   }
 
+  private String createRequest(String path, String headers) {
+    return "GET " + path + " HTTP/1.1\r\nHost: localhost\r\n" + headers + "\r\n";
+  }
+
   private HttpURLConnection createConnection(String url) throws IOException {
     HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
     connection.setConnectTimeout(3000);
@@ -123,4 +293,44 @@ public class ResourceServerTest extends TestCase {
     return connection;
   }
 
+  /**
+   * Read a complete response with a Content-Length header from the given stream, and return its
+   * body.
+   */
+  private String readResponseBody(InputStream in) throws IOException {
+    int contentLength = -1;
+
+    while (true) {
+      ByteArrayOutputStream line = new ByteArrayOutputStream();
+      int c = in.read();
+
+      while (c != '\n') {
+        assertTrue("unexpected end of stream", c != -1);
+
+        if (c != '\r') {
+          line.write(c);
+        }
+
+        c = in.read();
+      }
+
+      String header = line.toString("US-ASCII");
+
+      if (header.isEmpty()) {
+        break;
+      }
+
+      if (header.toLowerCase().startsWith("content-length:")) {
+        contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+      }
+    }
+
+    assertTrue("missing Content-Length", contentLength >= 0);
+
+    byte[] body = new byte[contentLength];
+    ByteStreams.readFully(in, body);
+
+    return new String(body, "UTF-8");
+  }
+
 }